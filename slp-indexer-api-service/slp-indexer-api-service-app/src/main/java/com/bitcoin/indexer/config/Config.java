@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.Sort.Direction;
@@ -19,12 +20,23 @@ import org.springframework.data.mongodb.core.index.Index;
 import com.bitcoin.indexer.core.Coin;
 import com.bitcoin.indexer.facade.InsightsFacade;
 import com.bitcoin.indexer.facade.InsightsFacadeImpl;
+import com.bitcoin.indexer.metrics.MongoBytesReadListener;
+import com.bitcoin.indexer.repository.AddressTokenBalanceRepository;
+import com.bitcoin.indexer.repository.AddressTokenBalanceRepositoryImpl;
+import com.bitcoin.indexer.repository.AddressTransactionRepository;
+import com.bitcoin.indexer.repository.AddressTransactionRepositoryImpl;
+import com.bitcoin.indexer.repository.RawTransactionRepository;
+import com.bitcoin.indexer.repository.RawTransactionRepositoryImpl;
 import com.bitcoin.indexer.repository.SlpDetailsRepository;
 import com.bitcoin.indexer.repository.SlpDetailsRepositoryImpl;
+import com.bitcoin.indexer.repository.TokenStatsRepository;
+import com.bitcoin.indexer.repository.TokenStatsRepositoryImpl;
 import com.bitcoin.indexer.repository.TransactionRepository;
 import com.bitcoin.indexer.repository.TransactionRepositoryImpl;
 import com.bitcoin.indexer.repository.UtxoRepository;
 import com.bitcoin.indexer.repository.UtxoRepositoryImpl;
+import com.bitcoin.indexer.repository.db.AddressTokenBalanceDbObject;
+import com.bitcoin.indexer.repository.db.AddressTransactionDbObject;
 import com.bitcoin.indexer.repository.db.AllOutputsDbObject;
 import com.bitcoin.indexer.repository.db.BlockDbObject;
 import com.bitcoin.indexer.repository.db.TransactionDbObject;
@@ -46,16 +58,34 @@ public class Config implements InitializingBean {
 	}
 
 	@Bean
-	public MongoClientOptions mongoOptions() {
+	public MongoBytesReadListener mongoBytesReadListener() {
+		return new MongoBytesReadListener();
+	}
+
+	@Bean
+	public MongoClientOptions mongoOptions(MongoBytesReadListener mongoBytesReadListener) {
 		return MongoClientOptions.builder()
 				.connectionsPerHost(15000)
 				.threadsAllowedToBlockForConnectionMultiplier(3000)
+				.addCommandListener(mongoBytesReadListener)
 				.build();
 	}
 
 	@Bean
-	public TransactionRepository transactionRepository(ReactiveMongoTemplate reactiveMongoTemplate, MongoOperations mongoOperations, Coin coin) {
-		return new TransactionRepositoryImpl(mongoOperations, reactiveMongoTemplate, coin);
+	public MongoClientSettingsBuilderCustomizer reactiveMongoBytesRead(MongoBytesReadListener mongoBytesReadListener) {
+		return builder -> builder.addCommandListener(mongoBytesReadListener);
+	}
+
+	@Bean
+	public TransactionRepository transactionRepository(ReactiveMongoTemplate reactiveMongoTemplate, MongoOperations mongoOperations, Coin coin,
+			RawTransactionRepository rawTransactionRepository) {
+		return new TransactionRepositoryImpl(mongoOperations, reactiveMongoTemplate, coin, rawTransactionRepository);
+	}
+
+	@Bean
+	public RawTransactionRepository rawTransactionRepository(ReactiveMongoTemplate reactiveMongoTemplate, MongoOperations mongoOperations,
+			@Value("${raw.transactions.compress:false}") String compress) {
+		return new RawTransactionRepositoryImpl(mongoOperations, reactiveMongoTemplate, Boolean.parseBoolean(compress));
 	}
 
 	@Bean
@@ -69,6 +99,22 @@ public class Config implements InitializingBean {
 		return new UtxoRepositoryImpl(false, reactiveMongoTemplate, mongoOperations, 1000);
 	}
 
+	@Bean
+	public AddressTokenBalanceRepository addressTokenBalanceRepository(ReactiveMongoTemplate reactiveMongoTemplate, MongoOperations mongoOperations,
+			TokenStatsRepository tokenStatsRepository) {
+		return new AddressTokenBalanceRepositoryImpl(mongoOperations, reactiveMongoTemplate, tokenStatsRepository);
+	}
+
+	@Bean
+	public TokenStatsRepository tokenStatsRepository(ReactiveMongoTemplate reactiveMongoTemplate, MongoOperations mongoOperations) {
+		return new TokenStatsRepositoryImpl(mongoOperations, reactiveMongoTemplate);
+	}
+
+	@Bean
+	public AddressTransactionRepository addressTransactionRepository(ReactiveMongoTemplate reactiveMongoTemplate, MongoOperations mongoOperations) {
+		return new AddressTransactionRepositoryImpl(mongoOperations, reactiveMongoTemplate);
+	}
+
 	@Bean
 	public SlpDetailsRepository detailsRepository(ReactiveMongoTemplate reactiveMongoTemplate) {
 		return new SlpDetailsRepositoryImpl(reactiveMongoTemplate);
@@ -151,6 +197,16 @@ public class Config implements InitializingBean {
 				document
 		).named("valid_tokenId_tx")).block();
 
+		// Serves the newest first token listings, continuing after a (time, txId) cursor
+		document = new Document();
+		document.put("outputs.slpUtxoType.slpTokenId", 1);
+		document.put("slpValid.valid", 1);
+		document.put("time", -1);
+		document.put("_id", -1);
+		mongoTemplate.indexOps(TransactionDbObject.class).ensureIndex(new CompoundIndexDefinition(
+				document
+		).named("tokenId_valid_time_tx")).block();
+
 		mongoTemplate.indexOps(TransactionDbObject.class)
 				.ensureIndex(new Index("outputs.slpUtxoType.slpTokenId", Direction.ASC).named("tokenId_tx")).block();
 
@@ -171,5 +227,22 @@ public class Config implements InitializingBean {
 		mongoTemplate.indexOps(BlockDbObject.class)
 				.ensureIndex(new Index("height", Direction.ASC).named("block_height")).block();
 
+		mongoTemplate.indexOps(AddressTokenBalanceDbObject.class)
+				.ensureIndex(new Index("address", Direction.ASC).named("address_balance")).block();
+
+		mongoTemplate.indexOps(AddressTokenBalanceDbObject.class)
+				.ensureIndex(new Index("tokenId", Direction.ASC).named("tokenId_balance")).block();
+
+		document = new Document();
+		document.put("a", 1);
+		document.put("k", 1);
+		document.put("h", -1);
+		document.put("tx", -1);
+		mongoTemplate.indexOps(AddressTransactionDbObject.class).ensureIndex(new CompoundIndexDefinition(
+				document
+		).named("address_token_height_tx")).block();
+
+		mongoTemplate.indexOps(AddressTransactionDbObject.class)
+				.ensureIndex(new Index("tx", Direction.ASC).named("tx_address_transaction")).block();
 	}
 }
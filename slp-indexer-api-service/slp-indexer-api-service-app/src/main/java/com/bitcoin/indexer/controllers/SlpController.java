@@ -16,17 +16,24 @@ import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.spongycastle.util.encoders.Hex;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.AddressTransaction;
 import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.TokenBalance;
+import com.bitcoin.indexer.blockchain.domain.TokenStats;
+import com.bitcoin.indexer.blockchain.domain.TransactionCursor;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.blockchain.domain.UtxoMinimalData;
 import com.bitcoin.indexer.blockchain.domain.slp.ByteUtils;
@@ -40,7 +47,11 @@ import com.bitcoin.indexer.core.Coin;
 import com.bitcoin.indexer.facade.InsightsFacade;
 import com.bitcoin.indexer.facade.InsightsResponse;
 import com.bitcoin.indexer.metrics.SystemTimer;
+import com.bitcoin.indexer.repository.AddressTokenBalanceRepository;
+import com.bitcoin.indexer.repository.AddressTransactionRepository;
+import com.bitcoin.indexer.repository.RawTransactionRepository;
 import com.bitcoin.indexer.repository.SlpDetailsRepository;
+import com.bitcoin.indexer.repository.TokenStatsRepository;
 import com.bitcoin.indexer.repository.TransactionRepository;
 import com.bitcoin.indexer.repository.UtxoRepository;
 import com.bitcoin.indexer.requests.AddressConverterRequest;
@@ -84,8 +95,18 @@ public class SlpController {
 	private Coin coin;
 	private SlpDetailsRepository detailsRepository;
 	private InsightsFacade insightsFacade;
+	private AddressTokenBalanceRepository addressTokenBalanceRepository;
+	private final boolean balanceCollectionEnabled;
+	private TokenStatsRepository tokenStatsRepository;
+	private final boolean tokenStatsEnabled;
+	private AddressTransactionRepository addressTransactionRepository;
+	private RawTransactionRepository rawTransactionRepository;
+	private final boolean addressIndexEnabled;
 	private static final Logger logger = LoggerFactory.getLogger(SlpController.class);
 	private static final int MAX_BATCH_SIZE = 3;
+	private static final int ADDRESS_TRANSACTIONS_PAGE_SIZE = 100;
+	private static final int MAX_ADDRESS_TRANSACTIONS_PAGE_SIZE = 1000;
+	private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 	private final Cache<String, ExtendedDetailsResponse> extendedDetailsResponseCache = Caffeine.newBuilder()
 			.executor(Executors.newSingleThreadExecutor())
 			.maximumSize(100)
@@ -97,6 +118,7 @@ public class SlpController {
 
 	private final ScheduledExecutorService refresh = Executors.newSingleThreadScheduledExecutor();
 
+	// Too expensive to scan on request, kept warm while tokenStats is not read
 	private Set<String> bigTokens = Set.of("7f8889682d57369ed0e32336f8b7e0ffec625a35cca183f4e81fde4e71a538a1", //HONK
 			"4de69e374a8ed21cbddd47f2338cc0f479dc58daa2bbe11cd604ca488eca0ddf", //SPICE
 			"aa1cdd36ab9f4aa6284e5ff370421305887f845f076c38689bd912e372058c11", //TRIBE
@@ -106,26 +128,41 @@ public class SlpController {
 			UtxoRepository utxoRepository,
 			Coin coin,
 			SlpDetailsRepository detailsRepository,
-			InsightsFacade insightsFacade) {
+			InsightsFacade insightsFacade,
+			AddressTokenBalanceRepository addressTokenBalanceRepository,
+			@Value("${balance.collection.enabled:false}") String balanceCollectionEnabled,
+			TokenStatsRepository tokenStatsRepository,
+			@Value("${token.stats.enabled:false}") String tokenStatsEnabled,
+			AddressTransactionRepository addressTransactionRepository,
+			@Value("${address.index.enabled:false}") String addressIndexEnabled,
+			RawTransactionRepository rawTransactionRepository) {
 		this.transactionRepository = transactionRepository;
 		this.utxoRepository = utxoRepository;
 		this.coin = coin;
 		this.detailsRepository = detailsRepository;
 		this.insightsFacade = Objects.requireNonNull(insightsFacade);
-
-		refresh.scheduleWithFixedDelay(
-				() -> {
-					try {
-						SystemTimer systemTimer = SystemTimer.create();
-						systemTimer.start();
-						makeExtendedListRequest(new ArrayList<>(bigTokens)).blockingGet();
-						logger.info("Completed refresh of bigTokens time={}", systemTimer.getMsSinceStart());
-					} catch (Exception e) {
-						logger.error("Error refreshing", e);
-					}
-				}, 1000, 30000, TimeUnit.MILLISECONDS
-		);
-
+		this.addressTokenBalanceRepository = Objects.requireNonNull(addressTokenBalanceRepository);
+		this.balanceCollectionEnabled = Boolean.parseBoolean(balanceCollectionEnabled);
+		this.tokenStatsRepository = Objects.requireNonNull(tokenStatsRepository);
+		this.tokenStatsEnabled = Boolean.parseBoolean(tokenStatsEnabled);
+		this.addressTransactionRepository = Objects.requireNonNull(addressTransactionRepository);
+		this.addressIndexEnabled = Boolean.parseBoolean(addressIndexEnabled);
+		this.rawTransactionRepository = Objects.requireNonNull(rawTransactionRepository);
+
+		if (!this.tokenStatsEnabled) {
+			refresh.scheduleWithFixedDelay(
+					() -> {
+						try {
+							SystemTimer systemTimer = SystemTimer.create();
+							systemTimer.start();
+							makeExtendedListRequest(new ArrayList<>(bigTokens)).blockingGet();
+							logger.info("Completed refresh of bigTokens time={}", systemTimer.getMsSinceStart());
+						} catch (Exception e) {
+							logger.error("Error refreshing", e);
+						}
+					}, 1000, 30000, TimeUnit.MILLISECONDS
+			);
+		}
 	}
 
 	@GetMapping("/validateTxid/{txId}")
@@ -134,11 +171,10 @@ public class SlpController {
 			return Single.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a valid txId=" + txId));
 		}
 
-		return transactionRepository.fetchTransaction(txId, Coin.BCH, false)
-				.map(e -> e.getTransaction().getSlpValid()
+		return transactionRepository.fetchValidity(List.of(txId))
+				.map(validity -> Optional.ofNullable(validity.get(txId))
 						.map(v -> new SlpValidateResponse(txId, getValid(v), v.getReason()))
-						.orElse(new SlpValidateResponse(txId, false, "")))
-				.toSingle(new SlpValidateResponse(txId, false, ""));
+						.orElse(new SlpValidateResponse(txId, false, "")));
 	}
 
 	@PostMapping("/validateTxid")
@@ -151,13 +187,12 @@ public class SlpController {
 			return Single.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch size cannot be larger than 500"));
 		}
 
-		return transactionRepository.fetchTransactions(request.txids, coin, true)
-				.toFlowable()
-				.flatMap(Flowable::fromIterable)
-				.map(txs -> txs.getTransaction().getSlpValid()
-						.map(v -> new SlpValidateResponse(txs.getTransaction().getTxId(), getValid(v), v.getReason()))
-						.orElse(new SlpValidateResponse(txs.getTransaction().getTxId(), false, "")))
-				.toList();
+		return transactionRepository.fetchValidity(request.txids)
+				.map(validity -> request.txids.stream()
+						.distinct()
+						.filter(validity::containsKey)
+						.map(txId -> new SlpValidateResponse(txId, getValid(validity.get(txId)), validity.get(txId).getReason()))
+						.collect(Collectors.toList()));
 	}
 
 	private boolean getValid(SlpValid slpValid) {
@@ -192,6 +227,10 @@ public class SlpController {
 			return Single.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a valid tokenId=" + tokenId));
 		}
 
+		if (tokenStatsEnabled) {
+			return makeExtendedRequest(tokenId);
+		}
+
 		ExtendedDetailsResponse cached = extendedDetailsResponseCache.getIfPresent(tokenId);
 		if (cached != null) {
 			refresh(tokenId, () -> makeExtendedRequest(tokenId).subscribeOn(schedulers).subscribe());
@@ -203,18 +242,13 @@ public class SlpController {
 	private Single<ExtendedDetailsResponse> makeExtendedRequest(@PathVariable String tokenId) {
 		return Maybe.zip(detailsRepository.fetchExtendedDetails(List.of(new SlpTokenId(tokenId))).toMaybe(),
 				transactionRepository.fetchTransaction(tokenId, coin, true),
-				utxoRepository.fetchMinimalUtxoData(List.of(tokenId), false, Valid.VALID).toMaybe(),
-				transactionRepository.transactionsForTokenId(tokenId).toMaybe(), (details, tx, utxos, numTxs) -> {
+				tokenStats(tokenId).toMaybe(), (details, tx, stats) -> {
 					Optional<ExtendedDetails> extendedDetails = details.stream().findFirst();
 
-					boolean hasBaton = utxos.stream().anyMatch(UtxoMinimalData::isHasBaton);
-					BigDecimal quantity = utxos.stream().map(UtxoMinimalData::getAmount)
-							.reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
 					Integer activeMint = extendedDetails.flatMap(ExtendedDetails::getLastActiveMint).orElse(null);
 					Integer lastActiveSend = extendedDetails.flatMap(ExtendedDetails::getLastActiveSend).orElse(null);
 					ExtendedDetailsResponse extendedDetailsResponse = getExtendedDetailsResponse(extendedDetails.map(ExtendedDetails::getSlpTokenDetails).orElse(null),
-							tx, utxos, hasBaton, quantity, activeMint, lastActiveSend,
-							numTxs);
+							tx, stats, activeMint, lastActiveSend);
 
 					Optional.ofNullable(extendedDetailsResponse).ifPresent(d -> {
 						logger.info("Added to cache tokenId={}", tokenId);
@@ -234,6 +268,10 @@ public class SlpController {
 		}
 
 		List<String> tokens = request.tokenIds.stream().distinct().collect(Collectors.toList());
+		if (tokenStatsEnabled) {
+			return makeExtendedListRequest(tokens);
+		}
+
 		List<ExtendedDetailsResponse> cached = new ArrayList<>();
 		for (String token : new ArrayList<>(tokens)) {
 			Optional<ExtendedDetailsResponse> response = refresh(token, () -> makeExtendedRequest(token).subscribeOn(schedulers).subscribe());
@@ -256,21 +294,16 @@ public class SlpController {
 	private Single<List<ExtendedDetailsResponse>> makeExtendedListRequest(List<String> tokens) {
 		return Single.zip(detailsRepository.fetchExtendedDetails(tokens.stream().map(SlpTokenId::new).collect(Collectors.toList())),
 				transactionRepository.fetchTransactions(tokens, coin, true),
-				utxoRepository.fetchMinimalUtxoData(tokens, false, Valid.VALID),
-				transactionRepository.transactionsForTokenIds(tokens), (details, txs, utxos, txCountForTokens) -> {
+				tokenStats(tokens), (details, txs, tokenStats) -> {
 					Map<SlpTokenId, ExtendedDetails> idSlpTokenDetailsMap = details.stream().collect(Collectors.toMap(k -> k.getSlpTokenDetails().getTokenId(), v -> v));
 					Map<String, IndexerTransaction> txIdTx = txs.stream().collect(Collectors.toMap(k -> k.getTransaction().getTxId(), v -> v));
-					Map<String, List<UtxoMinimalData>> tokenIdUtxos = utxos.stream().collect(Collectors.groupingBy(UtxoMinimalData::getTokenId));
 					return tokens.stream().map(t -> {
 						ExtendedDetails extendedDetails = idSlpTokenDetailsMap.get(new SlpTokenId(t));
 						SlpTokenDetails slpTokenDetails = extendedDetails.getSlpTokenDetails();
 						IndexerTransaction genesis = txIdTx.get(t);
-						List<UtxoMinimalData> txUtxos = tokenIdUtxos.containsKey(t) ? tokenIdUtxos.get(t) : List.of();
 						Integer activeMint = extendedDetails.getLastActiveMint().orElse(null);
 						Integer lastActiveSend = extendedDetails.getLastActiveSend().orElse(null);
-						boolean hasBaton = hasBaton(txUtxos);
-						BigDecimal quantity = getQuantity(txUtxos);
-						ExtendedDetailsResponse extendedDetailsResponse = getExtendedDetailsResponse(slpTokenDetails, genesis, utxos, hasBaton, quantity, activeMint, lastActiveSend, txCountForTokens.get(t));
+						ExtendedDetailsResponse extendedDetailsResponse = getExtendedDetailsResponse(slpTokenDetails, genesis, tokenStats.get(t), activeMint, lastActiveSend);
 						Optional.ofNullable(extendedDetailsResponse).ifPresent(d -> {
 							logger.trace("Added to cache tokenId={}", t);
 							extendedDetailsResponseCache.put(t, d);
@@ -284,6 +317,40 @@ public class SlpController {
 				.onErrorResumeNext(e -> Single.error(() -> new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error", e)));
 	}
 
+	private Single<TokenStats> tokenStats(String tokenId) {
+		if (tokenStatsEnabled) {
+			return tokenStatsRepository.fetchTokenStats(tokenId)
+					.switchIfEmpty(computeTokenStats(tokenId));
+		}
+		return computeTokenStats(tokenId);
+	}
+
+	private Single<Map<String, TokenStats>> tokenStats(List<String> tokens) {
+		Single<List<TokenStats>> stored = tokenStatsEnabled ? tokenStatsRepository.fetchTokenStats(tokens) : Single.just(List.of());
+		return stored.flatMap(stats -> {
+			Map<String, TokenStats> tokenStats = stats.stream().collect(Collectors.toMap(TokenStats::getTokenId, v -> v));
+			return Flowable.fromIterable(tokens)
+					.filter(t -> !tokenStats.containsKey(t))
+					.concatMapSingle(this::computeTokenStats)
+					.reduce(tokenStats, (result, computed) -> {
+						result.put(computed.getTokenId(), computed);
+						return result;
+					});
+		});
+	}
+
+	// Full scan of the token's utxos, used until tokenStats has been rebuilt by the indexer
+	private Single<TokenStats> computeTokenStats(String tokenId) {
+		return Single.zip(utxoRepository.fetchMinimalUtxoData(List.of(tokenId), false, Valid.VALID),
+				transactionRepository.transactionsForTokenId(tokenId), (utxos, numTxs) -> new TokenStats(tokenId,
+						getQuantity(utxos),
+						utxos.size(),
+						utxos.stream().filter(UtxoMinimalData::isHasBaton).count(),
+						numberValidAddresses(utxos),
+						getTotalMinted(utxos),
+						numTxs.longValue()));
+	}
+
 	@GetMapping("/convert/{address}")
 	public Single<AddressConvertResponse> convertAddress(@PathVariable String address) {
 		if (address.contains("simpleledger")) {
@@ -318,19 +385,17 @@ public class SlpController {
 	public Single<List<BalanceResponse>> slpBalanceForAddress(@PathVariable String address) {
 		Address base58 = getAddress(address);
 
-		return utxoRepository.fetchSlpUtxosForAddress(base58, coin, false, Valid.VALID)
-				.flatMap(utxos -> {
-					Map<String, List<SlpUtxo>> utxosPerTokenId = utxos.stream().map(e -> e.getSlpUtxo().get())
-							.collect(Collectors.groupingBy(k -> k.getSlpTokenId().getHex()));
-					return Flowable.fromIterable(utxosPerTokenId.entrySet())
-							.flatMapMaybe(entry -> detailsRepository.fetchSlpDetails(new SlpTokenId(entry.getKey()))
-									.map(details -> {
-										String tokenId = entry.getKey();
-										BigDecimal totalTokenBalance = entry.getValue().stream().map(SlpUtxo::getAmount).reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
-										int decimals = details == null ? -1 : details.getDecimals();
-										return new BalanceResponse(tokenId, totalTokenBalance, totalTokenBalance.toString(), address, decimals);
-									})).toList();
-				});
+		return balancesForAddress(base58, address);
+	}
+
+	private Single<List<BalanceResponse>> balancesForAddress(Address base58, String address) {
+		Flowable<TokenBalance> balances = balanceCollectionEnabled
+				? addressTokenBalanceRepository.fetchBalances(base58)
+				: utxoRepository.fetchAddressBalances(base58, Valid.VALID);
+		return balances
+				.flatMapMaybe(balance -> detailsRepository.fetchSlpDetails(new SlpTokenId(balance.getTokenId()))
+						.map(details -> new BalanceResponse(balance.getTokenId(), balance.getBalance(), balance.getBalance().toString(), address, details.getDecimals())))
+				.toList();
 	}
 
 	private Address getAddress(String address) {
@@ -353,20 +418,7 @@ public class SlpController {
 		List<Address> addresses = request.addresses.stream().map(this::getAddress).collect(Collectors.toList());
 
 		return Flowable.fromIterable(addresses)
-				.flatMapSingle(address -> utxoRepository.fetchSlpUtxosForAddress(address, coin, false, Valid.VALID))
-				.flatMapSingle(utxos -> {
-					Map<String, List<SlpUtxo>> utxosPerTokenId = utxos.stream().map(e -> e.getSlpUtxo().get())
-							.collect(Collectors.groupingBy(k -> k.getSlpTokenId().getHex()));
-					return Flowable.fromIterable(utxosPerTokenId.entrySet())
-							.flatMapMaybe(entry -> detailsRepository.fetchSlpDetails(new SlpTokenId(entry.getKey()))
-									.map(details -> {
-										String tokenId = entry.getKey();
-										String address = utxos.stream().findFirst().map(e -> e.getAddress().getAddress()).orElse(null);
-										BigDecimal totalTokenBalance = entry.getValue().stream().map(SlpUtxo::getAmount).reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
-										int decimals = details == null ? -1 : details.getDecimals();
-										return new BalanceResponse(tokenId, totalTokenBalance, totalTokenBalance.toString(), address, decimals);
-									})).toList();
-				})
+				.concatMapSingle(address -> balancesForAddress(address, address.getAddress()))
 				.toList()
 				.doOnError(er -> logger.error("Could not fetch slp for addresses={}", request.addresses, er))
 				.onErrorReturnItem(List.of());
@@ -378,26 +430,23 @@ public class SlpController {
 			return Single.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a valid tokenId=" + tokenId));
 		}
 
-		return utxoRepository.fetchUtxosWithTokenId(List.of(tokenId), false, Valid.VALID)
-				.map(utxos -> {
-					Map<Address, List<Utxo>> addressTokenUtxos = utxos.stream()
-							.filter(e -> e.getSlpUtxo().isPresent())
-							.collect(Collectors.groupingBy(Utxo::getAddress));
-					return addressTokenUtxos.entrySet().stream()
-							.map(entry -> {
-								Address address = entry.getKey();
-								BigDecimal totalTokenBalance = entry.getValue().stream()
-										.map(e -> e.getSlpUtxo().get())
-										.map(SlpUtxo::getAmount).reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
-								return new BalanceForTokenResponse(totalTokenBalance,
-										totalTokenBalance.toPlainString(),
-										Address.base58ToSlp(address.getAddress()).getAddress(), tokenId);
-							}).collect(Collectors.toList());
-				})
+		// Collected before the fallback so a failure part way returns nothing instead of a truncated list
+		return balancesForToken(tokenId)
+				.toList()
 				.doOnError(er -> logger.error("Error fetching balanceFor tokenId={}", tokenId, er))
 				.onErrorReturnItem(List.of());
 	}
 
+	private Flowable<BalanceForTokenResponse> balancesForToken(String tokenId) {
+		Flowable<TokenBalance> balances = balanceCollectionEnabled
+				? addressTokenBalanceRepository.fetchHolders(tokenId)
+				: utxoRepository.fetchTokenBalances(tokenId, Valid.VALID);
+		return balances
+				.map(balance -> new BalanceForTokenResponse(balance.getBalance(),
+						balance.getBalance().toPlainString(),
+						Address.base58ToSlp(balance.getAddress().getAddress()).getAddress(), tokenId));
+	}
+
 	@PostMapping("balancesForToken")
 	public Single<List<List<BalanceForTokenResponse>>> balanceForToken(@RequestBody BalanceForTokenRequest request) {
 		if (request.tokenIds.size() >= 2) {
@@ -411,22 +460,7 @@ public class SlpController {
 		}
 
 		return Flowable.fromIterable(request.tokenIds)
-				.flatMapSingle(tokenId -> utxoRepository.fetchUtxosWithTokenId(List.of(tokenId), false, Valid.VALID)
-						.map(utxos -> {
-							Map<Address, List<Utxo>> addressTokenUtxos = utxos.stream()
-									.filter(e -> e.getSlpUtxo().isPresent())
-									.collect(Collectors.groupingBy(Utxo::getAddress));
-							return addressTokenUtxos.entrySet().stream()
-									.map(entry -> {
-										Address address = entry.getKey();
-										BigDecimal totalTokenBalance = entry.getValue().stream()
-												.map(e -> e.getSlpUtxo().get())
-												.map(SlpUtxo::getAmount).reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
-										return new BalanceForTokenResponse(totalTokenBalance,
-												totalTokenBalance.toPlainString(),
-												Address.base58ToSlp(address.getAddress()).getAddress(), tokenId);
-									}).collect(Collectors.toList());
-						})
+				.flatMapSingle(tokenId -> balancesForToken(tokenId).toList()
 						.doOnError(er -> logger.error("Error fetching balanceFor tokenId={}", tokenId, er))
 						.onErrorReturnItem(List.of()))
 				.toList();
@@ -439,10 +473,14 @@ public class SlpController {
 			return Single.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a valid tokenId=" + tokenId));
 		}
 
-		return utxoRepository.fetchSlpUtxosForAddress(base58, coin, false, Valid.VALID)
+		if (balanceCollectionEnabled) {
+			return balanceForAddressToken(base58, address, tokenId);
+		}
+
+		return utxoRepository.fetchSlpOutputsForAddress(base58, Valid.VALID)
 				.zipWith(detailsRepository.fetchSlpDetails(new SlpTokenId(tokenId))
 						.toSingle(new SlpTokenDetails(new SlpTokenId(tokenId), "", "", -1, "", null)), ((utxos, details) -> {
-					Map<String, List<SlpUtxo>> utxosPerTokenId = utxos.stream().map(e -> e.getSlpUtxo().get())
+					Map<String, List<SlpUtxo>> utxosPerTokenId = utxos.stream()
 							.collect(Collectors.groupingBy(k -> k.getSlpTokenId().getHex()));
 					if (!utxosPerTokenId.containsKey(tokenId)) {
 						return new BalanceResponse(tokenId, BigDecimal.ZERO, BigDecimal.ZERO.toString(), address, -1);
@@ -464,11 +502,17 @@ public class SlpController {
 			}
 		}
 
+		if (balanceCollectionEnabled) {
+			return Flowable.fromIterable(requests)
+					.concatMapSingle(req -> balanceForAddressToken(getAddress(req.address), req.address, req.tokenId))
+					.toList();
+		}
+
 		return Flowable.fromIterable(requests)
-				.flatMapSingle(req -> utxoRepository.fetchSlpUtxosForAddress(getAddress(req.address), coin, false, Valid.VALID)
+				.flatMapSingle(req -> utxoRepository.fetchSlpOutputsForAddress(getAddress(req.address), Valid.VALID)
 						.zipWith(detailsRepository.fetchSlpDetails(new SlpTokenId(req.tokenId)).timeout(10, TimeUnit.SECONDS)
 								.toSingle(new SlpTokenDetails(new SlpTokenId(req.tokenId), "", "", -1, "", null)), (utxos, details) -> {
-							Map<String, List<SlpUtxo>> utxosPerTokenId = utxos.stream().map(e -> e.getSlpUtxo().get())
+							Map<String, List<SlpUtxo>> utxosPerTokenId = utxos.stream()
 									.collect(Collectors.groupingBy(k -> k.getSlpTokenId().getHex()));
 							String tokenId = req.tokenId;
 							String address = req.address;
@@ -482,73 +526,68 @@ public class SlpController {
 				.toList();
 	}
 
+	private Single<BalanceResponse> balanceForAddressToken(Address base58, String address, String tokenId) {
+		return addressTokenBalanceRepository.fetchBalance(base58, tokenId)
+				.filter(balance -> balance.getBalance().signum() > 0)
+				.flatMapSingleElement(balance -> detailsRepository.fetchSlpDetails(new SlpTokenId(tokenId))
+						.map(details -> new BalanceResponse(tokenId, balance.getBalance(), balance.getBalance().toString(), address, details.getDecimals()))
+						.toSingle(new BalanceResponse(tokenId, balance.getBalance(), balance.getBalance().toString(), address, -1)))
+				.toSingle(new BalanceResponse(tokenId, BigDecimal.ZERO, BigDecimal.ZERO.toString(), address, -1));
+	}
+
+	/**
+	 * Every transaction of the address for the token, newest first. With the address index a cursor or limit returns one
+	 * page instead, a full page carries the cursor of its last entry in the X-Next-Cursor header to pass back for the next.
+	 */
 	@GetMapping("transactions/{tokenId}/{address}")
-	public Single<List<TransactionTokenAddress>> transactionPerTokenAddress(@PathVariable String tokenId, @PathVariable String address) {
+	public Single<ResponseEntity<List<TransactionTokenAddress>>> transactionPerTokenAddress(@PathVariable String tokenId,
+			@PathVariable String address,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Integer limit) {
 		SlpTokenDetails slpTokenDetails = detailsRepository.fetchSlpDetails(new SlpTokenId(tokenId)).timeout(10, TimeUnit.SECONDS).blockingGet();
 		if (slpTokenDetails == null) {
 			return Single.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Token does not exist=" + tokenId));
 		}
 
-		return transactionRepository.fetchTransactions(getAddress(address), Coin.BCH)
-				.toFlowable()
-				.flatMap(Flowable::fromIterable)
-				.filter(transaction -> {
-					return transaction.getTransaction().getOutputs().stream()
-							.filter(u -> u.getSlpUtxo().isPresent())
-							.map(u -> u.getSlpUtxo().get())
-							.anyMatch(u -> u.getSlpTokenId().getHex().equals(tokenId));
-				})
-				.map(filteredTx -> {
-					boolean hasBaton = hasUtxoBaton(filteredTx.getTransaction().getOutputs());
-					String transactionType = filteredTx.getTransaction().getOutputs().stream()
-							.filter(u -> u.getSlpUtxo().isPresent())
-							.findFirst()
-							.map(u -> u.getSlpUtxo().get().getTokenTransactionType())
-							.orElse("");
+		if (!addressIndexEnabled) {
+			return transactionsForTokenAddress(getAddress(address), tokenId, slpTokenDetails)
+					.doOnError(er -> logger.error("Could not fetch transactions for tokenId={} address={}", tokenId, address, er))
+					.onErrorReturnItem(List.of())
+					.map(ResponseEntity::ok);
+		}
 
-					Integer tokenType = filteredTx.getTransaction().getOutputs().stream()
-							.filter(u -> u.getSlpUtxo().isPresent())
-							.findFirst()
-							.map(u -> u.getSlpUtxo().get().getTokenTypeHex())
-							.map(Hex::decode)
-							.map(ByteUtils.INSTANCE::toInt)
-							.orElse(-1);
-
-					List<Output> outputs = filteredTx.getTransaction().getOutputs().stream()
-							.filter(e -> !e.getAddress().isOpReturn())
-							.filter(e -> e.getSlpUtxo().isPresent())
-							.map(utxo -> new Output(
-									Address.base58ToSlp(utxo.getAddress().getAddress()).getAddress(),
-									utxo.getSlpUtxo().map(SlpUtxo::getAmount)
-											.map(BigDecimal::stripTrailingZeros)
-											.orElse(utxo.getAmount()).toPlainString())
-							)
+		if (cursor == null && limit == null) {
+			return addressTransactionRepository.fetchTransactions(getAddress(address), tokenId, null, 0)
+					.toList()
+					.flatMap(all -> transactionsById(all, tokenId, slpTokenDetails))
+					.doOnError(er -> logger.error("Could not fetch transactions for tokenId={} address={}", tokenId, address, er))
+					.onErrorReturnItem(List.of())
+					.map(ResponseEntity::ok);
+		}
 
-							.collect(Collectors.toList());
+		int pageSize = limit == null ? ADDRESS_TRANSACTIONS_PAGE_SIZE : limit;
+		if (pageSize < 1 || pageSize > MAX_ADDRESS_TRANSACTIONS_PAGE_SIZE) {
+			return Single.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_ADDRESS_TRANSACTIONS_PAGE_SIZE));
+		}
 
-					Detail detail = new Detail(slpTokenDetails.getDecimals(),
-							tokenId,
-							transactionType,
-							tokenType,
-							slpTokenDetails.getDocumentUri(),
-							null,
-							slpTokenDetails.getTicker(),
-							slpTokenDetails.getName(),
-							null,
-							hasBaton,
-							outputs);
-					Details details = new Details(filteredTx.getTransaction().getSlpValid().orElse(SlpValid.unknown()).getValid() == Valid.VALID, detail);
-
-					return new TransactionTokenAddress(
-							filteredTx.getTransaction().getTxId(),
-							details,
-							null,
-							73
-					);
-				})
+		return addressTransactionRepository.fetchTransactions(getAddress(address), tokenId, cursor, pageSize)
 				.toList()
-				.doOnError(er -> logger.error("Could not fetch transactions for tokenId={} address={}", tokenId, address, er))
-				.onErrorReturnItem(List.of());
+				.flatMap(page -> transactionsById(page, tokenId, slpTokenDetails)
+						.map(txs -> {
+							ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+							// A full page may have more behind it, the client passes the cursor back to continue
+							if (page.size() == pageSize) {
+								response.header(NEXT_CURSOR_HEADER, page.get(page.size() - 1).getCursor());
+							}
+							return response.body(txs);
+						}))
+				.onErrorResumeNext(e -> {
+					if (e instanceof IllegalArgumentException) {
+						return Single.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage()));
+					}
+					logger.error("Could not fetch transactions for tokenId={} address={}", tokenId, address, e);
+					return Single.just(ResponseEntity.ok(List.of()));
+				});
 	}
 
 	@PostMapping("/transactions")
@@ -571,85 +610,109 @@ public class SlpController {
 			detailsMap.put(request.tokenId, slpTokenDetails);
 		}
 		return Flowable.fromIterable(requests)
-				.flatMapSingle(req -> transactionRepository.fetchTransactions(getAddress(req.address), Coin.BCH)
-						.toFlowable()
-						.flatMap(Flowable::fromIterable)
-						.filter(transaction -> {
-							return transaction.getTransaction().getOutputs().stream()
-									.filter(u -> u.getSlpUtxo().isPresent())
-									.map(u -> u.getSlpUtxo().get())
-									.anyMatch(u -> u.getSlpTokenId().getHex().equals(req.tokenId));
-						})
-						.map(filteredTx -> {
-							boolean hasBaton = hasUtxoBaton(filteredTx.getTransaction().getOutputs());
-							SlpTokenDetails slpTokenDetails = detailsMap.get(req.tokenId);
-							String transactionType = filteredTx.getTransaction().getOutputs().stream()
-									.filter(u -> u.getSlpUtxo().isPresent())
-									.findFirst()
-									.map(u -> u.getSlpUtxo().get().getTokenTransactionType())
-									.orElse("");
-
-							Integer tokenType = filteredTx.getTransaction().getOutputs().stream()
-									.filter(u -> u.getSlpUtxo().isPresent())
-									.findFirst()
-									.map(u -> u.getSlpUtxo().get().getTokenTypeHex())
-									.map(Hex::decode)
-									.map(ByteUtils.INSTANCE::toInt)
-									.orElse(-1);
-
-							Detail detail = new Detail(slpTokenDetails.getDecimals(),
-									req.tokenId,
-									transactionType,
-									tokenType,
-									slpTokenDetails.getDocumentUri(),
-									null,
-									slpTokenDetails.getTicker(),
-									slpTokenDetails.getName(),
-									null,
-									hasBaton,
-									filteredTx.getTransaction().getOutputs().stream()
-											.filter(utxo -> !utxo.getAddress().isOpReturn())
-											.filter(e -> e.getSlpUtxo().isPresent())
-											.map(utxo -> {
-												return new Output(
-														Address.base58ToSlp(utxo.getAddress().getAddress()).getAddress(),
-														utxo.getSlpUtxo().map(SlpUtxo::getAmount)
-																.map(BigDecimal::stripTrailingZeros)
-																.orElse(utxo.getAmount()).toPlainString());
-											})
-											.collect(Collectors.toList()));
-							Details details = new Details(filteredTx.getTransaction().getSlpValid().orElse(SlpValid.unknown()).getValid() == Valid.VALID, detail);
-
-							return new TransactionTokenAddress(
-									filteredTx.getTransaction().getTxId(),
-									details,
-									null,
-									73
-							);
-						})
-						.toList()
-						.onErrorReturnItem(List.of()))
+				.flatMapSingle(req -> {
+					Single<List<TransactionTokenAddress>> transactions = addressIndexEnabled
+							? addressTransactionRepository.fetchTransactions(getAddress(req.address), req.tokenId, null, 0)
+							.toList()
+							.flatMap(page -> transactionsById(page, req.tokenId, detailsMap.get(req.tokenId)))
+							: transactionsForTokenAddress(getAddress(req.address), req.tokenId, detailsMap.get(req.tokenId));
+					return transactions.onErrorReturnItem(List.of());
+				})
+				.toList();
+	}
+
+	// Loads the page of the address index in its order
+	private Single<List<TransactionTokenAddress>> transactionsById(List<AddressTransaction> page, String tokenId, SlpTokenDetails slpTokenDetails) {
+		if (page.isEmpty()) {
+			return Single.just(List.of());
+		}
+		List<String> txIds = page.stream().map(AddressTransaction::getTxId).collect(Collectors.toList());
+		return transactionRepository.fetchTransactions(txIds, coin, true)
+				.map(txs -> {
+					Map<String, IndexerTransaction> byId = txs.stream().collect(Collectors.toMap(k -> k.getTransaction().getTxId(), v -> v, (a, b) -> a));
+					return txIds.stream()
+							.filter(byId::containsKey)
+							.map(txId -> toTransactionTokenAddress(byId.get(txId), tokenId, slpTokenDetails))
+							.collect(Collectors.toList());
+				});
+	}
+
+	// Scans every transaction of the address, used until the address index has been backfilled
+	private Single<List<TransactionTokenAddress>> transactionsForTokenAddress(Address address, String tokenId, SlpTokenDetails slpTokenDetails) {
+		return transactionRepository.fetchTransactions(address, Coin.BCH)
+				.toFlowable()
+				.flatMap(Flowable::fromIterable)
+				.filter(transaction -> {
+					return transaction.getTransaction().getOutputs().stream()
+							.filter(u -> u.getSlpUtxo().isPresent())
+							.map(u -> u.getSlpUtxo().get())
+							.anyMatch(u -> u.getSlpTokenId().getHex().equals(tokenId));
+				})
+				.map(filteredTx -> toTransactionTokenAddress(filteredTx, tokenId, slpTokenDetails))
 				.toList();
 	}
 
+	private TransactionTokenAddress toTransactionTokenAddress(IndexerTransaction filteredTx, String tokenId, SlpTokenDetails slpTokenDetails) {
+		boolean hasBaton = hasUtxoBaton(filteredTx.getTransaction().getOutputs());
+		String transactionType = filteredTx.getTransaction().getOutputs().stream()
+				.filter(u -> u.getSlpUtxo().isPresent())
+				.findFirst()
+				.map(u -> u.getSlpUtxo().get().getTokenTransactionType())
+				.orElse("");
+
+		Integer tokenType = filteredTx.getTransaction().getOutputs().stream()
+				.filter(u -> u.getSlpUtxo().isPresent())
+				.findFirst()
+				.map(u -> u.getSlpUtxo().get().getTokenTypeHex())
+				.map(Hex::decode)
+				.map(ByteUtils.INSTANCE::toInt)
+				.orElse(-1);
+
+		Detail detail = new Detail(slpTokenDetails.getDecimals(),
+				tokenId,
+				transactionType,
+				tokenType,
+				slpTokenDetails.getDocumentUri(),
+				null,
+				slpTokenDetails.getTicker(),
+				slpTokenDetails.getName(),
+				null,
+				hasBaton,
+				filteredTx.getTransaction().getOutputs().stream()
+						.filter(utxo -> !utxo.getAddress().isOpReturn())
+						.filter(e -> e.getSlpUtxo().isPresent())
+						.map(utxo -> {
+							return new Output(
+									Address.base58ToSlp(utxo.getAddress().getAddress()).getAddress(),
+									utxo.getSlpUtxo().map(SlpUtxo::getAmount)
+											.map(BigDecimal::stripTrailingZeros)
+											.orElse(utxo.getAmount()).toPlainString());
+						})
+						.collect(Collectors.toList()));
+		Details details = new Details(filteredTx.getTransaction().getSlpValid().orElse(SlpValid.unknown()).getValid() == Valid.VALID, detail);
+
+		return new TransactionTokenAddress(
+				filteredTx.getTransaction().getTxId(),
+				details,
+				null,
+				73
+		);
+	}
+
 	@GetMapping("/burnTotal/{transactionId}")
 	public Single<BurnCountResponse> burnCount(@PathVariable String transactionId) {
 		if (transactionId.length() != 64) {
 			return Single.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a valid transactionId=" + transactionId));
 		}
 
-		return transactionRepository.fetchTransaction(transactionId, coin, true)
+		return transactionRepository.fetchSlpData(transactionId)
 				.map(tx -> {
-					BigDecimal totaltTokenOut = tx.getTransaction().getOutputs()
+					BigDecimal totaltTokenOut = tx.getSlpOutputs()
 							.stream()
-							.filter(e -> e.getSlpUtxo().isPresent())
-							.map(e -> e.getSlpUtxo().get())
 							.map(SlpUtxo::getAmount).reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
 
-					BigDecimal inputTokenValue = tx.getTransaction().getInputs()
+					BigDecimal inputTokenValue = tx.getSlpInputs()
 							.stream()
-							.filter(e -> e.getSlpUtxo().isPresent())
-							.map(e -> e.getSlpUtxo().get())
 							.map(SlpUtxo::getAmount).reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
 
 					BigDecimal burnTotal = inputTokenValue.subtract(totaltTokenOut);
@@ -688,34 +751,51 @@ public class SlpController {
 			return Single.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not fetch transactionId=" + txId));
 		}
 
-		return transactionRepository.fetchTransaction(txId, Coin.BCH, true)
+		return transactionRepository.fetchSlpData(txId)
 				.map(tx -> {
-					List<SlpUtxo> slpUtxos = tx.getTransaction().getOutputs().stream()
-							.filter(e -> e.getSlpUtxo().isPresent())
-							.map(u -> u.getSlpUtxo().get())
-							.collect(Collectors.toList());
+					List<SlpUtxo> slpUtxos = tx.getSlpOutputs();
 					String hex = slpUtxos.get(0).getSlpTokenId().getHex();
 					String tokenTransactionType = slpUtxos.get(0).getTokenTransactionType();
 					List<String> outputs = slpUtxos.stream().map(SlpUtxo::getAmount).map(BigDecimal::toString).collect(Collectors.toList());
-					TokenInfo tokenInfo = new TokenInfo(tokenTransactionType, 1, hex, outputs, tx.getTransaction().getSlpValid().orElse(SlpValid.unknown()).getValid() == Valid.VALID);
+					TokenInfo tokenInfo = new TokenInfo(tokenTransactionType, 1, hex, outputs, tx.getSlpValid().orElse(SlpValid.unknown()).getValid() == Valid.VALID);
 					return new TxDetailsResponse(txInfo.get(), tokenInfo);
 				})
 				.onErrorReturnItem(new TxDetailsResponse())
 				.toSingle(new TxDetailsResponse());
 	}
 
-	@GetMapping("recentTxForTokenId/{tokenId}/{page}")
-	public Single<RecentTransactionsResponse> recentTransactionsForTokenId(@PathVariable String tokenId, @PathVariable Integer page) {
+	@GetMapping({ "recentTxForTokenId/{tokenId}/{page}", "recentTxForTokenId/{tokenId}" })
+	public Single<ResponseEntity<RecentTransactionsResponse>> recentTransactionsForTokenId(@PathVariable String tokenId,
+			@PathVariable(required = false) Integer page,
+			@RequestParam(required = false) String cursor) {
 		if (tokenId.length() != 64) {
 			return Single.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a valid tokenId=" + tokenId));
 		}
 
 		int currentPage = page == null ? 0 : page;
-		return transactionRepository.fetchTransactionsInvolvingToken(tokenId, true, currentPage)
-				.map(list -> {
-					List<TokenTransactionResponse> txs = list.stream().map(e -> TokenTransactionResponse.fromDomain(e.getTransaction())).collect(Collectors.toList());
-					return new RecentTransactionsResponse(txs, currentPage);
-				});
+		Single<List<IndexerTransaction>> transactions;
+		if (cursor != null) {
+			Optional<TransactionCursor> after = TransactionCursor.decode(cursor);
+			if (after.isEmpty()) {
+				return Single.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a valid cursor=" + cursor));
+			}
+			transactions = transactionRepository.fetchTransactionsInvolvingToken(tokenId, after.get());
+		} else {
+			transactions = transactionRepository.fetchTransactionsInvolvingToken(tokenId, true, currentPage);
+		}
+
+		return transactions
+				.flatMap(list -> rawTransactionRepository.fetchRawHex(list.stream().map(e -> e.getTransaction().getTxId()).collect(Collectors.toList()))
+						.map(raw -> {
+							List<TokenTransactionResponse> txs = list.stream()
+									.map(e -> TokenTransactionResponse.fromDomain(e.getTransaction(), raw.getOrDefault(e.getTransaction().getTxId(), "")))
+									.collect(Collectors.toList());
+							ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+							if (!list.isEmpty()) {
+								response.header(NEXT_CURSOR_HEADER, TransactionCursor.after(list.get(list.size() - 1).getTransaction()).encode());
+							}
+							return response.body(new RecentTransactionsResponse(txs, currentPage));
+						}));
 	}
 
 	private List<IndexerTransaction> validTxs(List<IndexerTransaction> txs) {
@@ -741,8 +821,8 @@ public class SlpController {
 				.reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
 	}
 
-	private ExtendedDetailsResponse getExtendedDetailsResponse(SlpTokenDetails details, IndexerTransaction tx, List<UtxoMinimalData> utxos, boolean hasBaton, BigDecimal quantity, Integer activeMint, Integer lastActiveSend, BigDecimal numTxs) {
-		if (details == null || tx == null || utxos == null) {
+	private ExtendedDetailsResponse getExtendedDetailsResponse(SlpTokenDetails details, IndexerTransaction tx, TokenStats stats, Integer activeMint, Integer lastActiveSend) {
+		if (details == null || tx == null || stats == null) {
 			return null;
 		}
 
@@ -752,8 +832,10 @@ public class SlpController {
 				.findFirst().orElse(null);
 
 		BigDecimal initialTokenValue = getInitialTokenValue(tx);
-		BigDecimal totalMinted = getTotalMinted(utxos);
+		BigDecimal totalMinted = stats.getMintedSatoshis();
+		BigDecimal quantity = stats.getCirculatingSupply();
 		BigDecimal circulatingSupply = quantity;
+		boolean hasBaton = stats.hasBaton();
 		BigDecimal totalBurned = initialTokenValue.add(totalMinted).subtract(circulatingSupply).abs();
 		boolean createdBaton = tx.getTransaction().getOutputs().stream().filter(e -> e.getSlpUtxo().isPresent())
 				.anyMatch(u -> u.getSlpUtxo().get().hasBaton());
@@ -776,11 +858,11 @@ public class SlpController {
 				totalMinted,
 				totalBurned,
 				circulatingSupply.toPlainString(),
-				new BigDecimal(utxos.size()),
-				numberValidAddresses(utxos),
-				getLockedSatoshis(utxos),
+				new BigDecimal(stats.getValidUtxos()),
+				stats.getValidAddresses(),
+				quantity,
 				null,
-				numTxs,
+				new BigDecimal(stats.getTransactions()),
 				getBatonStatus(hasBaton, createdBaton),
 				lastActiveSend,
 				activeMint
@@ -809,12 +891,6 @@ public class SlpController {
 		return "NEVER_CREATED";
 	}
 
-	private BigDecimal getLockedSatoshis(List<UtxoMinimalData> utxos) {
-		return utxos.stream()
-				.map(UtxoMinimalData::getAmount)
-				.reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
-	}
-
 	private BigDecimal getTotalMinted(List<UtxoMinimalData> utxos) {
 		return utxos.stream()
 				.filter(UtxoMinimalData::isMint)
@@ -822,14 +898,6 @@ public class SlpController {
 				.reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
 	}
 
-	private boolean hasBaton(List<UtxoMinimalData> utxos) {
-		if (utxos == null) {
-			return false;
-		}
-
-		return utxos.stream().anyMatch(UtxoMinimalData::isHasBaton);
-	}
-
 	private boolean hasUtxoBaton(List<Utxo> utxos) {
 		if (utxos == null) {
 			return false;
@@ -0,0 +1,102 @@
+package com.bitcoin.indexer.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Records the reply size of every read as mongo_bytes_read, tagged by collection and by the view named in the query
+ * comment. Reads without a comment load whole documents. getMore replies carry no comment and are attributed through
+ * the cursor the find opened.
+ */
+public class MongoBytesReadListener implements CommandListener {
+
+	private static final String FULL_VIEW = "full";
+
+	private final Map<Integer, PendingRead> pending = new ConcurrentHashMap<>();
+	private final Map<Long, Read> cursors = new ConcurrentHashMap<>();
+
+	@Override
+	public void commandStarted(CommandStartedEvent event) {
+		BsonDocument command = event.getCommand();
+		switch (event.getCommandName()) {
+			case "find":
+			case "aggregate":
+				if (command.isString(event.getCommandName())) {
+					String view = command.isString("comment") ? command.getString("comment").getValue() : FULL_VIEW;
+					pending.put(event.getRequestId(), new PendingRead(new Read(command.getString(event.getCommandName()).getValue(), view), 0));
+				}
+				break;
+			case "getMore":
+				long cursorId = command.getInt64("getMore").getValue();
+				Read read = cursors.get(cursorId);
+				if (read != null) {
+					pending.put(event.getRequestId(), new PendingRead(read, cursorId));
+				}
+				break;
+			case "killCursors":
+				command.getArray("cursors").forEach(id -> cursors.remove(id.asInt64().getValue()));
+				break;
+			default:
+		}
+	}
+
+	@Override
+	public void commandSucceeded(CommandSucceededEvent event) {
+		PendingRead pendingRead = pending.remove(event.getRequestId());
+		if (pendingRead == null) {
+			return;
+		}
+		BsonDocument response = event.getResponse();
+		if (response instanceof RawBsonDocument) {
+			Metrics.summary("mongo_bytes_read", "collection", pendingRead.read.collection, "view", pendingRead.read.view)
+					.record(((RawBsonDocument) response).getByteBuffer().remaining());
+		}
+
+		BsonValue cursor = response.get("cursor");
+		long next = cursor != null && cursor.isDocument() ? cursor.asDocument().getInt64("id").getValue() : 0;
+		if (next != 0) {
+			cursors.put(next, pendingRead.read);
+		} else if (pendingRead.cursorId != 0) {
+			cursors.remove(pendingRead.cursorId);
+		}
+	}
+
+	@Override
+	public void commandFailed(CommandFailedEvent event) {
+		PendingRead pendingRead = pending.remove(event.getRequestId());
+		if (pendingRead != null && pendingRead.cursorId != 0) {
+			cursors.remove(pendingRead.cursorId);
+		}
+	}
+
+	private static class Read {
+		private final String collection;
+		private final String view;
+
+		private Read(String collection, String view) {
+			this.collection = collection;
+			this.view = view;
+		}
+	}
+
+	private static class PendingRead {
+		private final Read read;
+		private final long cursorId;
+
+		private PendingRead(Read read, long cursorId) {
+			this.read = read;
+			this.cursorId = cursorId;
+		}
+	}
+}
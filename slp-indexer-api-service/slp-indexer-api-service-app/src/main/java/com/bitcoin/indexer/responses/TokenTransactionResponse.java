@@ -30,7 +30,7 @@ public class TokenTransactionResponse {
 	public TokenTransactionResponse() {
 	}
 
-	public static TokenTransactionResponse fromDomain(Transaction transaction) {
+	public static TokenTransactionResponse fromDomain(Transaction transaction, String rawHex) {
 		return new TokenTransactionResponse(
 				transaction.getOutputs().stream()
 						.filter(e -> !e.isOpReturn())
@@ -55,7 +55,7 @@ public class TokenTransactionResponse {
 				transaction.getBlockHeight().orElse(null),
 				transaction.getSlpOpReturn(),
 				transaction.getSlpValid().orElse(null),
-				transaction.getRawHex(),
+				rawHex,
 				transaction.getVersion(),
 				transaction.getLocktime(),
 				transaction.getSize(),
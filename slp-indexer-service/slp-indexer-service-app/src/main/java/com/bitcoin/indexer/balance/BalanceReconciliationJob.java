@@ -0,0 +1,80 @@
+package com.bitcoin.indexer.balance;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bitcoin.indexer.config.SystemTimer;
+import com.bitcoin.indexer.repository.AddressTokenBalanceRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Periodically recomputes addressTokenBalances and tokenStats from allOutputs token by token and repairs any drift. A full
+ * rebuild, used to backfill tokens indexed before the collections existed, is the same pass run once at start.
+ */
+public class BalanceReconciliationJob {
+
+	private static final Logger logger = LoggerFactory.getLogger(BalanceReconciliationJob.class);
+
+	private final AddressTokenBalanceRepository addressTokenBalanceRepository;
+	private final long intervalMinutes;
+	private final boolean rebuildOnStart;
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "balance-reconciliation");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final Counter tokens = Metrics.counter("balance_reconcile_tokens");
+	private final Counter corrected = Metrics.counter("balance_reconcile_corrected");
+
+	public BalanceReconciliationJob(AddressTokenBalanceRepository addressTokenBalanceRepository, long intervalMinutes, boolean rebuildOnStart) {
+		this.addressTokenBalanceRepository = Objects.requireNonNull(addressTokenBalanceRepository);
+		this.intervalMinutes = intervalMinutes;
+		this.rebuildOnStart = rebuildOnStart;
+	}
+
+	public void start() {
+		if (rebuildOnStart) {
+			executor.execute(this::reconcileAll);
+		}
+		if (intervalMinutes <= 0) {
+			logger.info("Periodic balance reconciliation disabled");
+			return;
+		}
+		executor.scheduleWithFixedDelay(this::reconcileAll, rebuildOnStart ? intervalMinutes : 0, intervalMinutes, TimeUnit.MINUTES);
+	}
+
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+	public int reconcileAll() {
+		SystemTimer systemTimer = SystemTimer.create();
+		systemTimer.start();
+		int total = 0;
+		try {
+			List<String> tokenIds = addressTokenBalanceRepository.fetchTokenIds().toList().blockingGet();
+			for (String tokenId : tokenIds) {
+				if (Thread.currentThread().isInterrupted()) {
+					break;
+				}
+				int fixed = addressTokenBalanceRepository.reconcile(tokenId).blockingGet();
+				tokens.increment();
+				corrected.increment(fixed);
+				total += fixed;
+			}
+			logger.info("Completed balance reconciliation tokens={} corrected={} time={}", tokenIds.size(), total, systemTimer.getMsSinceStart());
+		} catch (Exception e) {
+			logger.error("Balance reconciliation failed corrected={}", total, e);
+		}
+		return total;
+	}
+}
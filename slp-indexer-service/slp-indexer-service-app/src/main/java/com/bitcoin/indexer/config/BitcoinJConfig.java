@@ -74,6 +74,7 @@ public class BitcoinJConfig implements DisposableBean {
 	@Bean
 	public BlockchainExtended blockChain(BlockStore blockStore, Context context, BitcoinJListener bitcoinJListener) throws BlockStoreException {
 		this.blockChain = new BlockchainExtended(context, blockStore, bitcoinJListener);
+		blockChain.rewindTo(blockRepository.currentHeight().blockingGet());
 		return blockChain;
 	}
 
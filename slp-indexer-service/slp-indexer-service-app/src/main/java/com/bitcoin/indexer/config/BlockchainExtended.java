@@ -234,6 +234,35 @@ public class BlockchainExtended extends AbstractBlockChain {
 		}
 	}
 
+	public boolean connectImported(Block block) throws BlockStoreException {
+		lock.lock();
+		try {
+			StoredBlock head = getChainHead();
+			if (!head.getHeader().getHash().equals(block.getPrevBlockHash())) {
+				return false;
+			}
+			StoredBlock newStoredBlock = addToBlockStore(head, block.cloneAsHeader());
+			setChainHead(newStoredBlock);
+			lastHandledBlockHash = block.getHashAsString();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Moves the chain head back to the last height the index committed. Headers are stored when a block is handed to the
+	 * listener, blocks still queued in the listener when the process stopped are downloaded again from there.
+	 */
+	public void rewindTo(long committedHeight) throws BlockStoreException {
+		int bestHeight = getBestChainHeight();
+		if (committedHeight < 0 || committedHeight >= bestHeight) {
+			return;
+		}
+		logger.warn("Rewinding block store to committed height={} from height={}", committedHeight, bestHeight);
+		rollbackBlockStore((int) committedHeight);
+	}
+
 	private void handleGenesis(StoredBlock storedPrev) {
 		try {
 			if (storedPrev.getHeight() + 1 == 1) {
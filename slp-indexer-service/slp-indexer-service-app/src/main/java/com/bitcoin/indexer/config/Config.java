@@ -19,14 +19,18 @@ import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.ReactiveMongoOperations;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 
+import com.bitcoin.indexer.balance.BalanceReconciliationJob;
 import com.bitcoin.indexer.core.Coin;
 import com.bitcoin.indexer.facade.BitcoinJConverters;
 import com.bitcoin.indexer.facade.BitcoinJStreamClient;
 import com.bitcoin.indexer.facade.validators.GenesisValidatorAssumeParentValid;
+import com.bitcoin.indexer.facade.validators.InvalidationPropagator;
 import com.bitcoin.indexer.facade.validators.MintValidatorAssumeParentValid;
 import com.bitcoin.indexer.facade.validators.SendValidatorAssumeParentValid;
 import com.bitcoin.indexer.facade.validators.SlpValidatorCustomImplAssumeParentValid;
 import com.bitcoin.indexer.facade.validators.SlpValidatorFacade;
+import com.bitcoin.indexer.facade.validators.SlpValidityGraph;
+import com.bitcoin.indexer.filter.SlpOutpointFilter;
 import com.bitcoin.indexer.handlers.BlockHandler;
 import com.bitcoin.indexer.handlers.BlockHandlerImpl;
 import com.bitcoin.indexer.handlers.InputHandler;
@@ -35,18 +39,35 @@ import com.bitcoin.indexer.handlers.TransactionHandler;
 import com.bitcoin.indexer.handlers.TransactionHandlerSlpImpl;
 import com.bitcoin.indexer.handlers.UtxoHandler;
 import com.bitcoin.indexer.handlers.UtxoHandlerImpl;
+import com.bitcoin.indexer.handlers.ValidationQueue;
+import com.bitcoin.indexer.importer.BulkBlockImporter;
 import com.bitcoin.indexer.listener.BitcoinJListener;
 import com.bitcoin.indexer.listener.IndexerTransactionCreator;
+import com.bitcoin.indexer.migration.AddressTransactionBackfill;
+import com.bitcoin.indexer.migration.NumericSchemaMigration;
+import com.bitcoin.indexer.migration.RawTransactionMigration;
+import com.bitcoin.indexer.migration.SpendingTxIdBackfill;
+import com.bitcoin.indexer.repository.AddressTokenBalanceRepository;
+import com.bitcoin.indexer.repository.AddressTokenBalanceRepositoryImpl;
+import com.bitcoin.indexer.repository.AddressTransactionRepository;
+import com.bitcoin.indexer.repository.AddressTransactionRepositoryImpl;
 import com.bitcoin.indexer.repository.BlockRepository;
 import com.bitcoin.indexer.repository.BlockRepositoryImpl;
+import com.bitcoin.indexer.repository.RawTransactionRepository;
+import com.bitcoin.indexer.repository.RawTransactionRepositoryImpl;
 import com.bitcoin.indexer.repository.SlpDetailsRepository;
 import com.bitcoin.indexer.repository.SlpDetailsRepositoryImpl;
 import com.bitcoin.indexer.repository.SlpVerifiedTokenRepository;
 import com.bitcoin.indexer.repository.SlpVerifiedTokenRepositoryImpl;
+import com.bitcoin.indexer.repository.TokenStatsRepository;
+import com.bitcoin.indexer.repository.TokenStatsRepositoryImpl;
 import com.bitcoin.indexer.repository.TransactionRepository;
 import com.bitcoin.indexer.repository.TransactionRepositoryImpl;
 import com.bitcoin.indexer.repository.UtxoRepository;
 import com.bitcoin.indexer.repository.UtxoRepositoryImpl;
+import com.bitcoin.indexer.repository.WriteBehindTransactionRepository;
+import com.bitcoin.indexer.zeromq.ZeroMqClients;
+import com.bitcoin.indexer.zeromq.ZeroMqSubscriber;
 
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.prometheus.PrometheusMeterRegistry;
@@ -71,7 +92,9 @@ public class Config {
 			Context context,
 			PeerGroup peerGroup,
 			BlockchainExtended blockChain,
-			Coin coin) {
+			Coin coin,
+			BulkBlockImporter bulkBlockImporter,
+			ZeroMqClients zeroMqClients) {
 		return new BitcoinJStreamClient(
 				environment,
 				listener,
@@ -79,7 +102,25 @@ public class Config {
 				peerGroup,
 				context,
 				blockChain,
-				coin);
+				coin,
+				bulkBlockImporter,
+				zeroMqClients);
+	}
+
+	@Bean(destroyMethod = "destroy")
+	public ZeroMqClients zeroMqClients(Environment environment,
+			NetworkParameters networkParameters,
+			BitcoinJListener listener,
+			BlockchainExtended blockChain,
+			Coin coin) {
+		return new ZeroMqClients(environment, networkParameters, new ZeroMqSubscriber(listener, blockChain), coin);
+	}
+
+	@Bean
+	public BulkBlockImporter bulkBlockImporter(NetworkParameters networkParameters,
+			BitcoinJListener listener,
+			@Value("${bulk.import.decode.window:64}") String decodeWindow) {
+		return new BulkBlockImporter(networkParameters, listener, Integer.parseInt(decodeWindow));
 	}
 
 	@Bean
@@ -101,18 +142,37 @@ public class Config {
 	public BitcoinJListener listener(TransactionHandler transactionHandler,
 			BlockStore blockStore,
 			NetworkParameters networkParameters,
-			Coin coin,
 			BitcoinJConverters bitcoinJConverters,
 			BlockHandler blockHandler,
-			UtxoRepository utxoRepository,
+			BlockRepository blockRepository,
 			@Value("${is.full.mode:false}") String isFullMode,
+			@Value("${ingestion.pipeline.depth:0}") String pipelineDepth,
+			@Value("${initial.sync.until.height:0}") String initialSyncUntilHeight,
+			@Value("${initial.sync.window:20}") String initialSyncWindow,
+			@Value("${mempool.batch.max.size:500}") String mempoolBatchSize,
+			@Value("${mempool.batch.max.delay.ms:20}") String mempoolBatchDelayMs,
+			@Value("${mempool.batch.queue.capacity:100000}") String mempoolQueueCapacity,
 			IndexerTransactionCreator indexerTransactionCreator) {
-		return new BitcoinJListener(transactionHandler, networkParameters, blockHandler, blockStore, coin, bitcoinJConverters, Boolean.parseBoolean(isFullMode), utxoRepository, indexerTransactionCreator);
+		return new BitcoinJListener(transactionHandler, networkParameters, blockHandler, blockStore, blockRepository, bitcoinJConverters, Boolean.parseBoolean(isFullMode), indexerTransactionCreator,
+				Integer.parseInt(pipelineDepth), Integer.parseInt(initialSyncUntilHeight), Integer.parseInt(initialSyncWindow),
+				Integer.parseInt(mempoolBatchSize), Long.parseLong(mempoolBatchDelayMs), Integer.parseInt(mempoolQueueCapacity));
 	}
 
 	@Bean
-	public IndexerTransactionCreator indexerTransactionCreator(UtxoRepository utxoRepository, Coin coin) {
-		return new IndexerTransactionCreator(utxoRepository, coin);
+	public IndexerTransactionCreator indexerTransactionCreator(UtxoRepository utxoRepository,
+			Coin coin,
+			SlpOutpointFilter slpOutpointFilter,
+			@Value("${outpoint.resolve.chunk.size:1000}") String resolveChunkSize) {
+		return new IndexerTransactionCreator(utxoRepository, coin, slpOutpointFilter, Integer.parseInt(resolveChunkSize));
+	}
+
+	@Bean
+	public SlpOutpointFilter slpOutpointFilter(UtxoRepository utxoRepository,
+			@Value("${outpoint.filter.expected.insertions:20000000}") String expectedInsertions,
+			@Value("${outpoint.filter.fpp:0.01}") String fpp) {
+		SlpOutpointFilter slpOutpointFilter = new SlpOutpointFilter(utxoRepository, Long.parseLong(expectedInsertions), Double.parseDouble(fpp));
+		slpOutpointFilter.rebuild();
+		return slpOutpointFilter;
 	}
 
 	@Bean
@@ -126,22 +186,104 @@ public class Config {
 	}
 
 	@Bean
-	public UtxoHandler utxoHandler(UtxoRepository utxoRepository, Coin coin) {
-		return new UtxoHandlerImpl(utxoRepository, coin);
+	public UtxoHandler utxoHandler(UtxoRepository utxoRepository, Coin coin, SlpOutpointFilter slpOutpointFilter) {
+		return new UtxoHandlerImpl(utxoRepository, coin, slpOutpointFilter);
 	}
 
-	@Bean
+	@Bean(destroyMethod = "destroy")
 	public TransactionHandler transactionHandler(InputHandler inputHandler,
 			UtxoHandler utxoHandler,
-			TransactionRepository transactionRepository,
+			WriteBehindTransactionRepository transactionRepository,
 			SlpValidatorFacade slpValidatorFacade,
-			UtxoRepository utxoRepository) {
+			SlpValidityGraph slpValidityGraph,
+			InvalidationPropagator invalidationPropagator,
+			ValidationQueue validationQueue,
+			UtxoRepository utxoRepository,
+			AddressTokenBalanceRepository addressTokenBalanceRepository,
+			AddressTransactionRepository addressTransactionRepository,
+			@Value("${transaction.handler.write.concurrency:32}") String writeConcurrency,
+			@Value("${transaction.handler.validation.lanes:0}") String validationLanes) {
+		int lanes = Integer.parseInt(validationLanes);
 		return new TransactionHandlerSlpImpl(
 				inputHandler,
 				utxoHandler,
 				transactionRepository,
 				slpValidatorFacade,
-				utxoRepository);
+				slpValidityGraph,
+				invalidationPropagator,
+				validationQueue,
+				utxoRepository,
+				addressTokenBalanceRepository,
+				addressTransactionRepository,
+				Integer.parseInt(writeConcurrency),
+				lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors());
+	}
+
+	@Bean
+	public AddressTransactionRepository addressTransactionRepository(MongoOperations mongoOperations, ReactiveMongoOperations reactiveMongoOperations) {
+		return new AddressTransactionRepositoryImpl(mongoOperations, reactiveMongoOperations);
+	}
+
+	@Bean(destroyMethod = "destroy")
+	public AddressTransactionBackfill addressTransactionBackfill(MongoOperations mongoOperations,
+			AddressTransactionRepository addressTransactionRepository,
+			@Value("${address.index.backfill.enabled:false}") String enabled,
+			@Value("${address.index.backfill.batch.size:1000}") String batchSize) {
+		AddressTransactionBackfill backfill = new AddressTransactionBackfill(mongoOperations, addressTransactionRepository, Integer.parseInt(batchSize));
+		if (Boolean.parseBoolean(enabled)) {
+			backfill.start();
+		}
+		return backfill;
+	}
+
+	@Bean(destroyMethod = "destroy")
+	public SpendingTxIdBackfill spendingTxIdBackfill(MongoOperations mongoOperations,
+			@Value("${spending.backfill.enabled:false}") String enabled,
+			@Value("${spending.backfill.batch.size:1000}") String batchSize) {
+		SpendingTxIdBackfill backfill = new SpendingTxIdBackfill(mongoOperations, Integer.parseInt(batchSize));
+		if (Boolean.parseBoolean(enabled)) {
+			backfill.start();
+		}
+		return backfill;
+	}
+
+	@Bean
+	public RawTransactionRepository rawTransactionRepository(MongoOperations mongoOperations, ReactiveMongoOperations reactiveMongoOperations,
+			@Value("${raw.transactions.compress:false}") String compress) {
+		return new RawTransactionRepositoryImpl(mongoOperations, reactiveMongoOperations, Boolean.parseBoolean(compress));
+	}
+
+	@Bean(destroyMethod = "destroy")
+	public RawTransactionMigration rawTransactionMigration(MongoOperations mongoOperations,
+			@Value("${raw.transactions.migration.enabled:false}") String enabled,
+			@Value("${raw.transactions.migration.batch.size:1000}") String batchSize,
+			@Value("${raw.transactions.compress:false}") String compress) {
+		RawTransactionMigration migration = new RawTransactionMigration(mongoOperations, Integer.parseInt(batchSize), Boolean.parseBoolean(compress));
+		if (Boolean.parseBoolean(enabled)) {
+			migration.start();
+		}
+		return migration;
+	}
+
+	@Bean
+	public TokenStatsRepository tokenStatsRepository(MongoOperations mongoOperations, ReactiveMongoOperations reactiveMongoOperations) {
+		return new TokenStatsRepositoryImpl(mongoOperations, reactiveMongoOperations);
+	}
+
+	@Bean
+	public AddressTokenBalanceRepository addressTokenBalanceRepository(MongoOperations mongoOperations,
+			ReactiveMongoOperations reactiveMongoOperations,
+			TokenStatsRepository tokenStatsRepository) {
+		return new AddressTokenBalanceRepositoryImpl(mongoOperations, reactiveMongoOperations, tokenStatsRepository);
+	}
+
+	@Bean(destroyMethod = "destroy")
+	public BalanceReconciliationJob balanceReconciliationJob(AddressTokenBalanceRepository addressTokenBalanceRepository,
+			@Value("${balance.reconcile.interval.minutes:0}") String intervalMinutes,
+			@Value("${balance.rebuild.on.start:false}") String rebuildOnStart) {
+		BalanceReconciliationJob job = new BalanceReconciliationJob(addressTokenBalanceRepository, Long.parseLong(intervalMinutes), Boolean.parseBoolean(rebuildOnStart));
+		job.start();
+		return job;
 	}
 
 	@Bean
@@ -158,9 +300,21 @@ public class Config {
 	}
 
 	@Bean
-	public TransactionRepository transactionRepository(MongoOperations mongoOperations,
-			Coin coin, ReactiveMongoTemplate reactiveMongoTemplate) {
-		return new TransactionRepositoryImpl(mongoOperations, reactiveMongoTemplate, coin);
+	public WriteBehindTransactionRepository transactionRepository(MongoOperations mongoOperations,
+			Coin coin, ReactiveMongoTemplate reactiveMongoTemplate, RawTransactionRepository rawTransactionRepository) {
+		return new WriteBehindTransactionRepository(new TransactionRepositoryImpl(mongoOperations, reactiveMongoTemplate, coin, rawTransactionRepository));
+	}
+
+	@Bean(destroyMethod = "destroy")
+	public NumericSchemaMigration numericSchemaMigration(MongoOperations mongoOperations,
+			@Value("${schema.migration.enabled:false}") String enabled,
+			@Value("${schema.migration.batch.size:1000}") String batchSize,
+			@Value("${schema.migration.pause.ms:0}") String pauseMs) {
+		NumericSchemaMigration migration = new NumericSchemaMigration(mongoOperations, Integer.parseInt(batchSize), Long.parseLong(pauseMs));
+		if (Boolean.parseBoolean(enabled)) {
+			migration.start();
+		}
+		return migration;
 	}
 
 	@Bean
@@ -169,24 +323,40 @@ public class Config {
 	}
 
 	@Bean
-	public MintValidatorAssumeParentValid mintValidator(TransactionRepository transactionRepository, UtxoRepository utxoRepository) {
-		return new MintValidatorAssumeParentValid(transactionRepository, utxoRepository);
+	public MintValidatorAssumeParentValid mintValidator() {
+		return new MintValidatorAssumeParentValid();
+	}
+
+	@Bean
+	public GenesisValidatorAssumeParentValid genesisValidator() {
+		return new GenesisValidatorAssumeParentValid();
+	}
+
+	@Bean
+	public SendValidatorAssumeParentValid sendValidator() {
+		return new SendValidatorAssumeParentValid();
+	}
+
+	@Bean
+	public SlpValidatorFacade slpValidatorFacade(MintValidatorAssumeParentValid mintValidator, GenesisValidatorAssumeParentValid genesisValidator,
+			SendValidatorAssumeParentValid sendValidator) {
+		return new SlpValidatorCustomImplAssumeParentValid(mintValidator, sendValidator, genesisValidator);
 	}
 
 	@Bean
-	public GenesisValidatorAssumeParentValid genesisValidator(TransactionRepository transactionRepository, UtxoRepository utxoRepository) {
-		return new GenesisValidatorAssumeParentValid(transactionRepository, utxoRepository);
+	public SlpValidityGraph slpValidityGraph(@Value("${slp.validity.graph.max.bytes:268435456}") String maxBytes) {
+		return new SlpValidityGraph(Long.parseLong(maxBytes));
 	}
 
 	@Bean
-	public SendValidatorAssumeParentValid sendValidator(TransactionRepository transactionRepository, UtxoRepository utxoRepository) {
-		return new SendValidatorAssumeParentValid(transactionRepository, utxoRepository);
+	public InvalidationPropagator invalidationPropagator(WriteBehindTransactionRepository transactionRepository, UtxoRepository utxoRepository,
+			@Value("${invalidation.chunk.size:1000}") String chunkSize) {
+		return new InvalidationPropagator(transactionRepository, utxoRepository, Integer.parseInt(chunkSize));
 	}
 
 	@Bean
-	public SlpValidatorFacade slpValidatorFacade(TransactionRepository transactionRepository,
-			MintValidatorAssumeParentValid mintValidator, GenesisValidatorAssumeParentValid genesisValidator, SendValidatorAssumeParentValid sendValidator) {
-		return new SlpValidatorCustomImplAssumeParentValid(transactionRepository, mintValidator, sendValidator, genesisValidator);
+	public ValidationQueue validationQueue(@Value("${validation.queue.mempool.capacity:10000}") String mempoolCapacity) {
+		return new ValidationQueue(Integer.parseInt(mempoolCapacity));
 	}
 
 	@Bean
@@ -5,8 +5,6 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -21,8 +19,7 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.bitcoin.indexer.listener.BitcoinJListener;
-
-import io.reactivex.schedulers.Schedulers;
+import com.bitcoin.indexer.listener.TransactionEventBus.OverflowPolicy;
 
 @RestController
 @RequestMapping("v1/health")
@@ -31,13 +28,15 @@ public class HealthCheckController {
 	private final BitcoinJListener bitcoinJListener;
 	private PeerGroup peerGroup;
 	private static final Logger logger = LoggerFactory.getLogger(HealthCheckController.class);
-	private Instant sinceLastTx = Instant.now();
+	private volatile Instant sinceLastTx = Instant.now();
 
-	public HealthCheckController(BitcoinJListener bitcoinJListener, PeerGroup peerGroup) {
+	public HealthCheckController(BitcoinJListener bitcoinJListener,
+			PeerGroup peerGroup,
+			@Value("${event.bus.health.capacity:1}") String capacity,
+			@Value("${event.bus.health.overflow.policy:SAMPLE}") String overflowPolicy) {
 		this.bitcoinJListener = Objects.requireNonNull(bitcoinJListener);
 		this.peerGroup = Objects.requireNonNull(peerGroup);
-		ExecutorService service = Executors.newSingleThreadExecutor();
-		bitcoinJListener.getTransactionFlowable().subscribeOn(Schedulers.from(service)).subscribe(tx -> {
+		bitcoinJListener.getTransactionEventBus().subscribe("health", Integer.parseInt(capacity), OverflowPolicy.valueOf(overflowPolicy), tx -> {
 					sinceLastTx = Instant.now();
 				}
 		);
@@ -1,11 +1,14 @@
 package com.bitcoin.indexer.config;
 
+import java.time.Duration;
+
 import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.Sort.Direction;
@@ -14,7 +17,12 @@ import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
 import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
 
+import com.bitcoin.indexer.blockchain.domain.AddressTransaction;
+import com.bitcoin.indexer.repository.db.AddressTokenBalanceDbObject;
+import com.bitcoin.indexer.repository.db.AddressTransactionDbObject;
 import com.bitcoin.indexer.repository.db.AllOutputsDbObject;
 import com.bitcoin.indexer.repository.db.BlockDbObject;
 import com.bitcoin.indexer.repository.db.TransactionDbObject;
@@ -30,6 +38,9 @@ public class MongoReactiveApplication implements InitializingBean, DisposableBea
 	@Autowired
 	MongoDbFactory mongoDbFactory;
 
+	@Value("${address.index.mempool.expiry.hours:336}")
+	String mempoolExpiryHours;
+
 	@Bean
 	public MongoTemplate mongoTemplate() {
 		return new MongoTemplate(mongoDbFactory);
@@ -108,6 +119,16 @@ public class MongoReactiveApplication implements InitializingBean, DisposableBea
 				document
 		).named("valid_tokenId_tx"));
 
+		// Serves the newest first token listings, continuing after a (time, txId) cursor
+		document = new Document();
+		document.put("outputs.slpUtxoType.slpTokenId", 1);
+		document.put("slpValid.valid", 1);
+		document.put("time", -1);
+		document.put("_id", -1);
+		mongoTemplate.indexOps(TransactionDbObject.class).ensureIndex(new CompoundIndexDefinition(
+				document
+		).named("tokenId_valid_time_tx"));
+
 		mongoTemplate.indexOps(TransactionDbObject.class)
 				.ensureIndex(new Index("outputs.slpUtxoType.slpTokenId", Direction.ASC).named("tokenId_tx"));
 
@@ -119,6 +140,30 @@ public class MongoReactiveApplication implements InitializingBean, DisposableBea
 
 		mongoTemplate.indexOps(BlockDbObject.class)
 				.ensureIndex(new Index("height", Direction.ASC).named("block_height"));
+		mongoTemplate.indexOps(AddressTokenBalanceDbObject.class)
+				.ensureIndex(new Index("address", Direction.ASC).named("address_balance"));
+
+		mongoTemplate.indexOps(AddressTokenBalanceDbObject.class)
+				.ensureIndex(new Index("tokenId", Direction.ASC).named("tokenId_balance"));
+
+		document = new Document();
+		document.put("a", 1);
+		document.put("k", 1);
+		document.put("h", -1);
+		document.put("tx", -1);
+		mongoTemplate.indexOps(AddressTransactionDbObject.class).ensureIndex(new CompoundIndexDefinition(
+				document
+		).named("address_token_height_tx"));
+
+		mongoTemplate.indexOps(AddressTransactionDbObject.class)
+				.ensureIndex(new Index("tx", Direction.ASC).named("tx_address_transaction"));
+
+		// Entries of mempool transactions that never confirm are dropped once the node would have evicted them, mined entries leave the filter
+		mongoTemplate.indexOps(AddressTransactionDbObject.class)
+				.ensureIndex(new Index("t", Direction.ASC)
+						.expire(Duration.ofHours(Long.parseLong(mempoolExpiryHours)))
+						.partial(PartialIndexFilter.of(Criteria.where("h").is(AddressTransaction.MEMPOOL_HEIGHT)))
+						.named("mempool_expiry_address_transaction"));
 	}
 
 	@Override
@@ -166,6 +166,18 @@ public class BitcoinJConverters {
 				.collect(Collectors.toList());
 	}
 
+	public void saveGenesisDetails(org.bitcoinj.core.Block block, int height) {
+		if (block.getTransactions() == null) {
+			return;
+		}
+		block.getTransactions().stream()
+				.map(BitcoinJConverters::getOpReturn)
+				.filter(opReturn -> !opReturn.isEmpty())
+				.map(opReturn -> opReturn.get(0))
+				.filter(SlpUtxoParser::isGenesis)
+				.forEach(genesis -> getSlpTokenDetails(genesis, height));
+	}
+
 	private Optional<SlpTokenDetails> getSlpTokenDetails(SlpOpReturn slpOpReturn, Integer currentBlock) {
 		if (SlpUtxoParser.isGenesis(slpOpReturn)) {
 			SlpOpReturnGenesis genesis = (SlpOpReturnGenesis) slpOpReturn;
@@ -1,5 +1,6 @@
 package com.bitcoin.indexer.facade;
 
+import java.io.File;
 import java.net.InetSocketAddress;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -15,13 +16,16 @@ import org.bitcoinj.core.PeerGroup;
 import org.bitcoinj.net.discovery.DnsDiscovery;
 import org.bitcoinj.net.discovery.PeerDiscovery;
 import org.bitcoinj.net.discovery.PeerDiscoveryException;
+import org.bitcoinj.store.BlockStoreException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
 
 import com.bitcoin.indexer.config.BlockchainExtended;
 import com.bitcoin.indexer.core.Coin;
+import com.bitcoin.indexer.importer.BulkBlockImporter;
 import com.bitcoin.indexer.listener.BitcoinJListener;
+import com.bitcoin.indexer.zeromq.ZeroMqClients;
 
 public class BitcoinJStreamClient {
 
@@ -37,11 +41,33 @@ public class BitcoinJStreamClient {
 			PeerGroup peerGroup,
 			Context context,
 			BlockchainExtended blockChain,
-			Coin coin) {
+			Coin coin,
+			BulkBlockImporter bulkBlockImporter,
+			ZeroMqClients zeroMqClients) {
 		this.listener = listener;
 		this.networkParameters = networkParameters;
 		this.peerGroup = peerGroup;
 		try {
+			String importDir = environment.getProperty("bulk.import.blocks.dir", "");
+			if (!importDir.isEmpty()) {
+				logger.info("Bulk importing blocks from dir={}", importDir);
+				// Continues after the stored chain unless told otherwise, replaying indexed blocks is wasted work
+				int fromHeight = environment.getProperty("bulk.import.from.height", Integer.TYPE, blockChain.getBestChainHeight() + 1);
+				int tip = bulkBlockImporter.importBlocks(new File(importDir), fromHeight, (block, height) -> {
+					boolean connected;
+					try {
+						connected = blockChain.connectImported(block);
+					} catch (BlockStoreException e) {
+						throw new RuntimeException("Could not store imported header height=" + height, e);
+					}
+					if (!connected) {
+						throw new IllegalStateException("Imported block does not connect to the chain head height=" + height + " hash=" + block.getHashAsString()
+								+ " spvHeight=" + blockChain.getBestChainHeight());
+					}
+				});
+				logger.info("Bulk import done tip={} spvHeight={}", tip, blockChain.getBestChainHeight());
+			}
+
 			String bitcoinjType = environment.getProperty("bitcoinj.type");
 			String bitcoinJVersion = environment.getProperty("bitcoinj.version");
 			if (bitcoinjType == null || bitcoinJVersion == null) {
@@ -89,6 +115,7 @@ public class BitcoinJStreamClient {
 				}
 				logger.info("Blockstore and blockchain is in sync adding txlistener...");
 				peerGroup.addOnTransactionBroadcastListener(Executors.newSingleThreadExecutor(), listener);
+				zeroMqClients.start();
 			});
 
 		} catch (Exception e) {
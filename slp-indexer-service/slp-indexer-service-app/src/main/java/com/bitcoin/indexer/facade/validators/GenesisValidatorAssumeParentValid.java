@@ -5,7 +5,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Objects;
 import java.util.stream.Stream;
 
 import org.jetbrains.annotations.NotNull;
@@ -17,22 +16,12 @@ import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenType;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
-import com.bitcoin.indexer.repository.TransactionRepository;
-import com.bitcoin.indexer.repository.UtxoRepository;
-import com.bitcoin.indexer.core.Coin;
 
 public class GenesisValidatorAssumeParentValid implements SlpValidatorFacade {
-	private TransactionRepository transactionRepository;
-	private UtxoRepository utxoRepository;
 	private static final Logger logger = LoggerFactory.getLogger(GenesisValidatorAssumeParentValid.class);
 
-	public GenesisValidatorAssumeParentValid(TransactionRepository transactionRepository, UtxoRepository utxoRepository) {
-		this.transactionRepository = Objects.requireNonNull(transactionRepository);
-		this.utxoRepository = Objects.requireNonNull(utxoRepository);
-	}
-
 	@Override
-	public SlpValid isValid(String txId, String tokenId, String tokenType, List<Utxo> utxos, List<Input> inputs, SlpValidatorFacade baseValidator) {
+	public SlpValid isValid(String txId, String tokenId, String tokenType, List<Utxo> utxos, List<Input> inputs, ValidationContext context, SlpValidatorFacade baseValidator) {
 		BigDecimal currentTransactionTotalSlpTokenValue = utxos.stream().filter(e -> e.getSlpUtxo().isPresent())
 				.map(e -> e.getSlpUtxo().get().getAmount())
 				.reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
@@ -52,7 +41,7 @@ public class GenesisValidatorAssumeParentValid implements SlpValidatorFacade {
 		Map<Integer, Utxo> indexUtxo = new HashMap<>();
 		for (int i = 0, inputsSize = inputs.size(); i < inputsSize; i++) {
 			Input input = inputs.get(i);
-			Utxo utxoFromPrev = utxoRepository.fetchUtxo(input.getTxId(), input.getIndex(), Coin.BCH).blockingGet();
+			Utxo utxoFromPrev = context.spentOutput(input.getTxId(), input.getIndex()).orElse(null);
 			if (utxoFromPrev == null) {
 				continue;
 			}
@@ -0,0 +1,146 @@
+package com.bitcoin.indexer.facade.validators;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
+import com.bitcoin.indexer.config.SystemTimer;
+import com.bitcoin.indexer.core.Coin;
+import com.bitcoin.indexer.repository.TransactionRepository;
+import com.bitcoin.indexer.repository.UtxoRepository;
+import com.bitcoin.indexer.sorter.DependencyOrderSorter;
+import com.google.common.collect.Lists;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Pushes new invalid verdicts down to stored descendants. Descendants are walked breadth first through the
+ * transactions spending slp outputs, one level at a time, each transaction is visited once. A level is loaded, validated
+ * and its changed verdicts handed to the caller in chunks, only descendants that turned invalid lead to the next level.
+ */
+public class InvalidationPropagator {
+
+	private static final Logger logger = LoggerFactory.getLogger(InvalidationPropagator.class);
+
+	private final TransactionRepository transactionRepository;
+	private final UtxoRepository utxoRepository;
+	private final int chunkSize;
+
+	private final Counter revalidatedCounter = Metrics.counter("slp_invalidation_revalidated");
+	private final Counter invalidatedCounter = Metrics.counter("slp_invalidation_invalidated");
+	private final DistributionSummary depthSummary = Metrics.summary("slp_invalidation_depth");
+	private final Timer runTimer = Metrics.timer("slp_invalidation_run");
+
+	public InvalidationPropagator(TransactionRepository transactionRepository, UtxoRepository utxoRepository, int chunkSize) {
+		this.transactionRepository = Objects.requireNonNull(transactionRepository);
+		this.utxoRepository = Objects.requireNonNull(utxoRepository);
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Revalidates the stored descendants of the invalid transactions in the batch, reading through the batch's
+	 * context. Descendants inside the batch were already validated after their parents and are not visited. Changed
+	 * verdicts are passed to stage, nothing is written here so a failed run leaves the store untouched.
+	 *
+	 * @return descendants whose verdict changed
+	 */
+	public List<IndexerTransaction> propagate(List<IndexerTransaction> batch, ValidationContext context, SlpValidatorFacade validator,
+			Consumer<List<IndexerTransaction>> stage) {
+		Set<String> visited = batch.stream().map(tx -> tx.getTransaction().getTxId()).collect(Collectors.toCollection(HashSet::new));
+		List<String> frontier = batch.stream()
+				.filter(tx -> isInvalid(tx.getTransaction()))
+				.map(tx -> tx.getTransaction().getTxId())
+				.collect(Collectors.toList());
+		if (frontier.isEmpty()) {
+			return List.of();
+		}
+
+		SystemTimer systemTimer = SystemTimer.create();
+		systemTimer.start();
+		int roots = frontier.size();
+		int depth = 0;
+		int revalidated = 0;
+		List<IndexerTransaction> changed = new ArrayList<>();
+		while (!frontier.isEmpty()) {
+			List<String> children = utxoRepository.fetchSpendingTxIds(frontier).blockingGet().stream()
+					.filter(visited::add)
+					.collect(Collectors.toList());
+			if (children.isEmpty()) {
+				break;
+			}
+			depth++;
+
+			List<String> next = new ArrayList<>();
+			for (List<String> chunk : Lists.partition(children, chunkSize)) {
+				List<IndexerTransaction> stored = transactionRepository.fetchTransactions(chunk, Coin.BCH, false).blockingGet().stream()
+						.filter(tx -> !tx.getTransaction().getSlpOpReturn().isEmpty())
+						.filter(tx -> !isInvalid(tx.getTransaction()))
+						.collect(Collectors.toList());
+				Map<String, Optional<SlpValid>> previous = new HashMap<>();
+				stored.forEach(tx -> previous.put(tx.getTransaction().getTxId(), tx.getTransaction().getSlpValid()));
+
+				// A stored verdict would be returned as it is, the descendants are judged again from their parents
+				List<IndexerTransaction> pending = stored.stream().map(tx -> tx.withValid(SlpValid.unknown())).collect(Collectors.toList());
+				context.include(pending);
+
+				List<IndexerTransaction> chunkChanged = new ArrayList<>();
+				for (IndexerTransaction indexerTransaction : new DependencyOrderSorter(pending).getSorted()) {
+					Transaction transaction = indexerTransaction.getTransaction();
+					SlpValid valid = validator.isValid(transaction.getTxId(),
+							transaction.getSlpOpReturn().get(0).getTokenId().getHex(),
+							transaction.getSlpOpReturn().get(0).getTokenType().getType(),
+							transaction.getOutputs(),
+							transaction.getInputs(),
+							context,
+							validator);
+					IndexerTransaction withValid = indexerTransaction.withValid(valid);
+					context.record(withValid);
+					revalidated++;
+					if (!previous.get(transaction.getTxId()).map(valid::equals).orElse(false)) {
+						chunkChanged.add(withValid);
+					}
+					if (valid.getValid() == Valid.INVALID) {
+						next.add(transaction.getTxId());
+					}
+				}
+				if (!chunkChanged.isEmpty()) {
+					stage.accept(chunkChanged);
+					changed.addAll(chunkChanged);
+				}
+			}
+			frontier = next;
+		}
+
+		long time = systemTimer.getMsSinceStart();
+		long invalidated = changed.stream().filter(tx -> isInvalid(tx.getTransaction())).count();
+		revalidatedCounter.increment(revalidated);
+		invalidatedCounter.increment(invalidated);
+		depthSummary.record(depth);
+		runTimer.record(time, TimeUnit.MILLISECONDS);
+		logger.info("Propagated invalidation roots={} revalidated={} invalidated={} depth={} time={} txPerSecond={}",
+				roots, revalidated, invalidated, depth, time, time == 0 ? revalidated : revalidated * 1000 / time);
+		return changed;
+	}
+
+	private static boolean isInvalid(Transaction transaction) {
+		return transaction.getSlpValid().map(v -> v.getValid() == Valid.INVALID).orElse(false);
+	}
+}
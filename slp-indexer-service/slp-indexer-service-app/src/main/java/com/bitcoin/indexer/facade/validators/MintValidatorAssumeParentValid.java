@@ -9,51 +9,36 @@ import java.util.Map.Entry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
 import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.TransactionSlpData;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
-import com.bitcoin.indexer.core.Coin;
-import com.bitcoin.indexer.repository.TransactionRepository;
-import com.bitcoin.indexer.repository.UtxoRepository;
 
 public class MintValidatorAssumeParentValid implements SlpValidatorFacade {
 
-	private TransactionRepository transactionRepository;
-	private UtxoRepository utxoRepository;
 	private static final Logger logger = LoggerFactory.getLogger(MintValidatorAssumeParentValid.class);
 
-	public MintValidatorAssumeParentValid(TransactionRepository transactionRepository, UtxoRepository utxoRepository) {
-		this.transactionRepository = transactionRepository;
-		this.utxoRepository = utxoRepository;
-	}
-
 	@Override
-	public SlpValid isValid(String txId, String tokenId, String tokenType, List<Utxo> utxos, List<Input> inputs, SlpValidatorFacade baseValidator) {
+	public SlpValid isValid(String txId, String tokenId, String tokenType, List<Utxo> utxos, List<Input> inputs, ValidationContext context, SlpValidatorFacade baseValidator) {
 		boolean validMint = false;
 
 		BigDecimal currentTransactionTotalSlpTokenValue = utxos.stream().filter(e -> e.getSlpUtxo().isPresent())
 				.map(e -> e.getSlpUtxo().get().getAmount())
 				.reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
 
-		IndexerTransaction currentTx = transactionRepository.fetchTransaction(txId, Coin.BCH, true).blockingGet();
-		if (currentTx != null) {
-			if (currentTx.getTransaction().getSlpValid().isPresent()) {
-				SlpValid slpValid = currentTx.getTransaction().getSlpValid().get();
-				if (slpValid.getValid() != Valid.UNKNOWN) {
-					return slpValid;
-				}
-			}
+		SlpValid currentValid = context.verdict(txId).orElse(null);
+		if (currentValid != null && currentValid.getValid() != Valid.UNKNOWN) {
+			return currentValid;
 		}
 
-		Map<Input, IndexerTransaction> prevTxs = new HashMap<>();
-		Map<Integer, IndexerTransaction> indexPrevTx = new HashMap<>();
+		Map<Input, TransactionSlpData> prevTxs = new HashMap<>();
+		Map<Integer, TransactionSlpData> indexPrevTx = new HashMap<>();
 
 		for (int i = 0; i < inputs.size(); i++) {
 			Input input = inputs.get(i);
-			IndexerTransaction prevTx = transactionRepository.fetchTransaction(input.getTxId(), Coin.BCH, true).blockingGet();
+			TransactionSlpData prevTx = context.parent(input.getTxId()).orElse(null);
 			if (prevTx == null) {
 				//We assume that we already have saved all previous SLP txs that are needed for this tx.
 				//If we don't have the prevTx we assume this tx is a normal BCH transaction which we don't track
@@ -62,8 +47,7 @@ public class MintValidatorAssumeParentValid implements SlpValidatorFacade {
 			}
 
 			//Prev tx doesn't seem to have an output that has our tokenId. So let's skip it and treat it as a normal BCH tx
-			if (prevTx.getTransaction().getOutputs().stream().filter(utxo -> utxo.getSlpUtxo().isPresent())
-					.map(utxo -> utxo.getSlpUtxo().get())
+			if (prevTx.getSlpOutputs().stream()
 					.noneMatch(slpUtxo -> slpUtxo.getSlpTokenId().getHex().equals(tokenId))) {
 				continue;
 			}
@@ -73,30 +57,28 @@ public class MintValidatorAssumeParentValid implements SlpValidatorFacade {
 
 		boolean shouldSkipValidCheck = false;
 		if (indexPrevTx.containsKey(0) && indexPrevTx.containsKey(1)) {
-			if (indexPrevTx.get(0).getTransaction().getSlpValid().map(e -> e.getValid() == Valid.INVALID).isPresent()) {
-				if (indexPrevTx.get(1).getTransaction().getSlpValid().map(e -> e.getValid() == Valid.VALID).isPresent()) {
+			if (indexPrevTx.get(0).getSlpValid().map(e -> e.getValid() == Valid.INVALID).isPresent()) {
+				if (indexPrevTx.get(1).getSlpValid().map(e -> e.getValid() == Valid.VALID).isPresent()) {
 					shouldSkipValidCheck = true;
 				}
 			}
 		}
 
-		for (Entry<Input, IndexerTransaction> entry : prevTxs.entrySet()) {
+		for (Entry<Input, TransactionSlpData> entry : prevTxs.entrySet()) {
 			Input input = entry.getKey();
-			IndexerTransaction prevTx = entry.getValue();
+			TransactionSlpData prevTx = entry.getValue();
 
-			if (prevTx.getTransaction().getOutputs().get(input.getIndex())
-					.getSlpUtxo().map(slpUtxo -> !slpUtxo.getTokenType().equals(tokenType)).orElse(false)) {
+			if (prevTx.getSlpOutput(input.getIndex()).map(slpUtxo -> !slpUtxo.getTokenType().equals(tokenType)).orElse(false)) {
 				logger.info("Minting is not matching prevTx tokentype={} txId={}", tokenType, txId);
 				return SlpValid.invalid("Minting is not matching prevTx tokentype=" + tokenType + " txId=" + txId);
 			}
 
-			if (prevTx.getTransaction()
-					.getSlpValid().map(prevValid -> prevValid.getValid() == Valid.INVALID).orElse(false) && !shouldSkipValidCheck) {
-				logger.info("Minting requires valid parent txId={} prevTx={}", txId, prevTx.getTransaction().getTxId());
+			if (prevTx.getSlpValid().map(prevValid -> prevValid.getValid() == Valid.INVALID).orElse(false) && !shouldSkipValidCheck) {
+				logger.info("Minting requires valid parent txId={} prevTx={}", txId, prevTx.getTxId());
 				return SlpValid.invalid("Minting requires valid parent txId=" + txId + "  prevTx=" + prevTx);
 			}
 
-			validMint = prevTx.getTransaction().getOutputs().get(input.getIndex()).getSlpUtxo()
+			validMint = prevTx.getSlpOutput(input.getIndex())
 					.filter(e -> e.getSlpTokenId().getHex().equals(tokenId))
 					.map(SlpUtxo::hasBaton).orElse(false);
 			if (validMint) {
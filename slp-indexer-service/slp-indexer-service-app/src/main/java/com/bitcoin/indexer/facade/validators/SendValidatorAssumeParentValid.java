@@ -9,29 +9,19 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
 import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.TransactionSlpData;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenType;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
-import com.bitcoin.indexer.core.Coin;
-import com.bitcoin.indexer.repository.TransactionRepository;
-import com.bitcoin.indexer.repository.UtxoRepository;
 
 public class SendValidatorAssumeParentValid implements SlpValidatorFacade {
-	private TransactionRepository transactionRepository;
-	private UtxoRepository utxoRepository;
 	private static final Logger logger = LoggerFactory.getLogger(SendValidatorAssumeParentValid.class);
 
-	public SendValidatorAssumeParentValid(TransactionRepository transactionRepository, UtxoRepository utxoRepository) {
-		this.transactionRepository = transactionRepository;
-		this.utxoRepository = utxoRepository;
-	}
-
 	@Override
-	public SlpValid isValid(String txId, String tokenId, String tokenType, List<Utxo> utxos, List<Input> inputs, SlpValidatorFacade baseValidator) {
+	public SlpValid isValid(String txId, String tokenId, String tokenType, List<Utxo> utxos, List<Input> inputs, ValidationContext context, SlpValidatorFacade baseValidator) {
 		BigDecimal currentTransactionTotalSlpTokenValue = utxos.stream().filter(e -> e.getSlpUtxo().isPresent())
 				.map(e -> e.getSlpUtxo().get().getAmount())
 				.reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
@@ -40,20 +30,15 @@ public class SendValidatorAssumeParentValid implements SlpValidatorFacade {
 
 		List<String> prevTxs = new ArrayList<>();
 
-		IndexerTransaction currentTx = transactionRepository.fetchTransaction(txId, Coin.BCH, true).blockingGet();
-		if (currentTx != null) {
-			if (currentTx.getTransaction().getSlpValid().isPresent()) {
-				SlpValid slpValid = currentTx.getTransaction().getSlpValid().get();
-				if (slpValid.getValid() != Valid.UNKNOWN) {
-					return slpValid;
-				}
-			}
+		SlpValid currentValid = context.verdict(txId).orElse(null);
+		if (currentValid != null && currentValid.getValid() != Valid.UNKNOWN) {
+			return currentValid;
 		}
 
-		Map<Integer, IndexerTransaction> inputIndex = new HashMap<>();
+		Map<Integer, TransactionSlpData> inputIndex = new HashMap<>();
 		for (int i = 0, inputsSize = inputs.size(); i < inputsSize; i++) {
 			Input input = inputs.get(i);
-			IndexerTransaction prevTx = transactionRepository.fetchTransaction(input.getTxId(), Coin.BCH, true).blockingGet();
+			TransactionSlpData prevTx = context.parent(input.getTxId()).orElse(null);
 			if (prevTx == null) {
 				//We assume that we already have saved all previous SLP txs that are needed for this tx.
 				//If we don't have the prevTx we assume this tx is a normal BCH transaction which we don't track
@@ -62,39 +47,35 @@ public class SendValidatorAssumeParentValid implements SlpValidatorFacade {
 			}
 
 			//Prev tx doesn't seem to have an output that has our tokenId. So let's skip it and treat it as a normal BCH tx
-			if (prevTx.getTransaction().getOutputs().stream().filter(utxo -> utxo.getSlpUtxo().isPresent())
-					.map(utxo -> utxo.getSlpUtxo().get())
+			if (prevTx.getSlpOutputs().stream()
 					.noneMatch(slpUtxo -> slpUtxo.getSlpTokenId().getHex().equals(tokenId))) {
 				continue;
 			}
 
-			prevTxs.add(prevTx.getTransaction().getTxId());
+			prevTxs.add(prevTx.getTxId());
 			inputIndex.put(i, prevTx);
 
-			if (prevTx.getTransaction().getOutputs().stream().filter(utxo -> utxo.getSlpUtxo().isPresent())
-					.map(utxo -> utxo.getSlpUtxo().get())
+			if (prevTx.getSlpOutputs().stream()
 					.noneMatch(slpUtxo -> slpUtxo.getTokenType().equals(tokenType))) {
 				return SlpValid.invalid(
-						"None of prevTx utxos matches this tokenType prevTx=" + prevTx.getTransaction().getTxId() +
+						"None of prevTx utxos matches this tokenType prevTx=" + prevTx.getTxId() +
 								" txId=" + txId +
 								"tokenType=" + tokenType);
 			}
 
-			Valid prevTxValid = prevTx.getTransaction().getSlpValid().orElse(SlpValid.unknown()).getValid();
+			Valid prevTxValid = prevTx.getSlpValid().orElse(SlpValid.unknown()).getValid();
 			if (prevTxValid == Valid.VALID || prevTxValid == Valid.UNKNOWN) {
-				totalPreviousTxTokenValue = totalPreviousTxTokenValue.add(prevTx.getTransaction().getOutputs()
-						.get(input.getIndex())
-						.getSlpUtxo()
+				totalPreviousTxTokenValue = totalPreviousTxTokenValue.add(prevTx.getSlpOutput(input.getIndex())
 						.filter(e -> e.getSlpTokenId().getHex().equals(tokenId))
 						.map(SlpUtxo::getAmount).orElse(BigDecimal.ZERO));
 			}
 		}
 
 		if (inputIndex.containsKey(0) && inputIndex.containsKey(1)) {
-			IndexerTransaction first = inputIndex.get(0);
-			IndexerTransaction second = inputIndex.get(1);
-			if (first.getTransaction().getSlpValid().map(SlpValid::getValid).filter(e -> e == Valid.VALID).isPresent()) {
-				if (second.getTransaction().getSlpValid().map(SlpValid::getValid).filter(e -> e == Valid.VALID).isPresent()) {
+			TransactionSlpData first = inputIndex.get(0);
+			TransactionSlpData second = inputIndex.get(1);
+			if (first.getSlpValid().map(SlpValid::getValid).filter(e -> e == Valid.VALID).isPresent()) {
+				if (second.getSlpValid().map(SlpValid::getValid).filter(e -> e == Valid.VALID).isPresent()) {
 
 				}
 			}
@@ -8,6 +8,6 @@ import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
 
 public interface SlpValidatorFacade {
 
-	SlpValid isValid(String txId, String tokenId, String tokenType, List<Utxo> utxos, List<Input> inputs, SlpValidatorFacade baseValidator);
+	SlpValid isValid(String txId, String tokenId, String tokenType, List<Utxo> utxos, List<Input> inputs, ValidationContext context, SlpValidatorFacade baseValidator);
 
 }
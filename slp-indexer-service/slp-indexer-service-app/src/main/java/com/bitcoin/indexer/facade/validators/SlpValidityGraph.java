@@ -0,0 +1,239 @@
+package com.bitcoin.indexer.facade.validators;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.spongycastle.util.encoders.Hex;
+
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.TransactionSlpData;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenId;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenType;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Compact token side of indexed transactions, read by the validators before Mongo. A node keeps the validity, the
+ * token and the amount and baton of every slp output, nothing else, and the cache is bounded by the bytes the nodes
+ * hold. Parents are served without their slp inputs and with the token type as the only token detail.
+ */
+public class SlpValidityGraph {
+
+	private static final int TX_ID_LENGTH = 64;
+	private static final byte NONE = -1;
+	private static final byte BATON = 1;
+	private static final String[] TRANSACTION_TYPES = {"SEND", "MINT", "GENESIS"};
+	private static final SlpTokenType[] TOKEN_TYPES = {SlpTokenType.PERMISSIONLESS, SlpTokenType.NFT1_GENESIS, SlpTokenType.NFT1_CHILD};
+
+	private final Cache<TxKey, Node> nodes;
+
+	public SlpValidityGraph(long maxBytes) {
+		this.nodes = Caffeine.newBuilder()
+				.maximumWeight(maxBytes)
+				.weigher((TxKey key, Node node) -> node.sizeInBytes())
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(Metrics.globalRegistry, nodes, "slp_validity_graph");
+		Metrics.gauge("slp_validity_graph_bytes", this, SlpValidityGraph::sizeInBytes);
+		Metrics.gauge("slp_validity_graph_hit_ratio", this, g -> g.nodes.stats().hitRate());
+	}
+
+	public Optional<TransactionSlpData> get(String txId) {
+		TxKey key = TxKey.parse(txId);
+		if (key == null) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(nodes.getIfPresent(key)).map(node -> node.toSlpData(txId));
+	}
+
+	public void put(Transaction transaction) {
+		put(TransactionSlpData.fromTransaction(transaction));
+	}
+
+	public void put(TransactionSlpData slpData) {
+		TxKey key = TxKey.parse(slpData.getTxId());
+		Node node = Node.from(slpData);
+		if (key != null && node != null) {
+			nodes.put(key, node);
+		}
+	}
+
+	public void invalidate(Collection<String> txIds) {
+		txIds.stream().map(TxKey::parse).filter(key -> key != null).forEach(nodes::invalidate);
+	}
+
+	public long sizeInBytes() {
+		return nodes.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+	}
+
+	static final class TxKey {
+		private static final int BYTES = 48;
+
+		private final long first;
+		private final long second;
+		private final long third;
+		private final long fourth;
+
+		private TxKey(long first, long second, long third, long fourth) {
+			this.first = first;
+			this.second = second;
+			this.third = third;
+			this.fourth = fourth;
+		}
+
+		static TxKey parse(String hex) {
+			if (hex == null || hex.length() != TX_ID_LENGTH) {
+				return null;
+			}
+			try {
+				return new TxKey(word(hex, 0), word(hex, 1), word(hex, 2), word(hex, 3));
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		private static long word(String hex, int index) {
+			return Long.parseUnsignedLong(hex.substring(index * 16, index * 16 + 16), 16);
+		}
+
+		String toHex() {
+			return hex(first) + hex(second) + hex(third) + hex(fourth);
+		}
+
+		private static String hex(long word) {
+			String hex = Long.toHexString(word);
+			return "0".repeat(16 - hex.length()) + hex;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof TxKey)) {
+				return false;
+			}
+			TxKey other = (TxKey) o;
+			return first == other.first && second == other.second && third == other.third && fourth == other.fourth;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(first ^ second ^ third ^ fourth);
+		}
+	}
+
+	static final class Node {
+		private static final int BYTES = 56;
+		private static final int ARRAY_BYTES = 16;
+
+		private final byte valid;
+		private final TxKey tokenId;
+		private final byte tokenType;
+		private final int outputCount;
+		// Slp outputs only, in output order
+		private final int[] indexes;
+		private final long[] amounts;
+		private final byte[] scales;
+		private final byte[] flags;
+
+		private Node(byte valid, TxKey tokenId, byte tokenType, int outputCount, int[] indexes, long[] amounts, byte[] scales, byte[] flags) {
+			this.valid = valid;
+			this.tokenId = tokenId;
+			this.tokenType = tokenType;
+			this.outputCount = outputCount;
+			this.indexes = indexes;
+			this.amounts = amounts;
+			this.scales = scales;
+			this.flags = flags;
+		}
+
+		// Transactions the graph can not hold exactly are left to Mongo
+		static Node from(TransactionSlpData slpData) {
+			List<Integer> slpIndexes = new ArrayList<>();
+			for (int i = 0; i < slpData.getOutputCount(); i++) {
+				if (slpData.getSlpOutput(i).isPresent()) {
+					slpIndexes.add(i);
+				}
+			}
+
+			int size = slpIndexes.size();
+			int[] indexes = new int[size];
+			long[] amounts = new long[size];
+			byte[] scales = new byte[size];
+			byte[] flags = new byte[size];
+			TxKey tokenId = null;
+			byte tokenType = NONE;
+			for (int i = 0; i < size; i++) {
+				SlpUtxo slpUtxo = slpData.getSlpOutput(slpIndexes.get(i)).get();
+				String tokenHex = slpUtxo.getSlpTokenId().getHex();
+				TxKey outputTokenId = TxKey.parse(tokenHex);
+				byte outputTokenType = tokenTypeIndex(slpUtxo.getTokenType());
+				byte transactionType = transactionTypeIndex(slpUtxo.getTokenTransactionType());
+				BigDecimal amount = slpUtxo.getAmount();
+				if (outputTokenId == null || !outputTokenId.toHex().equals(tokenHex) || outputTokenType == NONE || transactionType == NONE
+						|| (tokenId != null && (!tokenId.equals(outputTokenId) || tokenType != outputTokenType))
+						|| amount.signum() < 0 || amount.unscaledValue().bitLength() > Long.SIZE || amount.scale() < 0 || amount.scale() > Byte.MAX_VALUE) {
+					return null;
+				}
+				tokenId = outputTokenId;
+				tokenType = outputTokenType;
+				indexes[i] = slpIndexes.get(i);
+				amounts[i] = amount.unscaledValue().longValue();
+				scales[i] = (byte) amount.scale();
+				flags[i] = (byte) ((slpUtxo.hasBaton() ? BATON : 0) | transactionType << 1);
+			}
+			byte valid = slpData.getSlpValid().map(v -> (byte) v.getValid().ordinal()).orElse(NONE);
+			return new Node(valid, tokenId, tokenType, slpData.getOutputCount(), indexes, amounts, scales, flags);
+		}
+
+		TransactionSlpData toSlpData(String txId) {
+			SlpValid slpValid = valid == NONE ? null : SlpValid.create("", Valid.values()[valid]);
+			List<Optional<SlpUtxo>> outputs = new ArrayList<>(outputCount);
+			for (int i = 0; i < outputCount; i++) {
+				outputs.add(Optional.empty());
+			}
+			for (int i = 0; i < indexes.length; i++) {
+				SlpTokenType type = TOKEN_TYPES[tokenType];
+				BigDecimal amount = new BigDecimal(new BigInteger(Long.toUnsignedString(amounts[i])), scales[i]);
+				outputs.set(indexes[i], Optional.of(SlpUtxo.create(new SlpTokenId(tokenId.toHex()), amount, (flags[i] & BATON) != 0, "",
+						TRANSACTION_TYPES[flags[i] >> 1], "", type.getType(), Hex.toHexString(type.getBytes()), slpValid == null ? SlpValid.unknown() : slpValid)));
+			}
+			return TransactionSlpData.create(txId, slpValid, outputs, List.of());
+		}
+
+		int sizeInBytes() {
+			int length = indexes.length;
+			return TxKey.BYTES + BYTES + (tokenId == null ? 0 : TxKey.BYTES)
+					+ 4 * ARRAY_BYTES + length * (Integer.BYTES + Long.BYTES + 2);
+		}
+
+		private static byte tokenTypeIndex(String tokenType) {
+			for (byte i = 0; i < TOKEN_TYPES.length; i++) {
+				if (TOKEN_TYPES[i].getType().equals(tokenType)) {
+					return i;
+				}
+			}
+			return NONE;
+		}
+
+		private static byte transactionTypeIndex(String transactionType) {
+			for (byte i = 0; i < TRANSACTION_TYPES.length; i++) {
+				if (TRANSACTION_TYPES[i].equals(transactionType)) {
+					return i;
+				}
+			}
+			return NONE;
+		}
+	}
+}
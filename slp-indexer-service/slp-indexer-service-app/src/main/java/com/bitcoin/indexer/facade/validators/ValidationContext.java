@@ -0,0 +1,191 @@
+package com.bitcoin.indexer.facade.validators;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.TransactionSlpData;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
+import com.bitcoin.indexer.core.Coin;
+import com.bitcoin.indexer.repository.TransactionRepository;
+import com.bitcoin.indexer.repository.UtxoRepository;
+
+/**
+ * Everything the validators read while a batch is validated. Verdicts, parent transactions and spent outputs of the
+ * batch are loaded up front with one read each, parents found in the validity graph are not read at all. Transactions
+ * of the batch are served from the batch itself and follow the verdicts recorded while it is validated. Lookups outside
+ * the prefetched set, as when a verdict is pushed to stored transactions, are read once and kept. Validation lanes of
+ * the same batch share one context.
+ */
+public class ValidationContext {
+
+	private static final Logger logger = LoggerFactory.getLogger(ValidationContext.class);
+
+	private final TransactionRepository transactionRepository;
+	private final UtxoRepository utxoRepository;
+	private final SlpValidityGraph validityGraph;
+	private final Map<String, IndexerTransaction> transactions = new ConcurrentHashMap<>();
+	private final Map<String, Optional<SlpValid>> verdicts = new ConcurrentHashMap<>();
+	private final Map<String, Optional<TransactionSlpData>> parents = new ConcurrentHashMap<>();
+	private final Map<String, Optional<Utxo>> spentOutputs = new ConcurrentHashMap<>();
+
+	private ValidationContext(TransactionRepository transactionRepository, UtxoRepository utxoRepository, SlpValidityGraph validityGraph) {
+		this.transactionRepository = Objects.requireNonNull(transactionRepository);
+		this.utxoRepository = Objects.requireNonNull(utxoRepository);
+		this.validityGraph = Objects.requireNonNull(validityGraph);
+	}
+
+	public static ValidationContext prefetch(List<IndexerTransaction> batch, TransactionRepository transactionRepository, UtxoRepository utxoRepository,
+			SlpValidityGraph validityGraph) {
+		ValidationContext context = new ValidationContext(transactionRepository, utxoRepository, validityGraph);
+		batch.forEach(tx -> context.transactions.put(tx.getTransaction().getTxId(), tx));
+		List<String> slpTxIds = slpTxs(batch).stream().map(tx -> tx.getTransaction().getTxId()).distinct().collect(Collectors.toList());
+		if (!slpTxIds.isEmpty()) {
+			Map<String, SlpValid> verdicts = transactionRepository.fetchValidity(slpTxIds).blockingGet();
+			slpTxIds.forEach(txId -> context.verdicts.put(txId, Optional.ofNullable(verdicts.get(txId))));
+		}
+		context.load(batch);
+		return context;
+	}
+
+	/**
+	 * Adds stored transactions to be validated again, with the verdicts they carry, and loads what they read with one
+	 * read each.
+	 */
+	public void include(List<IndexerTransaction> stored) {
+		stored.forEach(tx -> {
+			transactions.put(tx.getTransaction().getTxId(), tx);
+			verdicts.put(tx.getTransaction().getTxId(), tx.getTransaction().getSlpValid());
+		});
+		load(stored);
+	}
+
+	private void load(List<IndexerTransaction> txs) {
+		List<IndexerTransaction> slpTxs = slpTxs(txs);
+		if (slpTxs.isEmpty()) {
+			return;
+		}
+
+		// Outputs created by transactions of this context are read from them, only the rest is loaded
+		Map<String, Input> spent = new LinkedHashMap<>();
+		slpTxs.stream()
+				.flatMap(tx -> tx.getTransaction().getInputs().stream())
+				.filter(input -> !transactions.containsKey(input.getTxId()))
+				.filter(input -> !spentOutputs.containsKey(key(input.getTxId(), input.getIndex())))
+				.forEach(input -> spent.putIfAbsent(key(input.getTxId(), input.getIndex()), input));
+		List<String> parentTxIds = spent.values().stream()
+				.map(Input::getTxId)
+				.distinct()
+				.filter(txId -> !parents.containsKey(txId))
+				.collect(Collectors.toList());
+
+		List<String> missing = new ArrayList<>();
+		for (String txId : parentTxIds) {
+			Optional<TransactionSlpData> known = validityGraph.get(txId);
+			if (known.isPresent()) {
+				parents.put(txId, known);
+			} else {
+				missing.add(txId);
+			}
+		}
+		if (!missing.isEmpty()) {
+			Map<String, TransactionSlpData> stored = transactionRepository.fetchSlpData(missing).blockingGet();
+			stored.values().forEach(validityGraph::put);
+			missing.forEach(txId -> parents.put(txId, Optional.ofNullable(stored.get(txId))));
+		}
+
+		if (!spent.isEmpty()) {
+			Map<String, Utxo> outputs = utxoRepository.fetchUtxo(List.copyOf(spent.values()), Coin.BCH).blockingGet().stream()
+					.collect(Collectors.toMap(u -> key(u.getTxId(), u.getIndex()), u -> u, (a, b) -> a));
+			spent.keySet().forEach(key -> spentOutputs.put(key, Optional.ofNullable(outputs.get(key))));
+		}
+		logger.debug("Prefetched validation context txs={} parents={} spentOutputs={}", slpTxs.size(), parentTxIds.size(), spent.size());
+	}
+
+	/**
+	 * Verdict already given to the transaction, stored or recorded in this context.
+	 */
+	public Optional<SlpValid> verdict(String txId) {
+		return cached(verdicts, txId, id -> Optional.ofNullable(transactionRepository.fetchValidity(List.of(id)).blockingGet().get(id)));
+	}
+
+	public Optional<TransactionSlpData> parent(String txId) {
+		IndexerTransaction transaction = transactions.get(txId);
+		if (transaction != null) {
+			return Optional.of(TransactionSlpData.fromTransaction(transaction.getTransaction()));
+		}
+		return cached(parents, txId, id -> {
+			Optional<TransactionSlpData> known = validityGraph.get(id);
+			if (known.isPresent()) {
+				return known;
+			}
+			Optional<TransactionSlpData> stored = Optional.ofNullable(transactionRepository.fetchSlpData(id).blockingGet());
+			stored.ifPresent(validityGraph::put);
+			return stored;
+		});
+	}
+
+	/**
+	 * Output spent by an input. Only slp outputs of the batch are stored, so only those are found in it.
+	 */
+	public Optional<Utxo> spentOutput(String txId, int index) {
+		IndexerTransaction transaction = transactions.get(txId);
+		if (transaction != null) {
+			return transaction.getTransaction().getOutputs().stream()
+					.filter(u -> u.getIndex() == index && u.getSlpUtxo().isPresent())
+					.findFirst();
+		}
+		return cached(spentOutputs, key(txId, index), key -> Optional.ofNullable(utxoRepository.fetchUtxo(txId, index, Coin.BCH).blockingGet()));
+	}
+
+	public Optional<IndexerTransaction> transaction(String txId) {
+		IndexerTransaction transaction = transactions.get(txId);
+		if (transaction != null) {
+			return Optional.of(transaction);
+		}
+		return Optional.ofNullable(transactionRepository.fetchTransaction(txId, Coin.BCH, true).blockingGet());
+	}
+
+	/**
+	 * Makes a new verdict visible to the rest of the batch, callers still save the transaction.
+	 */
+	public void record(IndexerTransaction transaction) {
+		String txId = transaction.getTransaction().getTxId();
+		transactions.put(txId, transaction);
+		verdicts.put(txId, transaction.getTransaction().getSlpValid());
+		if (!transaction.getTransaction().getSlpOpReturn().isEmpty()) {
+			validityGraph.put(transaction.getTransaction());
+		}
+	}
+
+	private static List<IndexerTransaction> slpTxs(List<IndexerTransaction> txs) {
+		return txs.stream().filter(tx -> !tx.getTransaction().getSlpOpReturn().isEmpty()).collect(Collectors.toList());
+	}
+
+	// Reads are made outside the map, a lane waiting on Mongo must not hold up lookups of other lanes
+	private static <T> Optional<T> cached(Map<String, Optional<T>> cache, String key, Function<String, Optional<T>> loader) {
+		Optional<T> cached = cache.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		Optional<T> loaded = loader.apply(key);
+		Optional<T> raced = cache.putIfAbsent(key, loaded);
+		return raced != null ? raced : loaded;
+	}
+
+	private static String key(String txId, int index) {
+		return txId + ":" + index;
+	}
+}
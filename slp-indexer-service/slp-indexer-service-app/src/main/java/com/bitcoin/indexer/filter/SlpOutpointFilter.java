@@ -0,0 +1,133 @@
+package com.bitcoin.indexer.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.config.SystemTimer;
+import com.bitcoin.indexer.repository.UtxoRepository;
+import com.bitcoin.indexer.repository.db.AllOutputsDbObject;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Membership filter over every outpoint stored in allOutputs. Only slp outputs are stored there, so a negative answer means an input
+ * can not be spending an slp utxo and the database lookup can be skipped. Spent outpoints are kept on purpose since a mempool tx is
+ * replayed when it is mined and must still be picked up. Removals on reorg only add false positives, so the filter is append only and
+ * rebuilt from the database when it gets saturated, with room for twice the elements it held so it does not saturate again right away.
+ */
+public class SlpOutpointFilter {
+
+	private static final Logger logger = LoggerFactory.getLogger(SlpOutpointFilter.class);
+
+	private final UtxoRepository utxoRepository;
+	private final long expectedInsertions;
+	private final double fpp;
+	private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "slp-outpoint-filter-rebuild");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+	private volatile BloomFilter<CharSequence> filter;
+	private volatile BloomFilter<CharSequence> next;
+	private volatile boolean ready = false;
+	private volatile long capacity;
+
+	private final Counter skipped = Metrics.counter("slp_outpoint_filter_skipped");
+	private final Counter passed = Metrics.counter("slp_outpoint_filter_passed");
+
+	public SlpOutpointFilter(UtxoRepository utxoRepository, long expectedInsertions, double fpp) {
+		this.utxoRepository = Objects.requireNonNull(utxoRepository);
+		this.expectedInsertions = expectedInsertions;
+		this.fpp = fpp;
+		this.capacity = expectedInsertions;
+		this.filter = newFilter(capacity);
+		Metrics.gauge("slp_outpoint_filter_fpp", this, f -> f.filter.expectedFpp());
+		Metrics.gauge("slp_outpoint_filter_elements", this, f -> f.filter.approximateElementCount());
+		Metrics.gauge("slp_outpoint_filter_capacity", this, SlpOutpointFilter::getCapacity);
+		Metrics.gauge("slp_outpoint_filter_bytes", this, SlpOutpointFilter::memoryBytes);
+	}
+
+	public void rebuild() {
+		if (!rebuilding.compareAndSet(false, true)) {
+			return;
+		}
+		long size = Math.max(expectedInsertions, 2 * filter.approximateElementCount());
+		rebuildExecutor.submit(() -> {
+			SystemTimer systemTimer = SystemTimer.create();
+			systemTimer.start();
+			try {
+				next = newFilter(size);
+				utxoRepository.fetchAllOutpointKeys()
+						.blockingForEach(key -> next.put(key));
+				filter = next;
+				capacity = size;
+				ready = true;
+				logger.info("Rebuilt slp outpoint filter elements={} fpp={} time={}", filter.approximateElementCount(), filter.expectedFpp(), systemTimer.getMsSinceStart());
+			} catch (Exception e) {
+				logger.error("Could not rebuild slp outpoint filter, lookups will go to the database", e);
+			} finally {
+				next = null;
+				rebuilding.set(false);
+			}
+		});
+	}
+
+	public void put(List<Utxo> utxos) {
+		for (Utxo utxo : utxos) {
+			String key = AllOutputsDbObject.keyParser(utxo.getTxId(), utxo.getIndex());
+			BloomFilter<CharSequence> building = next;
+			if (building != null) {
+				building.put(key);
+			}
+			filter.put(key);
+		}
+		if (ready && filter.approximateElementCount() > capacity) {
+			logger.info("Slp outpoint filter saturated elements={} rebuilding", filter.approximateElementCount());
+			rebuild();
+		}
+	}
+
+	public boolean mightContainAny(List<Input> inputs) {
+		if (!ready) {
+			return true;
+		}
+		for (Input input : inputs) {
+			if (filter.mightContain(AllOutputsDbObject.keyParser(input.getTxId(), input.getIndex()))) {
+				passed.increment();
+				return true;
+			}
+		}
+		skipped.increment();
+		return false;
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public long getCapacity() {
+		return capacity;
+	}
+
+	private BloomFilter<CharSequence> newFilter(long size) {
+		return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), size, fpp);
+	}
+
+	private double memoryBytes() {
+		return Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)) / Byte.SIZE);
+	}
+}
@@ -1,9 +1,12 @@
 package com.bitcoin.indexer.handlers;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
 import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
 
 import io.reactivex.Completable;
 import io.reactivex.Single;
@@ -12,5 +15,9 @@ public interface InputHandler {
 
 	Single<List<Input>> handleInput(IndexerTransaction transaction);
 
+	Completable spendInputs(List<IndexerTransaction> transactions, Set<String> pendingOutpoints);
+
+	Single<List<Input>> resolveInputs(IndexerTransaction transaction, Map<String, Utxo> pendingOutputs);
+
 	Completable handleReorg(IndexerTransaction transactions);
 }
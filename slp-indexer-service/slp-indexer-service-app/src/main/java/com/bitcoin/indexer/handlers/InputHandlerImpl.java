@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -12,6 +13,7 @@ import org.slf4j.LoggerFactory;
 import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
 import com.bitcoin.indexer.blockchain.domain.Input;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.blockchain.domain.UtxoSpend;
 import com.bitcoin.indexer.core.Coin;
 import com.bitcoin.indexer.repository.UtxoRepository;
 
@@ -32,20 +34,59 @@ public class InputHandlerImpl implements InputHandler {
 
 	@Override
 	public Single<List<Input>> handleInput(IndexerTransaction transaction) {
-		return spendUtxo(transaction.getTransaction().getInputs())
-				.map(e -> getInputsWithValue(e, transaction, transaction.getTransaction().getInputs()))
+		return spendInputs(List.of(transaction), Set.of())
+				.andThen(resolveInputs(transaction, Map.of()));
+	}
+
+	@Override
+	public Completable spendInputs(List<IndexerTransaction> transactions, Set<String> pendingOutpoints) {
+		List<UtxoSpend> spends = new ArrayList<>();
+		for (IndexerTransaction transaction : transactions) {
+			List<Input> inputs = transaction.getTransaction().getInputs();
+			for (int vin = 0; vin < inputs.size(); vin++) {
+				Input input = inputs.get(vin);
+				if (input.isCoinbase()) {
+					continue;
+				}
+				spends.add(UtxoSpend.create(input.getTxId(),
+						input.getIndex(),
+						transaction.getTransaction().getTxId(),
+						vin,
+						pendingOutpoints.contains(input.getTxId() + ":" + input.getIndex())));
+			}
+		}
+		return walletUtxoRepository.spendUtxos(spends, coin)
 				.retry(1)
-				.doOnError(er -> logger.error("Could not spend", er));
+				.doOnError(er -> logger.error("Could not spend inputs={}", spends.size(), er));
 	}
 
 	@Override
-	public Completable handleReorg(IndexerTransaction transaction) {
-		return Completable.complete();
+	public Single<List<Input>> resolveInputs(IndexerTransaction transaction, Map<String, Utxo> pendingOutputs) {
+		List<Input> inputs = transaction.getTransaction().getInputs();
+		List<Utxo> pending = new ArrayList<>();
+		List<Input> stored = new ArrayList<>();
+		for (Input input : inputs) {
+			Utxo utxo = pendingOutputs.get(input.getTxId() + ":" + input.getIndex());
+			if (utxo != null) {
+				pending.add(utxo);
+			} else {
+				stored.add(input);
+			}
+		}
+		Single<List<Utxo>> fetched = stored.isEmpty() ? Single.just(List.of()) : walletUtxoRepository.fetchUtxo(stored, coin);
+		return fetched
+				.map(utxos -> {
+					List<Utxo> all = new ArrayList<>(pending);
+					all.addAll(utxos);
+					return getInputsWithValue(all, transaction, inputs);
+				})
+				.retry(1)
+				.doOnError(er -> logger.error("Could not resolve inputs txId={}", transaction.getTransaction().getTxId(), er));
 	}
 
-	private Single<List<Utxo>> spendUtxo(List<Input> inputs) {
-		return walletUtxoRepository.fetchUtxo(inputs, coin)
-				.flatMap(utxos -> walletUtxoRepository.spendUtxo(utxos, coin));
+	@Override
+	public Completable handleReorg(IndexerTransaction transaction) {
+		return Completable.complete();
 	}
 
 	private List<Input> getInputsWithValue(List<Utxo> utxos, IndexerTransaction transaction, List<Input> inputs) {
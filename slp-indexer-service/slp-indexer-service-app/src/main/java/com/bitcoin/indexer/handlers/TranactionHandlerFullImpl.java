@@ -1,12 +1,7 @@
 package com.bitcoin.indexer.handlers;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ForkJoinPool;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,7 +9,6 @@ import org.slf4j.LoggerFactory;
 import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
 import com.bitcoin.indexer.blockchain.domain.Input;
 import com.bitcoin.indexer.blockchain.domain.Transaction;
-import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.repository.TransactionRepository;
 
 import io.reactivex.Completable;
@@ -26,61 +20,33 @@ public class TranactionHandlerFullImpl implements TransactionHandler {
 	private final InputHandler inputHandler;
 	private final UtxoHandler utxoHandler;
 	private TransactionRepository transactionRepository;
-	private ForkJoinPool customThreadPool = new ForkJoinPool(32);
+	private final int writeConcurrency;
 
 	public TranactionHandlerFullImpl(InputHandler inputHandler,
 			UtxoHandler utxoHandler,
-			TransactionRepository transactionRepository) {
+			TransactionRepository transactionRepository,
+			int writeConcurrency) {
 		this.inputHandler = Objects.requireNonNull(inputHandler);
 		this.utxoHandler = Objects.requireNonNull(utxoHandler);
 		this.transactionRepository = transactionRepository;
+		this.writeConcurrency = writeConcurrency;
 	}
 
 	@Override
 	public Flowable<IndexerTransaction> handleTransaction(List<IndexerTransaction> transaction) {
-
-		try {
-			Map<IndexerTransaction, List<Utxo>> result = new ConcurrentHashMap<>();
-
-			customThreadPool.submit(() -> {
-				try {
-					result.putAll(transaction.parallelStream().collect(Collectors.toMap(tx -> tx, tx -> utxoHandler.handleUtxos(tx).blockingGet())));
-				} catch (Exception e) {
-					logger.info("Error handling utxos", e);
-					throw new RuntimeException(e);
-				}
-			}).get();
-
-			List<IndexerTransaction> txs = new ArrayList<>();
-
-			customThreadPool.submit(() -> {
-				result.entrySet().parallelStream().forEach(entry -> {
-							try {
-								IndexerTransaction walletTx = entry.getKey();
-								List<Input> inputsWithValue = inputHandler.handleInput(walletTx).blockingGet();
-								IndexerTransaction indexerTransaction = withInputValue(walletTx, inputsWithValue);
-								txs.add(indexerTransaction);
-							} catch (Exception e) {
-								logger.info("Error handling inputs entry={}", entry.getKey().getTransaction().getTxId(), e);
-								throw new RuntimeException(e);
-							}
-						}
-				);
-			}).get();
-
-			customThreadPool.submit(() -> {
-				try {
-					transactionRepository.saveTransaction(txs).blockingGet();
-				} catch (Exception e) {
-					logger.info("Error handling txs", e);
-					throw new RuntimeException(e);
-				}
-			}).get();
-		} catch (Exception e) {
-			throw new RuntimeException(e);
-		}
-
-		return Flowable.fromIterable(transaction);
+		// Outputs of the whole batch are saved before any input is resolved against them
+		return Flowable.fromIterable(transaction)
+				.flatMapSingle(utxoHandler::handleUtxos, false, writeConcurrency)
+				.ignoreElements()
+				.doOnError(e -> logger.info("Error handling utxos", e))
+				.andThen(Flowable.fromIterable(transaction))
+				.flatMapSingle(walletTx -> inputHandler.handleInput(walletTx)
+						.map(inputsWithValue -> withInputValue(walletTx, inputsWithValue))
+						.doOnError(e -> logger.info("Error handling inputs entry={}", walletTx.getTransaction().getTxId(), e)), false, writeConcurrency)
+				.toList()
+				.flatMap(txs -> transactionRepository.saveTransaction(txs))
+				.doOnError(e -> logger.info("Error handling txs", e))
+				.flattenAsFlowable(saved -> transaction);
 	}
 
 	@Override
@@ -1,12 +1,14 @@
 package com.bitcoin.indexer.handlers;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ForkJoinPool;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -17,33 +19,88 @@ import com.bitcoin.indexer.blockchain.domain.Input;
 import com.bitcoin.indexer.blockchain.domain.Transaction;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
+import com.bitcoin.indexer.config.SystemTimer;
+import com.bitcoin.indexer.core.Coin;
+import com.bitcoin.indexer.facade.validators.InvalidationPropagator;
 import com.bitcoin.indexer.facade.validators.SlpValidatorFacade;
-import com.bitcoin.indexer.repository.TransactionRepository;
+import com.bitcoin.indexer.facade.validators.SlpValidityGraph;
+import com.bitcoin.indexer.facade.validators.ValidationContext;
+import com.bitcoin.indexer.repository.AddressTokenBalanceRepository;
+import com.bitcoin.indexer.repository.AddressTransactionRepository;
 import com.bitcoin.indexer.repository.UtxoRepository;
+import com.bitcoin.indexer.repository.WriteBehindTransactionRepository;
+import com.bitcoin.indexer.sorter.DependencyOrderSorter;
+import com.bitcoin.indexer.sorter.TokenPartitioner;
 
 import io.reactivex.Completable;
 import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
 
 public class TransactionHandlerSlpImpl implements TransactionHandler {
 
 	private static final Logger logger = LoggerFactory.getLogger(TransactionHandlerSlpImpl.class);
 	private final InputHandler inputHandler;
 	private final UtxoHandler utxoHandler;
-	private TransactionRepository transactionRepository;
+	private WriteBehindTransactionRepository transactionRepository;
 	private UtxoRepository utxoRepository;
 	private SlpValidatorFacade slpValidatorFacade;
-	private ForkJoinPool customThreadPool = new ForkJoinPool(32);
+	private final SlpValidityGraph validityGraph;
+	private final InvalidationPropagator invalidationPropagator;
+	private final AddressTokenBalanceRepository addressTokenBalanceRepository;
+	private final AddressTransactionRepository addressTransactionRepository;
+	private final int writeConcurrency;
+	private final int validationLanes;
+	// Validators block on their reads, they run on the queue's thread instead of on the driver threads completing the writes
+	private final ValidationQueue validationQueue;
+	private final ExecutorService laneExecutor;
+	private final Scheduler laneScheduler;
+	// Mempool intake reads, writes and waits for room in the mempool lane, never on the driver threads completing the writes
+	private final ExecutorService mempoolExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "slp-mempool-intake");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final Scheduler mempoolScheduler = Schedulers.from(mempoolExecutor);
 
 	public TransactionHandlerSlpImpl(InputHandler inputHandler,
 			UtxoHandler utxoHandler,
-			TransactionRepository transactionRepository,
+			WriteBehindTransactionRepository transactionRepository,
 			SlpValidatorFacade slpValidatorFacade,
-			UtxoRepository utxoRepository) {
+			SlpValidityGraph validityGraph,
+			InvalidationPropagator invalidationPropagator,
+			ValidationQueue validationQueue,
+			UtxoRepository utxoRepository,
+			AddressTokenBalanceRepository addressTokenBalanceRepository,
+			AddressTransactionRepository addressTransactionRepository,
+			int writeConcurrency,
+			int validationLanes) {
 		this.inputHandler = Objects.requireNonNull(inputHandler);
 		this.utxoHandler = Objects.requireNonNull(utxoHandler);
 		this.transactionRepository = transactionRepository;
 		this.slpValidatorFacade = Objects.requireNonNull(slpValidatorFacade);
+		this.validityGraph = Objects.requireNonNull(validityGraph);
+		this.invalidationPropagator = Objects.requireNonNull(invalidationPropagator);
+		this.validationQueue = Objects.requireNonNull(validationQueue);
 		this.utxoRepository = Objects.requireNonNull(utxoRepository);
+		this.addressTokenBalanceRepository = Objects.requireNonNull(addressTokenBalanceRepository);
+		this.addressTransactionRepository = Objects.requireNonNull(addressTransactionRepository);
+		this.writeConcurrency = writeConcurrency;
+		this.validationLanes = validationLanes;
+		AtomicInteger lane = new AtomicInteger();
+		this.laneExecutor = Executors.newFixedThreadPool(validationLanes, r -> {
+			Thread thread = new Thread(r, "slp-validation-lane-" + lane.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.laneScheduler = Schedulers.from(laneExecutor);
+	}
+
+	public void destroy() {
+		laneExecutor.shutdownNow();
+		mempoolExecutor.shutdownNow();
 	}
 
 	@Override
@@ -51,60 +108,166 @@ public class TransactionHandlerSlpImpl implements TransactionHandler {
 		List<IndexerTransaction> distinctTxs = transaction.stream().distinct().collect(Collectors.toList());
 
 		logger.info("Handling txs id={}", distinctTxs.stream().map(e -> e.getTransaction().getTxId()).collect(Collectors.joining(" : ")));
-		try {
-			Map<IndexerTransaction, List<Utxo>> result = new ConcurrentHashMap<>();
-
-			customThreadPool.submit(() -> {
-				try {
-					result.putAll(distinctTxs.parallelStream().collect(Collectors.toMap(tx -> tx, tx -> utxoHandler.handleUtxos(tx).blockingGet())));
-				} catch (Exception e) {
-					logger.info("Error handling utxos", e);
-					throw new RuntimeException(e);
-				}
-			}).get();
-
-			List<IndexerTransaction> txs = Collections.synchronizedList(new ArrayList<>());
-
-			customThreadPool.submit(() -> {
-				result.entrySet().parallelStream().forEach(entry -> {
-							try {
-								IndexerTransaction walletTx = entry.getKey();
-								Map<String, Input> inputsWithValue = inputHandler.handleInput(walletTx).blockingGet()
-										.stream().collect(Collectors.toMap(k -> k.getTxId() + ":" + k.getIndex(), v -> v));
-								IndexerTransaction indexerTransaction = withInputValue(walletTx, inputsWithValue);
-								txs.add(indexerTransaction);
-							} catch (Exception e) {
-								logger.info("Error handling inputs entry={}", entry.getKey().getTransaction(), e);
-								throw new RuntimeException(e);
-							}
-						}
-				);
-			}).get();
-
-			//Save all txs as UNKNOWN first
-			transactionRepository.saveTransaction(txs).blockingGet();
-
-			try {
-				//Validate txs
-				List<IndexerTransaction> completed = new ArrayList<>();
-				for (IndexerTransaction indexerTransaction : txs) {
-					IndexerTransaction valid = withValid(indexerTransaction);
-					transactionRepository.saveTransaction(List.of(valid)).blockingGet();
-					completed.add(valid);
-				}
-				return Flowable.fromIterable(completed);
-			} catch (Exception e) {
-				logger.error("Could not validate", e);
-				throw new RuntimeException(e);
+		// Slp outputs created by this batch, inputs spending them are resolved from here instead of waiting for the write
+		Map<String, Utxo> pendingOutputs = distinctTxs.stream()
+				.flatMap(tx -> tx.getTransaction().getOutputs().stream())
+				.filter(u -> u.getSlpUtxo().isPresent())
+				.collect(Collectors.toMap(u -> u.getTxId() + ":" + u.getIndex(), u -> u, (a, b) -> a));
+
+		Completable outputs = Flowable.fromIterable(distinctTxs)
+				.flatMapSingle(utxoHandler::handleUtxos, false, writeConcurrency)
+				.ignoreElements()
+				.doOnError(e -> logger.info("Error handling utxos", e));
+
+		Completable spends = inputHandler.spendInputs(distinctTxs, pendingOutputs.keySet())
+				.doOnError(e -> logger.info("Error spending inputs", e));
+
+		// Keeps the batch order while resolving up to writeConcurrency transactions at once
+		Single<List<IndexerTransaction>> inputs = Flowable.fromIterable(distinctTxs)
+				.concatMapEager(walletTx -> inputHandler.resolveInputs(walletTx, pendingOutputs)
+						.map(resolved -> withInputValue(walletTx, resolved.stream().collect(Collectors.toMap(k -> k.getTxId() + ":" + k.getIndex(), v -> v))))
+						.doOnError(e -> logger.info("Error handling inputs entry={}", walletTx.getTransaction(), e))
+						.toFlowable(), writeConcurrency, 1)
+				.toList();
+
+		Single<List<IndexerTransaction>> written = Single.zip(inputs, Completable.mergeArray(outputs, spends).toSingleDefault(Boolean.TRUE), (txs, done) -> txs);
+
+		if (distinctTxs.stream().noneMatch(tx -> tx.getTransaction().isFromBlock())) {
+			// Mempool txs are visible as UNKNOWN once written, their verdicts follow from the mempool lane. Re-relayed txs that
+			// already have a verdict keep it
+			return written
+					.observeOn(mempoolScheduler)
+					.map(txs -> {
+						List<IndexerTransaction> fresh = unsettled(txs);
+						transactionRepository.saveTransaction(fresh).blockingGet();
+						addressTransactionRepository.saveTransactions(transactions(fresh)).blockingAwait();
+						queueMempool(fresh);
+						return txs;
+					})
+					.doOnError(e -> logger.info("Error handling txs", e))
+					.flattenAsFlowable(txs -> txs);
+		}
+
+		return written
+				.flatMap(txs -> validationQueue.submitBlock(() -> {
+					Validated validated = validate(txs);
+					apply(validated, true);
+					return validated.batch;
+				}))
+				.doOnError(e -> logger.info("Error handling txs", e))
+				.flattenAsFlowable(completed -> completed);
+	}
+
+	private void queueMempool(List<IndexerTransaction> txs) throws InterruptedException {
+		List<IndexerTransaction> slpTxs = txs.stream()
+				.filter(tx -> !tx.getTransaction().getSlpOpReturn().isEmpty())
+				.collect(Collectors.toList());
+		if (slpTxs.isEmpty()) {
+			return;
+		}
+		// Waits while the lane is full, holding up the mempool feed instead of leaving txs UNKNOWN
+		validationQueue.submitMempool(() -> {
+			List<IndexerTransaction> unsettled = unsettled(slpTxs);
+			if (!unsettled.isEmpty()) {
+				apply(validate(unsettled), false);
 			}
+		});
+	}
+
+	// A block may have validated these while they were queued, its verdicts and block data are kept
+	private List<IndexerTransaction> unsettled(List<IndexerTransaction> txs) {
+		Map<String, SlpValid> stored = transactionRepository.fetchValidity(txs.stream().map(tx -> tx.getTransaction().getTxId()).collect(Collectors.toList()))
+				.blockingGet();
+		return txs.stream()
+				.filter(tx -> !stored.containsKey(tx.getTransaction().getTxId()) || stored.get(tx.getTransaction().getTxId()).getValid() == Valid.UNKNOWN)
+				.collect(Collectors.toList());
+	}
+
+	// Balances read the validity flags, they are applied once the flags are written
+	private void apply(Validated validated, boolean indexAddresses) {
+		SystemTimer systemTimer = SystemTimer.create();
+		systemTimer.start();
+		// Descendants that changed verdict update their outputs and balances along with the batch
+		List<IndexerTransaction> changed = new ArrayList<>(validated.batch);
+		changed.addAll(validated.propagated);
+		utxoRepository.updateUtxoValidationStatus(transactions(changed), Coin.BCH).blockingGet();
+		Completable.mergeArray(
+				addressTokenBalanceRepository.applyOutputs(touchedOutpoints(changed)),
+				indexAddresses ? addressTransactionRepository.saveTransactions(transactions(validated.batch)) : Completable.complete())
+				.blockingAwait();
+		logger.info("Completed utxo validation, balances and address index in time={}", systemTimer.getMsSinceStart());
+	}
+
+	private static List<Transaction> transactions(List<IndexerTransaction> txs) {
+		return txs.stream().map(IndexerTransaction::getTransaction).collect(Collectors.toList());
+	}
+
+	//Stage all txs as UNKNOWN, validators read them from the batch and each is written once on flush. A failed validation
+	//discards the batch, half computed verdicts are never written
+	private Validated validate(List<IndexerTransaction> txs) {
+		WriteBehindTransactionRepository.Batch batch = transactionRepository.begin(txs);
+		Validated validated = null;
+		try {
+			ValidationContext context = ValidationContext.prefetch(txs, transactionRepository, utxoRepository, validityGraph);
+			//Tokens can not change each other's validity, each partition is validated on its own lane, parents before children
+			List<List<IndexerTransaction>> partitions = new TokenPartitioner(txs).getPartitions();
+			Map<String, IndexerTransaction> lanes = Flowable.fromIterable(partitions)
+					.flatMap(partition -> Flowable.fromCallable(() -> validateLane(partition, batch, context)).subscribeOn(laneScheduler), validationLanes)
+					.flatMapIterable(partition -> partition)
+					.toMap(tx -> tx.getTransaction().getTxId())
+					.blockingGet();
+			logger.debug("Validated txs={} partitions={} largest={}", lanes.size(), partitions.size(), partitions.isEmpty() ? 0 : partitions.get(0).size());
+			List<IndexerTransaction> completed = new DependencyOrderSorter(txs).getSorted().stream()
+					.map(tx -> lanes.getOrDefault(tx.getTransaction().getTxId(), tx))
+					.collect(Collectors.toList());
+			//Stored descendants of transactions that turned out invalid are judged again from their parents
+			validated = new Validated(completed, invalidationPropagator.propagate(completed, context, slpValidatorFacade, changed -> changed.forEach(batch::stage)));
 		} catch (Exception e) {
-			logger.info("Error handling txs", e);
+			logger.error("Could not validate", e);
 			throw new RuntimeException(e);
+		} finally {
+			if (validated == null) {
+				batch.discard();
+			}
+		}
+		batch.flush();
+		return validated;
+	}
+
+	private List<IndexerTransaction> validateLane(List<IndexerTransaction> partition, WriteBehindTransactionRepository.Batch batch, ValidationContext context) {
+		List<IndexerTransaction> completed = new ArrayList<>(partition.size());
+		for (IndexerTransaction indexerTransaction : partition) {
+			IndexerTransaction valid = withValid(indexerTransaction, context);
+			batch.stage(valid);
+			context.record(valid);
+			completed.add(valid);
+		}
+		return completed;
+	}
+
+	private static final class Validated {
+		private final List<IndexerTransaction> batch;
+		private final List<IndexerTransaction> propagated;
+
+		private Validated(List<IndexerTransaction> batch, List<IndexerTransaction> propagated) {
+			this.batch = batch;
+			this.propagated = propagated;
 		}
 	}
 
 	@Override
 	public Completable reorganizeFromBlock(List<IndexerTransaction> oldTxs) {
+		//Take the removed outputs out of the balances while they can still be read
+		Set<String> removedOutputs = oldTxs.stream()
+				.flatMap(tx -> tx.getTransaction().getOutputs().stream())
+				.filter(u -> u.getSlpUtxo().isPresent())
+				.map(u -> u.getTxId() + ":" + u.getIndex())
+				.collect(Collectors.toSet());
+		Throwable balanceError = addressTokenBalanceRepository.removeOutputs(removedOutputs).blockingGet();
+		if (balanceError != null) {
+			logger.error("Failed to revert balances outputs={}", removedOutputs.size(), balanceError);
+		}
+
 		for (IndexerTransaction transaction : oldTxs) {
 			logger.info("Handled reorg for tx={}", transaction);
 
@@ -121,7 +284,14 @@ public class TransactionHandlerSlpImpl implements TransactionHandler {
 			}
 		}
 
-		Throwable throwable = transactionRepository.handleReorg(oldTxs).blockingGet();
+		Throwable throwable = addressTransactionRepository.removeTransactions(oldTxs.stream().map(IndexerTransaction::getTransaction).collect(Collectors.toList())).blockingGet();
+
+		if (throwable != null) {
+			logger.error("Failed to reorg address index transactions={}", oldTxs.size(), throwable);
+		}
+
+		validityGraph.invalidate(oldTxs.stream().map(e -> e.getTransaction().getTxId()).collect(Collectors.toList()));
+		throwable = transactionRepository.handleReorg(oldTxs).blockingGet();
 
 		if (throwable != null) {
 			logger.error("Failed to reorg history transaction={}", oldTxs.stream().map(e -> e.getTransaction().getTxId()).collect(Collectors.joining(":")), throwable);
@@ -130,8 +300,22 @@ public class TransactionHandlerSlpImpl implements TransactionHandler {
 		return Completable.complete();
 	}
 
+	// Slp outputs created by the batch and the slp outputs its inputs spent
+	private static Set<String> touchedOutpoints(List<IndexerTransaction> txs) {
+		Set<String> outpoints = new HashSet<>();
+		for (IndexerTransaction tx : txs) {
+			tx.getTransaction().getOutputs().stream()
+					.filter(u -> u.getSlpUtxo().isPresent())
+					.forEach(u -> outpoints.add(u.getTxId() + ":" + u.getIndex()));
+			tx.getTransaction().getInputs().stream()
+					.filter(i -> i.getSlpUtxo().isPresent())
+					.forEach(i -> outpoints.add(i.getTxId() + ":" + i.getIndex()));
+		}
+		return outpoints;
+	}
+
 	//Validate our current tx
-	private IndexerTransaction withValid(IndexerTransaction indexerTransaction) {
+	private IndexerTransaction withValid(IndexerTransaction indexerTransaction, ValidationContext context) {
 		if (indexerTransaction.getTransaction().getSlpOpReturn().isEmpty()) {
 			return indexerTransaction;
 		}
@@ -141,6 +325,7 @@ public class TransactionHandlerSlpImpl implements TransactionHandler {
 				indexerTransaction.getTransaction().getSlpOpReturn().get(0).getTokenType().getType(),
 				indexerTransaction.getTransaction().getOutputs(),
 				indexerTransaction.getTransaction().getInputs(),
+				context,
 				slpValidatorFacade);
 
 		return indexerTransaction.withValid(valid);
@@ -10,6 +10,7 @@ import org.slf4j.LoggerFactory;
 import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.core.Coin;
+import com.bitcoin.indexer.filter.SlpOutpointFilter;
 import com.bitcoin.indexer.repository.UtxoRepository;
 
 import io.reactivex.Completable;
@@ -19,11 +20,13 @@ public class UtxoHandlerImpl implements UtxoHandler {
 
 	private final UtxoRepository walletUtxoRepository;
 	private Coin coin;
+	private final SlpOutpointFilter slpOutpointFilter;
 	private static final Logger logger = LoggerFactory.getLogger(UtxoHandlerImpl.class);
 
-	public UtxoHandlerImpl(UtxoRepository walletUtxoRepository, Coin coin) {
+	public UtxoHandlerImpl(UtxoRepository walletUtxoRepository, Coin coin, SlpOutpointFilter slpOutpointFilter) {
 		this.walletUtxoRepository = Objects.requireNonNull(walletUtxoRepository);
 		this.coin = Objects.requireNonNull(coin);
+		this.slpOutpointFilter = Objects.requireNonNull(slpOutpointFilter);
 	}
 
 	@Override
@@ -34,6 +37,7 @@ public class UtxoHandlerImpl implements UtxoHandler {
 				.collect(Collectors.toList());
 		return walletUtxoRepository.saveUtxo(utxos, coin)
 				.retry(1)
+				.doOnSuccess(slpOutpointFilter::put)
 				.doOnError(er -> logger.error("Could not save utxo txId={}", indexerTransaction.getTransaction().getTxId(), er));
 	}
 
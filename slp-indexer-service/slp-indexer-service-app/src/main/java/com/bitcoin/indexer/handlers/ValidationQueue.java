@@ -0,0 +1,130 @@
+package com.bitcoin.indexer.handlers;
+
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.reactivex.Single;
+
+/**
+ * Runs validation work one batch at a time on a single thread. Block batches go ahead of every queued mempool batch,
+ * so a block waits at most for the mempool batch already running, mempool batches run in arrival order. Only the
+ * mempool lane is bounded, submitting to a full lane waits for room so the mempool feed slows down to the validation
+ * rate instead of losing verdicts.
+ */
+public class ValidationQueue {
+
+	private static final Logger logger = LoggerFactory.getLogger(ValidationQueue.class);
+
+	private enum Lane {
+		BLOCK, MEMPOOL
+	}
+
+	private final PriorityBlockingQueue<Job> queue = new PriorityBlockingQueue<>(11,
+			Comparator.comparing((Job job) -> job.lane).thenComparingLong(job -> job.sequence));
+	private final AtomicLong sequence = new AtomicLong();
+	private final AtomicInteger blockDepth = new AtomicInteger();
+	private final AtomicInteger mempoolDepth = new AtomicInteger();
+	private final Semaphore mempoolSlots;
+
+	private final Timer blockTimeToVerdict = timeToVerdict(Lane.BLOCK);
+	private final Timer mempoolTimeToVerdict = timeToVerdict(Lane.MEMPOOL);
+	private final Counter mempoolWaits = Metrics.counter("slp_validation_queue_waits");
+
+	public ValidationQueue(int mempoolCapacity) {
+		this.mempoolSlots = new Semaphore(mempoolCapacity);
+		Metrics.gauge("slp_validation_queue_depth", Tags.of("lane", "block"), blockDepth, AtomicInteger::get);
+		Metrics.gauge("slp_validation_queue_depth", Tags.of("lane", "mempool"), mempoolDepth, AtomicInteger::get);
+		Thread thread = new Thread(this::run, "slp-validation");
+		thread.setDaemon(true);
+		thread.start();
+		logger.info("Validation queue started mempoolCapacity={}", mempoolCapacity);
+	}
+
+	/**
+	 * Queues block work ahead of the mempool, the result is emitted from the validation thread.
+	 */
+	public <T> Single<T> submitBlock(Callable<T> work) {
+		return Single.create(emitter -> {
+			blockDepth.incrementAndGet();
+			queue.add(new Job(Lane.BLOCK, sequence.incrementAndGet(), () -> {
+				blockDepth.decrementAndGet();
+				try {
+					emitter.onSuccess(work.call());
+				} catch (Throwable e) {
+					emitter.tryOnError(e);
+				}
+			}));
+		});
+	}
+
+	/**
+	 * Queues mempool work behind the mempool work already queued, waiting while the mempool lane is full.
+	 */
+	public void submitMempool(Runnable work) throws InterruptedException {
+		if (!mempoolSlots.tryAcquire()) {
+			mempoolWaits.increment();
+			mempoolSlots.acquire();
+		}
+		mempoolDepth.incrementAndGet();
+		queue.add(new Job(Lane.MEMPOOL, sequence.incrementAndGet(), () -> {
+			mempoolDepth.decrementAndGet();
+			mempoolSlots.release();
+			work.run();
+		}));
+	}
+
+	public int getMempoolDepth() {
+		return mempoolDepth.get();
+	}
+
+	private void run() {
+		while (!Thread.currentThread().isInterrupted()) {
+			Job job;
+			try {
+				job = queue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			try {
+				job.work.run();
+			} catch (Throwable e) {
+				// An error must not end the only validation thread, queued blocks would never complete
+				logger.error("Could not validate lane={}", job.lane, e);
+			}
+			(job.lane == Lane.BLOCK ? blockTimeToVerdict : mempoolTimeToVerdict).record(System.nanoTime() - job.queuedAt, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private static Timer timeToVerdict(Lane lane) {
+		return Timer.builder("slp_validation_time_to_verdict")
+				.tag("lane", lane.name().toLowerCase())
+				.publishPercentileHistogram()
+				.register(Metrics.globalRegistry);
+	}
+
+	private static class Job {
+		private final Lane lane;
+		private final long sequence;
+		private final Runnable work;
+		private final long queuedAt = System.nanoTime();
+
+		private Job(Lane lane, long sequence, Runnable work) {
+			this.lane = lane;
+			this.sequence = sequence;
+			this.work = work;
+		}
+	}
+}
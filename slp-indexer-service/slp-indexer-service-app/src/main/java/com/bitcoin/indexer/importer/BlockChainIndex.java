@@ -0,0 +1,68 @@
+package com.bitcoin.indexer.importer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bitcoinj.core.Sha256Hash;
+
+/**
+ * Orders block records by height by linking headers from the genesis block. When the files contain forks the longest
+ * branch wins, records not connected to genesis are dropped.
+ */
+public class BlockChainIndex {
+
+	private final List<BlockRecord> bestChain;
+
+	public BlockChainIndex(List<BlockRecord> records, Sha256Hash genesisHash) {
+		Map<Sha256Hash, BlockRecord> byHash = new HashMap<>();
+		Map<Sha256Hash, List<BlockRecord>> children = new HashMap<>();
+		for (BlockRecord record : records) {
+			if (byHash.putIfAbsent(record.getHash(), record) == null) {
+				children.computeIfAbsent(record.getPrevHash(), k -> new ArrayList<>()).add(record);
+			}
+		}
+
+		BlockRecord genesis = byHash.get(genesisHash);
+		if (genesis == null) {
+			bestChain = List.of();
+			return;
+		}
+
+		Map<Sha256Hash, Integer> heights = new HashMap<>();
+		heights.put(genesisHash, 0);
+		BlockRecord tip = genesis;
+		Deque<BlockRecord> queue = new ArrayDeque<>();
+		queue.add(genesis);
+		while (!queue.isEmpty()) {
+			BlockRecord current = queue.poll();
+			int height = heights.get(current.getHash());
+			if (height > heights.get(tip.getHash())) {
+				tip = current;
+			}
+			for (BlockRecord child : children.getOrDefault(current.getHash(), List.of())) {
+				heights.put(child.getHash(), height + 1);
+				queue.add(child);
+			}
+		}
+
+		List<BlockRecord> chain = new ArrayList<>(heights.get(tip.getHash()) + 1);
+		for (BlockRecord current = tip; current != null; current = current.getHash().equals(genesisHash) ? null : byHash.get(current.getPrevHash())) {
+			chain.add(current);
+		}
+		Collections.reverse(chain);
+		bestChain = chain;
+	}
+
+	public List<BlockRecord> getBestChain() {
+		return bestChain;
+	}
+
+	public int getTipHeight() {
+		return bestChain.size() - 1;
+	}
+}
@@ -0,0 +1,91 @@
+package com.bitcoin.indexer.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Walks the raw block records of a node's blk*.dat files through memory mapped buffers.
+ * Only the 80 byte headers are read while indexing, block bodies are copied out when they are decoded.
+ */
+public class BlockFileReader {
+
+	private static final Logger logger = LoggerFactory.getLogger(BlockFileReader.class);
+	private static final int HEADER_SIZE = Block.HEADER_SIZE;
+
+	private final NetworkParameters networkParameters;
+	private final List<MappedByteBuffer> files = new ArrayList<>();
+
+	public BlockFileReader(NetworkParameters networkParameters) {
+		this.networkParameters = Objects.requireNonNull(networkParameters);
+	}
+
+	public List<BlockRecord> index(File blocksDir) throws IOException {
+		File[] blockFiles = blocksDir.listFiles((dir, name) -> name.startsWith("blk") && name.endsWith(".dat"));
+		if (blockFiles == null || blockFiles.length == 0) {
+			throw new IllegalArgumentException("No blk*.dat files found in dir=" + blocksDir);
+		}
+		Arrays.sort(blockFiles, Comparator.comparing(File::getName));
+
+		List<BlockRecord> records = new ArrayList<>();
+		for (File blockFile : blockFiles) {
+			try (RandomAccessFile file = new RandomAccessFile(blockFile, "r")) {
+				MappedByteBuffer buffer = file.getChannel().map(MapMode.READ_ONLY, 0, file.length());
+				int fileIndex = files.size();
+				files.add(buffer);
+				int before = records.size();
+				walk(buffer, fileIndex, records);
+				logger.info("Indexed file={} blocks={}", blockFile.getName(), records.size() - before);
+			}
+		}
+		return records;
+	}
+
+	public byte[] read(BlockRecord record) {
+		byte[] bytes = new byte[record.getLength()];
+		ByteBuffer view = files.get(record.getFileIndex()).duplicate();
+		view.position(record.getOffset());
+		view.get(bytes);
+		return bytes;
+	}
+
+	private void walk(MappedByteBuffer buffer, int fileIndex, List<BlockRecord> records) {
+		int magic = (int) networkParameters.getPacketMagic();
+		ByteBuffer view = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		byte[] header = new byte[HEADER_SIZE];
+		byte[] prev = new byte[32];
+		while (view.remaining() >= 8) {
+			int start = view.position();
+			if (view.getInt() != magic) {
+				// Preallocated files are zero padded after the last block
+				break;
+			}
+			int length = Integer.reverseBytes(view.getInt());
+			if (length < HEADER_SIZE || length > view.remaining()) {
+				logger.warn("Truncated block record fileIndex={} offset={} length={}", fileIndex, start, length);
+				break;
+			}
+			int offset = view.position();
+			view.get(header);
+			System.arraycopy(header, 4, prev, 0, 32);
+			Sha256Hash hash = Sha256Hash.wrapReversed(Sha256Hash.hashTwice(header));
+			records.add(new BlockRecord(fileIndex, offset, length, hash, Sha256Hash.wrapReversed(prev)));
+			view.position(offset + length);
+		}
+	}
+}
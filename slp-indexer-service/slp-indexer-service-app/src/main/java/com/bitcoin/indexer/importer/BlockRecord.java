@@ -0,0 +1,41 @@
+package com.bitcoin.indexer.importer;
+
+import java.util.Objects;
+
+import org.bitcoinj.core.Sha256Hash;
+
+public class BlockRecord {
+	private final int fileIndex;
+	private final int offset;
+	private final int length;
+	private final Sha256Hash hash;
+	private final Sha256Hash prevHash;
+
+	public BlockRecord(int fileIndex, int offset, int length, Sha256Hash hash, Sha256Hash prevHash) {
+		this.fileIndex = fileIndex;
+		this.offset = offset;
+		this.length = length;
+		this.hash = Objects.requireNonNull(hash);
+		this.prevHash = Objects.requireNonNull(prevHash);
+	}
+
+	public int getFileIndex() {
+		return fileIndex;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public Sha256Hash getHash() {
+		return hash;
+	}
+
+	public Sha256Hash getPrevHash() {
+		return prevHash;
+	}
+}
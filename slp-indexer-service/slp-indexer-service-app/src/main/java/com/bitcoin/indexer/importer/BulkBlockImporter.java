@@ -0,0 +1,86 @@
+package com.bitcoin.indexer.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import org.bitcoinj.core.BitcoinSerializer;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.NetworkParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bitcoin.indexer.config.SystemTimer;
+import com.bitcoin.indexer.listener.SPVOnPut;
+
+/**
+ * Imports blocks from a local node's blk*.dat files in height order through the same listener path as blocks from peers.
+ * Blocks are decoded in parallel one window at a time and handed to the listener sequentially.
+ */
+public class BulkBlockImporter {
+
+	private static final Logger logger = LoggerFactory.getLogger(BulkBlockImporter.class);
+
+	private final NetworkParameters networkParameters;
+	private final SPVOnPut listener;
+	private final int decodeWindow;
+	private final ForkJoinPool decodePool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+	public BulkBlockImporter(NetworkParameters networkParameters, SPVOnPut listener, int decodeWindow) {
+		this.networkParameters = Objects.requireNonNull(networkParameters);
+		this.listener = Objects.requireNonNull(listener);
+		this.decodeWindow = decodeWindow;
+	}
+
+	public int importBlocks(File blocksDir, int fromHeight, BiConsumer<Block, Integer> imported) throws IOException {
+		SystemTimer systemTimer = SystemTimer.create();
+		systemTimer.start();
+		BlockFileReader reader = new BlockFileReader(networkParameters);
+		List<BlockRecord> records = reader.index(blocksDir);
+		BlockChainIndex chainIndex = new BlockChainIndex(records, networkParameters.getGenesisBlock().getHash());
+		List<BlockRecord> chain = chainIndex.getBestChain();
+		logger.info("Bulk import indexed records={} chainTip={} time={}", records.size(), chainIndex.getTipHeight(), systemTimer.getMsSinceStart());
+
+		BitcoinSerializer serializer = new BitcoinSerializer(networkParameters, false);
+		SystemTimer importTimer = SystemTimer.create();
+		importTimer.start();
+		for (int start = Math.max(fromHeight, 0); start < chain.size(); start += decodeWindow) {
+			List<BlockRecord> window = chain.subList(start, Math.min(start + decodeWindow, chain.size()));
+			List<Block> blocks = decode(reader, serializer, window);
+			for (int i = 0; i < blocks.size(); i++) {
+				int height = start + i;
+				listener.onBlocksDownloaded(blocks.get(i), height);
+				imported.accept(blocks.get(i), height);
+			}
+			int done = start + window.size() - Math.max(fromHeight, 0);
+			double blocksPerSecond = done / (Math.max(importTimer.getMsSinceStart(), 1) / 1000.0);
+			logger.info("Bulk import height={} tip={} blocksPerSecond={}", start + window.size() - 1, chainIndex.getTipHeight(), String.format("%.2f", blocksPerSecond));
+		}
+		return chainIndex.getTipHeight();
+	}
+
+	private List<Block> decode(BlockFileReader reader, BitcoinSerializer serializer, List<BlockRecord> window) {
+		// Pool threads do not inherit the caller's bitcoinj context
+		Context context = Context.getOrCreate(networkParameters);
+		try {
+			return decodePool.submit(() -> window.parallelStream()
+					.map(record -> {
+						Context.propagate(context);
+						return serializer.makeBlock(reader.read(record));
+					})
+					.collect(Collectors.toList()))
+					.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted decoding blocks", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Could not decode blocks", e.getCause());
+		}
+	}
+}
@@ -1,13 +1,10 @@
 package com.bitcoin.indexer.listener;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
@@ -30,23 +27,13 @@ import org.bitcoinj.store.BlockStore;
 import org.bitcoinj.store.BlockStoreException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.util.Pair;
 
 import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
 import com.bitcoin.indexer.config.SystemTimer;
-import com.bitcoin.indexer.core.Coin;
 import com.bitcoin.indexer.facade.BitcoinJConverters;
 import com.bitcoin.indexer.handlers.BlockHandler;
 import com.bitcoin.indexer.handlers.TransactionHandler;
-import com.bitcoin.indexer.repository.UtxoRepository;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-
-import io.micrometer.core.instrument.Metrics;
-import io.micrometer.core.instrument.Timer;
-import io.reactivex.BackpressureStrategy;
-import io.reactivex.Flowable;
-import io.reactivex.subjects.PublishSubject;
+import com.bitcoin.indexer.repository.BlockRepository;
 
 public class BitcoinJListener implements PeerDataEventListener,
 		OnTransactionBroadcastListener,
@@ -55,59 +42,60 @@ public class BitcoinJListener implements PeerDataEventListener,
 		ReorganizeListener,
 		SPVOnPut {
 
-	private final Cache<String, Boolean> transactionCache = Caffeine.newBuilder()
-			.expireAfterWrite(30, TimeUnit.MINUTES)
-			.executor(Executors.newSingleThreadExecutor())
-			.maximumSize(100000)
-			.build();
-
-	private final Cache<String, Boolean> transactionStreamCache = Caffeine.newBuilder()
-			.executor(Executors.newSingleThreadExecutor())
-			.maximumSize(100000)
-			.build();
+	private final FirstSeenTracker transactionsSeen = new FirstSeenTracker("transaction", 100000, Duration.ofMinutes(30));
+	private final FirstSeenTracker blocksSeen = new FirstSeenTracker("block", 1000, Duration.ofHours(6));
 
 	private static final Logger logger = LoggerFactory.getLogger(BitcoinJListener.class);
 	private final TransactionHandler transactionHandler;
 	private final NetworkParameters networkParameters;
 	private BlockHandler blockHandler;
 	private final BlockStore blockStore;
-	private final Coin coin;
+	private final BlockRepository blockRepository;
 	private BitcoinJConverters converters;
 	private Boolean isFullMode;
-	private UtxoRepository utxoRepository;
 	private final IndexerTransactionCreator indexerTransactionCreator;
+	private final BlockIngestionPipeline blockIngestionPipeline;
+	private volatile InitialSyncWindow initialSyncWindow;
+	private final MempoolBatcher mempoolBatcher;
 
-	private final Timer transactionHandlerTimer = Metrics.timer("transaction_handler_timer_listener");
-
-	private final Flowable<com.bitcoin.indexer.blockchain.domain.Transaction> transactionFlowable;
-	private final PublishSubject<com.bitcoin.indexer.blockchain.domain.Transaction> transactionPublishSubject = PublishSubject.create();
-
-	private final Queue<Pair<Integer, Transaction>> slpValidationRetryQueue = new ConcurrentLinkedQueue<>();
+	private final TransactionEventBus transactionEventBus = new TransactionEventBus();
 
 	public BitcoinJListener(TransactionHandler transactionHandler,
 			NetworkParameters networkParameters,
 			BlockHandler blockHandler,
 			BlockStore blockStore,
-			Coin coin,
+			BlockRepository blockRepository,
 			BitcoinJConverters converters,
 			boolean isFullMode,
-			UtxoRepository utxoRepository,
-			IndexerTransactionCreator indexerTransactionCreator) {
+			IndexerTransactionCreator indexerTransactionCreator,
+			int pipelineDepth,
+			int initialSyncUntilHeight,
+			int initialSyncWindowSize,
+			int mempoolBatchSize,
+			long mempoolBatchDelayMs,
+			int mempoolQueueCapacity) {
 		this.transactionHandler = Objects.requireNonNull(transactionHandler);
 		this.networkParameters = Objects.requireNonNull(networkParameters);
 		this.blockHandler = Objects.requireNonNull(blockHandler);
 		this.blockStore = Objects.requireNonNull(blockStore);
-		this.coin = Objects.requireNonNull(coin);
+		this.blockRepository = Objects.requireNonNull(blockRepository);
 		this.converters = Objects.requireNonNull(converters);
 		this.isFullMode = isFullMode;
-		this.utxoRepository = utxoRepository;
 		this.indexerTransactionCreator = indexerTransactionCreator;
-		this.transactionFlowable = transactionPublishSubject.toFlowable(BackpressureStrategy.BUFFER).publish().autoConnect();
+		this.blockIngestionPipeline = pipelineDepth > 0
+				? new BlockIngestionPipeline(converters, networkParameters, indexerTransactionCreator, this::commitBlock, pipelineDepth)
+				: null;
+		this.initialSyncWindow = initialSyncUntilHeight > 0
+				? new InitialSyncWindow(converters, networkParameters, indexerTransactionCreator, this::commitWindow, initialSyncUntilHeight, initialSyncWindowSize)
+				: null;
+		this.mempoolBatcher = mempoolBatchSize > 1
+				? new MempoolBatcher(this::consumeTransactions, this::forgetTransactions, mempoolBatchSize, mempoolBatchDelayMs, mempoolQueueCapacity, 3, 1000)
+				: null;
 	}
 
 	@Override
 	public void onBlocksDownloaded(Peer peer, Block block, @Nullable FilteredBlock filteredBlock, int blocksLeft) {
-
+		blocksSeen.firstSeen(block.getHashAsString(), FirstSeenTracker.PEER);
 	}
 
 	@Override
@@ -128,18 +116,17 @@ public class BitcoinJListener implements PeerDataEventListener,
 
 	@Override
 	public void onTransaction(Peer peer, Transaction t) {
-		onTransaction(t, Long.valueOf(peer.getBestHeight()).intValue());
+		onTransaction(t, Long.valueOf(peer.getBestHeight()).intValue(), FirstSeenTracker.PEER);
 	}
 
-	public void onTransaction(Transaction t, int height) {
-		if (transactionCache.getIfPresent(t.getHashAsString()) != null) {
+	public void onTransaction(Transaction t, int height, String source) {
+		if (!transactionsSeen.firstSeen(t.getHashAsString(), source)) {
 			return;
 		}
 
-		logger.debug("Tx emitted saving to cache txid={}", t.getHashAsString());
+		logger.debug("Tx emitted txid={} source={}", t.getHashAsString(), source);
 
 		Instant firstSeen = Instant.now();
-		transactionCache.put(t.getHashAsString(), true);
 
 		com.bitcoin.indexer.blockchain.domain.Transaction transaction = converters.transaction(t,
 				networkParameters,
@@ -150,25 +137,58 @@ public class BitcoinJListener implements PeerDataEventListener,
 				null
 		);
 
-		transactionPublishSubject.onNext(transaction);
-		consumeTransactions(List.of(transaction));
-		transactionStreamCache.put(t.getHashAsString(), true);
+		transactionEventBus.publish(transaction);
+		if (mempoolBatcher != null) {
+			mempoolBatcher.submit(transaction);
+		} else {
+			try {
+				consumeTransactions(List.of(transaction));
+			} catch (RuntimeException e) {
+				forgetTransactions(List.of(transaction));
+				throw e;
+			}
+		}
+	}
+
+	// Transactions that could not be stored are let through again on their next relay
+	private void forgetTransactions(List<com.bitcoin.indexer.blockchain.domain.Transaction> transactions) {
+		logger.warn("Forgetting txs that could not be stored size={}", transactions.size());
+		transactions.forEach(tx -> transactionsSeen.forget(tx.getTxId()));
 	}
 
 	public List<IndexerTransaction> consumeTransactions(List<com.bitcoin.indexer.blockchain.domain.Transaction> transactions) {
-		List<IndexerTransaction> indexerTransactions = indexerTransactionCreator.createIndexerTransactionSlow(transactions);
+		List<IndexerTransaction> indexerTransactions = indexerTransactionCreator.createIndexerTransactions(transactions);
+		commitTransactions(indexerTransactions);
+		return indexerTransactions;
+	}
 
+	private void commitBlock(com.bitcoin.indexer.blockchain.domain.Block newBlock, List<IndexerTransaction> indexerTransactions) {
+		if (isFullMode) {
+			this.blockHandler.handleBlock(newBlock).blockingGet();
+		}
+		commitTransactions(indexerTransactions);
+		saveCommittedHeight(newBlock.getHeight());
+	}
+
+	private void commitWindow(List<com.bitcoin.indexer.blockchain.domain.Block> blocks, List<IndexerTransaction> indexerTransactions) {
+		if (isFullMode) {
+			blocks.forEach(b -> this.blockHandler.handleBlock(b).blockingGet());
+		}
+		commitTransactions(indexerTransactions);
+		saveCommittedHeight(blocks.get(blocks.size() - 1).getHeight());
+	}
+
+	// Headers are stored before queued blocks are committed, on start the block store is rewound to this height
+	private void saveCommittedHeight(long height) {
+		blockRepository.saveHeight(height).blockingGet();
+	}
+
+	private void commitTransactions(List<IndexerTransaction> indexerTransactions) {
 		logger.trace("Indexer txs={} ", indexerTransactions.size());
 
 		if (!indexerTransactions.isEmpty()) {
-			List<IndexerTransaction> validated = transactionHandler.handleTransaction(indexerTransactions).toList().blockingGet();
-			SystemTimer systemTimer = SystemTimer.create();
-			systemTimer.start();
-			utxoRepository.updateUtxoValidationStatus(validated.stream().map(IndexerTransaction::getTransaction).collect(Collectors.toList()), Coin.BCH)
-					.blockingGet();
-			logger.info("Completed utxo validation in time={}", systemTimer.getMsSinceStart());
+			transactionHandler.handleTransaction(indexerTransactions).ignoreElements().blockingAwait();
 		}
-		return indexerTransactions;
 	}
 
 	@Override
@@ -190,6 +210,14 @@ public class BitcoinJListener implements PeerDataEventListener,
 				splitPoint.getHeader() != null ? splitPoint.getHeader().getHashAsString() : "",
 				splitPoint.getHeight());
 
+		InitialSyncWindow window = initialSyncWindow;
+		if (window != null) {
+			window.flush();
+		}
+		if (blockIngestionPipeline != null) {
+			blockIngestionPipeline.drain();
+		}
+
 		for (StoredBlock oldBlock : oldBlocks) {
 			com.bitcoin.indexer.blockchain.domain.Block block = converters.block(oldBlock.getHeader(),
 					oldBlock.getHeight(), networkParameters);
@@ -219,23 +247,40 @@ public class BitcoinJListener implements PeerDataEventListener,
 			logger.info("Handling block={} height={} blockStoreHeight={}", block.getHash(), height, blockStoreHeight);
 		}
 
+		InitialSyncWindow window = initialSyncWindow;
+		if (window != null) {
+			if (window.accepts(height)) {
+				window.add(block, height);
+				return;
+			}
+			// Past the initial sync the window is not used again
+			window.close();
+			initialSyncWindow = null;
+		}
+
+		if (blockIngestionPipeline != null) {
+			blockIngestionPipeline.submit(block, height);
+			return;
+		}
+
 		com.bitcoin.indexer.blockchain.domain.Block newBlock = converters.block(block, height, networkParameters);
 
 		SystemTimer systemTimer = SystemTimer.create();
 		systemTimer.start();
 
-		if (isFullMode) {
-			this.blockHandler.handleBlock(newBlock).blockingGet();
-		}
-		consumeTransactions(newBlock.getTransactions());
+		commitBlock(newBlock, indexerTransactionCreator.createIndexerTransactions(newBlock.getTransactions()));
 
 		if (height > 543374) {
 			logger.info("Finished handling block={} height={} blockStoreHeight={} handlingTime={}", block.getHash(), height, blockStoreHeight, systemTimer.getMsSinceStart());
 		}
 	}
 
-	public Flowable<com.bitcoin.indexer.blockchain.domain.Transaction> getTransactionFlowable() {
-		return transactionFlowable;
+	public boolean onBlockSeen(Block block, String source) {
+		return blocksSeen.firstSeen(block.getHashAsString(), source);
+	}
+
+	public TransactionEventBus getTransactionEventBus() {
+		return transactionEventBus;
 	}
 
 }
@@ -0,0 +1,169 @@
+package com.bitcoin.indexer.listener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.bitcoinj.core.NetworkParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bitcoin.indexer.blockchain.domain.Block;
+import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.facade.BitcoinJConverters;
+import com.bitcoin.indexer.repository.db.AllOutputsDbObject;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Runs block ingestion as convert -> resolve -> commit, each stage on its own thread with a bounded queue in front of it.
+ * Stages are single threaded so blocks leave every stage in the order they were submitted, commits are strictly ordered.
+ * Slp outputs of blocks that are converted but not yet committed are overlaid when resolving later blocks.
+ * A stage that keeps failing stops the pipeline, later blocks are not committed past the gap and submitting fails. The
+ * headers of blocks that were queued are rewound on the next start from the committed height.
+ */
+public class BlockIngestionPipeline {
+
+	private static final Logger logger = LoggerFactory.getLogger(BlockIngestionPipeline.class);
+
+	private final BitcoinJConverters converters;
+	private final NetworkParameters networkParameters;
+	private final IndexerTransactionCreator indexerTransactionCreator;
+	private final BiConsumer<Block, List<IndexerTransaction>> committer;
+	private final int maxAttempts;
+	private final long retryDelayMs;
+
+	private final ThreadPoolExecutor convertStage;
+	private final ThreadPoolExecutor resolveStage;
+	private final ThreadPoolExecutor commitStage;
+
+	private final Map<String, Utxo> pendingSlpOutputs = new ConcurrentHashMap<>();
+	private volatile CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+	private volatile IllegalStateException failure;
+
+	public BlockIngestionPipeline(BitcoinJConverters converters,
+			NetworkParameters networkParameters,
+			IndexerTransactionCreator indexerTransactionCreator,
+			BiConsumer<Block, List<IndexerTransaction>> committer,
+			int depth) {
+		this(converters, networkParameters, indexerTransactionCreator, committer, depth, 30, 1000);
+	}
+
+	public BlockIngestionPipeline(BitcoinJConverters converters,
+			NetworkParameters networkParameters,
+			IndexerTransactionCreator indexerTransactionCreator,
+			BiConsumer<Block, List<IndexerTransaction>> committer,
+			int depth,
+			int maxAttempts,
+			long retryDelayMs) {
+		this.converters = Objects.requireNonNull(converters);
+		this.networkParameters = Objects.requireNonNull(networkParameters);
+		this.indexerTransactionCreator = Objects.requireNonNull(indexerTransactionCreator);
+		this.committer = Objects.requireNonNull(committer);
+		this.maxAttempts = maxAttempts;
+		this.retryDelayMs = retryDelayMs;
+		this.convertStage = stage("convert", depth);
+		this.resolveStage = stage("resolve", depth);
+		this.commitStage = stage("commit", depth);
+		logger.info("Block ingestion pipeline started depth={}", depth);
+	}
+
+	public synchronized void submit(org.bitcoinj.core.Block block, int height) {
+		if (failure != null) {
+			throw failure;
+		}
+		Timer convertTimer = timer("convert");
+		Timer resolveTimer = timer("resolve");
+		Timer commitTimer = timer("commit");
+
+		tail = CompletableFuture.supplyAsync(() -> retrying("convert", height, () -> convertTimer.record(() -> {
+			Block newBlock = converters.block(block, height, networkParameters);
+			newBlock.getTransactions().stream()
+					.flatMap(t -> t.getOutputs().stream())
+					.filter(u -> u.getSlpUtxo().isPresent())
+					.forEach(u -> pendingSlpOutputs.put(AllOutputsDbObject.keyParser(u.getTxId(), u.getIndex()), u));
+			return newBlock;
+		})), convertStage)
+				.thenApplyAsync(newBlock -> retrying("resolve", height, () -> resolveTimer.record(() ->
+						new Resolved(newBlock, indexerTransactionCreator.createIndexerTransactions(newBlock.getTransactions(), pendingSlpOutputs)))), resolveStage)
+				.thenAcceptAsync(resolved -> retrying("commit", height, () -> commitTimer.record(() -> {
+					committer.accept(resolved.block, resolved.indexerTransactions);
+					resolved.block.getTransactions().stream()
+							.flatMap(t -> t.getOutputs().stream())
+							.forEach(u -> pendingSlpOutputs.remove(AllOutputsDbObject.keyParser(u.getTxId(), u.getIndex())));
+					return null;
+				})), commitStage);
+	}
+
+	public void drain() {
+		tail.join();
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private <T> T retrying(String stage, int height, Supplier<T> work) {
+		for (int attempt = 1; ; attempt++) {
+			if (failure != null) {
+				throw new IllegalStateException("Pipeline stopped, skipping stage=" + stage + " height=" + height, failure);
+			}
+			try {
+				return work.get();
+			} catch (Exception e) {
+				if (attempt >= maxAttempts) {
+					logger.error("Pipeline stage={} failed for height={} attempts={} stopping", stage, height, attempt, e);
+					failure = new IllegalStateException("Pipeline stage=" + stage + " failed for height=" + height, e);
+					throw failure;
+				}
+				logger.error("Pipeline stage={} failed for height={} attempt={} retrying", stage, height, attempt, e);
+				try {
+					Thread.sleep(retryDelayMs);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while retrying stage=" + stage + " height=" + height, ex);
+				}
+			}
+		}
+	}
+
+	private static ThreadPoolExecutor stage(String name, int depth) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(depth),
+				r -> new Thread(r, "block-pipeline-" + name),
+				(r, e) -> {
+					try {
+						e.getQueue().put(r);
+					} catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+						throw new RejectedExecutionException(ex);
+					}
+				});
+		executor.prestartAllCoreThreads();
+		Metrics.gauge("block_pipeline_queue_depth", Tags.of("stage", name), executor, ex -> ex.getQueue().size());
+		return executor;
+	}
+
+	private static Timer timer(String stage) {
+		return Metrics.timer("block_pipeline_stage", "stage", stage);
+	}
+
+	private static class Resolved {
+		private final Block block;
+		private final List<IndexerTransaction> indexerTransactions;
+
+		private Resolved(Block block, List<IndexerTransaction> indexerTransactions) {
+			this.block = block;
+			this.indexerTransactions = indexerTransactions;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.bitcoin.indexer.listener;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Shared seen-set for hashes that arrive from more than one source (BitcoinJ peers and ZeroMQ nodes).
+ * The first source to claim a hash handles it, later sources only record how far behind the winner they were.
+ */
+public class FirstSeenTracker {
+
+	public static final String PEER = "peer";
+	public static final String ZEROMQ = "zeromq";
+
+	private final String kind;
+	private final ConcurrentMap<String, FirstSeen> seen;
+
+	public FirstSeenTracker(String kind, long maximumSize, Duration expireAfterWrite) {
+		this.kind = kind;
+		this.seen = Caffeine.newBuilder()
+				.executor(Executors.newSingleThreadExecutor())
+				.expireAfterWrite(expireAfterWrite.toMillis(), TimeUnit.MILLISECONDS)
+				.maximumSize(maximumSize)
+				.<String, FirstSeen>build()
+				.asMap();
+	}
+
+	public boolean firstSeen(String hash, String source) {
+		FirstSeen firstSeen = new FirstSeen(source, System.nanoTime());
+		FirstSeen existing = seen.putIfAbsent(hash, firstSeen);
+		if (existing == null) {
+			Metrics.counter("first_seen_wins", "kind", kind, "source", source).increment();
+			return true;
+		}
+		if (!existing.source.equals(source)) {
+			Metrics.timer("first_seen_lag", "kind", kind, "source", source, "winner", existing.source)
+					.record(firstSeen.nanos - existing.nanos, TimeUnit.NANOSECONDS);
+		}
+		return false;
+	}
+
+	// Lets the hash be handled again, for work that was claimed but could not be completed
+	public void forget(String hash) {
+		seen.remove(hash);
+	}
+
+	private static class FirstSeen {
+		private final String source;
+		private final long nanos;
+
+		private FirstSeen(String source, long nanos) {
+			this.source = source;
+			this.nanos = nanos;
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package com.bitcoin.indexer.listener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import org.bitcoinj.core.NetworkParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.util.Pair;
+
+import com.bitcoin.indexer.blockchain.domain.Block;
+import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.config.SystemTimer;
+import com.bitcoin.indexer.facade.BitcoinJConverters;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Collects historical blocks below a height into windows, converts a window in parallel and commits it as one batch.
+ * Spends between blocks of the same window are resolved in memory by the {@link IndexerTransactionCreator}.
+ * A window that keeps failing stops the initial sync, its headers are rewound on the next start from the committed
+ * height.
+ */
+public class InitialSyncWindow {
+
+	private static final Logger logger = LoggerFactory.getLogger(InitialSyncWindow.class);
+
+	private final BitcoinJConverters converters;
+	private final NetworkParameters networkParameters;
+	private final IndexerTransactionCreator indexerTransactionCreator;
+	private final BiConsumer<List<Block>, List<IndexerTransaction>> committer;
+	private final int untilHeight;
+	private final int windowSize;
+	private final int maxAttempts;
+	private final long retryDelayMs;
+	private final ForkJoinPool convertPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+	private final List<Pair<Integer, org.bitcoinj.core.Block>> pending = new ArrayList<>();
+	private final Counter blocks = Metrics.counter("initial_sync_blocks");
+	private SystemTimer sinceStart;
+	private long blocksDone = 0;
+	private volatile double blocksPerSecond = 0;
+	private volatile double etaSeconds = 0;
+	private IllegalStateException failure;
+
+	public InitialSyncWindow(BitcoinJConverters converters,
+			NetworkParameters networkParameters,
+			IndexerTransactionCreator indexerTransactionCreator,
+			BiConsumer<List<Block>, List<IndexerTransaction>> committer,
+			int untilHeight,
+			int windowSize) {
+		this(converters, networkParameters, indexerTransactionCreator, committer, untilHeight, windowSize, 30, 1000);
+	}
+
+	public InitialSyncWindow(BitcoinJConverters converters,
+			NetworkParameters networkParameters,
+			IndexerTransactionCreator indexerTransactionCreator,
+			BiConsumer<List<Block>, List<IndexerTransaction>> committer,
+			int untilHeight,
+			int windowSize,
+			int maxAttempts,
+			long retryDelayMs) {
+		this.converters = Objects.requireNonNull(converters);
+		this.networkParameters = Objects.requireNonNull(networkParameters);
+		this.indexerTransactionCreator = Objects.requireNonNull(indexerTransactionCreator);
+		this.committer = Objects.requireNonNull(committer);
+		this.untilHeight = untilHeight;
+		this.windowSize = windowSize;
+		this.maxAttempts = maxAttempts;
+		this.retryDelayMs = retryDelayMs;
+		Metrics.gauge("initial_sync_blocks_per_second", this, w -> w.blocksPerSecond);
+		Metrics.gauge("initial_sync_eta_seconds", this, w -> w.etaSeconds);
+		logger.info("Initial sync window enabled untilHeight={} windowSize={}", untilHeight, windowSize);
+	}
+
+	public boolean accepts(int height) {
+		return height < untilHeight;
+	}
+
+	public synchronized void add(org.bitcoinj.core.Block block, int height) {
+		if (failure != null) {
+			throw failure;
+		}
+		if (sinceStart == null) {
+			sinceStart = SystemTimer.create();
+			sinceStart.start();
+		}
+		pending.add(Pair.of(height, block));
+		if (pending.size() >= windowSize || height >= untilHeight - 1) {
+			flush();
+		}
+	}
+
+	public synchronized void flush() {
+		if (failure != null) {
+			throw failure;
+		}
+		if (pending.isEmpty()) {
+			return;
+		}
+		for (int attempt = 1; ; attempt++) {
+			try {
+				commitWindow();
+				break;
+			} catch (Exception e) {
+				int from = pending.get(0).getFirst();
+				int to = pending.get(pending.size() - 1).getFirst();
+				if (attempt >= maxAttempts) {
+					logger.error("Initial sync window failed from={} to={} attempts={} stopping", from, to, attempt, e);
+					failure = new IllegalStateException("Initial sync window failed from=" + from + " to=" + to, e);
+					throw failure;
+				}
+				logger.error("Initial sync window failed from={} to={} attempt={} retrying", from, to, attempt, e);
+				try {
+					Thread.sleep(retryDelayMs);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted during initial sync", ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Commits what is pending and releases the conversion threads, the window takes no blocks after this.
+	 */
+	public synchronized void close() {
+		try {
+			flush();
+		} finally {
+			convertPool.shutdown();
+		}
+	}
+
+	private void commitWindow() throws Exception {
+		SystemTimer systemTimer = SystemTimer.create();
+		systemTimer.start();
+
+		//Token details must exist before sends in later blocks of the window are converted
+		pending.forEach(p -> converters.saveGenesisDetails(p.getSecond(), p.getFirst()));
+
+		List<Block> converted = convertPool.submit(() -> pending.parallelStream()
+				.map(p -> converters.block(p.getSecond(), p.getFirst(), networkParameters))
+				.collect(Collectors.toList()))
+				.get();
+
+		List<Transaction> transactions = converted.stream()
+				.flatMap(b -> b.getTransactions().stream())
+				.collect(Collectors.toList());
+
+		List<IndexerTransaction> indexerTransactions = indexerTransactionCreator.createIndexerTransactions(transactions);
+		committer.accept(converted, indexerTransactions);
+
+		int from = pending.get(0).getFirst();
+		int to = pending.get(pending.size() - 1).getFirst();
+		blocks.increment(pending.size());
+		blocksDone += pending.size();
+		pending.clear();
+
+		double seconds = Math.max(sinceStart.getMsSinceStart(), 1) / 1000.0;
+		blocksPerSecond = blocksDone / seconds;
+		etaSeconds = Math.max(untilHeight - to - 1, 0) / blocksPerSecond;
+		logger.info("Initial sync window from={} to={} txs={} indexed={} time={} blocksPerSecond={} etaSeconds={}",
+				from, to, transactions.size(), indexerTransactions.size(), systemTimer.getMsSinceStart(), String.format("%.2f", blocksPerSecond), (long) etaSeconds);
+	}
+}
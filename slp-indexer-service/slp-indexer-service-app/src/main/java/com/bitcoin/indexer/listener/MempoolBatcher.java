@@ -0,0 +1,149 @@
+package com.bitcoin.indexer.listener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Coalesces mempool transactions into batches of at most maxBatchSize, waiting at most maxDelayMs after the first
+ * transaction of a batch. Batches are consumed one at a time on a single thread, so whatever queued up while the previous
+ * batch was committing goes out in the next one: quiet periods give batches of one, storms give full batches.
+ * Parents and children inside a batch are ordered by the transaction handler. The queue is bounded, submitting to a
+ * full queue waits. A failing batch is retried, once out of attempts it is handed to the failed callback.
+ */
+public class MempoolBatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(MempoolBatcher.class);
+
+	private final Consumer<List<Transaction>> consumer;
+	private final Consumer<List<Transaction>> failed;
+	private final int maxBatchSize;
+	private final long maxDelayNanos;
+	private final int maxAttempts;
+	private final long retryDelayMs;
+	private final BlockingQueue<Pending> queue;
+
+	private final DistributionSummary batchSize = Metrics.summary("mempool_batch_size");
+	private final Timer queueTime = Metrics.timer("mempool_batch_queue_time");
+	private final Timer commitTime = Metrics.timer("mempool_batch_commit_time");
+	private final Counter failedBatches = Metrics.counter("mempool_batch_failed");
+
+	public MempoolBatcher(Consumer<List<Transaction>> consumer, int maxBatchSize, long maxDelayMs) {
+		this(consumer, txs -> {
+		}, maxBatchSize, maxDelayMs, 100000, 3, 1000);
+	}
+
+	public MempoolBatcher(Consumer<List<Transaction>> consumer,
+			Consumer<List<Transaction>> failed,
+			int maxBatchSize,
+			long maxDelayMs,
+			int capacity,
+			int maxAttempts,
+			long retryDelayMs) {
+		this.consumer = Objects.requireNonNull(consumer);
+		this.failed = Objects.requireNonNull(failed);
+		this.maxBatchSize = maxBatchSize;
+		this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+		this.maxAttempts = maxAttempts;
+		this.retryDelayMs = retryDelayMs;
+		this.queue = new LinkedBlockingQueue<>(capacity);
+		Metrics.gauge("mempool_batch_queue_depth", queue, BlockingQueue::size);
+		Thread thread = new Thread(this::run, "mempool-batcher");
+		thread.setDaemon(true);
+		thread.start();
+		logger.info("Mempool batcher started maxBatchSize={} maxDelayMs={} capacity={}", maxBatchSize, maxDelayMs, capacity);
+	}
+
+	public void submit(Transaction transaction) {
+		try {
+			queue.put(new Pending(transaction, System.nanoTime()));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failed.accept(List.of(transaction));
+		}
+	}
+
+	private void run() {
+		List<Pending> batch = new ArrayList<>(maxBatchSize);
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				batch.add(queue.take());
+				long deadline = System.nanoTime() + maxDelayNanos;
+				while (batch.size() < maxBatchSize) {
+					if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+						continue;
+					}
+					long remaining = deadline - System.nanoTime();
+					Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			consume(batch);
+			batch.clear();
+		}
+	}
+
+	private void consume(List<Pending> batch) {
+		long now = System.nanoTime();
+		List<Transaction> transactions = new ArrayList<>(batch.size());
+		for (Pending pending : batch) {
+			queueTime.record(now - pending.queuedAt, TimeUnit.NANOSECONDS);
+			transactions.add(pending.transaction);
+		}
+		batchSize.record(transactions.size());
+		for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+			try {
+				commitTime.record(() -> consumer.accept(transactions));
+				return;
+			} catch (RuntimeException e) {
+				logger.warn("Could not consume mempool batch size={} first={} attempt={}", transactions.size(), transactions.get(0).getTxId(), attempt, e);
+			}
+			if (attempt < maxAttempts && !sleep()) {
+				break;
+			}
+		}
+		logger.error("Gave up on mempool batch size={} first={}", transactions.size(), transactions.get(0).getTxId());
+		failedBatches.increment();
+		failed.accept(transactions);
+	}
+
+	private boolean sleep() {
+		try {
+			Thread.sleep(retryDelayMs);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static class Pending {
+		private final Transaction transaction;
+		private final long queuedAt;
+
+		private Pending(Transaction transaction, long queuedAt) {
+			this.transaction = transaction;
+			this.queuedAt = queuedAt;
+		}
+	}
+}
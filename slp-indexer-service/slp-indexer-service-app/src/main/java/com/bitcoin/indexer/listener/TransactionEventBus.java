@@ -0,0 +1,147 @@
+package com.bitcoin.indexer.listener;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Fans indexed transactions out to subscribers. Every subscriber gets its own bounded queue and delivery thread, so a slow
+ * subscriber only affects itself according to its overflow policy and never grows the heap.
+ */
+public class TransactionEventBus {
+
+	private static final Logger logger = LoggerFactory.getLogger(TransactionEventBus.class);
+
+	public enum OverflowPolicy {
+		/** Drop the oldest queued transaction to make room */
+		DROP_OLDEST,
+		/** Block the publisher until there is room */
+		BLOCK,
+		/** Drop everything queued and keep only the newest transaction, for subscribers that only care about the latest */
+		SAMPLE
+	}
+
+	private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+	public void publish(Transaction transaction) {
+		for (Subscription subscription : subscriptions) {
+			subscription.offer(transaction);
+		}
+	}
+
+	public Subscription subscribe(String name, int capacity, OverflowPolicy overflowPolicy, Consumer<Transaction> consumer) {
+		Subscription subscription = new Subscription(name, capacity, overflowPolicy, consumer);
+		subscriptions.add(subscription);
+		logger.info("Event bus subscriber={} capacity={} overflowPolicy={}", name, capacity, overflowPolicy);
+		return subscription;
+	}
+
+	public class Subscription {
+
+		private final String name;
+		private final OverflowPolicy overflowPolicy;
+		private final Consumer<Transaction> consumer;
+		private final BlockingQueue<Queued> queue;
+		private final Thread thread;
+		private final Counter dropped;
+		private final Counter delivered;
+		private final Timer lag;
+		private final Gauge queued;
+
+		private volatile boolean cancelled = false;
+
+		private Subscription(String name, int capacity, OverflowPolicy overflowPolicy, Consumer<Transaction> consumer) {
+			this.name = Objects.requireNonNull(name);
+			this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+			this.consumer = Objects.requireNonNull(consumer);
+			this.queue = new ArrayBlockingQueue<>(capacity);
+			this.dropped = Metrics.counter("event_bus_dropped", "subscriber", name);
+			this.delivered = Metrics.counter("event_bus_delivered", "subscriber", name);
+			this.lag = Metrics.timer("event_bus_lag", "subscriber", name);
+			this.queued = Gauge.builder("event_bus_queued", queue, BlockingQueue::size).tag("subscriber", name).register(Metrics.globalRegistry);
+			this.thread = new Thread(this::run, "event-bus-" + name);
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+
+		private void offer(Transaction transaction) {
+			Queued next = new Queued(transaction, System.nanoTime());
+			switch (overflowPolicy) {
+			case BLOCK:
+				try {
+					queue.put(next);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					dropped.increment();
+				}
+				return;
+			case DROP_OLDEST:
+				while (!queue.offer(next)) {
+					if (queue.poll() != null) {
+						dropped.increment();
+					}
+				}
+				return;
+			case SAMPLE:
+				while (!queue.offer(next)) {
+					int cleared = queue.size();
+					queue.clear();
+					dropped.increment(cleared);
+				}
+			}
+		}
+
+		private void run() {
+			while (!cancelled) {
+				Queued next;
+				try {
+					next = queue.take();
+				} catch (InterruptedException e) {
+					return;
+				}
+				lag.record(System.nanoTime() - next.publishedAt, TimeUnit.NANOSECONDS);
+				try {
+					consumer.accept(next.transaction);
+					delivered.increment();
+				} catch (RuntimeException e) {
+					logger.error("Event bus subscriber={} failed txId={}", name, next.transaction.getTxId(), e);
+				}
+			}
+		}
+
+		public void cancel() {
+			cancelled = true;
+			subscriptions.remove(this);
+			thread.interrupt();
+			Metrics.globalRegistry.remove(queued);
+		}
+
+		public int getQueued() {
+			return queue.size();
+		}
+	}
+
+	private static class Queued {
+		private final Transaction transaction;
+		private final long publishedAt;
+
+		private Queued(Transaction transaction, long publishedAt) {
+			this.transaction = transaction;
+			this.publishedAt = publishedAt;
+		}
+	}
+}
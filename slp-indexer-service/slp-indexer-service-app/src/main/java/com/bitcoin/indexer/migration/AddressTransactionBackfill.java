@@ -0,0 +1,111 @@
+package com.bitcoin.indexer.migration;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.repository.AddressTransactionRepository;
+import com.bitcoin.indexer.repository.db.TransactionDbObject;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Builds addressTransactions for transactions stored before the writer maintained it. Walks transactions in _id order and
+ * stores the last _id of every batch so a restart resumes, entries already written by the indexer are not overwritten.
+ */
+public class AddressTransactionBackfill {
+
+	private static final Logger logger = LoggerFactory.getLogger(AddressTransactionBackfill.class);
+
+	private static final String STATE_ID = "addressTransactions";
+
+	private final MongoOperations mongoOperations;
+	private final AddressTransactionRepository addressTransactionRepository;
+	private final int batchSize;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "address-transaction-backfill");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private volatile boolean running = true;
+
+	public AddressTransactionBackfill(MongoOperations mongoOperations, AddressTransactionRepository addressTransactionRepository, int batchSize) {
+		this.mongoOperations = Objects.requireNonNull(mongoOperations);
+		this.addressTransactionRepository = Objects.requireNonNull(addressTransactionRepository);
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be positive batchSize=" + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	public void start() {
+		executor.execute(() -> {
+			try {
+				backfill();
+			} catch (Exception e) {
+				logger.error("Address transaction backfill stopped, restart to resume", e);
+			}
+		});
+	}
+
+	public void destroy() {
+		running = false;
+		executor.shutdownNow();
+	}
+
+	public long backfill() {
+		Document state = mongoOperations.findById(STATE_ID, Document.class, NumericSchemaMigration.STATE_COLLECTION);
+		if (state != null && state.getBoolean("completed", false)) {
+			logger.info("Address transaction backfill already completed");
+			return 0;
+		}
+		String lastId = state == null ? null : state.getString("lastId");
+		long scanned = state == null ? 0 : state.get("scanned", Number.class).longValue();
+		logger.info("Address transaction backfill starting resumeAfter={} scanned={}", lastId, scanned);
+
+		while (running) {
+			Query query = new Query();
+			if (lastId != null) {
+				query.addCriteria(Criteria.where("_id").gt(lastId));
+			}
+			query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+			List<TransactionDbObject> batch = mongoOperations.find(query, TransactionDbObject.class);
+			if (batch.isEmpty()) {
+				saveState(lastId, scanned, true);
+				logger.info("Address transaction backfill completed scanned={}", scanned);
+				return scanned;
+			}
+
+			List<Transaction> transactions = batch.stream().map(TransactionDbObject::toDomain).collect(Collectors.toList());
+			addressTransactionRepository.backfillTransactions(transactions).blockingAwait();
+			scanned += batch.size();
+			Metrics.counter("address_transaction_backfill_scanned").increment(batch.size());
+
+			lastId = transactions.get(transactions.size() - 1).getTxId();
+			saveState(lastId, scanned, false);
+		}
+		logger.info("Address transaction backfill interrupted lastId={} scanned={}", lastId, scanned);
+		return scanned;
+	}
+
+	private void saveState(String lastId, long scanned, boolean completed) {
+		Update update = new Update();
+		update.set("lastId", lastId);
+		update.set("scanned", scanned);
+		update.set("completed", completed);
+		mongoOperations.upsert(Query.query(Criteria.where("_id").is(STATE_ID)), update, NumericSchemaMigration.STATE_COLLECTION);
+	}
+}
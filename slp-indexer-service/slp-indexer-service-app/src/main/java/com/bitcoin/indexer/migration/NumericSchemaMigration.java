@@ -0,0 +1,185 @@
+package com.bitcoin.indexer.migration;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.bitcoin.indexer.repository.db.NumericSchema;
+import com.mongodb.bulk.BulkWriteResult;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Rewrites string amounts in allOutputs and transactions to the numeric schema while the indexer keeps writing. Documents
+ * are walked in _id order in batches and the last _id of every batch is stored, so a restarted job continues where it
+ * stopped. A rewrite only applies to documents still below the current version, anything the writer stored in the meantime
+ * is left alone.
+ */
+public class NumericSchemaMigration {
+
+	private static final Logger logger = LoggerFactory.getLogger(NumericSchemaMigration.class);
+
+	public static final String STATE_COLLECTION = "schemaMigrations";
+	public static final String ALL_OUTPUTS = "allOutputs";
+	public static final String TRANSACTIONS = "transactions";
+
+	private final MongoOperations mongoOperations;
+	private final int batchSize;
+	private final long pauseMs;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "numeric-schema-migration");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private volatile boolean running = true;
+
+	public NumericSchemaMigration(MongoOperations mongoOperations, int batchSize, long pauseMs) {
+		this.mongoOperations = Objects.requireNonNull(mongoOperations);
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be positive batchSize=" + batchSize);
+		}
+		this.batchSize = batchSize;
+		this.pauseMs = pauseMs;
+	}
+
+	public void start() {
+		executor.execute(() -> {
+			try {
+				migrate(ALL_OUTPUTS, NumericSchemaMigration::rewriteOutput);
+				migrate(TRANSACTIONS, NumericSchemaMigration::rewriteTransaction);
+			} catch (Exception e) {
+				logger.error("Numeric schema migration stopped, restart to resume", e);
+			}
+		});
+	}
+
+	public void destroy() {
+		running = false;
+		executor.shutdownNow();
+	}
+
+	public long migrate(String collection, Function<Document, Update> rewrite) {
+		Document state = mongoOperations.findById(stateId(collection), Document.class, STATE_COLLECTION);
+		if (state != null && state.getBoolean("completed", false)) {
+			logger.info("Numeric schema migration already completed collection={}", collection);
+			return 0;
+		}
+		String lastId = state == null ? null : state.getString("lastId");
+		long migrated = state == null ? 0 : state.get("migrated", Number.class).longValue();
+		logger.info("Numeric schema migration starting collection={} resumeAfter={} migrated={}", collection, lastId, migrated);
+
+		while (running) {
+			Query query = new Query();
+			if (lastId != null) {
+				query.addCriteria(Criteria.where("_id").gt(lastId));
+			}
+			query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+			List<Document> batch = mongoOperations.find(query, Document.class, collection);
+			if (batch.isEmpty()) {
+				saveState(collection, lastId, migrated, true);
+				logger.info("Numeric schema migration completed collection={} migrated={}", collection, migrated);
+				return migrated;
+			}
+
+			BulkOperations bulkOperations = mongoOperations.bulkOps(BulkMode.UNORDERED, collection);
+			int pending = 0;
+			for (Document document : batch) {
+				if (isCurrent(document)) {
+					continue;
+				}
+				bulkOperations.updateOne(Query.query(Criteria.where("_id").is(document.get("_id"))
+						.and(NumericSchema.VERSION_FIELD).ne(NumericSchema.CURRENT_VERSION)), rewrite.apply(document));
+				pending++;
+			}
+			if (pending > 0) {
+				BulkWriteResult result = bulkOperations.execute();
+				migrated += result.getModifiedCount();
+				Metrics.counter("numeric_schema_migrated", "collection", collection).increment(result.getModifiedCount());
+			}
+			Metrics.counter("numeric_schema_scanned", "collection", collection).increment(batch.size());
+
+			lastId = batch.get(batch.size() - 1).get("_id").toString();
+			saveState(collection, lastId, migrated, false);
+			pause();
+		}
+		logger.info("Numeric schema migration interrupted collection={} lastId={} migrated={}", collection, lastId, migrated);
+		return migrated;
+	}
+
+	public static Update rewriteOutput(Document output) {
+		Update update = new Update();
+		update.set("value", NumericSchema.migrateSatoshis(output.get("value")));
+		Document slpUtxoType = output.get("slpUtxoType", Document.class);
+		if (slpUtxoType != null) {
+			update.set("slpUtxoType.amount", NumericSchema.migrateTokenAmount(slpUtxoType.get("amount")));
+		}
+		update.set(NumericSchema.VERSION_FIELD, NumericSchema.CURRENT_VERSION);
+		return update;
+	}
+
+	public static Update rewriteTransaction(Document transaction) {
+		Update update = new Update();
+		update.set("fees", NumericSchema.migrateSatoshis(transaction.get("fees")));
+		List<Document> outputs = transaction.getList("outputs", Document.class, List.of());
+		for (int i = 0; i < outputs.size(); i++) {
+			update.set("outputs." + i + ".amount", NumericSchema.migrateSatoshis(outputs.get(i).get("amount")));
+			Document slpUtxoType = outputs.get(i).get("slpUtxoType", Document.class);
+			if (slpUtxoType != null) {
+				update.set("outputs." + i + ".slpUtxoType.amount", NumericSchema.migrateTokenAmount(slpUtxoType.get("amount")));
+			}
+		}
+		List<Document> inputs = transaction.getList("inputs", Document.class, List.of());
+		for (int i = 0; i < inputs.size(); i++) {
+			update.set("inputs." + i + ".amount", NumericSchema.migrateSatoshis(inputs.get(i).get("amount")));
+			Document slpTokenType = inputs.get(i).get("slpTokenType", Document.class);
+			if (slpTokenType != null) {
+				update.set("inputs." + i + ".slpTokenType.amount", NumericSchema.migrateTokenAmount(slpTokenType.get("amount")));
+			}
+		}
+		update.set(NumericSchema.VERSION_FIELD, NumericSchema.CURRENT_VERSION);
+		return update;
+	}
+
+	private static boolean isCurrent(Document document) {
+		Number version = document.get(NumericSchema.VERSION_FIELD, Number.class);
+		return version != null && version.intValue() >= NumericSchema.CURRENT_VERSION;
+	}
+
+	private void saveState(String collection, String lastId, long migrated, boolean completed) {
+		Update update = new Update();
+		update.set("lastId", lastId);
+		update.set("migrated", migrated);
+		update.set("completed", completed);
+		mongoOperations.upsert(Query.query(Criteria.where("_id").is(stateId(collection))), update, STATE_COLLECTION);
+	}
+
+	private void pause() {
+		if (pauseMs <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(pauseMs);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			running = false;
+		}
+	}
+
+	private static String stateId(String collection) {
+		return "numeric-v" + NumericSchema.CURRENT_VERSION + ":" + collection;
+	}
+}
@@ -0,0 +1,123 @@
+package com.bitcoin.indexer.migration;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.bitcoin.indexer.repository.RawTransactionRepositoryImpl;
+import com.bitcoin.indexer.repository.db.RawTransactionDbObject;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Moves the inline rawHex of transactions stored before the split into rawTransactions and unsets it. Bytes are copied
+ * before they are removed, so an interrupted batch is simply repeated on restart.
+ */
+public class RawTransactionMigration {
+
+	private static final Logger logger = LoggerFactory.getLogger(RawTransactionMigration.class);
+
+	private static final String STATE_ID = "rawTransactions";
+
+	private final MongoOperations mongoOperations;
+	private final int batchSize;
+	private final boolean compress;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "raw-transaction-migration");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private volatile boolean running = true;
+
+	public RawTransactionMigration(MongoOperations mongoOperations, int batchSize, boolean compress) {
+		this.mongoOperations = Objects.requireNonNull(mongoOperations);
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be positive batchSize=" + batchSize);
+		}
+		this.batchSize = batchSize;
+		this.compress = compress;
+	}
+
+	public void start() {
+		executor.execute(() -> {
+			try {
+				migrate();
+			} catch (Exception e) {
+				logger.error("Raw transaction migration stopped, restart to resume", e);
+			}
+		});
+	}
+
+	public void destroy() {
+		running = false;
+		executor.shutdownNow();
+	}
+
+	public long migrate() {
+		Document state = mongoOperations.findById(STATE_ID, Document.class, NumericSchemaMigration.STATE_COLLECTION);
+		if (state != null && state.getBoolean("completed", false)) {
+			logger.info("Raw transaction migration already completed");
+			return 0;
+		}
+		String lastId = state == null ? null : state.getString("lastId");
+		long moved = state == null ? 0 : state.get("moved", Number.class).longValue();
+		logger.info("Raw transaction migration starting resumeAfter={} moved={}", lastId, moved);
+
+		while (running) {
+			Query query = Query.query(Criteria.where(RawTransactionRepositoryImpl.LEGACY_FIELD).exists(true));
+			if (lastId != null) {
+				query.addCriteria(Criteria.where("_id").gt(lastId));
+			}
+			query.fields().include(RawTransactionRepositoryImpl.LEGACY_FIELD);
+			query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+			List<Document> batch = mongoOperations.find(query, Document.class, NumericSchemaMigration.TRANSACTIONS);
+			if (batch.isEmpty()) {
+				saveState(lastId, moved, true);
+				logger.info("Raw transaction migration completed moved={}", moved);
+				return moved;
+			}
+
+			BulkOperations raw = mongoOperations.bulkOps(BulkMode.UNORDERED, RawTransactionDbObject.class);
+			for (Document transaction : batch) {
+				String rawHex = transaction.getString(RawTransactionRepositoryImpl.LEGACY_FIELD);
+				if (rawHex != null && !rawHex.isEmpty()) {
+					raw.upsert(Query.query(Criteria.where("_id").is(transaction.getString("_id"))), RawTransactionDbObject.toInsert(rawHex, compress));
+				}
+			}
+			raw.execute();
+
+			List<String> txIds = batch.stream().map(d -> d.getString("_id")).collect(Collectors.toList());
+			mongoOperations.updateMulti(Query.query(Criteria.where("_id").in(txIds)), new Update().unset(RawTransactionRepositoryImpl.LEGACY_FIELD),
+					NumericSchemaMigration.TRANSACTIONS);
+			moved += batch.size();
+			Metrics.counter("raw_transaction_migration_moved").increment(batch.size());
+
+			lastId = txIds.get(txIds.size() - 1);
+			saveState(lastId, moved, false);
+		}
+		logger.info("Raw transaction migration interrupted lastId={} moved={}", lastId, moved);
+		return moved;
+	}
+
+	private void saveState(String lastId, long moved, boolean completed) {
+		Update update = new Update();
+		update.set("lastId", lastId);
+		update.set("moved", moved);
+		update.set("completed", completed);
+		mongoOperations.upsert(Query.query(Criteria.where("_id").is(STATE_ID)), update, NumericSchemaMigration.STATE_COLLECTION);
+	}
+}
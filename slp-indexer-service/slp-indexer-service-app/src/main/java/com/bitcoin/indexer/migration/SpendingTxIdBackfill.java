@@ -0,0 +1,130 @@
+package com.bitcoin.indexer.migration;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.bitcoin.indexer.repository.db.AllOutputsDbObject;
+import com.mongodb.bulk.BulkWriteResult;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Links slp outputs spent before spends stored spendingTxId to the transaction spending them, invalidation walks
+ * descendants through that field. Walks transactions with slp inputs in _id order and stores the last _id of every batch
+ * so a restart resumes, outputs that already name their spender are left alone.
+ */
+public class SpendingTxIdBackfill {
+
+	private static final Logger logger = LoggerFactory.getLogger(SpendingTxIdBackfill.class);
+
+	private static final String STATE_ID = "spendingTxId";
+
+	private final MongoOperations mongoOperations;
+	private final int batchSize;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "spending-tx-id-backfill");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private volatile boolean running = true;
+
+	public SpendingTxIdBackfill(MongoOperations mongoOperations, int batchSize) {
+		this.mongoOperations = Objects.requireNonNull(mongoOperations);
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be positive batchSize=" + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	public void start() {
+		executor.execute(() -> {
+			try {
+				backfill();
+			} catch (Exception e) {
+				logger.error("Spending tx id backfill stopped, restart to resume", e);
+			}
+		});
+	}
+
+	public void destroy() {
+		running = false;
+		executor.shutdownNow();
+	}
+
+	public long backfill() {
+		Document state = mongoOperations.findById(STATE_ID, Document.class, NumericSchemaMigration.STATE_COLLECTION);
+		if (state != null && state.getBoolean("completed", false)) {
+			logger.info("Spending tx id backfill already completed");
+			return 0;
+		}
+		String lastId = state == null ? null : state.getString("lastId");
+		long linked = state == null ? 0 : state.get("linked", Number.class).longValue();
+		logger.info("Spending tx id backfill starting resumeAfter={} linked={}", lastId, linked);
+
+		while (running) {
+			Query query = Query.query(Criteria.where("inputs.slpTokenType").ne(null));
+			if (lastId != null) {
+				query.addCriteria(Criteria.where("_id").gt(lastId));
+			}
+			query.fields().include("inputs.txId").include("inputs.inputIndex").include("inputs.slpTokenType");
+			query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+			List<Document> batch = mongoOperations.find(query, Document.class, NumericSchemaMigration.TRANSACTIONS);
+			if (batch.isEmpty()) {
+				saveState(lastId, linked, true);
+				logger.info("Spending tx id backfill completed linked={}", linked);
+				return linked;
+			}
+
+			BulkOperations bulkOperations = mongoOperations.bulkOps(BulkMode.UNORDERED, NumericSchemaMigration.ALL_OUTPUTS);
+			int pending = 0;
+			for (Document transaction : batch) {
+				List<Document> inputs = transaction.getList("inputs", Document.class);
+				for (int vin = 0; vin < inputs.size(); vin++) {
+					Document input = inputs.get(vin);
+					if (input.get("slpTokenType") == null) {
+						continue;
+					}
+					String key = AllOutputsDbObject.keyParser(input.getString("txId"), input.getInteger("inputIndex"));
+					Update update = new Update();
+					update.set("spendingTxId", transaction.getString("_id"));
+					update.set("spendingVin", vin);
+					bulkOperations.updateOne(Query.query(Criteria.where("_id").is(key).and("spendingTxId").exists(false)), update);
+					pending++;
+				}
+			}
+			if (pending > 0) {
+				BulkWriteResult result = bulkOperations.execute();
+				linked += result.getModifiedCount();
+				Metrics.counter("spending_tx_id_backfill_linked").increment(result.getModifiedCount());
+			}
+			Metrics.counter("spending_tx_id_backfill_scanned").increment(batch.size());
+
+			lastId = batch.get(batch.size() - 1).getString("_id");
+			saveState(lastId, linked, false);
+		}
+		logger.info("Spending tx id backfill interrupted lastId={} linked={}", lastId, linked);
+		return linked;
+	}
+
+	private void saveState(String lastId, long linked, boolean completed) {
+		Update update = new Update();
+		update.set("lastId", lastId);
+		update.set("linked", linked);
+		update.set("completed", completed);
+		mongoOperations.upsert(Query.query(Criteria.where("_id").is(STATE_ID)), update, NumericSchemaMigration.STATE_COLLECTION);
+	}
+}
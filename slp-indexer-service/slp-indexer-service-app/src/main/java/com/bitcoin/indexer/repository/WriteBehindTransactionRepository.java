@@ -0,0 +1,312 @@
+package com.bitcoin.indexer.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.TransactionCursor;
+import com.bitcoin.indexer.blockchain.domain.TransactionSlpData;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
+import com.bitcoin.indexer.core.Coin;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+
+/**
+ * Buffers transaction writes of a batch in memory and writes every document once when the batch is flushed, a discarded
+ * batch writes nothing it staged.
+ * Saves of transactions that belong to an open batch only update the buffer. Every read that returns transactions or
+ * verdicts sees the buffered version first, queries by token, address or height replace the stored version of a
+ * buffered transaction with it. Counts and ids do not depend on verdicts and go straight to the store.
+ */
+public class WriteBehindTransactionRepository implements TransactionRepository {
+
+	private final TransactionRepository delegate;
+	private final Map<String, IndexerTransaction> inFlight = new ConcurrentHashMap<>();
+
+	private final AtomicLong documentsWritten = new AtomicLong();
+	private final AtomicLong transactionsIndexed = new AtomicLong();
+	private final Counter documentsWrittenCounter = Metrics.counter("transaction_documents_written");
+	private final Counter transactionsIndexedCounter = Metrics.counter("transaction_documents_indexed");
+
+	public WriteBehindTransactionRepository(TransactionRepository delegate) {
+		this.delegate = Objects.requireNonNull(delegate);
+		Metrics.gauge("transaction_write_amplification", this, WriteBehindTransactionRepository::getWriteAmplification);
+	}
+
+	public Batch begin(List<IndexerTransaction> transactions) {
+		return new Batch(transactions);
+	}
+
+	public double getWriteAmplification() {
+		long indexed = transactionsIndexed.get();
+		return indexed == 0 ? 0 : (double) documentsWritten.get() / indexed;
+	}
+
+	public class Batch {
+
+		private final Map<String, IndexerTransaction> staged = new ConcurrentHashMap<>();
+
+		private Batch(List<IndexerTransaction> transactions) {
+			transactions.forEach(this::stage);
+		}
+
+		public void stage(IndexerTransaction transaction) {
+			staged.put(transaction.getTransaction().getTxId(), transaction);
+			inFlight.put(transaction.getTransaction().getTxId(), transaction);
+		}
+
+		/**
+		 * Drops what the batch staged. Saves that replaced a staged version came from outside the batch and are still
+		 * written.
+		 */
+		public void discard() {
+			List<IndexerTransaction> saved = new ArrayList<>();
+			staged.forEach((txId, transaction) -> {
+				if (!removeBuffered(txId, transaction)) {
+					IndexerTransaction newer = inFlight.remove(txId);
+					if (newer != null) {
+						saved.add(newer);
+					}
+				}
+			});
+			write(saved);
+		}
+
+		public void flush() {
+			transactionsIndexed.addAndGet(staged.size());
+			transactionsIndexedCounter.increment(staged.size());
+			Map<String, IndexerTransaction> toWrite = new HashMap<>();
+			for (String txId : staged.keySet()) {
+				IndexerTransaction transaction = inFlight.get(txId);
+				if (transaction != null) {
+					toWrite.put(txId, transaction);
+				}
+			}
+			while (!toWrite.isEmpty()) {
+				try {
+					write(new ArrayList<>(toWrite.values()));
+				} catch (RuntimeException e) {
+					toWrite.forEach(inFlight::remove);
+					throw e;
+				}
+				Map<String, IndexerTransaction> changed = new HashMap<>();
+				toWrite.forEach((txId, written) -> {
+					// Another batch staged a newer version while we were writing, it must not be lost
+					if (!removeBuffered(txId, written) && inFlight.get(txId) != null) {
+						changed.put(txId, inFlight.get(txId));
+					}
+				});
+				toWrite = changed;
+			}
+		}
+	}
+
+	// Versions of a transaction are equal by txId, only the very version given is removed
+	private boolean removeBuffered(String txId, IndexerTransaction version) {
+		AtomicBoolean removed = new AtomicBoolean();
+		inFlight.computeIfPresent(txId, (k, buffered) -> {
+			removed.set(buffered == version);
+			return buffered == version ? null : buffered;
+		});
+		return removed.get();
+	}
+
+	private void write(List<IndexerTransaction> transactions) {
+		if (transactions.isEmpty()) {
+			return;
+		}
+		delegate.saveTransaction(transactions).blockingGet();
+		documentsWritten.addAndGet(transactions.size());
+		documentsWrittenCounter.increment(transactions.size());
+	}
+
+	@Override
+	public Single<List<IndexerTransaction>> saveTransaction(List<IndexerTransaction> indexerTransaction) {
+		return Single.fromCallable(() -> {
+			List<IndexerTransaction> writeThrough = new ArrayList<>();
+			for (IndexerTransaction transaction : indexerTransaction) {
+				if (inFlight.computeIfPresent(transaction.getTransaction().getTxId(), (k, v) -> transaction) == null) {
+					writeThrough.add(transaction);
+				}
+			}
+			write(writeThrough);
+			return indexerTransaction;
+		});
+	}
+
+	@Override
+	public Maybe<IndexerTransaction> fetchTransaction(String txId, Coin coin, boolean useCache) {
+		IndexerTransaction buffered = inFlight.get(txId);
+		if (buffered != null) {
+			return Maybe.just(buffered);
+		}
+		return delegate.fetchTransaction(txId, coin, useCache);
+	}
+
+	@Override
+	public Single<List<IndexerTransaction>> fetchTransactions(List<String> txIds, Coin coin, boolean useCache) {
+		List<IndexerTransaction> buffered = txIds.stream().map(inFlight::get).filter(Objects::nonNull).collect(Collectors.toList());
+		if (buffered.isEmpty()) {
+			return delegate.fetchTransactions(txIds, coin, useCache);
+		}
+		Set<String> bufferedIds = buffered.stream().map(t -> t.getTransaction().getTxId()).collect(Collectors.toSet());
+		List<String> remaining = txIds.stream().filter(id -> !bufferedIds.contains(id)).collect(Collectors.toList());
+		if (remaining.isEmpty()) {
+			return Single.just(buffered);
+		}
+		return delegate.fetchTransactions(remaining, coin, useCache)
+				.map(stored -> {
+					List<IndexerTransaction> result = new ArrayList<>(stored);
+					result.addAll(buffered);
+					return result;
+				});
+	}
+
+	@Override
+	public Single<Map<String, SlpValid>> fetchValidity(List<String> txIds) {
+		Map<String, SlpValid> buffered = new HashMap<>();
+		List<String> remaining = new ArrayList<>();
+		for (String txId : txIds) {
+			IndexerTransaction transaction = inFlight.get(txId);
+			if (transaction == null) {
+				remaining.add(txId);
+			} else {
+				transaction.getTransaction().getSlpValid().ifPresent(valid -> buffered.put(txId, valid));
+			}
+		}
+		if (remaining.isEmpty()) {
+			return Single.just(buffered);
+		}
+		return delegate.fetchValidity(remaining)
+				.map(stored -> {
+					Map<String, SlpValid> result = new HashMap<>(stored);
+					result.putAll(buffered);
+					return result;
+				});
+	}
+
+	@Override
+	public Maybe<TransactionSlpData> fetchSlpData(String txId) {
+		IndexerTransaction buffered = inFlight.get(txId);
+		if (buffered != null) {
+			return Maybe.just(TransactionSlpData.fromTransaction(buffered.getTransaction()));
+		}
+		return delegate.fetchSlpData(txId);
+	}
+
+	@Override
+	public Single<Map<String, TransactionSlpData>> fetchSlpData(List<String> txIds) {
+		Map<String, TransactionSlpData> buffered = new HashMap<>();
+		List<String> remaining = new ArrayList<>();
+		for (String txId : txIds) {
+			IndexerTransaction transaction = inFlight.get(txId);
+			if (transaction == null) {
+				remaining.add(txId);
+			} else {
+				buffered.put(txId, TransactionSlpData.fromTransaction(transaction.getTransaction()));
+			}
+		}
+		if (remaining.isEmpty()) {
+			return Single.just(buffered);
+		}
+		return delegate.fetchSlpData(remaining)
+				.map(stored -> {
+					Map<String, TransactionSlpData> result = new HashMap<>(stored);
+					result.putAll(buffered);
+					return result;
+				});
+	}
+
+	@Override
+	public Single<List<IndexerTransaction>> fetchTransactionsInvolvingToken(String tokenId, boolean useCache, int page) {
+		return delegate.fetchTransactionsInvolvingToken(tokenId, useCache, page).map(this::buffered);
+	}
+
+	@Override
+	public Single<List<IndexerTransaction>> fetchTransactionsInvolvingToken(String tokenId, TransactionCursor after) {
+		return delegate.fetchTransactionsInvolvingToken(tokenId, after).map(this::buffered);
+	}
+
+	@Override
+	public Single<List<String>> fetchTransactionIdsByAddress(String address, Coin coin) {
+		return delegate.fetchTransactionIdsByAddress(address, coin);
+	}
+
+	@Override
+	public Single<List<IndexerTransaction>> fetchTransactions(Address address, Coin coin) {
+		return delegate.fetchTransactions(address, coin).map(this::buffered);
+	}
+
+	@Override
+	public Single<List<IndexerTransaction>> fetchValidTransactions(List<String> txIds, Coin coin, boolean useCache) {
+		List<IndexerTransaction> buffered = new ArrayList<>();
+		List<String> remaining = new ArrayList<>();
+		for (String txId : txIds) {
+			IndexerTransaction transaction = inFlight.get(txId);
+			if (transaction == null) {
+				remaining.add(txId);
+			} else if (transaction.getTransaction().getSlpValid().map(v -> v.getValid() == Valid.VALID).orElse(false)) {
+				buffered.add(transaction);
+			}
+		}
+		if (remaining.isEmpty()) {
+			return Single.just(buffered);
+		}
+		return delegate.fetchValidTransactions(remaining, coin, useCache)
+				.map(stored -> {
+					List<IndexerTransaction> result = new ArrayList<>(buffered(stored));
+					result.addAll(buffered);
+					return result;
+				});
+	}
+
+	@Override
+	public Single<BigDecimal> transactionsForTokenId(String tokenId) {
+		return delegate.transactionsForTokenId(tokenId);
+	}
+
+	@Override
+	public Single<Map<String, BigDecimal>> transactionsForTokenIds(List<String> tokenIds) {
+		return delegate.transactionsForTokenIds(tokenIds);
+	}
+
+	@Override
+	public Flowable<IndexerTransaction> fetchTransactions(Integer height, String tokenId, int page, Coin coin) {
+		return delegate.fetchTransactions(height, tokenId, page, coin).map(this::buffered);
+	}
+
+	@Override
+	public Flowable<IndexerTransaction> fetchTransactions(Integer height, String tokenId, TransactionCursor after, Coin coin) {
+		return delegate.fetchTransactions(height, tokenId, after, coin).map(this::buffered);
+	}
+
+	private IndexerTransaction buffered(IndexerTransaction stored) {
+		return inFlight.getOrDefault(stored.getTransaction().getTxId(), stored);
+	}
+
+	private List<IndexerTransaction> buffered(List<IndexerTransaction> stored) {
+		return stored.stream().map(this::buffered).collect(Collectors.toList());
+	}
+
+	@Override
+	public Completable handleReorg(List<IndexerTransaction> oldTxs) {
+		oldTxs.forEach(t -> inFlight.remove(t.getTransaction().getTxId()));
+		return delegate.handleReorg(oldTxs);
+	}
+}
@@ -0,0 +1,69 @@
+package com.bitcoin.indexer.sorter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.Input;
+
+/**
+ * Orders transactions so that a parent always comes before a child spending it, keeping the original order otherwise.
+ */
+public class DependencyOrderSorter {
+
+	private final List<IndexerTransaction> transactions;
+
+	public DependencyOrderSorter(List<IndexerTransaction> transactions) {
+		this.transactions = new ArrayList<>(transactions);
+	}
+
+	public List<IndexerTransaction> getSorted() {
+		Map<String, Integer> positions = new HashMap<>();
+		for (int i = 0; i < transactions.size(); i++) {
+			positions.putIfAbsent(transactions.get(i).getTransaction().getTxId(), i);
+		}
+
+		int[] parents = new int[transactions.size()];
+		Map<Integer, List<Integer>> children = new HashMap<>();
+		for (int i = 0; i < transactions.size(); i++) {
+			for (Input input : transactions.get(i).getTransaction().getInputs()) {
+				Integer parent = positions.get(input.getTxId());
+				if (parent != null && parent != i) {
+					parents[i]++;
+					children.computeIfAbsent(parent, k -> new ArrayList<>()).add(i);
+				}
+			}
+		}
+
+		PriorityQueue<Integer> ready = new PriorityQueue<>();
+		for (int i = 0; i < transactions.size(); i++) {
+			if (parents[i] == 0) {
+				ready.add(i);
+			}
+		}
+
+		List<IndexerTransaction> sorted = new ArrayList<>(transactions.size());
+		boolean[] added = new boolean[transactions.size()];
+		while (!ready.isEmpty()) {
+			int current = ready.poll();
+			added[current] = true;
+			sorted.add(transactions.get(current));
+			for (int child : children.getOrDefault(current, List.of())) {
+				if (--parents[child] == 0) {
+					ready.add(child);
+				}
+			}
+		}
+
+		//Cycles can not exist in a valid chain, keep anything left in its original order
+		for (int i = 0; i < transactions.size(); i++) {
+			if (!added[i]) {
+				sorted.add(transactions.get(i));
+			}
+		}
+		return sorted;
+	}
+}
@@ -0,0 +1,93 @@
+package com.bitcoin.indexer.sorter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpOpReturn;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpOpReturnGenesis;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenType;
+
+/**
+ * Splits the slp transactions of a batch by token, transactions of different tokens can not change each other's
+ * validity. A NFT1 child genesis spends its group token, so child tokens created in the batch share the partition of
+ * their group. Every partition is in dependency order, the largest partition comes first.
+ */
+public class TokenPartitioner {
+
+	private final List<IndexerTransaction> transactions;
+
+	public TokenPartitioner(List<IndexerTransaction> transactions) {
+		this.transactions = new ArrayList<>(transactions);
+	}
+
+	public List<List<IndexerTransaction>> getPartitions() {
+		Map<String, Transaction> byTxId = new HashMap<>();
+		transactions.forEach(tx -> byTxId.putIfAbsent(tx.getTransaction().getTxId(), tx.getTransaction()));
+
+		Map<String, String> groups = new HashMap<>();
+		for (IndexerTransaction indexerTransaction : transactions) {
+			Transaction transaction = indexerTransaction.getTransaction();
+			if (transaction.getSlpOpReturn().isEmpty()) {
+				continue;
+			}
+			SlpOpReturn slpOpReturn = transaction.getSlpOpReturn().get(0);
+			String tokenId = slpOpReturn.getTokenId().getHex();
+			find(groups, tokenId);
+			if (!isChildGenesis(slpOpReturn)) {
+				continue;
+			}
+			for (Input input : transaction.getInputs()) {
+				input.getSlpUtxo().ifPresent(slpUtxo -> union(groups, tokenId, slpUtxo.getSlpTokenId().getHex()));
+				Transaction parent = byTxId.get(input.getTxId());
+				if (parent != null && !parent.getSlpOpReturn().isEmpty()) {
+					union(groups, tokenId, parent.getSlpOpReturn().get(0).getTokenId().getHex());
+				}
+			}
+		}
+
+		Map<String, List<IndexerTransaction>> partitions = new LinkedHashMap<>();
+		for (IndexerTransaction indexerTransaction : new DependencyOrderSorter(transactions).getSorted()) {
+			Transaction transaction = indexerTransaction.getTransaction();
+			if (transaction.getSlpOpReturn().isEmpty()) {
+				continue;
+			}
+			String group = find(groups, transaction.getSlpOpReturn().get(0).getTokenId().getHex());
+			partitions.computeIfAbsent(group, k -> new ArrayList<>()).add(indexerTransaction);
+		}
+
+		return partitions.values().stream()
+				.sorted(Comparator.comparingInt(List<IndexerTransaction>::size).reversed())
+				.collect(Collectors.toList());
+	}
+
+	private static boolean isChildGenesis(SlpOpReturn slpOpReturn) {
+		// The genesis op_return reports itself as a SEND, its class tells it apart
+		return slpOpReturn instanceof SlpOpReturnGenesis
+				&& slpOpReturn.getTokenType().getType().equals(SlpTokenType.NFT1_CHILD.getType());
+	}
+
+	private static String find(Map<String, String> groups, String tokenId) {
+		String root = tokenId;
+		while (!groups.getOrDefault(root, root).equals(root)) {
+			root = groups.get(root);
+		}
+		groups.put(tokenId, root);
+		return root;
+	}
+
+	private static void union(Map<String, String> groups, String first, String second) {
+		String firstRoot = find(groups, first);
+		String secondRoot = find(groups, second);
+		if (!firstRoot.equals(secondRoot)) {
+			groups.put(secondRoot, firstRoot);
+		}
+	}
+}
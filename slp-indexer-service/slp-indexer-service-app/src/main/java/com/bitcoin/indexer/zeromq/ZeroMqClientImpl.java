@@ -5,9 +5,8 @@ import java.util.Objects;
 import org.bitcoinj.core.BitcoinSerializer;
 import org.bitcoinj.core.Block;
 import org.bitcoinj.core.Context;
-import org.bitcoinj.core.PeerGroup;
+import org.bitcoinj.core.NetworkParameters;
 import org.bitcoinj.core.Transaction;
-import org.bitcoinj.params.MainNetParams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zeromq.SocketType;
@@ -18,16 +17,15 @@ public class ZeroMqClientImpl implements Runnable {
 
 	private static final Logger logger = LoggerFactory.getLogger(ZeroMqClientImpl.class);
 	private static final String RAW_BLOCK_TOPIC = "rawblock";
-	private static final String RAW_TRANSACTION_TOPIC = "rawblock";
+	private static final String RAW_TRANSACTION_TOPIC = "rawtx";
 
 	private final String hostname;
 	private final int port;
+	private final long reconnectDelayMs;
 	private final RawBlockReader rawBlockReader;
 	private final RawTxReader rawTxReader;
 	private final Runnable bitcoinJLocalThreadContextInitializer;
 
-	private PeerGroup peerGroup;
-
 	private final ZeroMqSubscription subscription;
 
 	private volatile boolean destroyed = false;
@@ -46,51 +44,47 @@ public class ZeroMqClientImpl implements Runnable {
 		void transaction(Transaction transaction);
 	}
 
-	public ZeroMqClientImpl(String hostname, int port, ZeroMqSubscription subscription) {
+	public ZeroMqClientImpl(String hostname, int port, NetworkParameters networkParameters, ZeroMqSubscription subscription, long reconnectDelayMs) {
 		this.hostname = Objects.requireNonNull(hostname);
 		this.port = port;
 		this.subscription = Objects.requireNonNull(subscription);
-		bitcoinJLocalThreadContextInitializer = () -> Context.propagate(Context.get());
-		rawBlockReader = bytes -> new BitcoinSerializer(MainNetParams.get(), true).makeBlock(bytes);
-		rawTxReader = bytes -> new BitcoinSerializer(MainNetParams.get(), true).makeTransaction(bytes);
+		this.reconnectDelayMs = reconnectDelayMs;
+		Context context = Context.getOrCreate(networkParameters);
+		bitcoinJLocalThreadContextInitializer = () -> Context.propagate(context);
+		BitcoinSerializer serializer = new BitcoinSerializer(networkParameters, true);
+		rawBlockReader = serializer::makeBlock;
+		rawTxReader = serializer::makeTransaction;
 	}
 
-	private Socket socket = null;
-
 	void destroy() {
 		destroyed = true;
-		if (socket != null) {
-			socket.unsubscribe(RAW_BLOCK_TOPIC);
-			socket.close();
-		}
 	}
 
 	@Override
 	public void run() {
 		bitcoinJLocalThreadContextInitializer.run();
-		while (true) {
-			if (destroyed) {
-				return;
-			}
-			try {
-				Thread.sleep(5000);
-			} catch (InterruptedException e) {
-				return;
-			}
+		while (!destroyed) {
 			try (ZContext context = new ZContext()) {
-				socket = context.createSocket(SocketType.SUB);
+				Socket socket = context.createSocket(SocketType.SUB);
+				// Wake up regularly so destroy() is noticed on this thread, sockets are not thread safe
+				socket.setReceiveTimeOut(1000);
 				boolean connected = socket.connect(String.format("tcp://%s:%d", hostname, port));
 				logger.info("host={} port={} connected={}", hostname, port, connected);
 				socket.subscribe(RAW_BLOCK_TOPIC);
-				while (true) {
+				socket.subscribe(RAW_TRANSACTION_TOPIC);
+				while (!destroyed) {
 					try {
 						String topic = socket.recvStr();
+						if (topic == null) {
+							continue;
+						}
 						logger.trace("recvStr={}", topic);
-						byte[] rawBlock = socket.recv();
-						Block block = rawBlockReader.read(rawBlock);
-						subscription.block(block);
-						String multiPartTerminator = socket.recvStr();
-						logger.trace("recvStr={}", multiPartTerminator);
+						byte[] body = socket.recv();
+						// Trailing sequence number frame
+						while (socket.hasReceiveMore()) {
+							socket.recv();
+						}
+						dispatch(topic, body);
 					} catch (RuntimeException e) {
 						if (!destroyed) {
 							logger.error("Failed to handle ZeroMQ data", e);
@@ -101,12 +95,28 @@ public class ZeroMqClientImpl implements Runnable {
 			} catch (RuntimeException e) {
 				logger.error("ZeroMq error", e);
 			} finally {
-				if (socket != null) {
-					socket.unsubscribe(RAW_BLOCK_TOPIC);
-					socket.close();
-				}
 				logger.info("Disconnected from host={} port={}", hostname, port);
 			}
+			if (destroyed) {
+				return;
+			}
+			try {
+				Thread.sleep(reconnectDelayMs);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	private void dispatch(String topic, byte[] body) {
+		try {
+			if (RAW_TRANSACTION_TOPIC.equals(topic)) {
+				subscription.transaction(rawTxReader.read(body));
+			} else if (RAW_BLOCK_TOPIC.equals(topic)) {
+				subscription.block(rawBlockReader.read(body));
+			}
+		} catch (RuntimeException e) {
+			logger.error("Could not handle ZeroMQ message topic={} host={}", topic, hostname, e);
 		}
 	}
-}
\ No newline at end of file
+}
@@ -6,6 +6,9 @@ import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.bitcoinj.core.NetworkParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
 
 import com.bitcoin.indexer.core.Coin;
@@ -13,15 +16,20 @@ import com.bitcoin.indexer.zeromq.ZeroMqClientImpl.ZeroMqSubscription;
 
 public class ZeroMqClients {
 
+	private static final Logger logger = LoggerFactory.getLogger(ZeroMqClients.class);
+
 	private final List<ZeroMqClientImpl> clients;
 	private final ExecutorService clientThreads;
 
-	public ZeroMqClients(Environment environment, ZeroMqSubscription subscription, Coin coin) {
-		String peers = environment.getProperty("bitcoinj.peers." + coin.name().toLowerCase(), String.class, "");
+	public ZeroMqClients(Environment environment, NetworkParameters networkParameters, ZeroMqSubscription subscription, Coin coin) {
+		String peers = environment.getProperty("zeromq.peers." + coin.name().toLowerCase(), String.class, "");
+		long reconnectDelayMs = environment.getProperty("zeromq.reconnect.delay.ms", Long.class, 5000L);
 
 		this.clients = Stream.of(peers.split(","))
+				.map(String::trim)
+				.filter(s -> !s.isEmpty())
 				.map(s -> s.split(":"))
-				.map(adr -> new ZeroMqClientImpl(adr[0], Integer.parseInt(adr[1]), subscription))
+				.map(adr -> new ZeroMqClientImpl(adr[0], Integer.parseInt(adr[1]), networkParameters, subscription, reconnectDelayMs))
 				.collect(Collectors.toList());
 		if (!this.clients.isEmpty()) {
 			this.clientThreads = Executors.newFixedThreadPool(this.clients.size());
@@ -29,6 +37,7 @@ public class ZeroMqClients {
 			// No hosts in config is effectively disabling the ZeroMQ feature
 			this.clientThreads = null;
 		}
+		logger.info("ZeroMQ peers={}", peers);
 	}
 
 	public void start() {
@@ -37,6 +46,9 @@ public class ZeroMqClients {
 
 	public void destroy() {
 		clients.forEach(ZeroMqClientImpl::destroy);
+		if (clientThreads != null) {
+			clientThreads.shutdown();
+		}
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,50 @@
+package com.bitcoin.indexer.zeromq;
+
+import java.util.Objects;
+
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.PrunedException;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.VerificationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bitcoin.indexer.config.BlockchainExtended;
+import com.bitcoin.indexer.listener.BitcoinJListener;
+import com.bitcoin.indexer.listener.FirstSeenTracker;
+import com.bitcoin.indexer.zeromq.ZeroMqClientImpl.ZeroMqSubscription;
+
+/**
+ * Feeds ZeroMQ transactions and blocks into the same paths as BitcoinJ peers. Transactions go straight to the listener,
+ * blocks are added to the SPV chain so they are connected, and reorged, like peer blocks.
+ */
+public class ZeroMqSubscriber implements ZeroMqSubscription {
+
+	private static final Logger logger = LoggerFactory.getLogger(ZeroMqSubscriber.class);
+
+	private final BitcoinJListener listener;
+	private final BlockchainExtended blockChain;
+
+	public ZeroMqSubscriber(BitcoinJListener listener, BlockchainExtended blockChain) {
+		this.listener = Objects.requireNonNull(listener);
+		this.blockChain = Objects.requireNonNull(blockChain);
+	}
+
+	@Override
+	public void block(Block block) {
+		if (!listener.onBlockSeen(block, FirstSeenTracker.ZEROMQ)) {
+			return;
+		}
+		try {
+			boolean connected = blockChain.add(block);
+			logger.info("ZeroMQ block={} connected={}", block.getHashAsString(), connected);
+		} catch (VerificationException | PrunedException e) {
+			logger.error("Could not add ZeroMQ block={}", block.getHashAsString(), e);
+		}
+	}
+
+	@Override
+	public void transaction(Transaction transaction) {
+		listener.onTransaction(transaction, blockChain.getBestChainHeight(), FirstSeenTracker.ZEROMQ);
+	}
+}
@@ -1,4 +0,0 @@
-package com.bitcoin.indexer.zeromq;
-
-public class ZeroMqTransaction {
-}
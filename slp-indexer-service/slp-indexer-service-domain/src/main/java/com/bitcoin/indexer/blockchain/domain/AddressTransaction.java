@@ -2,73 +2,160 @@ package com.bitcoin.indexer.blockchain.domain;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.Set;
 
-import com.bitcoin.indexer.core.Coin;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
 
+/**
+ * One transaction of a token as seen from an address, the token amount it received minus the amount it spent.
+ */
 public class AddressTransaction {
 
-	private final Address address;
+	// Unconfirmed transactions sort before any block when paging from the newest
+	public static final int MEMPOOL_HEIGHT = Integer.MAX_VALUE;
 
-	private final String txId;
+	public enum Direction {
+		RECEIVED,
+		SENT
+	}
 
-	private final Coin coin;
+	private final Address address;
+	private final String tokenId;
+	private final int height;
+	private final String txId;
+	private final BigDecimal netAmount;
+	private final Instant time;
 
-	private final String fromTxId;
+	private AddressTransaction(Address address, String tokenId, int height, String txId, BigDecimal netAmount, Instant time) {
+		this.address = Objects.requireNonNull(address);
+		this.tokenId = Objects.requireNonNull(tokenId);
+		this.height = height;
+		this.txId = Objects.requireNonNull(txId);
+		this.netAmount = Objects.requireNonNull(netAmount);
+		this.time = Objects.requireNonNull(time);
+	}
 
-	private final int fromTxIndex;
+	public static AddressTransaction create(Address address, String tokenId, int height, String txId, BigDecimal netAmount, Instant time) {
+		return new AddressTransaction(address, tokenId, height, txId, netAmount, time);
+	}
 
-	private final Instant timestamp;
+	/**
+	 * Every address on either side of a transaction for every token it spends or creates, the same set the address history
+	 * used to find by scanning inputs and outputs. Tokens only spent, burns included, are listed for the spending address.
+	 */
+	public static List<AddressTransaction> fromTransaction(Transaction transaction) {
+		Set<String> tokenIds = new LinkedHashSet<>();
+		transaction.getOutputs().stream()
+				.filter(u -> u.getSlpUtxo().isPresent())
+				.forEach(u -> tokenIds.add(u.getSlpUtxo().get().getSlpTokenId().getHex()));
+		transaction.getInputs().stream()
+				.filter(i -> i.getSlpUtxo().isPresent())
+				.forEach(i -> tokenIds.add(i.getSlpUtxo().get().getSlpTokenId().getHex()));
+		if (tokenIds.isEmpty()) {
+			return List.of();
+		}
+
+		int height = transaction.getBlockHeight().orElse(MEMPOOL_HEIGHT);
+		List<AddressTransaction> result = new ArrayList<>();
+		for (String tokenId : tokenIds) {
+			Map<String, BigDecimal> netAmounts = new HashMap<>();
+			for (Utxo output : transaction.getOutputs()) {
+				if (output.getAddress().isOpReturn()) {
+					continue;
+				}
+				netAmounts.merge(output.getAddress().getAddress(), tokenAmount(output.getSlpUtxo().orElse(null), tokenId), BigDecimal::add);
+			}
+			for (Input input : transaction.getInputs()) {
+				if (input.isCoinbase()) {
+					continue;
+				}
+				netAmounts.merge(input.getAddress().getAddress(), tokenAmount(input.getSlpUtxo().orElse(null), tokenId).negate(), BigDecimal::add);
+			}
+			netAmounts.forEach((address, amount) ->
+					result.add(create(Address.create(address), tokenId, height, transaction.getTxId(), amount, transaction.getTime())));
+		}
+		return result;
+	}
 
-	private final BigDecimal transactionValue;
+	private static BigDecimal tokenAmount(SlpUtxo slpUtxo, String tokenId) {
+		if (slpUtxo == null || !slpUtxo.getSlpTokenId().getHex().equals(tokenId)) {
+			return BigDecimal.ZERO;
+		}
+		return slpUtxo.getAmount();
+	}
 
-	private final String confirmedBlockHash;
+	public Address getAddress() {
+		return address;
+	}
 
-	private AddressTransaction(Address address, String txId, Coin coin, String fromTxId, int fromTxIndex, Instant timestamp, BigDecimal transactionValue, String confirmedBlockHash) {
-		this.address = Objects.requireNonNull(address);
-		this.txId = Objects.requireNonNull(txId);
-		this.coin = Objects.requireNonNull(coin);
-		this.fromTxId = Objects.requireNonNull(fromTxId);
-		this.fromTxIndex = fromTxIndex;
-		this.timestamp = Objects.requireNonNull(timestamp);
-		this.transactionValue = Objects.requireNonNull(transactionValue);
-		this.confirmedBlockHash = confirmedBlockHash;
+	public String getTokenId() {
+		return tokenId;
 	}
 
-	public static AddressTransaction create(Address address, String txId, Coin coin, String fromTxId, int fromTxIndex, Instant timestamp, BigDecimal transactionValue, String confirmedBlockHash) {
-		return new AddressTransaction(address, txId, coin, fromTxId, fromTxIndex, timestamp, transactionValue, confirmedBlockHash);
+	public int getHeight() {
+		return height;
 	}
 
-	public Address getAddress() {
-		return address;
+	public boolean isConfirmed() {
+		return height != MEMPOOL_HEIGHT;
 	}
 
 	public String getTxId() {
 		return txId;
 	}
 
-	public Coin getCoin() {
-		return coin;
+	public BigDecimal getNetAmount() {
+		return netAmount;
+	}
+
+	public Direction getDirection() {
+		return netAmount.signum() < 0 ? Direction.SENT : Direction.RECEIVED;
 	}
 
-	public String getFromTxId() {
-		return fromTxId;
+	public Instant getTime() {
+		return time;
 	}
 
-	public int getFromTxIndex() {
-		return fromTxIndex;
+	// Position after this entry when paging newest first
+	public String getCursor() {
+		return height + ":" + txId;
 	}
 
-	public Instant getTimestamp() {
-		return timestamp;
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		AddressTransaction that = (AddressTransaction) o;
+		return height == that.height &&
+				address.equals(that.address) &&
+				tokenId.equals(that.tokenId) &&
+				txId.equals(that.txId) &&
+				netAmount.compareTo(that.netAmount) == 0;
 	}
 
-	public BigDecimal getTransactionValue() {
-		return transactionValue;
+	@Override
+	public int hashCode() {
+		return Objects.hash(address, tokenId, height, txId);
 	}
 
-	public Optional<String> getConfirmedBlockHash() {
-		return Optional.ofNullable(confirmedBlockHash);
+	@Override
+	public String toString() {
+		return "AddressTransaction{" +
+				"address=" + address +
+				", tokenId='" + tokenId + '\'' +
+				", height=" + height +
+				", txId='" + txId + '\'' +
+				", netAmount=" + netAmount +
+				'}';
 	}
 }
@@ -0,0 +1,56 @@
+package com.bitcoin.indexer.blockchain.domain;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+public class TokenBalance {
+	private final String tokenId;
+	private final Address address;
+	private final BigDecimal balance;
+
+	public TokenBalance(String tokenId, Address address, BigDecimal balance) {
+		this.tokenId = Objects.requireNonNull(tokenId);
+		this.address = Objects.requireNonNull(address);
+		this.balance = Objects.requireNonNull(balance);
+	}
+
+	public String getTokenId() {
+		return tokenId;
+	}
+
+	public Address getAddress() {
+		return address;
+	}
+
+	public BigDecimal getBalance() {
+		return balance;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		TokenBalance that = (TokenBalance) o;
+		return tokenId.equals(that.tokenId) &&
+				address.equals(that.address) &&
+				balance.compareTo(that.balance) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(tokenId, address);
+	}
+
+	@Override
+	public String toString() {
+		return "TokenBalance{" +
+				"tokenId='" + tokenId + '\'' +
+				", address=" + address +
+				", balance=" + balance +
+				'}';
+	}
+}
@@ -0,0 +1,113 @@
+package com.bitcoin.indexer.blockchain.domain;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Aggregates over the unspent valid outputs of a token. Used both as the stored totals and as the delta applied to them.
+ */
+public class TokenStats {
+	private final String tokenId;
+	private final BigDecimal circulatingSupply;
+	private final long validUtxos;
+	private final long batonUtxos;
+	private final long validAddresses;
+	private final BigDecimal mintedSatoshis;
+	private final long transactions;
+
+	public TokenStats(String tokenId, BigDecimal circulatingSupply, long validUtxos, long batonUtxos, long validAddresses, BigDecimal mintedSatoshis, long transactions) {
+		this.tokenId = Objects.requireNonNull(tokenId);
+		this.circulatingSupply = Objects.requireNonNull(circulatingSupply);
+		this.validUtxos = validUtxos;
+		this.batonUtxos = batonUtxos;
+		this.validAddresses = validAddresses;
+		this.mintedSatoshis = Objects.requireNonNull(mintedSatoshis);
+		this.transactions = transactions;
+	}
+
+	public static TokenStats empty(String tokenId) {
+		return new TokenStats(tokenId, BigDecimal.ZERO, 0, 0, 0, BigDecimal.ZERO, 0);
+	}
+
+	public TokenStats plus(TokenStats other) {
+		return new TokenStats(tokenId,
+				circulatingSupply.add(other.circulatingSupply),
+				validUtxos + other.validUtxos,
+				batonUtxos + other.batonUtxos,
+				validAddresses + other.validAddresses,
+				mintedSatoshis.add(other.mintedSatoshis),
+				transactions + other.transactions);
+	}
+
+	public boolean isEmpty() {
+		return equals(empty(tokenId));
+	}
+
+	public String getTokenId() {
+		return tokenId;
+	}
+
+	public BigDecimal getCirculatingSupply() {
+		return circulatingSupply;
+	}
+
+	public long getValidUtxos() {
+		return validUtxos;
+	}
+
+	public long getBatonUtxos() {
+		return batonUtxos;
+	}
+
+	public boolean hasBaton() {
+		return batonUtxos > 0;
+	}
+
+	public long getValidAddresses() {
+		return validAddresses;
+	}
+
+	public BigDecimal getMintedSatoshis() {
+		return mintedSatoshis;
+	}
+
+	public long getTransactions() {
+		return transactions;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		TokenStats that = (TokenStats) o;
+		return validUtxos == that.validUtxos &&
+				batonUtxos == that.batonUtxos &&
+				validAddresses == that.validAddresses &&
+				transactions == that.transactions &&
+				tokenId.equals(that.tokenId) &&
+				circulatingSupply.compareTo(that.circulatingSupply) == 0 &&
+				mintedSatoshis.compareTo(that.mintedSatoshis) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(tokenId, validUtxos, batonUtxos, validAddresses, transactions);
+	}
+
+	@Override
+	public String toString() {
+		return "TokenStats{" +
+				"tokenId='" + tokenId + '\'' +
+				", circulatingSupply=" + circulatingSupply +
+				", validUtxos=" + validUtxos +
+				", batonUtxos=" + batonUtxos +
+				", validAddresses=" + validAddresses +
+				", mintedSatoshis=" + mintedSatoshis +
+				", transactions=" + transactions +
+				'}';
+	}
+}
@@ -0,0 +1,79 @@
+package com.bitcoin.indexer.blockchain.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Position in a listing of transactions sorted newest first by time and then txId. Clients only see the encoded form.
+ */
+public class TransactionCursor {
+
+	private final Instant time;
+	private final String txId;
+
+	private TransactionCursor(Instant time, String txId) {
+		this.time = Objects.requireNonNull(time);
+		this.txId = Objects.requireNonNull(txId);
+	}
+
+	public static TransactionCursor of(Instant time, String txId) {
+		return new TransactionCursor(time, txId);
+	}
+
+	public static TransactionCursor after(Transaction transaction) {
+		return new TransactionCursor(transaction.getTime(), transaction.getTxId());
+	}
+
+	public static Optional<TransactionCursor> decode(String encoded) {
+		try {
+			String[] parts = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8).split(":");
+			if (parts.length != 2 || parts[1].isEmpty()) {
+				return Optional.empty();
+			}
+			return Optional.of(new TransactionCursor(Instant.ofEpochMilli(Long.parseLong(parts[0])), parts[1]));
+		} catch (IllegalArgumentException e) {
+			return Optional.empty();
+		}
+	}
+
+	public String encode() {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString((time.toEpochMilli() + ":" + txId).getBytes(StandardCharsets.UTF_8));
+	}
+
+	public Instant getTime() {
+		return time;
+	}
+
+	public String getTxId() {
+		return txId;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		TransactionCursor that = (TransactionCursor) o;
+		return time.toEpochMilli() == that.time.toEpochMilli() &&
+				txId.equals(that.txId);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(time.toEpochMilli(), txId);
+	}
+
+	@Override
+	public String toString() {
+		return "TransactionCursor{" +
+				"time=" + time +
+				", txId='" + txId + '\'' +
+				'}';
+	}
+}
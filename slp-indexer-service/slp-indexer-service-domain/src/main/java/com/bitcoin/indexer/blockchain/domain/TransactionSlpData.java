@@ -0,0 +1,72 @@
+package com.bitcoin.indexer.blockchain.domain;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
+
+/**
+ * Token side of a stored transaction, its validity and the SLP part of its inputs and outputs. Outputs keep their
+ * position so a spending input can look up the output by index.
+ */
+public class TransactionSlpData {
+	private final String txId;
+	private final SlpValid slpValid;
+	private final List<Optional<SlpUtxo>> outputs;
+	private final List<SlpUtxo> slpInputs;
+
+	private TransactionSlpData(String txId, SlpValid slpValid, List<Optional<SlpUtxo>> outputs, List<SlpUtxo> slpInputs) {
+		this.txId = Objects.requireNonNull(txId);
+		this.slpValid = slpValid;
+		this.outputs = Objects.requireNonNull(outputs);
+		this.slpInputs = Objects.requireNonNull(slpInputs);
+	}
+
+	public static TransactionSlpData create(String txId, SlpValid slpValid, List<Optional<SlpUtxo>> outputs, List<SlpUtxo> slpInputs) {
+		return new TransactionSlpData(txId, slpValid, outputs, slpInputs);
+	}
+
+	public static TransactionSlpData fromTransaction(Transaction transaction) {
+		return new TransactionSlpData(transaction.getTxId(),
+				transaction.getSlpValid().orElse(null),
+				transaction.getOutputs().stream().map(Utxo::getSlpUtxo).collect(Collectors.toList()),
+				transaction.getInputs().stream().filter(e -> e.getSlpUtxo().isPresent()).map(e -> e.getSlpUtxo().get()).collect(Collectors.toList()));
+	}
+
+	public String getTxId() {
+		return txId;
+	}
+
+	public Optional<SlpValid> getSlpValid() {
+		return Optional.ofNullable(slpValid);
+	}
+
+	public Optional<SlpUtxo> getSlpOutput(int index) {
+		return outputs.get(index);
+	}
+
+	public int getOutputCount() {
+		return outputs.size();
+	}
+
+	public List<SlpUtxo> getSlpOutputs() {
+		return outputs.stream().filter(Optional::isPresent).map(Optional::get).collect(Collectors.toList());
+	}
+
+	public List<SlpUtxo> getSlpInputs() {
+		return slpInputs;
+	}
+
+	@Override
+	public String toString() {
+		return "TransactionSlpData{" +
+				"txId='" + txId + '\'' +
+				", slpValid=" + slpValid +
+				", outputs=" + outputs.size() +
+				", slpInputs=" + slpInputs.size() +
+				'}';
+	}
+}
@@ -0,0 +1,46 @@
+package com.bitcoin.indexer.blockchain.domain;
+
+import java.util.Objects;
+
+public class UtxoSpend {
+	private final String txId;
+	private final int index;
+	private final String spendingTxId;
+	private final int spendingVin;
+	private final boolean pending;
+
+	private UtxoSpend(String txId, int index, String spendingTxId, int spendingVin, boolean pending) {
+		this.txId = Objects.requireNonNull(txId);
+		this.index = index;
+		this.spendingTxId = Objects.requireNonNull(spendingTxId);
+		this.spendingVin = spendingVin;
+		this.pending = pending;
+	}
+
+	/**
+	 * @param pending the spent output is created in the same batch and may not be stored yet
+	 */
+	public static UtxoSpend create(String txId, int index, String spendingTxId, int spendingVin, boolean pending) {
+		return new UtxoSpend(txId, index, spendingTxId, spendingVin, pending);
+	}
+
+	public String getTxId() {
+		return txId;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public String getSpendingTxId() {
+		return spendingTxId;
+	}
+
+	public int getSpendingVin() {
+		return spendingVin;
+	}
+
+	public boolean isPending() {
+		return pending;
+	}
+}
@@ -0,0 +1,29 @@
+package com.bitcoin.indexer.repository;
+
+import java.util.Collection;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.TokenBalance;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+
+public interface AddressTokenBalanceRepository {
+
+	Flowable<TokenBalance> fetchBalances(Address address);
+
+	Maybe<TokenBalance> fetchBalance(Address address, String tokenId);
+
+	Flowable<TokenBalance> fetchHolders(String tokenId);
+
+	Flowable<String> fetchTokenIds();
+
+	//Internal use apis
+	Completable applyOutputs(Collection<String> outpointKeys);
+
+	Completable removeOutputs(Collection<String> outpointKeys);
+
+	Single<Integer> reconcile(String tokenId);
+}
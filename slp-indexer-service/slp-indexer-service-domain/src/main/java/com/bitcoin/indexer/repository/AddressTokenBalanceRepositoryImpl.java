@@ -0,0 +1,430 @@
+package com.bitcoin.indexer.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.TokenBalance;
+import com.bitcoin.indexer.blockchain.domain.TokenStats;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
+import com.bitcoin.indexer.repository.db.AddressTokenBalanceDbObject;
+import com.bitcoin.indexer.repository.db.NumericSchema;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import reactor.adapter.rxjava.RxJava2Adapter;
+
+/**
+ * Balances per address and token kept in step with allOutputs. An output counts towards a balance while it is unspent and
+ * its transaction is valid, the output remembers whether it has been counted in balanceApplied so replaying a transaction
+ * from mempool and block does not count it twice. Removed outputs lose the marker, a transaction connected again after a
+ * reorg is seen as new and counted again. The same transitions maintain the per token totals in tokenStats. Writes
+ * are serialized. A token is marked pending while its markers and balances are written, a token still pending had a write
+ * interrupted between the two and is rebuilt from its outputs before the next write. Anything else lost is repaired by
+ * reconcile, which scans without holding up the writes.
+ */
+public class AddressTokenBalanceRepositoryImpl implements AddressTokenBalanceRepository {
+
+	private static final Logger logger = LoggerFactory.getLogger(AddressTokenBalanceRepositoryImpl.class);
+
+	private static final String ALL_OUTPUTS = "allOutputs";
+	private static final String PENDING = "balancePending";
+	private static final String APPLIED = "balanceApplied";
+	private static final String TOKEN_ID = "slpUtxoType.slpTokenId";
+	private static final String VALID = "slpUtxoType.parentTransactionValid.valid";
+
+	private final MongoOperations mongoOperations;
+	private final ReactiveMongoOperations reactiveMongoOperations;
+	private final TokenStatsRepository tokenStatsRepository;
+	private final Object writeLock = new Object();
+	// Writes per token, lets reconcile notice indexing that happened while it was scanning
+	private final Map<String, Long> writes = new ConcurrentHashMap<>();
+	// Pending tokens are looked up on the first write and after a failed one, guarded by writeLock
+	private boolean recovered = false;
+
+	public AddressTokenBalanceRepositoryImpl(MongoOperations mongoOperations, ReactiveMongoOperations reactiveMongoOperations, TokenStatsRepository tokenStatsRepository) {
+		this.mongoOperations = mongoOperations;
+		this.reactiveMongoOperations = reactiveMongoOperations;
+		this.tokenStatsRepository = Objects.requireNonNull(tokenStatsRepository);
+	}
+
+	@Override
+	public Flowable<TokenBalance> fetchBalances(Address address) {
+		Query query = Query.query(Criteria.where("address").is(address.getAddress()).and("balance").gt(NumericSchema.tokenAmount(BigDecimal.ZERO)));
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoOperations.find(query, AddressTokenBalanceDbObject.class))
+				.map(AddressTokenBalanceDbObject::toDomain);
+	}
+
+	@Override
+	public Maybe<TokenBalance> fetchBalance(Address address, String tokenId) {
+		return RxJava2Adapter.monoToMaybe(reactiveMongoOperations.findById(AddressTokenBalanceDbObject.keyParser(address.getAddress(), tokenId), AddressTokenBalanceDbObject.class))
+				.map(AddressTokenBalanceDbObject::toDomain);
+	}
+
+	@Override
+	public Flowable<TokenBalance> fetchHolders(String tokenId) {
+		Query query = Query.query(Criteria.where("tokenId").is(tokenId).and("balance").gt(NumericSchema.tokenAmount(BigDecimal.ZERO)));
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoOperations.find(query, AddressTokenBalanceDbObject.class))
+				.map(AddressTokenBalanceDbObject::toDomain);
+	}
+
+	@Override
+	public Flowable<String> fetchTokenIds() {
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoOperations.findDistinct(new Query(), TOKEN_ID, ALL_OUTPUTS, String.class));
+	}
+
+	@Override
+	public Completable applyOutputs(Collection<String> outpointKeys) {
+		if (outpointKeys.isEmpty()) {
+			return Completable.complete();
+		}
+		return Completable.fromAction(() -> {
+			synchronized (writeLock) {
+				recover();
+				List<Document> outputs = mongoOperations.find(outputsQuery(Criteria.where("_id").in(outpointKeys)), Document.class, ALL_OUTPUTS);
+				Deltas deltas = new Deltas();
+				BulkOperations flags = mongoOperations.bulkOps(BulkMode.UNORDERED, ALL_OUTPUTS);
+				int changed = 0;
+				for (Document output : outputs) {
+					Boolean applied = output.getBoolean(APPLIED);
+					boolean counted = isCounted(output);
+					if (applied != null && applied == counted) {
+						continue;
+					}
+					// A missing marker means the output has not been seen before, its transaction counts towards the token
+					if (applied == null) {
+						deltas.seen(output);
+					}
+					if (counted != Boolean.TRUE.equals(applied)) {
+						deltas.add(output, counted ? 1 : -1);
+					}
+					flags.updateOne(Query.query(Criteria.where("_id").is(output.get("_id"))), Update.update(APPLIED, counted));
+					changed++;
+				}
+				if (changed == 0) {
+					return;
+				}
+				write(outputs, () -> {
+					flags.execute();
+					applyDeltas(deltas, 1);
+				});
+				logger.debug("Applied balance deltas outputs={} changed={} balances={}", outputs.size(), changed, deltas.amounts.size());
+			}
+		});
+	}
+
+	@Override
+	public Completable removeOutputs(Collection<String> outpointKeys) {
+		if (outpointKeys.isEmpty()) {
+			return Completable.complete();
+		}
+		return Completable.fromAction(() -> {
+			synchronized (writeLock) {
+				recover();
+				List<Document> outputs = mongoOperations.find(outputsQuery(Criteria.where("_id").in(outpointKeys).and(APPLIED).exists(true)), Document.class, ALL_OUTPUTS);
+				if (outputs.isEmpty()) {
+					return;
+				}
+				Deltas deltas = new Deltas();
+				BulkOperations flags = mongoOperations.bulkOps(BulkMode.UNORDERED, ALL_OUTPUTS);
+				for (Document output : outputs) {
+					deltas.seen(output);
+					if (output.getBoolean(APPLIED, false)) {
+						deltas.add(output, -1);
+					}
+					flags.updateOne(Query.query(Criteria.where("_id").is(output.get("_id"))), new Update().unset(APPLIED));
+				}
+				write(outputs, () -> {
+					flags.execute();
+					applyDeltas(deltas, -1);
+				});
+				logger.info("Reverted balance deltas outputs={} balances={}", outputs.size(), deltas.amounts.size());
+			}
+		});
+	}
+
+	@Override
+	public Single<Integer> reconcile(String tokenId) {
+		return Single.fromCallable(() -> {
+			// The scan runs without the write lock, a write to the token while it runs makes it stale and skips this pass
+			long version = writes.getOrDefault(tokenId, 0L);
+			Scan scan = scan(tokenId);
+			synchronized (writeLock) {
+				if (writes.getOrDefault(tokenId, 0L) != version) {
+					logger.info("Skipped reconcile, token written during the scan tokenId={}", tokenId);
+					return 0;
+				}
+				return correct(tokenId, scan);
+			}
+		});
+	}
+
+	// Tokens are marked pending before their outputs and balances change and unmarked once both are written
+	private void write(List<Document> outputs, Runnable apply) {
+		Set<String> tokenIds = outputs.stream().map(AddressTokenBalanceRepositoryImpl::tokenId).collect(Collectors.toSet());
+		BulkOperations pending = mongoOperations.bulkOps(BulkMode.UNORDERED, PENDING);
+		tokenIds.forEach(tokenId -> pending.upsert(Query.query(Criteria.where("_id").is(tokenId)), Update.update("since", Instant.now())));
+		pending.execute();
+		try {
+			apply.run();
+		} catch (RuntimeException e) {
+			recovered = false;
+			throw e;
+		} finally {
+			written(outputs);
+		}
+		mongoOperations.remove(Query.query(Criteria.where("_id").in(tokenIds)), PENDING);
+	}
+
+	// Markers and balances of a pending token may disagree in either direction, only a rebuild from its outputs is safe
+	private void recover() {
+		if (recovered) {
+			return;
+		}
+		for (Document pending : mongoOperations.findAll(Document.class, PENDING)) {
+			String tokenId = pending.getString("_id");
+			int corrected = correct(tokenId, scan(tokenId));
+			mongoOperations.remove(Query.query(Criteria.where("_id").is(tokenId)), PENDING);
+			writes.merge(tokenId, 1L, Long::sum);
+			logger.warn("Rebuilt balances after an interrupted write tokenId={} corrected={}", tokenId, corrected);
+		}
+		recovered = true;
+	}
+
+	private Scan scan(String tokenId) {
+		Scan scan = new Scan();
+		try (CloseableIterator<Document> outputs = mongoOperations.stream(outputsQuery(Criteria.where(TOKEN_ID).is(tokenId)), Document.class, ALL_OUTPUTS)) {
+			outputs.forEachRemaining(output -> {
+				Boolean applied = output.getBoolean(APPLIED);
+				boolean counted = isCounted(output);
+				if (counted) {
+					scan.balances.merge(output.getString("address"), amount(output), BigDecimal::add);
+					scan.utxos.merge(output.getString("address"), 1L, Long::sum);
+				}
+				if (applied == null || applied != counted) {
+					(counted ? scan.countedIds : scan.uncountedIds).add(output.get("_id"));
+				}
+			});
+		}
+		scan.stats = tokenStatsRepository.computeStats(tokenId).blockingGet();
+		return scan;
+	}
+
+	private int correct(String tokenId, Scan scan) {
+		Map<String, AddressTokenBalanceDbObject> actual = new HashMap<>();
+		mongoOperations.find(Query.query(Criteria.where("tokenId").is(tokenId)), AddressTokenBalanceDbObject.class)
+				.forEach(b -> actual.put(b.getAddress(), b));
+
+		BulkOperations balances = mongoOperations.bulkOps(BulkMode.UNORDERED, AddressTokenBalanceDbObject.class);
+		int corrected = 0;
+		for (Map.Entry<String, BigDecimal> entry : scan.balances.entrySet()) {
+			BigDecimal balance = entry.getValue();
+			long utxos = scan.utxos.get(entry.getKey());
+			AddressTokenBalanceDbObject stored = actual.remove(entry.getKey());
+			if (stored == null || stored.getBalance().compareTo(balance) != 0 || stored.getUtxos() != utxos) {
+				balances.upsert(balanceQuery(entry.getKey(), tokenId), balanceUpdate(entry.getKey(), tokenId)
+						.set("balance", NumericSchema.tokenAmount(balance))
+						.set("utxos", utxos));
+				corrected++;
+			}
+		}
+		for (String address : actual.keySet()) {
+			balances.remove(balanceQuery(address, tokenId));
+			corrected++;
+		}
+		if (corrected > 0) {
+			balances.execute();
+		}
+
+		// Align the markers of the scanned outputs with the rebuilt balances so later deltas start from the same state
+		BulkOperations flags = mongoOperations.bulkOps(BulkMode.UNORDERED, ALL_OUTPUTS);
+		scan.countedIds.forEach(id -> flags.updateOne(Query.query(Criteria.where("_id").is(id)), Update.update(APPLIED, true)));
+		scan.uncountedIds.forEach(id -> flags.updateOne(Query.query(Criteria.where("_id").is(id)), Update.update(APPLIED, false)));
+		if (!scan.countedIds.isEmpty() || !scan.uncountedIds.isEmpty()) {
+			flags.execute();
+		}
+
+		TokenStats storedStats = tokenStatsRepository.fetchTokenStats(tokenId).blockingGet();
+		if (!scan.stats.equals(storedStats)) {
+			tokenStatsRepository.saveStats(scan.stats).blockingAwait();
+			logger.warn("Rebuilt token stats tokenId={} stored={} expected={}", tokenId, storedStats, scan.stats);
+			corrected++;
+		}
+
+		if (corrected > 0) {
+			logger.warn("Reconciled balances tokenId={} holders={} corrected={}", tokenId, scan.balances.size(), corrected);
+		}
+		return corrected;
+	}
+
+	private void applyDeltas(Deltas deltas, int transactionSign) {
+		Map<String, Long> storedUtxos = new HashMap<>();
+		List<String> holderKeys = deltas.utxos.entrySet().stream()
+				.filter(e -> e.getValue() != 0)
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toList());
+		if (!holderKeys.isEmpty()) {
+			mongoOperations.find(Query.query(Criteria.where("_id").in(holderKeys)), AddressTokenBalanceDbObject.class)
+					.forEach(b -> storedUtxos.put(b.getId(), b.getUtxos()));
+		}
+		for (String key : holderKeys) {
+			long before = storedUtxos.getOrDefault(key, 0L);
+			long after = before + deltas.utxos.get(key);
+			long holders = (after > 0 ? 1 : 0) - (before > 0 ? 1 : 0);
+			deltas.stats(tokenId(key), new TokenStats(tokenId(key), BigDecimal.ZERO, 0, 0, holders, BigDecimal.ZERO, 0));
+		}
+		deltas.transactions.forEach((tokenId, txIds) ->
+				deltas.stats(tokenId, new TokenStats(tokenId, BigDecimal.ZERO, 0, 0, 0, BigDecimal.ZERO, (long) transactionSign * txIds.size())));
+
+		incrementBalances(deltas);
+		tokenStatsRepository.incrementStats(deltas.stats.values()).blockingAwait();
+	}
+
+	private void written(List<Document> outputs) {
+		outputs.stream().map(AddressTokenBalanceRepositoryImpl::tokenId).distinct().forEach(tokenId -> writes.merge(tokenId, 1L, Long::sum));
+	}
+
+	private void incrementBalances(Deltas deltas) {
+		BulkOperations balances = mongoOperations.bulkOps(BulkMode.UNORDERED, AddressTokenBalanceDbObject.class);
+		int pending = 0;
+		for (Map.Entry<String, BigDecimal> delta : deltas.amounts.entrySet()) {
+			long utxos = deltas.utxos.getOrDefault(delta.getKey(), 0L);
+			if (delta.getValue().signum() == 0 && utxos == 0) {
+				continue;
+			}
+			String[] key = delta.getKey().split(":");
+			balances.upsert(balanceQuery(key[0], key[1]), balanceUpdate(key[0], key[1])
+					.inc("balance", NumericSchema.tokenAmount(delta.getValue()))
+					.inc("utxos", utxos));
+			pending++;
+		}
+		if (pending > 0) {
+			balances.execute();
+		}
+	}
+
+	private static Query outputsQuery(Criteria criteria) {
+		Query query = Query.query(criteria);
+		query.fields()
+				.include("address")
+				.include("isSpent")
+				.include(APPLIED)
+				.include(TOKEN_ID)
+				.include("value")
+				.include("slpUtxoType.amount")
+				.include("slpUtxoType.hasBaton")
+				.include("slpUtxoType.tokenTransactionType")
+				.include(VALID);
+		return query;
+	}
+
+	private static boolean isCounted(Document output) {
+		Document slpUtxoType = output.get("slpUtxoType", Document.class);
+		if (slpUtxoType == null || output.getBoolean("isSpent", false)) {
+			return false;
+		}
+		Document valid = slpUtxoType.get("parentTransactionValid", Document.class);
+		return valid != null && Valid.VALID.name().equals(valid.getString("valid"));
+	}
+
+	private static BigDecimal amount(Document output) {
+		return NumericSchema.toBigDecimal(output.get("slpUtxoType", Document.class).get("amount"));
+	}
+
+	private static BigDecimal mintedSatoshis(Document output) {
+		Document slpUtxoType = output.get("slpUtxoType", Document.class);
+		if (!"MINT".equals(slpUtxoType.getString("tokenTransactionType")) || output.get("value") == null) {
+			return BigDecimal.ZERO;
+		}
+		return NumericSchema.toBigDecimal(output.get("value"));
+	}
+
+	private static boolean hasBaton(Document output) {
+		return output.get("slpUtxoType", Document.class).getBoolean("hasBaton", false);
+	}
+
+	private static String balanceKey(Document output) {
+		return AddressTokenBalanceDbObject.keyParser(output.getString("address"), tokenId(output));
+	}
+
+	private static String tokenId(Document output) {
+		return output.get("slpUtxoType", Document.class).getString("slpTokenId");
+	}
+
+	private static String tokenId(String balanceKey) {
+		return balanceKey.split(":")[1];
+	}
+
+	private static Query balanceQuery(String address, String tokenId) {
+		return Query.query(Criteria.where("_id").is(AddressTokenBalanceDbObject.keyParser(address, tokenId)));
+	}
+
+	private static Update balanceUpdate(String address, String tokenId) {
+		return new Update().set("address", address).set("tokenId", tokenId);
+	}
+
+	// Balances, stats and marker fixes of one token computed from its outputs
+	private static class Scan {
+		private final Map<String, BigDecimal> balances = new HashMap<>();
+		private final Map<String, Long> utxos = new HashMap<>();
+		private final List<Object> countedIds = new ArrayList<>();
+		private final List<Object> uncountedIds = new ArrayList<>();
+		private TokenStats stats;
+	}
+
+	// Changes collected from one batch of outputs, written as one bulk per collection
+	private static class Deltas {
+		private final Map<String, BigDecimal> amounts = new HashMap<>();
+		private final Map<String, Long> utxos = new HashMap<>();
+		private final Map<String, Set<String>> transactions = new HashMap<>();
+		private final Map<String, TokenStats> stats = new HashMap<>();
+
+		void add(Document output, int sign) {
+			String key = balanceKey(output);
+			String tokenId = tokenId(output);
+			BigDecimal amount = amount(output).multiply(BigDecimal.valueOf(sign));
+			amounts.merge(key, amount, BigDecimal::add);
+			utxos.merge(key, (long) sign, Long::sum);
+			stats(tokenId, new TokenStats(tokenId,
+					amount,
+					sign,
+					hasBaton(output) ? sign : 0,
+					0,
+					mintedSatoshis(output).multiply(BigDecimal.valueOf(sign)),
+					0));
+		}
+
+		void seen(Document output) {
+			String txId = output.getString("_id").split(":")[0];
+			transactions.computeIfAbsent(tokenId(output), k -> new HashSet<>()).add(txId);
+		}
+
+		void stats(String tokenId, TokenStats delta) {
+			stats.merge(tokenId, delta, TokenStats::plus);
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package com.bitcoin.indexer.repository;
+
+import java.util.List;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.AddressTransaction;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+
+public interface AddressTransactionRepository {
+
+	/**
+	 * Newest first, starting after the cursor of the last entry of the previous page or from the newest when it is null.
+	 * A limit of 0 returns everything after the cursor.
+	 */
+	Flowable<AddressTransaction> fetchTransactions(Address address, String tokenId, String afterCursor, int limit);
+
+	//Internal use apis
+	Completable saveTransactions(List<Transaction> transactions);
+
+	Completable backfillTransactions(List<Transaction> transactions);
+
+	Completable removeTransactions(List<Transaction> transactions);
+}
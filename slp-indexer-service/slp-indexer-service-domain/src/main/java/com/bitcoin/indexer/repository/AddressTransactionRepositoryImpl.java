@@ -0,0 +1,104 @@
+package com.bitcoin.indexer.repository;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.AddressTransaction;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.repository.db.AddressTransactionDbObject;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import reactor.adapter.rxjava.RxJava2Adapter;
+
+public class AddressTransactionRepositoryImpl implements AddressTransactionRepository {
+
+	private static final Logger logger = LoggerFactory.getLogger(AddressTransactionRepositoryImpl.class);
+
+	private final MongoOperations mongoOperations;
+	private final ReactiveMongoOperations reactiveMongoOperations;
+
+	public AddressTransactionRepositoryImpl(MongoOperations mongoOperations, ReactiveMongoOperations reactiveMongoOperations) {
+		this.mongoOperations = mongoOperations;
+		this.reactiveMongoOperations = reactiveMongoOperations;
+	}
+
+	@Override
+	public Flowable<AddressTransaction> fetchTransactions(Address address, String tokenId, String afterCursor, int limit) {
+		Query query = Query.query(Criteria.where("a").is(address.getAddress()).and("k").is(tokenId));
+		if (afterCursor != null) {
+			String[] cursor = afterCursor.split(":");
+			Integer height = cursor.length == 2 && !cursor[1].isEmpty() ? parseHeight(cursor[0]) : null;
+			if (height == null) {
+				return Flowable.error(new IllegalArgumentException("Not a valid cursor=" + afterCursor));
+			}
+			query.addCriteria(new Criteria().orOperator(
+					Criteria.where("h").lt(height),
+					Criteria.where("h").is(height).and("tx").lt(cursor[1])));
+		}
+		query.with(Sort.by(Sort.Direction.DESC, "h", "tx")).limit(limit);
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoOperations.find(query, AddressTransactionDbObject.class))
+				.map(AddressTransactionDbObject::toDomain);
+	}
+
+	@Override
+	public Completable saveTransactions(List<Transaction> transactions) {
+		return Completable.fromAction(() -> {
+			int saved = upsert(transactions, AddressTransactionDbObject::toUpdate);
+			logger.debug("Saved address transactions txs={} entries={}", transactions.size(), saved);
+		});
+	}
+
+	@Override
+	public Completable backfillTransactions(List<Transaction> transactions) {
+		return Completable.fromAction(() -> upsert(transactions, AddressTransactionDbObject::toInsert));
+	}
+
+	@Override
+	public Completable removeTransactions(List<Transaction> transactions) {
+		if (transactions.isEmpty()) {
+			return Completable.complete();
+		}
+		return Completable.fromAction(() -> {
+			List<String> txIds = transactions.stream().map(Transaction::getTxId).collect(Collectors.toList());
+			mongoOperations.remove(Query.query(Criteria.where("tx").in(txIds)), AddressTransactionDbObject.class);
+		});
+	}
+
+	private int upsert(List<Transaction> transactions, Function<AddressTransaction, Update> update) {
+		BulkOperations bulkOperations = mongoOperations.bulkOps(BulkMode.UNORDERED, AddressTransactionDbObject.class);
+		int pending = 0;
+		for (Transaction transaction : transactions) {
+			for (AddressTransaction addressTransaction : AddressTransaction.fromTransaction(transaction)) {
+				String id = AddressTransactionDbObject.keyParser(addressTransaction.getAddress().getAddress(), addressTransaction.getTokenId(), addressTransaction.getTxId());
+				bulkOperations.upsert(Query.query(Criteria.where("_id").is(id)), update.apply(addressTransaction));
+				pending++;
+			}
+		}
+		if (pending > 0) {
+			bulkOperations.execute();
+		}
+		return pending;
+	}
+
+	private static Integer parseHeight(String height) {
+		try {
+			return Integer.parseInt(height);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
@@ -11,6 +11,9 @@ public interface BlockRepository {
 
 	Single<Long> saveHeight(Long currentHeight);
 
+	/**
+	 * Height saved last, -1 when no height was saved yet.
+	 */
 	Single<Long> currentHeight();
 
 	Maybe<Block> getBlock(String hash);
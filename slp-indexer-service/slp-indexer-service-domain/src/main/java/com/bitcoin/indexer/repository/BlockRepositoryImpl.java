@@ -51,7 +51,10 @@ public class BlockRepositoryImpl implements BlockRepository {
 
 	@Override
 	public Single<Long> currentHeight() {
-		return null;
+		Query query = Query.query(Criteria.where("_id").is("CURRENT_HEIGHT"));
+		return RxJava2Adapter.monoToMaybe(reactiveMongoOperations.findOne(query, HeightDbObject.class))
+				.map(HeightDbObject::getHeight)
+				.toSingle(-1L);
 	}
 
 	@Override
@@ -0,0 +1,19 @@
+package com.bitcoin.indexer.repository;
+
+import java.util.List;
+import java.util.Map;
+
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+
+import io.reactivex.Completable;
+import io.reactivex.Single;
+
+public interface RawTransactionRepository {
+
+	Single<Map<String, String>> fetchRawHex(List<String> txIds);
+
+	Completable saveRawTransactions(List<Transaction> transactions);
+
+	Completable removeRawTransactions(List<String> txIds);
+
+}
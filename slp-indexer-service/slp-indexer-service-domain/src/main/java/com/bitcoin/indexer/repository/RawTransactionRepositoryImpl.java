@@ -0,0 +1,82 @@
+package com.bitcoin.indexer.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.repository.db.RawTransactionDbObject;
+
+import io.reactivex.Completable;
+import io.reactivex.Single;
+import reactor.adapter.rxjava.RxJava2Adapter;
+
+public class RawTransactionRepositoryImpl implements RawTransactionRepository {
+
+	// Transactions stored before the split carry their bytes inline until the migration has moved them
+	public static final String LEGACY_FIELD = "rawHex";
+
+	private final MongoOperations mongoOperations;
+	private final ReactiveMongoOperations reactiveMongoOperations;
+	private final boolean compress;
+
+	public RawTransactionRepositoryImpl(MongoOperations mongoOperations, ReactiveMongoOperations reactiveMongoOperations, boolean compress) {
+		this.mongoOperations = mongoOperations;
+		this.reactiveMongoOperations = reactiveMongoOperations;
+		this.compress = compress;
+	}
+
+	@Override
+	public Single<Map<String, String>> fetchRawHex(List<String> txIds) {
+		if (txIds.isEmpty()) {
+			return Single.just(Map.of());
+		}
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoOperations.find(Query.query(Criteria.where("_id").in(txIds)), RawTransactionDbObject.class))
+				.toMap(RawTransactionDbObject::getTxId, RawTransactionDbObject::toRawHex)
+				.flatMap(stored -> {
+					List<String> missing = txIds.stream().filter(id -> !stored.containsKey(id)).collect(Collectors.toList());
+					if (missing.isEmpty()) {
+						return Single.just(stored);
+					}
+					Query legacy = Query.query(Criteria.where("_id").in(missing).and(LEGACY_FIELD).exists(true));
+					legacy.fields().include(LEGACY_FIELD);
+					return RxJava2Adapter.fluxToFlowable(reactiveMongoOperations.find(legacy, Document.class, "transactions"))
+							.toList()
+							.map(inline -> {
+								Map<String, String> result = new HashMap<>(stored);
+								inline.forEach(d -> result.put(d.getString("_id"), d.getString(LEGACY_FIELD)));
+								return result;
+							});
+				});
+	}
+
+	@Override
+	public Completable saveRawTransactions(List<Transaction> transactions) {
+		return Single.defer(() -> {
+			ReactiveBulkOperations bulkOperations = ReactiveBulkOperations.unordered(reactiveMongoOperations, RawTransactionDbObject.class);
+			for (Transaction transaction : transactions) {
+				// Transactions read back from storage no longer carry their bytes
+				if (transaction.getRawHex().isEmpty()) {
+					continue;
+				}
+				bulkOperations.upsert(Query.query(Criteria.where("_id").is(transaction.getTxId())), RawTransactionDbObject.toInsert(transaction.getRawHex(), compress));
+			}
+			return bulkOperations.execute();
+		}).ignoreElement();
+	}
+
+	@Override
+	public Completable removeRawTransactions(List<String> txIds) {
+		if (txIds.isEmpty()) {
+			return Completable.complete();
+		}
+		return RxJava2Adapter.monoToCompletable(reactiveMongoOperations.remove(Query.query(Criteria.where("_id").in(txIds)), RawTransactionDbObject.class));
+	}
+}
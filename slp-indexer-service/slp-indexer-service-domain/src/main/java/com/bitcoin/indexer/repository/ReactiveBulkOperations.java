@@ -0,0 +1,89 @@
+package com.bitcoin.indexer.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+
+import io.reactivex.Single;
+import reactor.adapter.rxjava.RxJava2Adapter;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unordered bulk write through the reactive driver. Spring Data only offers a blocking bulkOps, this maps queries and
+ * updates the same way and sends them as one bulkWrite that holds no thread while Mongo works. Nothing is written
+ * until the returned Single is subscribed, and every subscription writes again.
+ */
+public class ReactiveBulkOperations {
+
+	private static final MongoPersistentEntity<?> NO_ENTITY = null;
+
+	private final ReactiveMongoOperations operations;
+	private final Class<?> entityClass;
+	private final QueryMapper queryMapper;
+	private final UpdateMapper updateMapper;
+	private final List<WriteModel<Document>> models = new ArrayList<>();
+
+	private ReactiveBulkOperations(ReactiveMongoOperations operations, Class<?> entityClass) {
+		this.operations = Objects.requireNonNull(operations);
+		this.entityClass = Objects.requireNonNull(entityClass);
+		this.queryMapper = new QueryMapper(operations.getConverter());
+		this.updateMapper = new UpdateMapper(operations.getConverter());
+	}
+
+	public static ReactiveBulkOperations unordered(ReactiveMongoOperations operations, Class<?> entityClass) {
+		return new ReactiveBulkOperations(operations, entityClass);
+	}
+
+	public ReactiveBulkOperations upsert(Query query, Update update) {
+		models.add(new UpdateOneModel<>(mapQuery(query), mapUpdate(update), new UpdateOptions().upsert(true)));
+		return this;
+	}
+
+	public ReactiveBulkOperations updateOne(Query query, Update update) {
+		models.add(new UpdateOneModel<>(mapQuery(query), mapUpdate(update)));
+		return this;
+	}
+
+	public ReactiveBulkOperations remove(Query query) {
+		models.add(new DeleteManyModel<>(mapQuery(query)));
+		return this;
+	}
+
+	public int size() {
+		return models.size();
+	}
+
+	public Single<BulkWriteResult> execute() {
+		if (models.isEmpty()) {
+			return Single.just(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of()));
+		}
+		List<WriteModel<Document>> requests = List.copyOf(models);
+		return RxJava2Adapter.monoToSingle(Mono.defer(() -> Mono.from(operations.getCollection(operations.getCollectionName(entityClass))
+				.bulkWrite(requests, new BulkWriteOptions().ordered(false)))));
+	}
+
+	// Queries and updates already use the stored field names, resolving them against the entity only converts the
+	// same values after a failed property lookup per field
+	private Document mapQuery(Query query) {
+		return queryMapper.getMappedObject(query.getQueryObject(), NO_ENTITY);
+	}
+
+	private Document mapUpdate(Update update) {
+		return updateMapper.getMappedObject(update.getUpdateObject(), NO_ENTITY);
+	}
+}
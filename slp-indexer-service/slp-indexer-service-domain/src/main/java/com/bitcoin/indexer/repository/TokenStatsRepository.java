@@ -0,0 +1,24 @@
+package com.bitcoin.indexer.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.bitcoin.indexer.blockchain.domain.TokenStats;
+
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+
+public interface TokenStatsRepository {
+
+	Maybe<TokenStats> fetchTokenStats(String tokenId);
+
+	Single<List<TokenStats>> fetchTokenStats(List<String> tokenIds);
+
+	//Internal use apis
+	Completable incrementStats(Collection<TokenStats> deltas);
+
+	Single<TokenStats> computeStats(String tokenId);
+
+	Completable saveStats(TokenStats stats);
+}
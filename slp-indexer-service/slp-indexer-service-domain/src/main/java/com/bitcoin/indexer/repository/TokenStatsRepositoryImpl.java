@@ -0,0 +1,135 @@
+package com.bitcoin.indexer.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.bitcoin.indexer.blockchain.domain.TokenStats;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
+import com.bitcoin.indexer.blockchain.domain.timers.SystemTimer;
+import com.bitcoin.indexer.repository.db.NumericSchema;
+import com.bitcoin.indexer.repository.db.TokenStatsDbObject;
+
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import reactor.adapter.rxjava.RxJava2Adapter;
+
+public class TokenStatsRepositoryImpl implements TokenStatsRepository {
+
+	private static final Logger logger = LoggerFactory.getLogger(TokenStatsRepositoryImpl.class);
+
+	private final MongoOperations mongoOperations;
+	private final ReactiveMongoOperations reactiveMongoOperations;
+
+	public TokenStatsRepositoryImpl(MongoOperations mongoOperations, ReactiveMongoOperations reactiveMongoOperations) {
+		this.mongoOperations = mongoOperations;
+		this.reactiveMongoOperations = reactiveMongoOperations;
+	}
+
+	@Override
+	public Maybe<TokenStats> fetchTokenStats(String tokenId) {
+		return RxJava2Adapter.monoToMaybe(reactiveMongoOperations.findById(tokenId, TokenStatsDbObject.class))
+				.map(TokenStatsDbObject::toDomain);
+	}
+
+	@Override
+	public Single<List<TokenStats>> fetchTokenStats(List<String> tokenIds) {
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoOperations.find(Query.query(Criteria.where("_id").in(tokenIds)), TokenStatsDbObject.class))
+				.map(TokenStatsDbObject::toDomain)
+				.toList();
+	}
+
+	@Override
+	public Completable incrementStats(Collection<TokenStats> deltas) {
+		return Completable.fromAction(() -> {
+			BulkOperations bulkOperations = mongoOperations.bulkOps(BulkMode.UNORDERED, TokenStatsDbObject.class);
+			int pending = 0;
+			for (TokenStats delta : deltas) {
+				if (delta.isEmpty()) {
+					continue;
+				}
+				bulkOperations.upsert(Query.query(Criteria.where("_id").is(delta.getTokenId())), TokenStatsDbObject.toIncrement(delta));
+				pending++;
+			}
+			if (pending > 0) {
+				bulkOperations.execute();
+			}
+		});
+	}
+
+	@Override
+	public Single<TokenStats> computeStats(String tokenId) {
+		return Single.fromCallable(() -> aggregateStats(tokenId));
+	}
+
+	@Override
+	public Completable saveStats(TokenStats stats) {
+		return Completable.fromAction(() ->
+				mongoOperations.upsert(Query.query(Criteria.where("_id").is(stats.getTokenId())), TokenStatsDbObject.toUpdate(stats), TokenStatsDbObject.class));
+	}
+
+	private TokenStats aggregateStats(String tokenId) {
+		SystemTimer systemTimer = SystemTimer.create();
+		systemTimer.start();
+		Aggregation aggregation = Aggregation.newAggregation(
+				Aggregation.match(Criteria.where("slpUtxoType.slpTokenId").is(tokenId)
+						.and("isSpent").is(false)
+						.and("slpUtxoType.parentTransactionValid.valid").is(Valid.VALID.name())),
+				Aggregation.project()
+						.and("address").as("address")
+						.and(ConvertOperators.valueOf("slpUtxoType.amount").convertToDecimal()).as("amount")
+						.and(ConditionalOperators.when(ComparisonOperators.valueOf("slpUtxoType.hasBaton").equalToValue(true))
+								.then(1)
+								.otherwise(0)).as("baton")
+						.and(ConditionalOperators.when(ComparisonOperators.valueOf("slpUtxoType.tokenTransactionType").equalToValue("MINT"))
+								.thenValueOf(ConvertOperators.valueOf("value").convertToLong())
+								.otherwise(0L)).as("minted"),
+				Aggregation.group("address")
+						.sum("amount").as("amount")
+						.count().as("utxos")
+						.sum("baton").as("batons")
+						.sum("minted").as("minted"),
+				Aggregation.group()
+						.sum("amount").as("amount")
+						.sum("utxos").as("utxos")
+						.sum("batons").as("batons")
+						.sum("minted").as("minted")
+						.count().as("addresses"))
+				.withOptions(Aggregation.newAggregationOptions().allowDiskUse(true).build());
+
+		Document totals = mongoOperations.aggregate(aggregation, "allOutputs", Document.class).getUniqueMappedResult();
+		long transactions = mongoOperations.count(Query.query(Criteria.where("outputs.slpUtxoType.slpTokenId").is(tokenId)), "transactions");
+		if (totals == null) {
+			return new TokenStats(tokenId, BigDecimal.ZERO, 0, 0, 0, BigDecimal.ZERO, transactions);
+		}
+
+		TokenStats stats = new TokenStats(tokenId,
+				NumericSchema.toBigDecimal(totals.get("amount")),
+				longValue(totals.get("utxos")),
+				longValue(totals.get("batons")),
+				longValue(totals.get("addresses")),
+				NumericSchema.toBigDecimal(totals.get("minted")),
+				transactions);
+		logger.debug("Computed token stats tokenId={} time={}", tokenId, systemTimer.getMsSinceStart());
+		return stats;
+	}
+
+	private static long longValue(Object stored) {
+		return stored == null ? 0 : ((Number) stored).longValue();
+	}
+}
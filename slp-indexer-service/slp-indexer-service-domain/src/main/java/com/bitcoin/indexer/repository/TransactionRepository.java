@@ -6,6 +6,9 @@ import java.util.Map;
 
 import com.bitcoin.indexer.blockchain.domain.Address;
 import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.TransactionCursor;
+import com.bitcoin.indexer.blockchain.domain.TransactionSlpData;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
 import com.bitcoin.indexer.core.Coin;
 
 import io.reactivex.Completable;
@@ -19,8 +22,26 @@ public interface TransactionRepository {
 
 	Single<List<IndexerTransaction>> fetchTransactions(List<String> txIds, Coin coin, boolean useCache);
 
+	/**
+	 * Validity of the given transactions, reading only slpValid. Transactions that are not stored or have no validity yet
+	 * are left out of the map.
+	 */
+	Single<Map<String, SlpValid>> fetchValidity(List<String> txIds);
+
+	/**
+	 * Token side of a transaction, reading only validity and the SLP part of outputs and inputs.
+	 */
+	Maybe<TransactionSlpData> fetchSlpData(String txId);
+
+	/**
+	 * Token side of the given transactions in one read. Transactions that are not stored are left out of the map.
+	 */
+	Single<Map<String, TransactionSlpData>> fetchSlpData(List<String> txIds);
+
 	Single<List<IndexerTransaction>> fetchTransactionsInvolvingToken(String tokenId, boolean useCache, int page);
 
+	Single<List<IndexerTransaction>> fetchTransactionsInvolvingToken(String tokenId, TransactionCursor after);
+
 	Single<List<String>> fetchTransactionIdsByAddress(String address, Coin coin);
 
 	Single<List<IndexerTransaction>> fetchTransactions(Address address, Coin coin);
@@ -33,6 +54,8 @@ public interface TransactionRepository {
 
 	Flowable<IndexerTransaction> fetchTransactions(Integer height, String tokenId, int page, Coin coin);
 
+	Flowable<IndexerTransaction> fetchTransactions(Integer height, String tokenId, TransactionCursor after, Coin coin);
+
 	//Internal use api
 	Single<List<IndexerTransaction>> saveTransaction(List<IndexerTransaction> indexerTransaction);
 
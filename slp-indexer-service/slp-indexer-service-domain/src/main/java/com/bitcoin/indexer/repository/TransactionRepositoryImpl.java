@@ -2,20 +2,24 @@ package com.bitcoin.indexer.repository;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
-import org.springframework.data.mongodb.core.BulkOperations;
-import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
 import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -24,12 +28,16 @@ import org.springframework.data.util.Pair;
 
 import com.bitcoin.indexer.blockchain.domain.Address;
 import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.TransactionCursor;
+import com.bitcoin.indexer.blockchain.domain.TransactionSlpData;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
 import com.bitcoin.indexer.core.Coin;
 import com.bitcoin.indexer.repository.db.TransactionDbObject;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.Lists;
+import com.mongodb.bulk.BulkWriteResult;
 
 import io.reactivex.Completable;
 import io.reactivex.Flowable;
@@ -42,6 +50,7 @@ public class TransactionRepositoryImpl implements TransactionRepository {
 	private MongoOperations mongoOperations;
 	private ReactiveMongoTemplate reactiveMongoTemplate;
 	private Coin coin;
+	private RawTransactionRepository rawTransactionRepository;
 	private ExecutorService executorService = Executors.newFixedThreadPool(10);
 	private Cache<String, IndexerTransaction> transactionCache = Caffeine.newBuilder()
 			.executor(Executors.newSingleThreadExecutor())
@@ -51,11 +60,23 @@ public class TransactionRepositoryImpl implements TransactionRepository {
 
 	private static final Logger logger = LoggerFactory.getLogger(TransactionRepositoryImpl.class);
 
+	private static final int PAGE_SIZE = 10;
+
+	// Query comments naming the view a read loads, so bytes read can be attributed per view
+	public static final String VALIDITY_VIEW = "validity";
+	public static final String SLP_VIEW = "slp";
+
+	private Cache<String, TransactionCursor> pageCursors = Caffeine.newBuilder()
+			.maximumSize(100000)
+			.expireAfterWrite(5, TimeUnit.MINUTES)
+			.build();
+
 	public TransactionRepositoryImpl(MongoOperations mongoOperations, ReactiveMongoTemplate reactiveMongoTemplate,
-			Coin coin) {
+			Coin coin, RawTransactionRepository rawTransactionRepository) {
 		this.mongoOperations = mongoOperations;
 		this.reactiveMongoTemplate = reactiveMongoTemplate;
 		this.coin = coin;
+		this.rawTransactionRepository = Objects.requireNonNull(rawTransactionRepository);
 	}
 
 	@Override
@@ -66,7 +87,7 @@ public class TransactionRepositoryImpl implements TransactionRepository {
 		}
 
 		Query query = Query.query(Criteria.where("_id").is(txId));
-		return RxJava2Adapter.monoToMaybe(reactiveMongoTemplate.findOne(query, TransactionDbObject.class))
+		return RxJava2Adapter.monoToMaybe(reactiveMongoTemplate.findOne(withoutRaw(query), TransactionDbObject.class))
 				.map(e -> IndexerTransaction.create(e.toDomain()));
 	}
 
@@ -84,20 +105,83 @@ public class TransactionRepositoryImpl implements TransactionRepository {
 		}
 
 		Query query = Query.query(Criteria.where("_id").in(ids));
-		return RxJava2Adapter.fluxToFlowable(reactiveMongoTemplate.find(query, TransactionDbObject.class))
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoTemplate.find(withoutRaw(query), TransactionDbObject.class))
 				.map(e -> IndexerTransaction.create(e.toDomain()))
 				.mergeWith(Flowable.fromIterable(result))
 				.toList();
 	}
 
 	@Override
-	public Single<List<IndexerTransaction>> fetchTransactionsInvolvingToken(String tokenId, boolean useCache, int page) {
-		int limit = 10;
-		int skip = limit * (page - 1);
-		Query query = Query.query(Criteria.where("slpValid.valid").is(Valid.VALID.name())
-				.and("outputs.slpUtxoType.slpTokenId").is(tokenId)).limit(limit).skip(skip).with(Sort.by(Direction.DESC, "time"));
+	public Single<Map<String, SlpValid>> fetchValidity(List<String> txIds) {
+		Map<String, SlpValid> cached = new HashMap<>();
+		Set<String> ids = new HashSet<>();
+		for (String txId : txIds) {
+			IndexerTransaction ifPresent = transactionCache.getIfPresent(txId);
+			if (ifPresent == null) {
+				ids.add(txId);
+			} else {
+				ifPresent.getTransaction().getSlpValid().ifPresent(valid -> cached.put(txId, valid));
+			}
+		}
+		if (ids.isEmpty()) {
+			return Single.just(cached);
+		}
 
+		Query query = Query.query(Criteria.where("_id").in(ids)).comment(VALIDITY_VIEW);
+		query.fields().include("slpValid");
 		return RxJava2Adapter.fluxToFlowable(reactiveMongoTemplate.find(query, TransactionDbObject.class))
+				.filter(e -> e.getSlpValid() != null)
+				.toMap(TransactionDbObject::getTxId, e -> SlpValid.create(e.getSlpValid().getReason(), e.getSlpValid().getValid()), () -> cached);
+	}
+
+	@Override
+	public Maybe<TransactionSlpData> fetchSlpData(String txId) {
+		IndexerTransaction ifPresent = transactionCache.getIfPresent(txId);
+		if (ifPresent != null) {
+			return Maybe.just(TransactionSlpData.fromTransaction(ifPresent.getTransaction()));
+		}
+
+		return RxJava2Adapter.monoToMaybe(reactiveMongoTemplate.findOne(slpView(Query.query(Criteria.where("_id").is(txId))), TransactionDbObject.class))
+				.map(TransactionDbObject::toSlpData);
+	}
+
+	@Override
+	public Single<Map<String, TransactionSlpData>> fetchSlpData(List<String> txIds) {
+		Map<String, TransactionSlpData> cached = new HashMap<>();
+		Set<String> ids = new HashSet<>();
+		for (String txId : txIds) {
+			IndexerTransaction ifPresent = transactionCache.getIfPresent(txId);
+			if (ifPresent == null) {
+				ids.add(txId);
+			} else {
+				cached.put(txId, TransactionSlpData.fromTransaction(ifPresent.getTransaction()));
+			}
+		}
+		if (ids.isEmpty()) {
+			return Single.just(cached);
+		}
+
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoTemplate.find(slpView(Query.query(Criteria.where("_id").in(ids))), TransactionDbObject.class))
+				.toMap(TransactionDbObject::getTxId, TransactionDbObject::toSlpData, () -> cached);
+	}
+
+	private static Query slpView(Query query) {
+		query.comment(SLP_VIEW).fields().include("slpValid").include("outputs.slpUtxoType").include("inputs.slpTokenType");
+		return query;
+	}
+
+	// Page numbers are kept for old clients, they resolve to the cursor ending the previous page
+	@Override
+	public Single<List<IndexerTransaction>> fetchTransactionsInvolvingToken(String tokenId, boolean useCache, int page) {
+		String listing = "token:" + tokenId;
+		return Single.fromCallable(() -> Optional.ofNullable(pageStart(listing, tokenCriteria(tokenId), page)))
+				.flatMap(after -> fetchTransactionsInvolvingToken(tokenId, after.orElse(null)))
+				.doOnSuccess(txs -> rememberPageEnd(listing, page, txs));
+	}
+
+	@Override
+	public Single<List<IndexerTransaction>> fetchTransactionsInvolvingToken(String tokenId, TransactionCursor after) {
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoTemplate.find(withoutRaw(pageQuery(tokenCriteria(tokenId), after, PAGE_SIZE)), TransactionDbObject.class))
 				.map(TransactionDbObject::toDomain)
 				.map(IndexerTransaction::create)
 				.toList();
@@ -112,8 +196,8 @@ public class TransactionRepositoryImpl implements TransactionRepository {
 	public Single<List<IndexerTransaction>> fetchTransactions(Address address, Coin coin) {
 		Query first = Query.query(Criteria.where("outputs.address").is(address.getAddress()));
 		Query second = Query.query(Criteria.where("inputs.address").is(address.getAddress()));
-		return RxJava2Adapter.fluxToFlowable(reactiveMongoTemplate.find(first, TransactionDbObject.class))
-				.mergeWith(RxJava2Adapter.fluxToFlowable(reactiveMongoTemplate.find(second, TransactionDbObject.class)))
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoTemplate.find(withoutRaw(first), TransactionDbObject.class))
+				.mergeWith(RxJava2Adapter.fluxToFlowable(reactiveMongoTemplate.find(withoutRaw(second), TransactionDbObject.class)))
 				.map(TransactionDbObject::toDomain)
 				.map(IndexerTransaction::create)
 				.toList()
@@ -139,7 +223,7 @@ public class TransactionRepositoryImpl implements TransactionRepository {
 			Criteria criteria = new Criteria();
 			criteria.andOperator(Criteria.where("_id").in(listOfTxIds), Criteria.where("slpValid.valid").is(Valid.VALID.name()));
 			Query query = Query.query(criteria);
-			Flowable<IndexerTransaction> flow = RxJava2Adapter.fluxToFlowable(reactiveMongoTemplate.find(query, TransactionDbObject.class))
+			Flowable<IndexerTransaction> flow = RxJava2Adapter.fluxToFlowable(reactiveMongoTemplate.find(withoutRaw(query), TransactionDbObject.class))
 					.map(e -> IndexerTransaction.create(e.toDomain()))
 					.mergeWith(Flowable.fromIterable(result));
 			queryFlow.add(flow);
@@ -175,45 +259,123 @@ public class TransactionRepositoryImpl implements TransactionRepository {
 
 	@Override
 	public Flowable<IndexerTransaction> fetchTransactions(Integer height, String tokenId, int page, Coin coin) {
-		int pageSize = 10;
-		Query query = Query.query(Criteria.where("outputs.slpUtxoType.slpTokenId").is(tokenId)
-				.and("slpValid.valid").is(Valid.VALID.name())
-				.and("blockHeight").is(height)).limit(pageSize).skip(pageSize * (page - 1));
+		String listing = "height:" + height + ":" + tokenId;
+		return Single.fromCallable(() -> Optional.ofNullable(pageStart(listing, heightCriteria(height, tokenId), page)))
+				.flatMap(after -> fetchTransactions(height, tokenId, after.orElse(null), coin).toList())
+				.doOnSuccess(txs -> rememberPageEnd(listing, page, txs))
+				.flattenAsFlowable(txs -> txs);
+	}
 
-		return RxJava2Adapter.fluxToFlowable(reactiveMongoTemplate.find(query, TransactionDbObject.class)
+	@Override
+	public Flowable<IndexerTransaction> fetchTransactions(Integer height, String tokenId, TransactionCursor after, Coin coin) {
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoTemplate.find(withoutRaw(pageQuery(heightCriteria(height, tokenId), after, PAGE_SIZE)), TransactionDbObject.class)
 				.map(TransactionDbObject::toDomain)
 				.map(IndexerTransaction::create))
 				.doOnError(er -> logger.error("Could not complete request height={}, tokenId={}", height, tokenId));
 	}
 
-	@Override
-	public Single<List<IndexerTransaction>> saveTransaction(List<IndexerTransaction> indexerTransaction) {
-		BulkOperations bulkOperations = mongoOperations.bulkOps(BulkMode.UNORDERED, TransactionDbObject.class);
-		for (IndexerTransaction transaction : indexerTransaction) {
-			TransactionDbObject transactionDbObject = TransactionDbObject.fromDomain(transaction.getTransaction(), coin);
-			bulkOperations.upsert(Query.query(Criteria.where("_id").is(transaction.getTransaction().getTxId())), transactionDbObject.toUpdate());
+	private static Criteria tokenCriteria(String tokenId) {
+		return Criteria.where("outputs.slpUtxoType.slpTokenId").is(tokenId)
+				.and("slpValid.valid").is(Valid.VALID.name());
+	}
+
+	private static Criteria heightCriteria(Integer height, String tokenId) {
+		return tokenCriteria(tokenId).and("blockHeight").is(height);
+	}
+
+	// Newest first, continuing strictly after the cursor so no earlier document is read and discarded
+	private static Query pageQuery(Criteria criteria, TransactionCursor after, int limit) {
+		Query query = Query.query(criteria);
+		if (after != null) {
+			Date time = Date.from(after.getTime());
+			query.addCriteria(new Criteria().orOperator(
+					Criteria.where("time").lt(time),
+					Criteria.where("time").is(time).and("_id").lt(after.getTxId())));
 		}
+		return query.with(Sort.by(Direction.DESC, "time", "_id")).limit(limit);
+	}
 
-		executorService.submit(() -> {
-			indexerTransaction.forEach(s -> transactionCache.put(s.getTransaction().getTxId(), s));
-		});
+	// Raw bytes are loaded separately through RawTransactionRepository when a caller needs them
+	private static Query withoutRaw(Query query) {
+		query.fields().exclude(RawTransactionRepositoryImpl.LEGACY_FIELD);
+		return query;
+	}
 
-		bulkOperations.execute();
-		return Single.just(indexerTransaction);
+	/**
+	 * Cursor ending the page before the requested one. Boundaries are remembered, so a page whose predecessor was served
+	 * costs the same as the first page. Otherwise the sort keys are walked from the nearest known boundary.
+	 */
+	private TransactionCursor pageStart(String listing, Criteria criteria, int page) {
+		if (page <= 1) {
+			return null;
+		}
+		int known = page - 1;
+		TransactionCursor cursor = pageCursors.getIfPresent(listing + ":" + known);
+		while (cursor == null && --known > 0) {
+			cursor = pageCursors.getIfPresent(listing + ":" + known);
+		}
+		if (known == page - 1) {
+			return cursor;
+		}
+
+		int missing = (page - 1 - known) * PAGE_SIZE;
+		Query query = pageQuery(criteria, cursor, missing);
+		query.fields().include("time");
+		List<Document> keys = mongoOperations.find(query, Document.class, "transactions");
+		for (int i = PAGE_SIZE - 1; i < keys.size(); i += PAGE_SIZE) {
+			cursor = TransactionCursor.of(keys.get(i).getDate("time").toInstant(), keys.get(i).getString("_id"));
+			pageCursors.put(listing + ":" + (++known), cursor);
+		}
+		if (keys.size() < missing && !keys.isEmpty()) {
+			// Past the end, continuing after the last key returns an empty page
+			Document last = keys.get(keys.size() - 1);
+			cursor = TransactionCursor.of(last.getDate("time").toInstant(), last.getString("_id"));
+		}
+		logger.debug("Resolved page listing={} page={} walked={}", listing, page, keys.size());
+		return cursor;
 	}
 
-	@Override
-	public Completable handleReorg(List<IndexerTransaction> oldTxs) {
-		BulkOperations bulkOperations = mongoOperations.bulkOps(BulkMode.UNORDERED, TransactionDbObject.class);
-		for (IndexerTransaction transaction : oldTxs) {
-			bulkOperations.remove(Query.query(Criteria.where("_id").is(transaction.getTransaction().getTxId())));
+	private void rememberPageEnd(String listing, int page, List<IndexerTransaction> txs) {
+		if (page >= 1 && txs.size() == PAGE_SIZE) {
+			pageCursors.put(listing + ":" + page, TransactionCursor.after(txs.get(txs.size() - 1).getTransaction()));
 		}
+	}
 
-		executorService.submit(() -> {
-			oldTxs.forEach(s -> transactionCache.invalidate(s.getTransaction().getTxId()));
+	@Override
+	public Single<List<IndexerTransaction>> saveTransaction(List<IndexerTransaction> indexerTransaction) {
+		Single<BulkWriteResult> transactions = Single.defer(() -> {
+			ReactiveBulkOperations bulkOperations = ReactiveBulkOperations.unordered(reactiveMongoTemplate, TransactionDbObject.class);
+			for (IndexerTransaction transaction : indexerTransaction) {
+				TransactionDbObject transactionDbObject = TransactionDbObject.fromDomain(transaction.getTransaction(), coin);
+				bulkOperations.upsert(Query.query(Criteria.where("_id").is(transaction.getTransaction().getTxId())), transactionDbObject.toUpdate());
+			}
+			return bulkOperations.execute();
 		});
 
-		bulkOperations.execute();
-		return Completable.complete();
+		return rawTransactionRepository.saveRawTransactions(indexerTransaction.stream().map(IndexerTransaction::getTransaction).collect(Collectors.toList()))
+				.andThen(transactions)
+				.map(result -> {
+					executorService.submit(() -> {
+						indexerTransaction.forEach(s -> transactionCache.put(s.getTransaction().getTxId(), s));
+					});
+					return indexerTransaction;
+				});
+	}
+
+	@Override
+	public Completable handleReorg(List<IndexerTransaction> oldTxs) {
+		Completable transactions = Single.defer(() -> {
+			ReactiveBulkOperations bulkOperations = ReactiveBulkOperations.unordered(reactiveMongoTemplate, TransactionDbObject.class);
+			for (IndexerTransaction transaction : oldTxs) {
+				bulkOperations.remove(Query.query(Criteria.where("_id").is(transaction.getTransaction().getTxId())));
+			}
+			return bulkOperations.execute();
+		}).ignoreElement();
+
+		return transactions
+				.doOnComplete(() -> executorService.submit(() -> {
+					oldTxs.forEach(s -> transactionCache.invalidate(s.getTransaction().getTxId()));
+				}))
+				.andThen(rawTransactionRepository.removeRawTransactions(oldTxs.stream().map(t -> t.getTransaction().getTxId()).collect(Collectors.toList())));
 	}
 }
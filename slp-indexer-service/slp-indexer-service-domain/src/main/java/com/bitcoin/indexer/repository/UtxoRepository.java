@@ -6,12 +6,17 @@ import org.springframework.data.util.Pair;
 
 import com.bitcoin.indexer.blockchain.domain.Address;
 import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.TokenBalance;
 import com.bitcoin.indexer.blockchain.domain.Transaction;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.blockchain.domain.UtxoMinimalData;
+import com.bitcoin.indexer.blockchain.domain.UtxoSpend;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
 import com.bitcoin.indexer.core.Coin;
 
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Maybe;
 import io.reactivex.Single;
 
@@ -23,12 +28,21 @@ public interface UtxoRepository {
 
 	Single<List<Utxo>> fetchSlpUtxosForAddress(Address address, Coin coin, boolean useCache, Valid parentValidation);
 
+	/**
+	 * Token part of the unspent outputs of an address, reading only slpUtxoType.
+	 */
+	Single<List<SlpUtxo>> fetchSlpOutputsForAddress(Address address, Valid parentValidation);
+
 	Maybe<Utxo> fetchUtxo(String txId, int inputIndex, Coin coin);
 
 	Single<List<Utxo>> fetchUtxosWithTokenId(List<String> tokenIds, boolean isSpent, Valid parentValidation);
 
 	Single<List<UtxoMinimalData>> fetchMinimalUtxoData(List<String> tokenIds, boolean isSpent, Valid parentValidation);
 
+	Flowable<TokenBalance> fetchTokenBalances(String tokenId, Valid parentValidation);
+
+	Flowable<TokenBalance> fetchAddressBalances(Address address, Valid parentValidation);
+
 	Single<List<Utxo>> fetchUtxos(List<Pair<String, Integer>> txIdIndexs, Coin coin);
 
 	Single<List<Utxo>> fetchUtxo(List<Input> inputs, Coin coin);
@@ -37,10 +51,18 @@ public interface UtxoRepository {
 
 	Single<List<Utxo>> fetchUtxos(String txId, Coin coin);
 
+	Flowable<String> fetchAllOutpointKeys();
+
+	/**
+	 * Transactions spending slp outputs of the given transactions, each listed once.
+	 * Read from spendingTxId, spends stored before it existed are linked by SpendingTxIdBackfill.
+	 */
+	Single<List<String>> fetchSpendingTxIds(List<String> txIds);
+
 	//Internal use apis
 	Single<List<Utxo>> saveUtxo(List<Utxo> utxos, Coin coin);
 
-	Single<List<Utxo>> spendUtxo(List<Utxo> utxos, Coin coin);
+	Completable spendUtxos(List<UtxoSpend> spends, Coin coin);
 
 	Single<List<Utxo>> removeUtxo(List<Utxo> utxos, Coin coin);
 
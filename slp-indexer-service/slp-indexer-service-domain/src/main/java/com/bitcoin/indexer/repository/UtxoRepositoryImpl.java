@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -13,10 +14,10 @@ import java.util.stream.Collectors;
 import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.mongodb.core.BulkOperations;
-import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
 import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
@@ -24,19 +25,23 @@ import org.springframework.data.util.Pair;
 
 import com.bitcoin.indexer.blockchain.domain.Address;
 import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.TokenBalance;
 import com.bitcoin.indexer.blockchain.domain.Transaction;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.blockchain.domain.UtxoMinimalData;
+import com.bitcoin.indexer.blockchain.domain.UtxoSpend;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
 import com.bitcoin.indexer.blockchain.domain.timers.SystemTimer;
 import com.bitcoin.indexer.core.Coin;
 import com.bitcoin.indexer.repository.db.AllOutputsDbObject;
+import com.bitcoin.indexer.repository.db.NumericSchema;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.bulk.BulkWriteUpsert;
 
+import io.reactivex.Completable;
 import io.reactivex.Flowable;
 import io.reactivex.Maybe;
 import io.reactivex.Single;
@@ -108,6 +113,19 @@ public class UtxoRepositoryImpl implements UtxoRepository {
 		//.doOnSuccess(s -> utxosCache.put(address.getAddress(), s));
 	}
 
+	@Override
+	public Single<List<SlpUtxo>> fetchSlpOutputsForAddress(Address address, Valid parentValidation) {
+		Query query = Query.query(Criteria.where("address").is(address.getAddress()))
+				.addCriteria(Criteria.where("isSpent").is(false))
+				.addCriteria(Criteria.where("slpUtxoType.parentTransactionValid.valid").is(parentValidation.name()))
+				.comment(TransactionRepositoryImpl.SLP_VIEW);
+		query.fields().include("slpUtxoType");
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoOperations.find(query, AllOutputsDbObject.class)
+				.doOnError(er -> logger.error("Could not fetch address={} slpOutputs={}", address, er)))
+				.map(e -> e.getSlpUtxoType().toDomain())
+				.toList();
+	}
+
 	@Override
 	public Maybe<Utxo> fetchUtxo(String txId, int inputIndex, Coin coin) {
 		Utxo ifPresent = txIdIndexCache.getIfPresent(AllOutputsDbObject.keyParser(txId, inputIndex));
@@ -162,7 +180,7 @@ public class UtxoRepositoryImpl implements UtxoRepository {
 
 		return RxJava2Adapter.fluxToFlowable(reactiveMongoOperations.find(query, AllOutputsDbObject.class))
 				.map(result -> new UtxoMinimalData(result.getId().split(":")[0],
-						new BigDecimal(result.getSlpUtxoType().getAmount()),
+						result.getSlpUtxoType().getAmount(),
 						result.getSlpUtxoType().isHasBaton(), Address.create(result.getAddress()),
 						result.getValue(),
 						result.getSlpUtxoType().getTokenTransactionType(),
@@ -171,6 +189,37 @@ public class UtxoRepositoryImpl implements UtxoRepository {
 				.doOnSuccess(s -> logger.trace("Completed utxos={} fetchUtxosWithTokenId={}", s.size(), systemTimer.getMsSinceStart()));
 	}
 
+	@Override
+	public Flowable<TokenBalance> fetchTokenBalances(String tokenId, Valid parentValidation) {
+		Criteria criteria = Criteria.where("slpUtxoType.slpTokenId").is(tokenId)
+				.and("isSpent").is(false)
+				.and("slpUtxoType.parentTransactionValid.valid").is(parentValidation.name());
+		return aggregateBalances(criteria, "address")
+				.map(result -> new TokenBalance(tokenId, Address.create(result.getString("_id")), NumericSchema.toBigDecimal(result.get("balance"))));
+	}
+
+	@Override
+	public Flowable<TokenBalance> fetchAddressBalances(Address address, Valid parentValidation) {
+		Criteria criteria = Criteria.where("address").is(address.getAddress())
+				.and("isSpent").is(false)
+				.and("slpUtxoType.parentTransactionValid.valid").is(parentValidation.name());
+		return aggregateBalances(criteria, "tokenId")
+				.map(result -> new TokenBalance(result.getString("_id"), address, NumericSchema.toBigDecimal(result.get("balance"))));
+	}
+
+	// Amounts are converted in the pipeline so documents not yet migrated to numeric amounts are summed as well
+	private Flowable<Document> aggregateBalances(Criteria criteria, String groupBy) {
+		Aggregation aggregation = Aggregation.newAggregation(
+				Aggregation.match(criteria),
+				Aggregation.project()
+						.and("address").as("address")
+						.and("slpUtxoType.slpTokenId").as("tokenId")
+						.and(ConvertOperators.valueOf("slpUtxoType.amount").convertToDecimal()).as("amount"),
+				Aggregation.group(groupBy).sum("amount").as("balance"))
+				.withOptions(Aggregation.newAggregationOptions().allowDiskUse(true).build());
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoOperations.aggregate(aggregation, reactiveMongoOperations.getCollectionName(AllOutputsDbObject.class), Document.class));
+	}
+
 	@Override
 	public Single<List<Utxo>> fetchUtxos(List<Pair<String, Integer>> txIdIndexs, Coin coin) {
 		List<Utxo> result = new ArrayList<>();
@@ -205,7 +254,7 @@ public class UtxoRepositoryImpl implements UtxoRepository {
 		return RxJava2Adapter.fluxToFlowable(reactiveMongoOperations.find(Query.query(Criteria.where("_id").in(queries)), AllOutputsDbObject.class))
 				.map(AllOutputsDbObject::toDomain)
 				.mergeWith(Flowable.fromIterable(result))
-				.doOnNext(s -> txIdIndexCache.put(s.getTxId(), s))
+				.doOnNext(s -> txIdIndexCache.put(AllOutputsDbObject.keyParser(s.getTxId(), s.getIndex()), s))
 				.toList();
 	}
 
@@ -214,7 +263,7 @@ public class UtxoRepositoryImpl implements UtxoRepository {
 		List<String> query = inputs.stream().map(input -> AllOutputsDbObject.keyParser(input.getTxId(), input.getIndex())).collect(Collectors.toList());
 		return RxJava2Adapter.fluxToFlowable(reactiveMongoOperations.find(Query.query(Criteria.where("_id").in(query)), AllOutputsDbObject.class))
 				.map(AllOutputsDbObject::toDomain)
-				.doOnNext(s -> txIdIndexCache.put(s.getTxId(), s))
+				.doOnNext(s -> txIdIndexCache.put(AllOutputsDbObject.keyParser(s.getTxId(), s.getIndex()), s))
 				.toList();
 	}
 
@@ -228,63 +277,95 @@ public class UtxoRepositoryImpl implements UtxoRepository {
 	}
 
 	@Override
-	public Single<List<Utxo>> saveUtxo(List<Utxo> utxo, Coin coin) {
-		return Flowable.fromIterable(utxo)
-				.map(u -> {
-					Utxo old = fetchUtxo(u.getTxId(), u.getIndex(), coin).blockingGet();
-					if (old == null) {
-						txIdIndexCache.put(AllOutputsDbObject.keyParser(u.getTxId(), u.getIndex()), u);
-						return u;
-					}
-					Utxo withOldTimestamp = u.withTimestamp(old.getTimestamp());
-					txIdIndexCache.put(AllOutputsDbObject.keyParser(u.getTxId(), u.getIndex()), withOldTimestamp);
-					return withOldTimestamp;
-				})
-				.toList()
-				.flatMap(u -> insertAllUtxo(u, coin));
+	public Flowable<String> fetchAllOutpointKeys() {
+		Query query = new Query();
+		query.fields().include("_id");
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoOperations.find(query, Document.class, "allOutputs"))
+				.map(d -> d.getString("_id"));
 	}
 
-	private Single<List<Utxo>> insertAllUtxo(List<Utxo> utxo, Coin coin) {
-		if (utxo.isEmpty()) {
-			return Single.just(utxo);
-		}
-
-		BulkOperations bulkOperations = mongoOperations.bulkOps(BulkMode.UNORDERED, AllOutputsDbObject.class);
-		for (Utxo bulk : utxo) {
-			AllOutputsDbObject allOutputsDbObject = AllOutputsDbObject.fromDomain(bulk, null, false, coin);
-			bulkOperations.upsert(Query.query(Criteria.where("_id").is(AllOutputsDbObject.keyParser(bulk.getTxId(), bulk.getIndex()))), allOutputsDbObject.toUpdate());
+	@Override
+	public Single<List<String>> fetchSpendingTxIds(List<String> txIds) {
+		if (txIds.isEmpty()) {
+			return Single.just(List.of());
 		}
-		bulkOperations.execute();
-		return Single.just(utxo);
+		Query query = Query.query(Criteria.where("txId").in(txIds).and("spendingTxId").exists(true));
+		query.fields().include("spendingTxId");
+		return RxJava2Adapter.fluxToFlowable(reactiveMongoOperations.find(query, Document.class, reactiveMongoOperations.getCollectionName(AllOutputsDbObject.class)))
+				.map(d -> d.getString("spendingTxId"))
+				.distinct()
+				.toList();
 	}
 
 	@Override
-	public Single<List<Utxo>> spendUtxo(List<Utxo> utxo, Coin coin) {
+	public Single<List<Utxo>> saveUtxo(List<Utxo> utxo, Coin coin) {
 		if (utxo.isEmpty()) {
 			return Single.just(utxo);
 		}
 
-		BulkOperations bulkOperations = mongoOperations.bulkOps(BulkMode.UNORDERED, AllOutputsDbObject.class);
-		for (Utxo bulk : utxo) {
-			txIdIndexCache.invalidate(AllOutputsDbObject.keyParser(bulk.getTxId(), bulk.getIndex()));
-			AllOutputsDbObject allOutputsDbObject = AllOutputsDbObject.fromDomain(bulk, Instant.now(), true, coin);
-			bulkOperations.upsert(Query.query(Criteria.where("_id").is(AllOutputsDbObject.keyParser(bulk.getTxId(), bulk.getIndex()))), allOutputsDbObject.toUpdate());
+		return Single.defer(() -> {
+			ReactiveBulkOperations bulkOperations = ReactiveBulkOperations.unordered(reactiveMongoOperations, AllOutputsDbObject.class);
+			for (Utxo bulk : utxo) {
+				AllOutputsDbObject allOutputsDbObject = AllOutputsDbObject.fromDomain(bulk, null, false, coin);
+				bulkOperations.upsert(Query.query(Criteria.where("_id").is(AllOutputsDbObject.keyParser(bulk.getTxId(), bulk.getIndex()))), allOutputsDbObject.toCreateUpdate());
+			}
+			return bulkOperations.execute();
+		}).map(result -> {
+			Set<Integer> inserted = result.getUpserts().stream().map(BulkWriteUpsert::getIndex).collect(Collectors.toSet());
+			for (int i = 0; i < utxo.size(); i++) {
+				Utxo saved = utxo.get(i);
+				String key = AllOutputsDbObject.keyParser(saved.getTxId(), saved.getIndex());
+				if (inserted.contains(i)) {
+					txIdIndexCache.put(key, saved);
+					continue;
+				}
+				// Existing output kept its stored first seen fields, only a cached copy knows them without reading
+				Utxo cached = txIdIndexCache.getIfPresent(key);
+				if (cached != null && !cached.isSpent()) {
+					txIdIndexCache.put(key, saved.withTimestamp(cached.getTimestamp()));
+				} else {
+					txIdIndexCache.invalidate(key);
+				}
+			}
+			return utxo;
+		});
+	}
+
+	@Override
+	public Completable spendUtxos(List<UtxoSpend> spends, Coin coin) {
+		if (spends.isEmpty()) {
+			return Completable.complete();
 		}
-		bulkOperations.execute();
 
-		return Single.just(utxo);
+		return Single.defer(() -> {
+			Instant spendingTimestamp = Instant.now();
+			ReactiveBulkOperations bulkOperations = ReactiveBulkOperations.unordered(reactiveMongoOperations, AllOutputsDbObject.class);
+			for (UtxoSpend spend : spends) {
+				String key = AllOutputsDbObject.keyParser(spend.getTxId(), spend.getIndex());
+				txIdIndexCache.invalidate(key);
+				Query query = Query.query(Criteria.where("_id").is(key));
+				Update update = AllOutputsDbObject.spendUpdate(spend.getSpendingTxId(), spend.getSpendingVin(), spendingTimestamp);
+				if (spend.isPending()) {
+					// The output may be created concurrently, its create update does not touch spend fields. An output
+					// read before its create lands still needs a timestamp, the create lowers it to its own
+					bulkOperations.upsert(query, update.setOnInsert("timestamp", spendingTimestamp));
+				} else {
+					bulkOperations.updateOne(query, update);
+				}
+			}
+			return bulkOperations.execute();
+		}).ignoreElement();
 	}
 
 	@Override
 	public Single<List<Utxo>> removeUtxo(List<Utxo> utxo, Coin coin) {
-		BulkOperations bulkOperations = mongoOperations.bulkOps(BulkMode.UNORDERED, AllOutputsDbObject.class);
-		List<Query> deletes = new ArrayList<>();
-		for (Utxo bulk : utxo) {
-			deletes.add(Query.query(Criteria.where("_id").is(AllOutputsDbObject.keyParser(bulk.getTxId(), bulk.getIndex()))));
-		}
-		bulkOperations.remove(deletes);
-		bulkOperations.execute();
-		return Single.just(utxo);
+		return Single.defer(() -> {
+			ReactiveBulkOperations bulkOperations = ReactiveBulkOperations.unordered(reactiveMongoOperations, AllOutputsDbObject.class);
+			for (Utxo bulk : utxo) {
+				bulkOperations.remove(Query.query(Criteria.where("_id").is(AllOutputsDbObject.keyParser(bulk.getTxId(), bulk.getIndex()))));
+			}
+			return bulkOperations.execute();
+		}).map(result -> utxo);
 	}
 
 	@Override
@@ -305,27 +386,29 @@ public class UtxoRepositoryImpl implements UtxoRepository {
 				.filter(e -> e.getSlpValid().isPresent())
 				.collect(Collectors.toMap(Transaction::getTxId, v -> v.getSlpValid().get()));
 
-		BulkOperations bulkOperations = mongoOperations.bulkOps(BulkMode.UNORDERED, AllOutputsDbObject.class);
-
-		for (Utxo bulk : allUtxos) {
-			Update update = new Update();
-			Document document = new Document();
-			SlpValid slpValid = txIdValidation.get(bulk.getTxId());
-			document.put("reason", slpValid.getReason());
-			document.put("valid", slpValid.getValid().name());
-			update.set("slpUtxoType.parentTransactionValid", document);
-			String key = AllOutputsDbObject.keyParser(bulk.getTxId(), bulk.getIndex());
-			logger.trace("Adding utxo valid status key={} txId={} index={} valid={} update={}", key, bulk.getTxId(), bulk.getIndex(), slpValid.getValid(), update.toString());
-			bulkOperations.upsert(Query.query(Criteria.where("_id").is(key)), update);
-			refreshCache(bulk);
-		}
-		BulkWriteResult execute = bulkOperations.execute();
-		logger.trace("utxos={} inserted={} modified={} matched={} upserts={}", allUtxos.size(),
-				execute.getInsertedCount(),
-				execute.getModifiedCount(),
-				execute.getMatchedCount(),
-				execute.getUpserts().stream().map(BulkWriteUpsert::getId).collect(Collectors.toList()));
-		return Single.just(txs);
+		return Single.defer(() -> {
+			ReactiveBulkOperations bulkOperations = ReactiveBulkOperations.unordered(reactiveMongoOperations, AllOutputsDbObject.class);
+			for (Utxo bulk : allUtxos) {
+				Update update = new Update();
+				Document document = new Document();
+				SlpValid slpValid = txIdValidation.get(bulk.getTxId());
+				document.put("reason", slpValid.getReason());
+				document.put("valid", slpValid.getValid().name());
+				update.set("slpUtxoType.parentTransactionValid", document);
+				String key = AllOutputsDbObject.keyParser(bulk.getTxId(), bulk.getIndex());
+				logger.trace("Adding utxo valid status key={} txId={} index={} valid={} update={}", key, bulk.getTxId(), bulk.getIndex(), slpValid.getValid(), update.toString());
+				bulkOperations.upsert(Query.query(Criteria.where("_id").is(key)), update);
+			}
+			return bulkOperations.execute();
+		}).map(execute -> {
+			allUtxos.forEach(this::refreshCache);
+			logger.trace("utxos={} inserted={} modified={} matched={} upserts={}", allUtxos.size(),
+					execute.getInsertedCount(),
+					execute.getModifiedCount(),
+					execute.getMatchedCount(),
+					execute.getUpserts().stream().map(BulkWriteUpsert::getId).collect(Collectors.toList()));
+			return txs;
+		});
 	}
 
 	public void addToCache(Utxo utxo) {
@@ -0,0 +1,55 @@
+package com.bitcoin.indexer.repository.db;
+
+import java.math.BigDecimal;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.TokenBalance;
+
+@Document(collection = "addressTokenBalances")
+public class AddressTokenBalanceDbObject {
+
+	@Id
+	private String id;
+
+	private String address;
+
+	private String tokenId;
+
+	private Object balance;
+
+	private long utxos;
+
+	public AddressTokenBalanceDbObject() {
+	}
+
+	public TokenBalance toDomain() {
+		return new TokenBalance(tokenId, Address.create(address), NumericSchema.toBigDecimal(balance));
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getAddress() {
+		return address;
+	}
+
+	public String getTokenId() {
+		return tokenId;
+	}
+
+	public BigDecimal getBalance() {
+		return NumericSchema.toBigDecimal(balance);
+	}
+
+	public long getUtxos() {
+		return utxos;
+	}
+
+	public static String keyParser(String address, String tokenId) {
+		return address + ":" + tokenId;
+	}
+}
@@ -1,68 +1,94 @@
 package com.bitcoin.indexer.repository.db;
 
-import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.query.Update;
 
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.AddressTransaction;
+
+// Field names are kept short, there is one document per address and token in every token transaction
+@Document(collection = "addressTransactions")
 public class AddressTransactionDbObject {
 
 	@Id
 	private String i;
 
-	private String tx;
-
 	private String a;
 
-	private String f;
+	private String k;
 
-	private int fi;
+	private int h;
 
-	private Instant t;
+	private String tx;
+
+	private String d;
 
-	private BigDecimal tv;
+	private Object v;
 
-	private String c;
+	private Instant t;
 
 	public AddressTransactionDbObject() {
 	}
 
-	public AddressTransactionDbObject(String txId, String address, String fromTxId, int fromTxIndex, Instant timestamp, BigDecimal transactionValue, String confirmedBlockHash) {
-		this.i = txId + ":" + address;
-		this.tx = txId;
-		this.a = address;
-		this.f = fromTxId;
-		this.fi = fromTxIndex;
-		this.t = timestamp;
-		this.tv = transactionValue;
-		this.c = confirmedBlockHash;
+	public static Update toUpdate(AddressTransaction addressTransaction) {
+		Update update = new Update();
+		fields(addressTransaction).forEach(update::set);
+		return update;
 	}
 
-	public String getTx() {
-		return tx;
+	// Leaves entries the writer already stored untouched
+	public static Update toInsert(AddressTransaction addressTransaction) {
+		Update update = new Update();
+		fields(addressTransaction).forEach(update::setOnInsert);
+		return update;
 	}
 
-	public String getA() {
-		return a;
+	private static Map<String, Object> fields(AddressTransaction addressTransaction) {
+		Map<String, Object> fields = new LinkedHashMap<>();
+		fields.put("a", addressTransaction.getAddress().getAddress());
+		fields.put("k", addressTransaction.getTokenId());
+		fields.put("h", addressTransaction.getHeight());
+		fields.put("tx", addressTransaction.getTxId());
+		fields.put("d", addressTransaction.getDirection().name());
+		fields.put("v", NumericSchema.tokenAmount(addressTransaction.getNetAmount()));
+		fields.put("t", addressTransaction.getTime());
+		return fields;
 	}
 
-	public String getF() {
-		return f;
+	public AddressTransaction toDomain() {
+		return AddressTransaction.create(Address.create(a), k, h, tx, NumericSchema.toBigDecimal(v), t);
 	}
 
-	public int getFi() {
-		return fi;
+	public static String keyParser(String address, String tokenId, String txId) {
+		return address + ":" + tokenId + ":" + txId;
 	}
 
-	public Instant getT() {
-		return t;
+	public String getI() {
+		return i;
 	}
 
-	public BigDecimal getTv() {
-		return tv;
+	public String getA() {
+		return a;
+	}
+
+	public String getK() {
+		return k;
+	}
+
+	public int getH() {
+		return h;
 	}
 
-	public String getC() {
-		return c;
+	public String getTx() {
+		return tx;
+	}
+
+	public Instant getT() {
+		return t;
 	}
 }
@@ -5,14 +5,12 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.Optional;
 
-import org.spongycastle.util.encoders.Hex;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.query.Update;
 
 import com.bitcoin.indexer.blockchain.domain.Address;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
-import com.bitcoin.indexer.blockchain.domain.slp.Script;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenId;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
@@ -35,7 +33,7 @@ public class AllOutputsDbObject implements Serializable {
 
 	private String address;
 
-	private String value;
+	private Object value;
 
 	private Instant timestamp;
 
@@ -66,7 +64,7 @@ public class AllOutputsDbObject implements Serializable {
 		this.index = index;
 		this.scriptPubKey = scriptPubKey;
 		this.address = address;
-		this.value = value.toString();
+		this.value = NumericSchema.satoshis(value);
 		this.timestamp = timestamp;
 		this.spendingTimestamp = spendingTimestamp;
 		this.confirmed = confirmed;
@@ -98,7 +96,7 @@ public class AllOutputsDbObject implements Serializable {
 				slpUtxo.map(u -> new SlpUtxoType(u.getSlpTokenId().toString(),
 						u.getTokenTransactionType(),
 						u.getTokenType(),
-						u.getAmount().toString(),
+						u.getAmount(),
 						u.hasBaton(),
 						u.getTokenTicker(),
 						u.getSlpTokenName(), SlpValidDbType.fromDomain(u.getParentTransactionValid()),
@@ -111,13 +109,13 @@ public class AllOutputsDbObject implements Serializable {
 		return Utxo.create(txId,
 				Address.create(address),
 				scriptPubKey,
-				new BigDecimal(value),
+				NumericSchema.toBigDecimal(value),
 				confirmed,
 				index,
 				isSpent,
 				timestamp,
 				Optional.ofNullable(slpUtxoType).map(e -> SlpUtxo.create(new SlpTokenId(e.getSlpTokenId()),
-						new BigDecimal(e.getAmount()),
+						e.getAmount(),
 						e.isHasBaton(),
 						e.getTokenTicker(),
 						e.getTokenTransactionType(),
@@ -125,10 +123,15 @@ public class AllOutputsDbObject implements Serializable {
 						e.getTokenType(),
 						e.getTokenTypeHex(),
 						SlpValid.create(e.getParentTransactionValid().getReason(), e.getParentTransactionValid().getValid()))).orElse(null),
-				new Script(Hex.decode(scriptPubKey)).isOpReturn(),
+				isOpReturn(scriptPubKey),
 				Optional.ofNullable(confirmedHeight).orElse(null));
 	}
 
+	// An OP_RETURN output script starts with the opcode itself, so the script does not have to be decoded to tell
+	private static boolean isOpReturn(String scriptPubKey) {
+		return scriptPubKey != null && scriptPubKey.regionMatches(true, 0, "6a", 0, 2);
+	}
+
 	public Update toUpdate() {
 		Update update = new Update();
 		update.set("txId", txId);
@@ -142,12 +145,47 @@ public class AllOutputsDbObject implements Serializable {
 		update.set("confirmed", confirmed);
 		update.set("isSpent", isSpent);
 		update.set("confirmedHeight", confirmedHeight);
+		update.set(NumericSchema.VERSION_FIELD, NumericSchema.CURRENT_VERSION);
+		if (slpUtxoType != null) {
+			update.set("slpUtxoType", slpUtxoType.toDocument());
+		}
+		return update;
+	}
+
+	/**
+	 * Upsert for a newly seen output. Spend fields are only written when the document is inserted so a block confirming
+	 * a mempool output does not unspend it. The earliest timestamp wins, a mempool output keeps its mempool timestamp and
+	 * a document a pending spend inserted first still gets the output's own.
+	 */
+	public Update toCreateUpdate() {
+		Update update = new Update();
+		update.set("txId", txId);
+		update.set("index", index);
+		update.set("coin", coin);
+		update.set("address", address);
+		update.set("scriptPubKey", scriptPubKey);
+		update.set("value", value);
+		update.min("timestamp", timestamp);
+		update.setOnInsert("spendingTimestamp", spendingTimestamp);
+		update.set("confirmed", confirmed);
+		update.setOnInsert("isSpent", isSpent);
+		update.set("confirmedHeight", confirmedHeight);
+		update.set(NumericSchema.VERSION_FIELD, NumericSchema.CURRENT_VERSION);
 		if (slpUtxoType != null) {
 			update.set("slpUtxoType", slpUtxoType.toDocument());
 		}
 		return update;
 	}
 
+	public static Update spendUpdate(String spendingTxId, int spendingVin, Instant spendingTimestamp) {
+		Update update = new Update();
+		update.set("isSpent", true);
+		update.set("spendingTimestamp", spendingTimestamp);
+		update.set("spendingTxId", spendingTxId);
+		update.set("spendingVin", spendingVin);
+		return update;
+	}
+
 	public Update partialUpdate() {
 		Update update = new Update();
 		if (slpUtxoType != null) {
@@ -181,7 +219,7 @@ public class AllOutputsDbObject implements Serializable {
 	}
 
 	public BigDecimal getValue() {
-		return new BigDecimal(value);
+		return NumericSchema.toBigDecimal(value);
 	}
 
 	public Instant getTimestamp() {
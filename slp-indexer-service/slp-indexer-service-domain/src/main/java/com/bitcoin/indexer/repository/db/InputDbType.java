@@ -13,7 +13,7 @@ public class InputDbType implements Serializable {
 
 	private String address;
 
-	private String amount;
+	private Object amount;
 
 	private int inputIndex;
 
@@ -26,9 +26,9 @@ public class InputDbType implements Serializable {
 	//Naming error :(
 	private SlpUtxoType slpTokenType;
 
-	public InputDbType(String address, String amount, int inputIndex, String txId, SlpUtxoType slpTokenType, boolean isCoinbase, long sequence) {
+	public InputDbType(String address, BigDecimal amount, int inputIndex, String txId, SlpUtxoType slpTokenType, boolean isCoinbase, long sequence) {
 		this.address = address;
-		this.amount = amount;
+		this.amount = NumericSchema.satoshis(amount);
 		this.inputIndex = inputIndex;
 		this.txId = txId;
 		this.slpTokenType = slpTokenType;
@@ -36,17 +36,20 @@ public class InputDbType implements Serializable {
 		this.sequence = sequence;
 	}
 
+	public InputDbType() {
+	}
+
 	public static InputDbType fromDomain(Input input) {
 		return new InputDbType(
 				input.getAddress().getAddress(),
-				input.getAmount().map(BigDecimal::toString).orElse("0"),
+				input.getAmount().orElse(BigDecimal.ZERO),
 				input.getIndex(),
 				input.getTxId(),
 				input.getSlpUtxo().map(slp -> new SlpUtxoType(
 						slp.getSlpTokenId().getHex(),
 						slp.getTokenTransactionType(),
 						slp.getTokenType(),
-						slp.getAmount().toString(),
+						slp.getAmount(),
 						slp.hasBaton(),
 						slp.getTokenTicker(),
 						slp.getSlpTokenName(),
@@ -61,8 +64,8 @@ public class InputDbType implements Serializable {
 		return address;
 	}
 
-	public String getAmount() {
-		return amount;
+	public BigDecimal getAmount() {
+		return NumericSchema.toBigDecimal(amount);
 	}
 
 	public int getInputIndex() {
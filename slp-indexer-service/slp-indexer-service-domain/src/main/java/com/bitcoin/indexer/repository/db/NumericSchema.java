@@ -0,0 +1,57 @@
+package com.bitcoin.indexer.repository.db;
+
+import java.math.BigDecimal;
+
+import org.bson.types.Decimal128;
+
+/**
+ * Storage format of amounts in allOutputs and transactions. Version 1 documents hold amounts as strings, version 2
+ * holds satoshi values as int64 and token amounts as Decimal128. Readers accept both until the migration has run.
+ */
+public final class NumericSchema {
+
+	public static final int CURRENT_VERSION = 2;
+
+	public static final String VERSION_FIELD = "schemaVersion";
+
+	private NumericSchema() {
+	}
+
+	public static Long satoshis(BigDecimal value) {
+		return value == null ? null : value.longValueExact();
+	}
+
+	public static Decimal128 tokenAmount(BigDecimal amount) {
+		return amount == null ? null : new Decimal128(amount);
+	}
+
+	public static BigDecimal toBigDecimal(Object stored) {
+		if (stored == null) {
+			return null;
+		}
+		if (stored instanceof Decimal128) {
+			return ((Decimal128) stored).bigDecimalValue();
+		}
+		if (stored instanceof BigDecimal) {
+			return (BigDecimal) stored;
+		}
+		if (stored instanceof Long || stored instanceof Integer) {
+			return BigDecimal.valueOf(((Number) stored).longValue());
+		}
+		return new BigDecimal(stored.toString());
+	}
+
+	public static Object migrateSatoshis(Object stored) {
+		if (stored == null || stored instanceof Long) {
+			return stored;
+		}
+		return satoshis(toBigDecimal(stored));
+	}
+
+	public static Object migrateTokenAmount(Object stored) {
+		if (stored == null || stored instanceof Decimal128) {
+			return stored;
+		}
+		return tokenAmount(toBigDecimal(stored));
+	}
+}
@@ -0,0 +1,86 @@
+package com.bitcoin.indexer.repository.db;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.bson.types.Binary;
+import org.spongycastle.util.encoders.Hex;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.query.Update;
+
+// Raw transaction bytes kept apart from transactions so the hot documents stay small
+@Document(collection = "rawTransactions")
+public class RawTransactionDbObject {
+
+	@Id
+	private String txId;
+
+	private Binary raw;
+
+	private boolean compressed;
+
+	public RawTransactionDbObject() {
+	}
+
+	// The bytes of a txId never change, an existing entry is left as it is
+	public static Update toInsert(String rawHex, boolean compress) {
+		byte[] raw = Hex.decode(rawHex);
+		byte[] deflated = compress ? deflate(raw) : null;
+		boolean compressed = deflated != null && deflated.length < raw.length;
+		Update update = new Update();
+		update.setOnInsert("raw", new Binary(compressed ? deflated : raw));
+		update.setOnInsert("compressed", compressed);
+		return update;
+	}
+
+	public String toRawHex() {
+		try {
+			return Hex.toHexString(compressed ? inflate(raw.getData()) : raw.getData());
+		} catch (DataFormatException e) {
+			throw new IllegalStateException("Could not inflate raw transaction txId=" + txId, e);
+		}
+	}
+
+	private static byte[] deflate(byte[] raw) {
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		deflater.setInput(raw);
+		deflater.finish();
+		ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length);
+		byte[] buffer = new byte[4096];
+		while (!deflater.finished()) {
+			out.write(buffer, 0, deflater.deflate(buffer));
+		}
+		deflater.end();
+		return out.toByteArray();
+	}
+
+	private static byte[] inflate(byte[] deflated) throws DataFormatException {
+		Inflater inflater = new Inflater();
+		inflater.setInput(deflated);
+		ByteArrayOutputStream out = new ByteArrayOutputStream(deflated.length * 2);
+		byte[] buffer = new byte[4096];
+		try {
+			while (!inflater.finished()) {
+				int inflated = inflater.inflate(buffer);
+				if (inflated == 0 && inflater.needsInput()) {
+					throw new DataFormatException("Truncated raw transaction");
+				}
+				out.write(buffer, 0, inflated);
+			}
+		} finally {
+			inflater.end();
+		}
+		return out.toByteArray();
+	}
+
+	public String getTxId() {
+		return txId;
+	}
+
+	public boolean isCompressed() {
+		return compressed;
+	}
+}
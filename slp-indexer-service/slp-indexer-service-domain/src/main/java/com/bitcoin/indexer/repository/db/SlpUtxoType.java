@@ -17,7 +17,7 @@ public class SlpUtxoType implements Serializable {
 
 	private String tokenType;
 
-	private String amount;
+	private Object amount;
 
 	private boolean hasBaton;
 
@@ -32,11 +32,11 @@ public class SlpUtxoType implements Serializable {
 	public SlpUtxoType() {
 	}
 
-	public SlpUtxoType(String slpTokenId, String tokenTransactionType, String tokenType, String amount, boolean hasBaton, String tokenTicker, String tokenName, SlpValidDbType parentTransactionValid, String tokenTypeHex) {
+	public SlpUtxoType(String slpTokenId, String tokenTransactionType, String tokenType, BigDecimal amount, boolean hasBaton, String tokenTicker, String tokenName, SlpValidDbType parentTransactionValid, String tokenTypeHex) {
 		this.slpTokenId = Objects.requireNonNull(slpTokenId);
 		this.tokenTransactionType = Objects.requireNonNull(tokenTransactionType);
 		this.tokenType = Objects.requireNonNull(tokenType);
-		this.amount = Objects.requireNonNull(amount);
+		this.amount = NumericSchema.tokenAmount(Objects.requireNonNull(amount));
 		this.hasBaton = hasBaton;
 		this.tokenTicker = Objects.requireNonNull(tokenTicker);
 		this.tokenName = Objects.requireNonNull(tokenName);
@@ -47,7 +47,7 @@ public class SlpUtxoType implements Serializable {
 	public SlpUtxo toDomain() {
 		return SlpUtxo.create(
 				new SlpTokenId(getSlpTokenId()),
-				new BigDecimal(getAmount()),
+				getAmount(),
 				isHasBaton(),
 				getTokenTicker(),
 				getTokenTransactionType(),
@@ -79,8 +79,8 @@ public class SlpUtxoType implements Serializable {
 		return tokenTransactionType;
 	}
 
-	public String getAmount() {
-		return amount;
+	public BigDecimal getAmount() {
+		return NumericSchema.toBigDecimal(amount);
 	}
 
 	public boolean isHasBaton() {
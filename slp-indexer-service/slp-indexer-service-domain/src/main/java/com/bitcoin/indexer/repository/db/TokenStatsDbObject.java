@@ -0,0 +1,71 @@
+package com.bitcoin.indexer.repository.db;
+
+import java.math.BigDecimal;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.bitcoin.indexer.blockchain.domain.TokenStats;
+
+@Document(collection = "tokenStats")
+public class TokenStatsDbObject {
+
+	@Id
+	private String tokenId;
+
+	private Object circulatingSupply;
+
+	private long validUtxos;
+
+	private long batonUtxos;
+
+	private long validAddresses;
+
+	private Object mintedSatoshis;
+
+	private long transactions;
+
+	public TokenStatsDbObject() {
+	}
+
+	public TokenStats toDomain() {
+		return new TokenStats(tokenId,
+				amountOrZero(circulatingSupply),
+				validUtxos,
+				batonUtxos,
+				validAddresses,
+				amountOrZero(mintedSatoshis),
+				transactions);
+	}
+
+	public static Update toUpdate(TokenStats stats) {
+		Update update = new Update();
+		update.set("circulatingSupply", NumericSchema.tokenAmount(stats.getCirculatingSupply()));
+		update.set("validUtxos", stats.getValidUtxos());
+		update.set("batonUtxos", stats.getBatonUtxos());
+		update.set("validAddresses", stats.getValidAddresses());
+		update.set("mintedSatoshis", NumericSchema.satoshis(stats.getMintedSatoshis()));
+		update.set("transactions", stats.getTransactions());
+		return update;
+	}
+
+	public static Update toIncrement(TokenStats delta) {
+		Update update = new Update();
+		update.inc("circulatingSupply", NumericSchema.tokenAmount(delta.getCirculatingSupply()));
+		update.inc("validUtxos", delta.getValidUtxos());
+		update.inc("batonUtxos", delta.getBatonUtxos());
+		update.inc("validAddresses", delta.getValidAddresses());
+		update.inc("mintedSatoshis", NumericSchema.satoshis(delta.getMintedSatoshis()));
+		update.inc("transactions", delta.getTransactions());
+		return update;
+	}
+
+	private static BigDecimal amountOrZero(Object stored) {
+		return stored == null ? BigDecimal.ZERO : NumericSchema.toBigDecimal(stored);
+	}
+
+	public String getTokenId() {
+		return tokenId;
+	}
+}
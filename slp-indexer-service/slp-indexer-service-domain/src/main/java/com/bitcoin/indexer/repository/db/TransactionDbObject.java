@@ -14,6 +14,7 @@ import org.springframework.data.mongodb.core.query.Update;
 import com.bitcoin.indexer.blockchain.domain.Address;
 import com.bitcoin.indexer.blockchain.domain.Input;
 import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.TransactionSlpData;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpOpReturn;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenId;
@@ -34,7 +35,7 @@ public class TransactionDbObject implements Serializable {
 
 	private List<InputDbType> inputs;
 
-	private BigDecimal fees;
+	private Object fees;
 
 	private Instant time;
 
@@ -44,6 +45,7 @@ public class TransactionDbObject implements Serializable {
 
 	private SlpValidDbType slpValid;
 
+	// Only present on documents stored before the bytes moved to rawTransactions, never written
 	private String rawHex;
 
 	private long version;
@@ -72,7 +74,7 @@ public class TransactionDbObject implements Serializable {
 		this.coin = coin;
 		this.outputs = outputs;
 		this.inputs = inputs;
-		this.fees = fees;
+		this.fees = NumericSchema.satoshis(fees);
 		this.time = time;
 		this.blockHash = blockHash;
 		this.blockHeight = blockHeight;
@@ -114,11 +116,11 @@ public class TransactionDbObject implements Serializable {
 		update.set("time", time);
 		update.set("blockHash", blockHash);
 		update.set("blockHeight", blockHeight);
-		update.set("rawHex", rawHex);
 		update.set("version", version);
 		update.set("locktime", locktime);
 		update.set("size", size);
 		update.set("blockTime", blockTime);
+		update.set(NumericSchema.VERSION_FIELD, NumericSchema.CURRENT_VERSION);
 
 		if (slpValid != null) {
 			update.set("slpValid", slpValid.toDocument());
@@ -132,27 +134,17 @@ public class TransactionDbObject implements Serializable {
 				e.getTxId(),
 				Address.create(e.getAddress()),
 				e.getScriptPubkey(),
-				new BigDecimal(e.getAmount()),
+				e.getAmount(),
 				e.isConfirmations(),
 				e.getIndex(),
 				false,
 				time,
-				e.getSlpUtxoType().map(slp -> SlpUtxo.create(
-						new SlpTokenId(slp.getSlpTokenId()),
-						new BigDecimal(slp.getAmount()),
-						slp.isHasBaton(),
-						slp.getTokenTicker(),
-						slp.getTokenTransactionType(),
-						slp.getTokenName(),
-						slp.getTokenType(),
-						slp.getTokenTypeHex(),
-						SlpValid.create(slpValid.getReason(), slpValid.getValid())
-				)).orElse(null),
+				e.getSlpUtxoType().map(slp -> slpOutput(slp, SlpValid.create(slpValid.getReason(), slpValid.getValid()))).orElse(null),
 				e.isOpReturn(),
 				blockHeight
 		)).collect(Collectors.toList());
 		List<Input> inputs = this.inputs.stream().map(inp -> Input.knownValue(Address.create(inp.getAddress()),
-				new BigDecimal(inp.getAmount()),
+				inp.getAmount(),
 				inp.getInputIndex(),
 				inp.getTxId(),
 				inp.getSlpUtxoType().map(SlpUtxoType::toDomain).orElse(null),
@@ -162,14 +154,14 @@ public class TransactionDbObject implements Serializable {
 				utxos,
 				inputs,
 				blockHeight != null,
-				fees,
+				NumericSchema.toBigDecimal(fees),
 				time,
 				blockHeight != null,
 				blockHash,
 				blockHeight,
 				parse(txId, utxos).map(List::of).orElse(List.of()),
 				SlpValid.create(slpValid.getReason(), slpValid.getValid()),
-				rawHex,
+				rawHex == null ? "" : rawHex,
 				version,
 				locktime,
 				size,
@@ -177,6 +169,37 @@ public class TransactionDbObject implements Serializable {
 		);
 	}
 
+	/**
+	 * Converts what the slp projection loads, validity and slpUtxoType of outputs and inputs. Scripts, addresses and BCH
+	 * amounts are neither read nor decoded.
+	 */
+	public TransactionSlpData toSlpData() {
+		SlpValid valid = slpValid == null ? null : SlpValid.create(slpValid.getReason(), slpValid.getValid());
+		List<Optional<SlpUtxo>> slpOutputs = outputs == null ? List.of() : outputs.stream()
+				.map(e -> e.getSlpUtxoType().map(slp -> slpOutput(slp, valid == null ? SlpValid.unknown() : valid)))
+				.collect(Collectors.toList());
+		List<SlpUtxo> slpInputs = inputs == null ? List.of() : inputs.stream()
+				.map(InputDbType::getSlpUtxoType)
+				.filter(Optional::isPresent)
+				.map(e -> e.get().toDomain())
+				.collect(Collectors.toList());
+		return TransactionSlpData.create(txId, valid, slpOutputs, slpInputs);
+	}
+
+	// Outputs carry the validity of the transaction itself rather than a stored parent validity
+	private static SlpUtxo slpOutput(SlpUtxoType slp, SlpValid valid) {
+		return SlpUtxo.create(
+				new SlpTokenId(slp.getSlpTokenId()),
+				slp.getAmount(),
+				slp.isHasBaton(),
+				slp.getTokenTicker(),
+				slp.getTokenTransactionType(),
+				slp.getTokenName(),
+				slp.getTokenType(),
+				slp.getTokenTypeHex(),
+				valid);
+	}
+
 	private Optional<SlpOpReturn> parse(String txId, List<Utxo> utxos) {
 		if (utxos.isEmpty()) {
 			return Optional.empty();
@@ -208,7 +231,7 @@ public class TransactionDbObject implements Serializable {
 	}
 
 	public BigDecimal getFees() {
-		return fees;
+		return NumericSchema.toBigDecimal(fees);
 	}
 
 	public Instant getTime() {
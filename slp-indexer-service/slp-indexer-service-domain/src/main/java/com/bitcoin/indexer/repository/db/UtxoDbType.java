@@ -1,6 +1,7 @@
 package com.bitcoin.indexer.repository.db;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.util.Optional;
 
 import org.bson.Document;
@@ -16,7 +17,7 @@ public class UtxoDbType implements Serializable {
 
 	private String scriptPubkey;
 
-	private String amount;
+	private Object amount;
 
 	private boolean confirmations;
 
@@ -26,11 +27,11 @@ public class UtxoDbType implements Serializable {
 
 	private SlpUtxoType slpUtxoType;
 
-	public UtxoDbType(String txId, String address, String scriptPubkey, String amount, boolean confirmations, int utxoIndex, boolean isOpReturn, SlpUtxoType slpUtxoType) {
+	public UtxoDbType(String txId, String address, String scriptPubkey, BigDecimal amount, boolean confirmations, int utxoIndex, boolean isOpReturn, SlpUtxoType slpUtxoType) {
 		this.txId = txId;
 		this.address = address;
 		this.scriptPubkey = scriptPubkey;
-		this.amount = amount;
+		this.amount = NumericSchema.satoshis(amount);
 		this.confirmations = confirmations;
 		this.utxoIndex = utxoIndex;
 		this.isOpReturn = isOpReturn;
@@ -41,12 +42,12 @@ public class UtxoDbType implements Serializable {
 	}
 
 	public static UtxoDbType fromDomain(Utxo utxo) {
-		return new UtxoDbType(utxo.getTxId(), utxo.getAddress().getAddress(), utxo.getScriptPubkey(), utxo.getAmount().toString(), utxo.isConfirmed(), utxo.getIndex(),
+		return new UtxoDbType(utxo.getTxId(), utxo.getAddress().getAddress(), utxo.getScriptPubkey(), utxo.getAmount(), utxo.isConfirmed(), utxo.getIndex(),
 				utxo.isOpReturn(),
 				utxo.getSlpUtxo().map(u -> new SlpUtxoType(u.getSlpTokenId().toString(),
 						u.getTokenTransactionType(),
 						u.getTokenType(),
-						u.getAmount().toString(),
+						u.getAmount(),
 						u.hasBaton(),
 						u.getTokenTicker(),
 						u.getSlpTokenName(),
@@ -79,12 +80,12 @@ public class UtxoDbType implements Serializable {
 		this.scriptPubkey = scriptPubkey;
 	}
 
-	public String getAmount() {
-		return amount;
+	public BigDecimal getAmount() {
+		return NumericSchema.toBigDecimal(amount);
 	}
 
-	public void setAmount(String amount) {
-		this.amount = amount;
+	public void setAmount(BigDecimal amount) {
+		this.amount = NumericSchema.satoshis(amount);
 	}
 
 	public boolean isConfirmations() {
@@ -133,7 +134,7 @@ public class UtxoDbType implements Serializable {
 
 	private String scriptPubkey;
 
-	private String amount;
+	private Object amount;
 
 	private boolean confirmations;
 
@@ -6,6 +6,7 @@ import com.bitcoin.indexer.blockchain.domain.Input;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
 import com.bitcoin.indexer.facade.validators.SlpValidatorFacade;
+import com.bitcoin.indexer.facade.validators.ValidationContext;
 
 public class FakeSlpValidator implements SlpValidatorFacade {
 
@@ -16,7 +17,7 @@ public class FakeSlpValidator implements SlpValidatorFacade {
 	}
 
 	@Override
-	public SlpValid isValid(String txId, String tokenId, String tokenType, List<Utxo> utxos, List<Input> inputs, SlpValidatorFacade baseValidator) {
+	public SlpValid isValid(String txId, String tokenId, String tokenType, List<Utxo> utxos, List<Input> inputs, ValidationContext context, SlpValidatorFacade baseValidator) {
 		if (valid) {
 			return SlpValid.valid("Always valid");
 		}
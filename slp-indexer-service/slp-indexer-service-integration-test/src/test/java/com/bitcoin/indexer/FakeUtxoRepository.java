@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.springframework.data.util.Pair;
@@ -11,17 +12,24 @@ import org.springframework.data.util.Pair;
 import com.bitcoin.indexer.blockchain.domain.Address;
 import com.bitcoin.indexer.blockchain.domain.Input;
 import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.TokenBalance;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.blockchain.domain.UtxoMinimalData;
+import com.bitcoin.indexer.blockchain.domain.UtxoSpend;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
 import com.bitcoin.indexer.repository.UtxoRepository;
 import com.bitcoin.indexer.core.Coin;
 
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Maybe;
 import io.reactivex.Single;
 
 public class FakeUtxoRepository implements UtxoRepository {
 	private final Map<String, Utxo> map = new HashMap<>();
+	private final List<UtxoSpend> spends = new ArrayList<>();
+	private int noCacheFetches = 0;
 
 	@Override
 	public Single<List<Utxo>> fetchUtxosFromAddress(Address address, Coin coin, boolean useCache, Valid parentValid) {
@@ -38,6 +46,11 @@ public class FakeUtxoRepository implements UtxoRepository {
 		return null;
 	}
 
+	@Override
+	public Single<List<SlpUtxo>> fetchSlpOutputsForAddress(Address address, Valid parentValid) {
+		return null;
+	}
+
 	@Override
 	public Maybe<Utxo> fetchUtxo(String txId, int inputIndex, Coin coin) {
 		Utxo utxo = map.get(txId + ":" + inputIndex);
@@ -58,6 +71,16 @@ public class FakeUtxoRepository implements UtxoRepository {
 		return null;
 	}
 
+	@Override
+	public Flowable<TokenBalance> fetchTokenBalances(String tokenId, Valid parentValidation) {
+		return Flowable.empty();
+	}
+
+	@Override
+	public Flowable<TokenBalance> fetchAddressBalances(Address address, Valid parentValidation) {
+		return Flowable.empty();
+	}
+
 	@Override
 	public Single<List<Utxo>> fetchUtxos(List<Pair<String, Integer>> txIdIndexs, Coin coin) {
 		return null;
@@ -65,12 +88,25 @@ public class FakeUtxoRepository implements UtxoRepository {
 
 	@Override
 	public Single<List<Utxo>> fetchUtxo(List<Input> inputs, Coin coin) {
-		return null;
+		List<Utxo> utxos = inputs.stream()
+				.map(i -> map.get(i.getTxId() + ":" + i.getIndex()))
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+		return Single.just(utxos);
 	}
 
 	@Override
 	public Single<List<Utxo>> fetchUtxoNoCache(List<Input> inputs, Coin coin) {
-		return null;
+		noCacheFetches++;
+		List<Utxo> utxos = inputs.stream()
+				.map(i -> map.get(i.getTxId() + ":" + i.getIndex()))
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+		return Single.just(utxos);
+	}
+
+	public int getNoCacheFetches() {
+		return noCacheFetches;
 	}
 
 	@Override
@@ -82,6 +118,20 @@ public class FakeUtxoRepository implements UtxoRepository {
 		return Single.just(utxos);
 	}
 
+	@Override
+	public Flowable<String> fetchAllOutpointKeys() {
+		return Flowable.fromIterable(new ArrayList<>(map.keySet()));
+	}
+
+	@Override
+	public Single<List<String>> fetchSpendingTxIds(List<String> txIds) {
+		return Single.just(spends.stream()
+				.filter(spend -> txIds.contains(spend.getTxId()))
+				.map(UtxoSpend::getSpendingTxId)
+				.distinct()
+				.collect(Collectors.toList()));
+	}
+
 	@Override
 	public Single<List<Utxo>> saveUtxo(List<Utxo> utxos, Coin coin) {
 		utxos.forEach(u -> {
@@ -92,8 +142,13 @@ public class FakeUtxoRepository implements UtxoRepository {
 	}
 
 	@Override
-	public Single<List<Utxo>> spendUtxo(List<Utxo> utxos, Coin coin) {
-		return null;
+	public Completable spendUtxos(List<UtxoSpend> spends, Coin coin) {
+		this.spends.addAll(spends);
+		return Completable.complete();
+	}
+
+	public List<UtxoSpend> getSpends() {
+		return spends;
 	}
 
 	@Override
@@ -8,11 +8,14 @@ import com.bitcoin.indexer.blockchain.domain.Address;
 import com.bitcoin.indexer.blockchain.domain.Block;
 import com.bitcoin.indexer.blockchain.domain.Input;
 import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.TokenBalance;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.blockchain.domain.UtxoMinimalData;
+import com.bitcoin.indexer.blockchain.domain.UtxoSpend;
 import com.bitcoin.indexer.blockchain.domain.slp.ExtendedDetails;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenDetails;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenId;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
 import com.bitcoin.indexer.core.Coin;
 import com.bitcoin.indexer.facade.BitcoinJConverters;
@@ -20,6 +23,8 @@ import com.bitcoin.indexer.repository.BlockRepository;
 import com.bitcoin.indexer.repository.SlpDetailsRepository;
 import com.bitcoin.indexer.repository.UtxoRepository;
 
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Maybe;
 import io.reactivex.Single;
 
@@ -67,6 +72,11 @@ public class TestBitcoinJConverter {
 			return null;
 		}
 
+		@Override
+		public Single<List<SlpUtxo>> fetchSlpOutputsForAddress(Address address, Valid parentValid) {
+			return null;
+		}
+
 		@Override
 		public Maybe<Utxo> fetchUtxo(String txId, int inputIndex, Coin coin) {
 			return Maybe.empty();
@@ -103,14 +113,34 @@ public class TestBitcoinJConverter {
 			return Single.just(List.of());
 		}
 
+		@Override
+		public Flowable<TokenBalance> fetchTokenBalances(String tokenId, Valid parentValidation) {
+			return Flowable.empty();
+		}
+
+		@Override
+		public Flowable<TokenBalance> fetchAddressBalances(Address address, Valid parentValidation) {
+			return Flowable.empty();
+		}
+
+		@Override
+		public Flowable<String> fetchAllOutpointKeys() {
+			return Flowable.empty();
+		}
+
+		@Override
+		public Single<List<String>> fetchSpendingTxIds(List<String> txIds) {
+			return Single.just(List.of());
+		}
+
 		@Override
 		public Single<List<Utxo>> saveUtxo(List<Utxo> utxos, Coin coin) {
 			return null;
 		}
 
 		@Override
-		public Single<List<Utxo>> spendUtxo(List<Utxo> utxos, Coin coin) {
-			return null;
+		public Completable spendUtxos(List<UtxoSpend> spends, Coin coin) {
+			return Completable.complete();
 		}
 
 		@Override
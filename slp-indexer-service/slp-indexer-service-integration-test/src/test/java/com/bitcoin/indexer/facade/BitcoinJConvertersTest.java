@@ -26,8 +26,10 @@ import org.springframework.data.util.Pair;
 
 import com.bitcoin.indexer.blockchain.domain.Address;
 import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.TokenBalance;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.blockchain.domain.UtxoMinimalData;
+import com.bitcoin.indexer.blockchain.domain.UtxoSpend;
 import com.bitcoin.indexer.blockchain.domain.slp.ExtendedDetails;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpOpReturnGenesis;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpOpReturnSend;
@@ -43,6 +45,8 @@ import com.bitcoin.indexer.repository.SlpDetailsRepository;
 import com.bitcoin.indexer.repository.UtxoRepository;
 
 import io.micrometer.core.instrument.util.IOUtils;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Maybe;
 import io.reactivex.Single;
 
@@ -99,6 +103,11 @@ public class BitcoinJConvertersTest {
 			return null;
 		}
 
+		@Override
+		public Single<List<SlpUtxo>> fetchSlpOutputsForAddress(Address address, Valid parentValid) {
+			return null;
+		}
+
 		@Override
 		public Maybe<Utxo> fetchUtxo(String txId, int inputIndex, Coin coin) {
 			return Maybe.empty();
@@ -135,15 +144,35 @@ public class BitcoinJConvertersTest {
 		}
 
 		@Override
-		public Single<List<Utxo>> saveUtxo(List<Utxo> utxos, Coin coin) {
+		public Flowable<TokenBalance> fetchTokenBalances(String tokenId, Valid parentValidation) {
+			return Flowable.empty();
+		}
+
+		@Override
+		public Flowable<TokenBalance> fetchAddressBalances(Address address, Valid parentValidation) {
+			return Flowable.empty();
+		}
+
+		@Override
+		public Flowable<String> fetchAllOutpointKeys() {
+			return Flowable.empty();
+		}
+
+		@Override
+		public Single<List<String>> fetchSpendingTxIds(List<String> txIds) {
 			return Single.just(List.of());
 		}
 
 		@Override
-		public Single<List<Utxo>> spendUtxo(List<Utxo> utxos, Coin coin) {
+		public Single<List<Utxo>> saveUtxo(List<Utxo> utxos, Coin coin) {
 			return Single.just(List.of());
 		}
 
+		@Override
+		public Completable spendUtxos(List<UtxoSpend> spends, Coin coin) {
+			return Completable.complete();
+		}
+
 		@Override
 		public Single<List<Utxo>> removeUtxo(List<Utxo> utxos, Coin coin) {
 			return Single.just(List.of());
@@ -0,0 +1,185 @@
+package com.bitcoin.indexer.facade;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpOpReturn;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenId;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
+import com.bitcoin.indexer.core.Coin;
+import com.bitcoin.indexer.facade.validators.InvalidationPropagator;
+import com.bitcoin.indexer.facade.validators.SlpValidatorFacade;
+import com.bitcoin.indexer.facade.validators.SlpValidityGraph;
+import com.bitcoin.indexer.facade.validators.ValidationContext;
+import com.bitcoin.indexer.repository.TransactionRepository;
+import com.bitcoin.indexer.repository.UtxoRepository;
+
+import io.reactivex.Single;
+
+public class InvalidationPropagatorTest {
+
+	private static final Address ADDRESS = Address.create("133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY");
+	private static final String TOKEN_ID = "6448381f9649ecacd8c30189cfbfee71a91b6b9738ea494fe33f8b8b51cbfca0";
+
+	// Invalid when a parent is invalid, the rule propagation relies on
+	private static final SlpValidatorFacade VALIDATOR = (txId, tokenId, tokenType, utxos, inputs, context, baseValidator) ->
+			inputs.stream().anyMatch(i -> context.parent(i.getTxId()).flatMap(p -> p.getSlpValid()).map(v -> v.getValid() == Valid.INVALID).orElse(false))
+					? SlpValid.invalid("Parent invalid")
+					: SlpValid.valid("ok");
+
+	private final Map<String, IndexerTransaction> stored = new HashMap<>();
+	private final Map<String, List<String>> spentBy = new HashMap<>();
+	private final List<List<String>> fetched = new ArrayList<>();
+	private final List<List<IndexerTransaction>> saved = new ArrayList<>();
+	private TransactionRepository transactionRepository;
+	private UtxoRepository utxoRepository;
+
+	@Before
+	public void setUp() {
+		transactionRepository = Mockito.mock(TransactionRepository.class);
+		utxoRepository = Mockito.mock(UtxoRepository.class);
+		Mockito.when(transactionRepository.fetchValidity(anyList())).thenReturn(Single.just(Map.of()));
+		Mockito.when(transactionRepository.fetchSlpData(anyList())).thenReturn(Single.just(Map.of()));
+		Mockito.when(transactionRepository.fetchTransactions(anyList(), any(Coin.class), anyBoolean())).thenAnswer(invocation -> {
+			List<String> txIds = invocation.getArgument(0);
+			fetched.add(txIds);
+			return Single.just(txIds.stream().map(stored::get).filter(Objects::nonNull).collect(Collectors.toList()));
+		});
+		Mockito.when(utxoRepository.fetchUtxo(anyList(), any(Coin.class))).thenReturn(Single.just(List.of()));
+		Mockito.when(utxoRepository.fetchSpendingTxIds(anyList())).thenAnswer(invocation -> {
+			List<String> txIds = invocation.getArgument(0);
+			return Single.just(txIds.stream()
+					.flatMap(txId -> spentBy.getOrDefault(txId, List.of()).stream())
+					.distinct()
+					.collect(Collectors.toList()));
+		});
+	}
+
+	@Test
+	public void long_chains_are_walked_without_recursion() {
+		int length = 5000;
+		store("c0", SlpValid.valid("ok"), "root");
+		for (int i = 1; i < length; i++) {
+			store("c" + i, SlpValid.valid("ok"), "c" + (i - 1));
+		}
+
+		List<IndexerTransaction> changed = propagate(10, send("root", SlpValid.invalid("bad"), "outside"));
+
+		assertThat(changed.size(), Matchers.is(length));
+		assertThat(changed.stream().allMatch(tx -> tx.getTransaction().getSlpValid().get().getValid() == Valid.INVALID), Matchers.is(true));
+		assertThat(saved.size(), Matchers.is(length));
+		Mockito.verify(transactionRepository, Mockito.never()).saveTransaction(anyList());
+	}
+
+	@Test
+	public void descendants_reached_twice_are_validated_once() {
+		store("left", SlpValid.valid("ok"), "root");
+		store("right", SlpValid.valid("ok"), "root");
+		store("joined", SlpValid.valid("ok"), "left", "right");
+
+		List<IndexerTransaction> changed = propagate(10, send("root", SlpValid.invalid("bad"), "outside"));
+
+		assertThat(txIds(changed), Matchers.containsInAnyOrder("left", "right", "joined"));
+		assertThat(fetched, Matchers.contains(List.of("left", "right"), List.of("joined")));
+		assertThat(saved.size(), Matchers.is(2));
+	}
+
+	@Test
+	public void levels_are_read_and_staged_in_chunks() {
+		for (int i = 0; i < 5; i++) {
+			store("c" + i, SlpValid.valid("ok"), "root");
+		}
+
+		propagate(2, send("root", SlpValid.invalid("bad"), "outside"));
+
+		assertThat(fetched, Matchers.contains(List.of("c0", "c1"), List.of("c2", "c3"), List.of("c4")));
+		assertThat(saved.stream().map(List::size).collect(Collectors.toList()), Matchers.contains(2, 2, 1));
+	}
+
+	@Test
+	public void only_changed_verdicts_lead_further() {
+		store("already", SlpValid.invalid("bad"), "root");
+		store("below", SlpValid.valid("ok"), "already");
+		store("unknown", SlpValid.unknown(), "root");
+		spentBy.computeIfAbsent("outside", k -> new ArrayList<>()).add("valid");
+
+		List<IndexerTransaction> changed = propagate(10, send("root", SlpValid.invalid("bad"), "outside"), send("valid", SlpValid.valid("ok"), "outside"));
+
+		assertThat(txIds(changed), Matchers.contains("unknown"));
+		assertThat(fetched, Matchers.contains(List.of("already", "unknown")));
+	}
+
+	@Test
+	public void valid_batches_read_nothing() {
+		store("child", SlpValid.valid("ok"), "root");
+
+		List<IndexerTransaction> changed = propagate(10, send("root", SlpValid.valid("ok"), "outside"));
+
+		assertThat(changed, Matchers.empty());
+		Mockito.verify(utxoRepository, Mockito.never()).fetchSpendingTxIds(anyList());
+	}
+
+	private List<IndexerTransaction> propagate(int chunkSize, IndexerTransaction... batch) {
+		List<IndexerTransaction> txs = Arrays.asList(batch);
+		ValidationContext context = ValidationContext.prefetch(txs, transactionRepository, utxoRepository, new SlpValidityGraph(1 << 20));
+		return new InvalidationPropagator(transactionRepository, utxoRepository, chunkSize).propagate(txs, context, VALIDATOR, saved::add);
+	}
+
+	private void store(String txId, SlpValid slpValid, String... spends) {
+		stored.put(txId, send(txId, slpValid, spends));
+		for (String spent : spends) {
+			spentBy.computeIfAbsent(spent, k -> new ArrayList<>()).add(txId);
+		}
+	}
+
+	private static List<String> txIds(List<IndexerTransaction> txs) {
+		return txs.stream().map(tx -> tx.getTransaction().getTxId()).collect(Collectors.toList());
+	}
+
+	private static IndexerTransaction send(String txId, SlpValid slpValid, String... spends) {
+		SlpOpReturn opReturn = SlpOpReturn.Companion.tryParse(txId, "6a04534c500001010453454e4420" + TOKEN_ID + "08" + "0000000000000064");
+		Utxo slpOutput = Utxo.create(txId, ADDRESS, "76a91411b366edfc0a8b66feebae5c2e25a7b6a5d1cf3188ac", BigDecimal.valueOf(546), false, 1, false,
+				Instant.ofEpochMilli(10), SlpUtxo.send(new SlpTokenId(TOKEN_ID), BigDecimal.valueOf(100), "", "", "PERMISSIONLESS", "01"), false, 100);
+		return IndexerTransaction.create(Transaction.create(txId,
+				List.of(Utxo.create(txId, ADDRESS, "6a", BigDecimal.ZERO, false, 0, false, Instant.ofEpochMilli(10), null, false, 100),
+						slpOutput),
+				Arrays.stream(spends).map(spent -> Input.unknownValue(ADDRESS, 1, spent, false, 1L)).collect(Collectors.toList()),
+				true,
+				BigDecimal.ZERO,
+				Instant.ofEpochMilli(10),
+				true,
+				null,
+				1,
+				List.of(opReturn),
+				slpValid,
+				"",
+				1,
+				1,
+				1,
+				null));
+	}
+}
@@ -33,6 +33,8 @@ import com.bitcoin.indexer.FakeUtxoRepository;
 import com.bitcoin.indexer.blockchain.domain.Address;
 import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
 import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.TransactionCursor;
+import com.bitcoin.indexer.blockchain.domain.TransactionSlpData;
 import com.bitcoin.indexer.blockchain.domain.Utxo;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpOpReturn;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
@@ -42,6 +44,8 @@ import com.bitcoin.indexer.facade.validators.MintValidatorAssumeParentValid;
 import com.bitcoin.indexer.facade.validators.SendValidatorAssumeParentValid;
 import com.bitcoin.indexer.facade.validators.SlpValidatorCustomImplAssumeParentValid;
 import com.bitcoin.indexer.facade.validators.SlpValidatorFacade;
+import com.bitcoin.indexer.facade.validators.SlpValidityGraph;
+import com.bitcoin.indexer.facade.validators.ValidationContext;
 import com.bitcoin.indexer.repository.TransactionRepository;
 import com.bitcoin.indexer.repository.UtxoRepository;
 import com.google.gson.JsonArray;
@@ -57,6 +61,8 @@ import io.reactivex.Single;
 @RunWith(Parameterized.class)
 public class SLPDBTestVectorTest {
 
+	private static final long GRAPH_BYTES = 1 << 20;
+
 	private final List<Pair<String, Boolean>> whenResult;
 	private final String shouldHex;
 	private final boolean shouldValid;
@@ -83,7 +89,7 @@ public class SLPDBTestVectorTest {
 			if (alwaysValidParent.isSlp()) {
 				SlpOpReturn slpOpReturn = alwaysValidParent.getSlpOpReturn().get(0);
 				IndexerTransaction value = IndexerTransaction.create(alwaysValidParent)
-						.withValid(preValidationFacade.isValid(hashAsString, slpOpReturn.getTokenId().getHex(), slpOpReturn.getTokenType().getType(), alwaysValidParent.getOutputs(), alwaysValidParent.getInputs(), slpValidatorFacade));
+						.withValid(preValidationFacade.isValid(hashAsString, slpOpReturn.getTokenId().getHex(), slpOpReturn.getTokenType().getType(), alwaysValidParent.getOutputs(), alwaysValidParent.getInputs(), null, slpValidatorFacade));
 				inMemory.put(alwaysValidParent.getTxId(), value);
 				utxoRepository.saveUtxo(value.getTransaction().getOutputs(), Coin.BCH);
 			}
@@ -109,7 +115,8 @@ public class SLPDBTestVectorTest {
 				}).collect(Collectors.toList());
 
 		if (!tx.getSlpOpReturn().isEmpty()) {
-			SlpValid valid = slpValidatorFacade.isValid(tx.getTxId(), tx.getSlpOpReturn().get(0).getTokenId().getHex(), tx.getSlpOpReturn().get(0).getTokenType().getType(), tx.getOutputs(), withValue, slpValidatorFacade);
+			SlpValid valid = slpValidatorFacade.isValid(tx.getTxId(), tx.getSlpOpReturn().get(0).getTokenId().getHex(), tx.getSlpOpReturn().get(0).getTokenType().getType(), tx.getOutputs(), withValue,
+					ValidationContext.prefetch(List.of(IndexerTransaction.create(tx)), transactionRepository, utxoRepository, new SlpValidityGraph(GRAPH_BYTES)), slpValidatorFacade);
 			tx = IndexerTransaction.create(tx).withValid(valid).getTransaction();
 		}
 
@@ -157,11 +164,36 @@ public class SLPDBTestVectorTest {
 			return null;
 		}
 
+		@Override
+		public Single<Map<String, SlpValid>> fetchValidity(List<String> txIds) {
+			Map<String, SlpValid> validity = new HashMap<>();
+			txIds.stream().filter(inMemory::containsKey)
+					.forEach(txId -> inMemory.get(txId).getTransaction().getSlpValid().ifPresent(valid -> validity.put(txId, valid)));
+			return Single.just(validity);
+		}
+
+		@Override
+		public Maybe<TransactionSlpData> fetchSlpData(String txId) {
+			return fetchTransaction(txId, Coin.BCH, true).map(e -> TransactionSlpData.fromTransaction(e.getTransaction()));
+		}
+
+		@Override
+		public Single<Map<String, TransactionSlpData>> fetchSlpData(List<String> txIds) {
+			Map<String, TransactionSlpData> slpData = new HashMap<>();
+			txIds.forEach(txId -> fetchSlpData(txId).subscribe(data -> slpData.put(txId, data)));
+			return Single.just(slpData);
+		}
+
 		@Override
 		public Single<List<IndexerTransaction>> fetchTransactionsInvolvingToken(String tokenId, boolean useCache, int page) {
 			return null;
 		}
 
+		@Override
+		public Single<List<IndexerTransaction>> fetchTransactionsInvolvingToken(String tokenId, TransactionCursor after) {
+			return null;
+		}
+
 		@Override
 		public Single<List<String>> fetchTransactionIdsByAddress(String address, Coin coin) {
 			return null;
@@ -192,6 +224,11 @@ public class SLPDBTestVectorTest {
 			return null;
 		}
 
+		@Override
+		public Flowable<IndexerTransaction> fetchTransactions(Integer height, String tokenId, TransactionCursor after, Coin coin) {
+			return null;
+		}
+
 		@Override
 		public Single<List<IndexerTransaction>> saveTransaction(List<IndexerTransaction> indexerTransaction) {
 
@@ -210,10 +247,9 @@ public class SLPDBTestVectorTest {
 	@Before
 	public void setup() {
 		utxoRepository = new FakeUtxoRepository();
-		slpValidatorFacade = new SlpValidatorCustomImplAssumeParentValid(transactionRepository,
-				new MintValidatorAssumeParentValid(transactionRepository, utxoRepository),
-				new SendValidatorAssumeParentValid(transactionRepository, utxoRepository),
-				new GenesisValidatorAssumeParentValid(transactionRepository, utxoRepository));
+		slpValidatorFacade = new SlpValidatorCustomImplAssumeParentValid(new MintValidatorAssumeParentValid(),
+				new SendValidatorAssumeParentValid(),
+				new GenesisValidatorAssumeParentValid());
 		bitcoinJConverters = new BitcoinJConverters(new FakeInMemoryDetails(), new FakeUtxoRepository(), Coin.BCH, new FakeBlockRepo());
 		changeAbleValidation = new BitcoinJConverters(new FakeInMemoryDetails(), new FakeUtxoRepository(), Coin.BCH, new FakeBlockRepo());
 	}
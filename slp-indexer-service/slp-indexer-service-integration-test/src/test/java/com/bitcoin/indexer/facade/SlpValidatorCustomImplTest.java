@@ -21,6 +21,8 @@ import com.bitcoin.indexer.FakeInMemoryDetails;
 import com.bitcoin.indexer.FakeUtxoRepository;
 import com.bitcoin.indexer.blockchain.domain.Address;
 import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.TransactionCursor;
+import com.bitcoin.indexer.blockchain.domain.TransactionSlpData;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpOpReturn;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenDetails;
 import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenId;
@@ -30,6 +32,8 @@ import com.bitcoin.indexer.facade.validators.MintValidatorAssumeParentValid;
 import com.bitcoin.indexer.facade.validators.SendValidatorAssumeParentValid;
 import com.bitcoin.indexer.facade.validators.SlpValidatorCustomImplAssumeParentValid;
 import com.bitcoin.indexer.facade.validators.SlpValidatorFacade;
+import com.bitcoin.indexer.facade.validators.SlpValidityGraph;
+import com.bitcoin.indexer.facade.validators.ValidationContext;
 import com.bitcoin.indexer.repository.TransactionRepository;
 import com.bitcoin.indexer.core.Coin;
 
@@ -41,6 +45,8 @@ import io.reactivex.Single;
 @Ignore
 public class SlpValidatorCustomImplTest {
 
+	private static final long GRAPH_BYTES = 1 << 20;
+
 	private Map<String, IndexerTransaction> inMemory = new HashMap<>();
 	private BitcoinJConverters bitcoinJConverters;
 	private FakeInMemoryDetails fakeInMemoryDetails;
@@ -62,11 +68,36 @@ public class SlpValidatorCustomImplTest {
 			return null;
 		}
 
+		@Override
+		public Single<Map<String, SlpValid>> fetchValidity(List<String> txIds) {
+			Map<String, SlpValid> validity = new HashMap<>();
+			txIds.stream().filter(inMemory::containsKey)
+					.forEach(txId -> inMemory.get(txId).getTransaction().getSlpValid().ifPresent(valid -> validity.put(txId, valid)));
+			return Single.just(validity);
+		}
+
+		@Override
+		public Maybe<TransactionSlpData> fetchSlpData(String txId) {
+			return fetchTransaction(txId, Coin.BCH, true).map(e -> TransactionSlpData.fromTransaction(e.getTransaction()));
+		}
+
+		@Override
+		public Single<Map<String, TransactionSlpData>> fetchSlpData(List<String> txIds) {
+			Map<String, TransactionSlpData> slpData = new HashMap<>();
+			txIds.forEach(txId -> fetchSlpData(txId).subscribe(data -> slpData.put(txId, data)));
+			return Single.just(slpData);
+		}
+
 		@Override
 		public Single<List<IndexerTransaction>> fetchTransactionsInvolvingToken(String tokenId, boolean useCache, int page) {
 			return null;
 		}
 
+		@Override
+		public Single<List<IndexerTransaction>> fetchTransactionsInvolvingToken(String tokenId, TransactionCursor after) {
+			return null;
+		}
+
 		@Override
 		public Single<List<String>> fetchTransactionIdsByAddress(String address, Coin coin) {
 			return null;
@@ -97,6 +128,11 @@ public class SlpValidatorCustomImplTest {
 			return null;
 		}
 
+		@Override
+		public Flowable<IndexerTransaction> fetchTransactions(Integer height, String tokenId, TransactionCursor after, Coin coin) {
+			return null;
+		}
+
 		@Override
 		public Single<List<IndexerTransaction>> saveTransaction(List<IndexerTransaction> indexerTransaction) {
 
@@ -116,10 +152,9 @@ public class SlpValidatorCustomImplTest {
 	public void setup() {
 		inMemory.clear();
 		fakeUtxoRepository = new FakeUtxoRepository();
-		validatorFacade = new SlpValidatorCustomImplAssumeParentValid(transactionRepository,
-				new MintValidatorAssumeParentValid(transactionRepository, fakeUtxoRepository),
-				new SendValidatorAssumeParentValid(transactionRepository, fakeUtxoRepository),
-				new GenesisValidatorAssumeParentValid(transactionRepository, fakeUtxoRepository));
+		validatorFacade = new SlpValidatorCustomImplAssumeParentValid(new MintValidatorAssumeParentValid(),
+				new SendValidatorAssumeParentValid(),
+				new GenesisValidatorAssumeParentValid());
 		fakeInMemoryDetails = new FakeInMemoryDetails();
 		bitcoinJConverters = new BitcoinJConverters(fakeInMemoryDetails, new FakeUtxoRepository(), Coin.BCH, new FakeBlockRepo());
 	}
@@ -129,7 +164,7 @@ public class SlpValidatorCustomImplTest {
 		Transaction transaction = new Transaction(MainNetParams.get(), Hex.decode(slpGenesis()));
 		com.bitcoin.indexer.blockchain.domain.Transaction genesis = bitcoinJConverters.transaction(transaction, MainNetParams.get(), 0, false, "", Instant.ofEpochMilli(1000), Instant.ofEpochMilli(1000));
 		SlpOpReturn slpOpReturn = genesis.getSlpOpReturn().get(0);
-		SlpValid valid = validatorFacade.isValid(genesis.getTxId(), slpOpReturn.getTokenId().getHex(), slpOpReturn.getTokenType().getType(), genesis.getOutputs(), genesis.getInputs(), validatorFacade);
+		SlpValid valid = validatorFacade.isValid(genesis.getTxId(), slpOpReturn.getTokenId().getHex(), slpOpReturn.getTokenType().getType(), genesis.getOutputs(), genesis.getInputs(), context(genesis), validatorFacade);
 		assertThat(valid.getValid(), Matchers.is(SlpValid.Valid.VALID));
 	}
 
@@ -143,7 +178,7 @@ public class SlpValidatorCustomImplTest {
 		Transaction sendAfterGenesis = new Transaction(MainNetParams.get(), Hex.decode(slpSendAfterGenesis()));
 		com.bitcoin.indexer.blockchain.domain.Transaction send = bitcoinJConverters.transaction(sendAfterGenesis, MainNetParams.get(), 0, false, "", Instant.ofEpochMilli(1000), Instant.ofEpochMilli(1000));
 		SlpOpReturn slpOpReturn = genesis.getSlpOpReturn().get(0);
-		SlpValid valid = validatorFacade.isValid(send.getTxId(), slpOpReturn.getTokenId().getHex(), slpOpReturn.getTokenType().getType(), send.getOutputs(), send.getInputs(), validatorFacade);
+		SlpValid valid = validatorFacade.isValid(send.getTxId(), slpOpReturn.getTokenId().getHex(), slpOpReturn.getTokenType().getType(), send.getOutputs(), send.getInputs(), context(send), validatorFacade);
 
 		assertThat(valid.getValid(), Matchers.is(SlpValid.Valid.VALID));
 	}
@@ -169,7 +204,7 @@ public class SlpValidatorCustomImplTest {
 		com.bitcoin.indexer.blockchain.domain.Transaction tx = this.bitcoinJConverters.transaction(errorTx, MainNetParams.get(), 1, false, null, Instant.now(), null);
 
 		SlpOpReturn slpOpReturn = tx.getSlpOpReturn().get(0);
-		SlpValid valid = validatorFacade.isValid(tx.getTxId(), slpOpReturn.getTokenId().getHex(), slpOpReturn.getTokenType().getType(), tx.getOutputs(), tx.getInputs(), validatorFacade);
+		SlpValid valid = validatorFacade.isValid(tx.getTxId(), slpOpReturn.getTokenId().getHex(), slpOpReturn.getTokenType().getType(), tx.getOutputs(), tx.getInputs(), context(tx), validatorFacade);
 
 		assertThat(valid.getValid(), Matchers.is(SlpValid.Valid.VALID));
 	}
@@ -211,7 +246,7 @@ public class SlpValidatorCustomImplTest {
 		com.bitcoin.indexer.blockchain.domain.Transaction minted = bitcoinJConverters.transaction(m, MainNetParams.get(), 0, false, "", Instant.ofEpochMilli(1000), Instant.ofEpochMilli(1000));
 
 		SlpOpReturn slpOpReturn = minted.getSlpOpReturn().get(0);
-		SlpValid valid = validatorFacade.isValid(minted.getTxId(), slpOpReturn.getTokenId().getHex(), slpOpReturn.getTokenType().getType(), minted.getOutputs(), minted.getInputs(), validatorFacade);
+		SlpValid valid = validatorFacade.isValid(minted.getTxId(), slpOpReturn.getTokenId().getHex(), slpOpReturn.getTokenType().getType(), minted.getOutputs(), minted.getInputs(), context(minted), validatorFacade);
 
 		assertThat(valid.getValid(), Matchers.is(SlpValid.Valid.VALID));
 	}
@@ -236,7 +271,7 @@ public class SlpValidatorCustomImplTest {
 		com.bitcoin.indexer.blockchain.domain.Transaction minted = bitcoinJConverters.transaction(m, MainNetParams.get(), 0, false, "", Instant.ofEpochMilli(1000), Instant.ofEpochMilli(1000));
 
 		SlpOpReturn slpOpReturn = minted.getSlpOpReturn().get(0);
-		SlpValid valid = validatorFacade.isValid(minted.getTxId(), slpOpReturn.getTokenId().getHex(), slpOpReturn.getTokenType().getType(), minted.getOutputs(), minted.getInputs(), validatorFacade);
+		SlpValid valid = validatorFacade.isValid(minted.getTxId(), slpOpReturn.getTokenId().getHex(), slpOpReturn.getTokenType().getType(), minted.getOutputs(), minted.getInputs(), context(minted), validatorFacade);
 
 		assertThat(valid.getValid(), Matchers.is(SlpValid.Valid.VALID));
 	}
@@ -295,4 +330,8 @@ public class SlpValidatorCustomImplTest {
 		return
 				"01000000029600ea4b714aaeff14337d93fd93616b4cd3ab662da22ec029d4129137e5ab19030000006a473044022042283ae96de58daaefbf08ada11cc18135a576cfbc3d13ef5cd79e55dbd836190220020d4c437bd5d77db0efb6312f2425541e1f7e5cb980a3542a4bbad091489caf4121034f5de781568c1b8be8cb217236d57f21db8bf063619193b7105e67800bfeed16feffffff7cb991eaa4c8f8b26f1b693caa742b00fd18d983ffe2bbf196911ae9502b0013020000006b483045022100aec02e4a6eae633ca81355a7dd983f4db6e784cc74e6707b82383aa45083754a022017cf7e94e666412d14a199e31bbdb9d2fb9c23428d80fb3a1d28ac2b4cdbd4684121030ab23eaa46c337932116d690d4663dc959f56e9e5f5bfaa2c349d38a6dfafee5feffffff040000000000000000406a04534c500001010453454e442097d826999299f29cdeafa1352e2836f6ce223920a43221e57e3e06c879675afa08000000000000006408000000000001863a22020000000000001976a9143c365e097639d884148a01c7601802f7cb9b8d5888ac22020000000000001976a914de6d2e86a65b635ced4c03587aaf746fdec88b7d88ac928e0400000000001976a9146e26c90e6100f546262d8727e8d6e7c9c4d40c3488ac8d1b0900";
 	}
-}
\ No newline at end of file
+
+	private ValidationContext context(com.bitcoin.indexer.blockchain.domain.Transaction transaction) {
+		return ValidationContext.prefetch(List.of(IndexerTransaction.create(transaction)), transactionRepository, fakeUtxoRepository, new SlpValidityGraph(GRAPH_BYTES));
+	}
+}
@@ -0,0 +1,93 @@
+package com.bitcoin.indexer.facade;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import com.bitcoin.indexer.blockchain.domain.TransactionSlpData;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenId;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
+import com.bitcoin.indexer.facade.validators.SlpValidityGraph;
+
+public class SlpValidityGraphTest {
+
+	private static final String TOKEN_ID = "6448381f9649ecacd8c30189cfbfee71a91b6b9738ea494fe33f8b8b51cbfca0";
+
+	@Test
+	public void keeps_validity_amounts_and_batons_by_output() {
+		SlpValidityGraph graph = new SlpValidityGraph(1 << 20);
+		String txId = txId(1);
+		graph.put(TransactionSlpData.create(txId, SlpValid.valid("ok"),
+				List.of(Optional.empty(), slp(new BigDecimal("12.345"), false, "MINT"), Optional.empty(), slp(new BigDecimal("18446744073709551615"), true, "MINT")),
+				List.of()));
+
+		TransactionSlpData slpData = graph.get(txId).get();
+
+		assertThat(slpData.getTxId(), Matchers.is(txId));
+		assertThat(slpData.getSlpValid().get().getValid(), Matchers.is(Valid.VALID));
+		assertThat(slpData.getSlpOutput(0).isPresent(), Matchers.is(false));
+		assertThat(slpData.getSlpOutput(2).isPresent(), Matchers.is(false));
+		SlpUtxo first = slpData.getSlpOutput(1).get();
+		assertThat(first.getAmount(), Matchers.is(new BigDecimal("12.345")));
+		assertThat(first.hasBaton(), Matchers.is(false));
+		assertThat(first.getSlpTokenId().getHex(), Matchers.is(TOKEN_ID));
+		assertThat(first.getTokenType(), Matchers.is("NFT1_GENESIS"));
+		assertThat(first.getTokenTypeHex(), Matchers.is("81"));
+		assertThat(first.getTokenTransactionType(), Matchers.is("MINT"));
+		SlpUtxo baton = slpData.getSlpOutput(3).get();
+		assertThat(baton.getAmount(), Matchers.is(new BigDecimal("18446744073709551615")));
+		assertThat(baton.hasBaton(), Matchers.is(true));
+	}
+
+	@Test
+	public void evicts_to_stay_within_the_byte_budget() throws InterruptedException {
+		SlpValidityGraph graph = new SlpValidityGraph(10_000);
+		for (int i = 0; i < 1000; i++) {
+			graph.put(TransactionSlpData.create(txId(i), SlpValid.unknown(), List.of(Optional.empty(), slp(BigDecimal.ONE, false, "SEND")), List.of()));
+		}
+		// Caffeine evicts in the background
+		for (int i = 0; i < 100 && graph.sizeInBytes() > 10_000L; i++) {
+			Thread.sleep(10);
+		}
+
+		assertThat(graph.sizeInBytes(), Matchers.lessThanOrEqualTo(10_000L));
+		assertThat(graph.sizeInBytes(), Matchers.greaterThan(0L));
+	}
+
+	@Test
+	public void only_txids_and_tokens_it_can_hold_exactly_are_kept() {
+		SlpValidityGraph graph = new SlpValidityGraph(1 << 20);
+		graph.put(TransactionSlpData.create("short", SlpValid.unknown(), List.of(slp(BigDecimal.ONE, false, "SEND")), List.of()));
+		graph.put(TransactionSlpData.create(txId(1), SlpValid.unknown(), List.of(slp(new BigDecimal("-1"), false, "SEND")), List.of()));
+		graph.put(TransactionSlpData.create(txId(2).toUpperCase(), SlpValid.unknown(), List.of(slp(BigDecimal.ONE, false, "SEND")), List.of()));
+
+		assertThat(graph.get("short").isPresent(), Matchers.is(false));
+		assertThat(graph.get(txId(1)).isPresent(), Matchers.is(false));
+		assertThat(graph.get(txId(2).toUpperCase()).get().getTxId(), Matchers.is(txId(2).toUpperCase()));
+	}
+
+	@Test
+	public void reorged_transactions_are_removed() {
+		SlpValidityGraph graph = new SlpValidityGraph(1 << 20);
+		graph.put(TransactionSlpData.create(txId(1), SlpValid.valid("ok"), List.of(), List.of()));
+
+		graph.invalidate(List.of(txId(1), "short"));
+
+		assertThat(graph.get(txId(1)).isPresent(), Matchers.is(false));
+	}
+
+	private static String txId(int i) {
+		return String.format("%064x", i);
+	}
+
+	private static Optional<SlpUtxo> slp(BigDecimal amount, boolean baton, String transactionType) {
+		return Optional.of(SlpUtxo.create(new SlpTokenId(TOKEN_ID), amount, baton, "TICK", transactionType, "name", "NFT1_GENESIS", "81", SlpValid.unknown()));
+	}
+}
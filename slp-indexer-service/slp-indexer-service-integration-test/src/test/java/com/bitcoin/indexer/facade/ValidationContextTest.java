@@ -0,0 +1,167 @@
+package com.bitcoin.indexer.facade;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.TransactionSlpData;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpOpReturn;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenId;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
+import com.bitcoin.indexer.core.Coin;
+import com.bitcoin.indexer.facade.validators.SlpValidityGraph;
+import com.bitcoin.indexer.facade.validators.ValidationContext;
+import com.bitcoin.indexer.repository.TransactionRepository;
+import com.bitcoin.indexer.repository.UtxoRepository;
+
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+
+public class ValidationContextTest {
+
+	private static final Address ADDRESS = Address.create("133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY");
+	private static final String TOKEN_ID = "6448381f9649ecacd8c30189cfbfee71a91b6b9738ea494fe33f8b8b51cbfca0";
+
+	private TransactionRepository transactionRepository;
+	private UtxoRepository utxoRepository;
+	private SlpValidityGraph validityGraph;
+
+	@Before
+	public void setUp() {
+		transactionRepository = Mockito.mock(TransactionRepository.class);
+		utxoRepository = Mockito.mock(UtxoRepository.class);
+		validityGraph = new SlpValidityGraph(1 << 20);
+		Mockito.when(transactionRepository.fetchValidity(anyList())).thenReturn(Single.just(Map.of()));
+		Mockito.when(transactionRepository.fetchSlpData(anyList())).thenReturn(Single.just(Map.of()));
+		Mockito.when(utxoRepository.fetchUtxo(anyList(), any(Coin.class))).thenReturn(Single.just(List.of()));
+	}
+
+	@Test
+	public void parents_and_spent_outputs_are_read_once_for_the_batch() {
+		List<IndexerTransaction> batch = List.of(
+				send("first", Input.unknownValue(ADDRESS, 1, "parent", false, 1L), Input.unknownValue(ADDRESS, 2, "parent", false, 1L)),
+				send("second", Input.unknownValue(ADDRESS, 1, "first", false, 1L), Input.unknownValue(ADDRESS, 0, "other", false, 1L)));
+
+		ValidationContext context = ValidationContext.prefetch(batch, transactionRepository, utxoRepository, validityGraph);
+		context.parent("parent");
+		context.parent("other");
+		context.spentOutput("parent", 1);
+		context.spentOutput("other", 0);
+		context.verdict("second");
+
+		Mockito.verify(transactionRepository).fetchValidity(List.of("first", "second"));
+		Mockito.verify(transactionRepository).fetchSlpData(List.of("parent", "other"));
+		Mockito.verify(utxoRepository).fetchUtxo(Mockito.<List<Input>>argThat(inputs -> inputs.size() == 3), any(Coin.class));
+		Mockito.verify(transactionRepository, Mockito.never()).fetchSlpData(anyString());
+		Mockito.verify(utxoRepository, Mockito.never()).fetchUtxo(anyString(), anyInt(), any(Coin.class));
+		Mockito.verifyNoMoreInteractions(transactionRepository, utxoRepository);
+	}
+
+	@Test
+	public void batch_transactions_are_served_from_the_batch() {
+		IndexerTransaction first = send("first", Input.unknownValue(ADDRESS, 1, "parent", false, 1L));
+		ValidationContext context = ValidationContext.prefetch(List.of(first), transactionRepository, utxoRepository, validityGraph);
+
+		assertThat(context.parent("first").get().getSlpOutput(1).isPresent(), Matchers.is(true));
+		assertThat(context.spentOutput("first", 1).get().getAmount(), Matchers.comparesEqualTo(BigDecimal.valueOf(546)));
+		assertThat(context.spentOutput("first", 0).isPresent(), Matchers.is(false));
+		assertThat(context.transaction("first").get(), Matchers.sameInstance(first));
+		Mockito.verify(transactionRepository, Mockito.never()).fetchTransaction(anyString(), any(Coin.class), anyBoolean());
+	}
+
+	@Test
+	public void recorded_verdicts_are_seen_by_the_rest_of_the_batch() {
+		IndexerTransaction first = send("first", Input.unknownValue(ADDRESS, 1, "parent", false, 1L));
+		ValidationContext context = ValidationContext.prefetch(List.of(first), transactionRepository, utxoRepository, validityGraph);
+		assertThat(context.verdict("first").isPresent(), Matchers.is(false));
+
+		context.record(send("first", SlpValid.valid("ok"), Input.unknownValue(ADDRESS, 1, "parent", false, 1L)));
+
+		assertThat(context.verdict("first").get().getValid(), Matchers.is(SlpValid.Valid.VALID));
+		assertThat(context.transaction("first").get().getTransaction().getSlpValid().get().getValid(), Matchers.is(SlpValid.Valid.VALID));
+	}
+
+	@Test
+	public void lookups_outside_the_batch_are_read_once() {
+		TransactionSlpData stored = TransactionSlpData.fromTransaction(send("stored", Input.unknownValue(ADDRESS, 0, "parent", false, 1L)).getTransaction());
+		Mockito.when(transactionRepository.fetchSlpData("stored")).thenReturn(Maybe.just(stored));
+		ValidationContext context = ValidationContext.prefetch(List.of(send("first", Input.unknownValue(ADDRESS, 0, "parent", false, 1L))), transactionRepository, utxoRepository, validityGraph);
+
+		context.parent("stored");
+		context.parent("stored");
+
+		Mockito.verify(transactionRepository, Mockito.times(1)).fetchSlpData("stored");
+	}
+
+	@Test
+	public void parents_in_the_validity_graph_are_not_read() {
+		String parentTxId = "7777777777777777777777777777777777777777777777777777777777777777";
+		validityGraph.put(send(parentTxId, SlpValid.valid("ok"), Input.unknownValue(ADDRESS, 0, "outside", false, 1L)).getTransaction());
+		ValidationContext context = ValidationContext.prefetch(List.of(send("first", Input.unknownValue(ADDRESS, 1, parentTxId, false, 1L))),
+				transactionRepository, utxoRepository, validityGraph);
+
+		TransactionSlpData parent = context.parent(parentTxId).get();
+
+		assertThat(parent.getSlpValid().get().getValid(), Matchers.is(SlpValid.Valid.VALID));
+		assertThat(parent.getSlpOutput(1).get().getSlpTokenId().getHex(), Matchers.is(TOKEN_ID));
+		Mockito.verify(transactionRepository, Mockito.never()).fetchSlpData(anyList());
+		Mockito.verify(transactionRepository, Mockito.never()).fetchSlpData(anyString());
+	}
+
+	@Test
+	public void recorded_slp_transactions_enter_the_validity_graph() {
+		String txId = "8888888888888888888888888888888888888888888888888888888888888888";
+		IndexerTransaction transaction = send(txId, Input.unknownValue(ADDRESS, 1, "parent", false, 1L));
+		ValidationContext context = ValidationContext.prefetch(List.of(transaction), transactionRepository, utxoRepository, validityGraph);
+
+		context.record(send(txId, SlpValid.invalid("no"), Input.unknownValue(ADDRESS, 1, "parent", false, 1L)));
+
+		assertThat(validityGraph.get(txId).get().getSlpValid().get().getValid(), Matchers.is(SlpValid.Valid.INVALID));
+	}
+
+	private static IndexerTransaction send(String txId, Input... inputs) {
+		return send(txId, SlpValid.unknown(), inputs);
+	}
+
+	private static IndexerTransaction send(String txId, SlpValid slpValid, Input... inputs) {
+		SlpOpReturn opReturn = SlpOpReturn.Companion.tryParse(txId, "6a04534c500001010453454e4420" + TOKEN_ID + "08" + "0000000000000064");
+		Utxo slpOutput = Utxo.create(txId, ADDRESS, "76a91411b366edfc0a8b66feebae5c2e25a7b6a5d1cf3188ac", BigDecimal.valueOf(546), false, 1, false,
+				Instant.ofEpochMilli(10), SlpUtxo.send(new SlpTokenId(TOKEN_ID), BigDecimal.valueOf(100), "", "", "PERMISSIONLESS", "01"), false, 100);
+		return IndexerTransaction.create(Transaction.create(txId,
+				List.of(Utxo.create(txId, ADDRESS, "6a", BigDecimal.ZERO, false, 0, false, Instant.ofEpochMilli(10), null, false, 100),
+						slpOutput),
+				List.of(inputs),
+				false,
+				BigDecimal.ZERO,
+				Instant.ofEpochMilli(10),
+				false,
+				null,
+				null,
+				List.of(opReturn),
+				slpValid,
+				"",
+				1,
+				1,
+				1,
+				null));
+	}
+}
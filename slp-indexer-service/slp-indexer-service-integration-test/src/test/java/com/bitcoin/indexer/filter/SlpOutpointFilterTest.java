@@ -0,0 +1,85 @@
+package com.bitcoin.indexer.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import com.bitcoin.indexer.FakeUtxoRepository;
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.core.Coin;
+
+public class SlpOutpointFilterTest {
+
+	private static final String STORED_TX = "cfbba5a04f23049b63941e3ff5d57aa1431671281f2e3ade1a7050ffdd284377";
+	private static final String NEW_TX = "282b861e411dc3b61aa06e9e13abf49bce5c571e21a19c37f738244cee33b778";
+
+	@Test
+	public void answers_maybe_until_rebuilt() {
+		SlpOutpointFilter filter = new SlpOutpointFilter(new FakeUtxoRepository(), 1000, 0.01);
+
+		assertThat(filter.mightContainAny(List.of(input(NEW_TX, 0))), Matchers.is(true));
+	}
+
+	@Test
+	public void rebuild_and_put() throws Exception {
+		FakeUtxoRepository utxoRepository = new FakeUtxoRepository();
+		utxoRepository.saveUtxo(List.of(utxo(STORED_TX, 1)), Coin.BCH).blockingGet();
+		SlpOutpointFilter filter = new SlpOutpointFilter(utxoRepository, 1000, 0.01);
+
+		filter.rebuild();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!filter.isReady() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertThat(filter.isReady(), Matchers.is(true));
+		assertThat(filter.mightContainAny(List.of(input(STORED_TX, 1))), Matchers.is(true));
+		assertThat(filter.mightContainAny(List.of(input(NEW_TX, 0))), Matchers.is(false));
+
+		filter.put(List.of(utxo(NEW_TX, 0)));
+
+		assertThat(filter.mightContainAny(List.of(input(STORED_TX, 0), input(NEW_TX, 0))), Matchers.is(true));
+	}
+
+	@Test
+	public void saturated_filter_is_rebuilt_with_room_to_grow() throws Exception {
+		FakeUtxoRepository utxoRepository = new FakeUtxoRepository();
+		utxoRepository.saveUtxo(List.of(utxo(STORED_TX, 1)), Coin.BCH).blockingGet();
+		SlpOutpointFilter filter = new SlpOutpointFilter(utxoRepository, 10, 0.01);
+		filter.rebuild();
+		awaitReady(filter);
+
+		filter.put(IntStream.range(0, 30).mapToObj(i -> utxo(NEW_TX, i)).collect(Collectors.toList()));
+		long deadline = System.currentTimeMillis() + 5000;
+		while (filter.getCapacity() == 10 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertThat(filter.getCapacity(), Matchers.greaterThan(40L));
+		assertThat(filter.mightContainAny(List.of(input(STORED_TX, 1))), Matchers.is(true));
+	}
+
+	private static void awaitReady(SlpOutpointFilter filter) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!filter.isReady() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	private static Input input(String txId, int index) {
+		return Input.unknownValue(Address.create("132aSc15WmoPwtMbqRVzouZKNnjWL1YTVb"), index, txId, false, 1L);
+	}
+
+	private static Utxo utxo(String txId, int index) {
+		return Utxo.create(txId, Address.create("133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY"), "", BigDecimal.ONE, false, index, false, Instant.ofEpochMilli(10), null, false, null);
+	}
+}
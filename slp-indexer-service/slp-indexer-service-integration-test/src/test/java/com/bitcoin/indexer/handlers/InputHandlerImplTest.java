@@ -0,0 +1,79 @@
+package com.bitcoin.indexer.handlers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import com.bitcoin.indexer.FakeUtxoRepository;
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.blockchain.domain.UtxoSpend;
+import com.bitcoin.indexer.core.Coin;
+
+public class InputHandlerImplTest {
+
+	private static final Address ADDRESS = Address.create("133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY");
+
+	@Test
+	public void spends_by_outpoint_without_reading_and_upserts_only_pending_outputs() {
+		FakeUtxoRepository utxoRepository = new FakeUtxoRepository();
+		InputHandlerImpl inputHandler = new InputHandlerImpl(utxoRepository, Coin.BCH);
+
+		inputHandler.spendInputs(List.of(child()), Set.of("pending:1")).blockingAwait();
+
+		List<UtxoSpend> spends = utxoRepository.getSpends();
+		assertThat(spends.stream().map(s -> s.getTxId() + ":" + s.getIndex()).collect(Collectors.toList()), Matchers.contains("stored:0", "pending:1", "unknown:5"));
+		assertThat(spends.stream().map(UtxoSpend::getSpendingVin).collect(Collectors.toList()), Matchers.contains(0, 1, 2));
+		assertThat(spends.stream().allMatch(s -> s.getSpendingTxId().equals("child")), Matchers.is(true));
+		assertThat(spends.stream().map(UtxoSpend::isPending).collect(Collectors.toList()), Matchers.contains(false, true, false));
+		assertThat(utxoRepository.getNoCacheFetches(), Matchers.is(0));
+	}
+
+	@Test
+	public void resolves_values_from_pending_outputs_and_store() {
+		FakeUtxoRepository utxoRepository = new FakeUtxoRepository();
+		utxoRepository.saveUtxo(List.of(utxo("stored", 0, BigDecimal.TEN)), Coin.BCH).blockingGet();
+		InputHandlerImpl inputHandler = new InputHandlerImpl(utxoRepository, Coin.BCH);
+
+		List<Input> inputs = inputHandler.resolveInputs(child(), Map.of("pending:1", utxo("pending", 1, BigDecimal.ONE))).blockingGet();
+
+		Map<String, BigDecimal> values = inputs.stream().collect(Collectors.toMap(i -> i.getTxId() + ":" + i.getIndex(), i -> i.getAmount().get()));
+		assertThat(values, Matchers.is(Map.of("stored:0", BigDecimal.TEN, "pending:1", BigDecimal.ONE)));
+	}
+
+	private static Utxo utxo(String txId, int index, BigDecimal amount) {
+		return Utxo.create(txId, ADDRESS, "", amount, false, index, false, Instant.ofEpochMilli(10), null, false, null);
+	}
+
+	private static IndexerTransaction child() {
+		return IndexerTransaction.create(Transaction.create("child",
+				List.of(utxo("child", 0, BigDecimal.ONE)),
+				List.of(Input.unknownValue(ADDRESS, 0, "stored", false, 1L),
+						Input.unknownValue(ADDRESS, 1, "pending", false, 1L),
+						Input.unknownValue(ADDRESS, 5, "unknown", false, 1L)),
+				false,
+				BigDecimal.ZERO,
+				Instant.ofEpochMilli(10),
+				false,
+				null,
+				null,
+				List.of(),
+				null,
+				"",
+				1,
+				1,
+				1,
+				null));
+	}
+}
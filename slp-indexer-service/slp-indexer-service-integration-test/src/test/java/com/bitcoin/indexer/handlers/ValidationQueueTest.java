@@ -0,0 +1,125 @@
+package com.bitcoin.indexer.handlers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import io.reactivex.observers.TestObserver;
+
+public class ValidationQueueTest {
+
+	@Test
+	public void blocks_go_ahead_of_the_mempool_backlog() throws InterruptedException {
+		ValidationQueue queue = new ValidationQueue(100);
+		List<String> order = new CopyOnWriteArrayList<>();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(3);
+		queue.submitMempool(() -> {
+			started.countDown();
+			await(release);
+			order.add("m0");
+		});
+		// Hold the worker while the backlog queues up behind it
+		await(started);
+		for (int i = 1; i <= 3; i++) {
+			String name = "m" + i;
+			queue.submitMempool(() -> {
+				order.add(name);
+				done.countDown();
+			});
+		}
+		TestObserver<String> block = queue.submitBlock(() -> {
+			order.add("block");
+			return "verdicts";
+		}).test();
+		assertThat(queue.getMempoolDepth(), Matchers.is(3));
+		release.countDown();
+
+		block.await(5, TimeUnit.SECONDS);
+		block.assertValue("verdicts");
+		assertThat(done.await(5, TimeUnit.SECONDS), Matchers.is(true));
+		assertThat(order, Matchers.contains("m0", "block", "m1", "m2", "m3"));
+	}
+
+	@Test
+	public void full_mempool_lane_holds_up_batches_but_not_blocks() throws InterruptedException {
+		ValidationQueue queue = new ValidationQueue(2);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch submitted = new CountDownLatch(1);
+		CountDownLatch ran = new CountDownLatch(3);
+		queue.submitMempool(() -> {
+			started.countDown();
+			await(release);
+		});
+		await(started);
+		queue.submitMempool(ran::countDown);
+		queue.submitMempool(ran::countDown);
+
+		Thread producer = new Thread(() -> {
+			try {
+				queue.submitMempool(ran::countDown);
+				submitted.countDown();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		producer.start();
+		assertThat(submitted.await(200, TimeUnit.MILLISECONDS), Matchers.is(false));
+		TestObserver<Integer> block = queue.submitBlock(() -> 1).test();
+		release.countDown();
+
+		block.await(5, TimeUnit.SECONDS);
+		block.assertValue(1);
+		assertThat(submitted.await(5, TimeUnit.SECONDS), Matchers.is(true));
+		assertThat(ran.await(5, TimeUnit.SECONDS), Matchers.is(true));
+	}
+
+	@Test
+	public void block_failures_reach_the_caller() throws InterruptedException {
+		ValidationQueue queue = new ValidationQueue(1);
+
+		TestObserver<Object> block = queue.submitBlock(() -> {
+			throw new IllegalStateException("Could not validate");
+		}).test();
+
+		block.await(5, TimeUnit.SECONDS);
+		block.assertError(IllegalStateException.class);
+	}
+
+	@Test
+	public void errors_reach_the_caller_and_the_queue_keeps_running() throws InterruptedException {
+		ValidationQueue queue = new ValidationQueue(1);
+		CountDownLatch ran = new CountDownLatch(1);
+
+		TestObserver<Object> block = queue.submitBlock(() -> {
+			throw new StackOverflowError();
+		}).test();
+		queue.submitMempool(() -> {
+			throw new AssertionError();
+		});
+		queue.submitMempool(ran::countDown);
+
+		block.await(5, TimeUnit.SECONDS);
+		block.assertError(StackOverflowError.class);
+		assertThat(ran.await(5, TimeUnit.SECONDS), Matchers.is(true));
+		TestObserver<Integer> next = queue.submitBlock(() -> 1).test();
+		next.await(5, TimeUnit.SECONDS);
+		next.assertValue(1);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package com.bitcoin.indexer.importer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.params.MainNetParams;
+import org.bitcoinj.params.UnitTestParams;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BulkBlockImporterTest {
+
+	private NetworkParameters params;
+	private List<Block> chain;
+	private File blocksDir;
+
+	@Before
+	public void setUp() throws IOException {
+		params = UnitTestParams.get();
+		Context.propagate(new Context(params));
+		chain = new ArrayList<>();
+		chain.add(params.getGenesisBlock());
+		for (int i = 1; i <= 10; i++) {
+			chain.add(chain.get(i - 1).createNextBlock(new ECKey().toAddress(params)));
+		}
+		blocksDir = Files.createTempDirectory("blocks").toFile();
+		blocksDir.deleteOnExit();
+	}
+
+	@After
+	public void tearDown() {
+		Context.propagate(new Context(MainNetParams.get()));
+	}
+
+	@Test
+	public void orders_shuffled_records_by_height() throws IOException {
+		List<Block> shuffled = new ArrayList<>(chain);
+		Collections.shuffle(shuffled, new Random(1));
+		writeBlockFile("blk00000.dat", shuffled.subList(0, 6));
+		writeBlockFile("blk00001.dat", shuffled.subList(6, shuffled.size()));
+
+		BlockFileReader reader = new BlockFileReader(params);
+		List<BlockRecord> records = reader.index(blocksDir);
+		BlockChainIndex index = new BlockChainIndex(records, params.getGenesisBlock().getHash());
+
+		assertThat(records.size(), Matchers.is(chain.size()));
+		assertThat(index.getTipHeight(), Matchers.is(10));
+		assertThat(index.getBestChain().stream().map(BlockRecord::getHash).collect(Collectors.toList()),
+				Matchers.is(chain.stream().map(Block::getHash).collect(Collectors.toList())));
+	}
+
+	@Test
+	public void longest_branch_wins_over_stale_fork() throws IOException {
+		List<Block> blocks = new ArrayList<>(chain);
+		Block stale = chain.get(3).createNextBlock(new ECKey().toAddress(params));
+		blocks.add(stale);
+		writeBlockFile("blk00000.dat", blocks);
+
+		BlockChainIndex index = new BlockChainIndex(new BlockFileReader(params).index(blocksDir), params.getGenesisBlock().getHash());
+
+		assertThat(index.getTipHeight(), Matchers.is(10));
+		assertThat(index.getBestChain().stream().map(BlockRecord::getHash).collect(Collectors.toList()), Matchers.not(Matchers.hasItem(stale.getHash())));
+	}
+
+	@Test
+	public void feeds_listener_in_height_order_from_height() throws IOException {
+		List<Block> shuffled = new ArrayList<>(chain);
+		Collections.shuffle(shuffled, new Random(2));
+		writeBlockFile("blk00000.dat", shuffled);
+		List<Integer> heights = new ArrayList<>();
+		List<Integer> imported = new ArrayList<>();
+
+		BulkBlockImporter importer = new BulkBlockImporter(params, (block, height) -> {
+			assertThat(block.getHash(), Matchers.is(chain.get(height).getHash()));
+			heights.add(height);
+		}, 3);
+		int tip = importer.importBlocks(blocksDir, 4, (block, height) -> imported.add(height));
+
+		assertThat(tip, Matchers.is(10));
+		assertThat(heights, Matchers.contains(4, 5, 6, 7, 8, 9, 10));
+		assertThat(imported, Matchers.is(heights));
+	}
+
+	private void writeBlockFile(String name, List<Block> blocks) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (Block block : blocks) {
+			byte[] bytes = block.bitcoinSerialize();
+			out.write(ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN).putInt((int) params.getPacketMagic()).array());
+			out.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(bytes.length).array());
+			out.write(bytes);
+		}
+		// Nodes preallocate block files, trailing zeroes must be ignored
+		out.write(new byte[64]);
+		File file = new File(blocksDir, name);
+		file.deleteOnExit();
+		try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
+			fileOutputStream.write(out.toByteArray());
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.bitcoin.indexer.listener;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.bitcoinj.core.BitcoinSerializer;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.params.MainNetParams;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongycastle.util.encoders.Hex;
+
+import com.bitcoin.indexer.FakeUtxoRepository;
+import com.bitcoin.indexer.TestBitcoinJConverter;
+import com.bitcoin.indexer.core.Coin;
+import com.bitcoin.indexer.filter.SlpOutpointFilter;
+
+import io.micrometer.core.instrument.util.IOUtils;
+
+public class BlockIngestionPipelineTest {
+
+	@Test
+	public void commits_in_submit_order() {
+		String rawBlock = IOUtils.toString(BlockIngestionPipelineTest.class.getClassLoader().getResourceAsStream("rawblock.txt"), StandardCharsets.UTF_8);
+		Context.getOrCreate(MainNetParams.get());
+		Block block = new BitcoinSerializer(MainNetParams.get(), false).makeBlock(Hex.decode(rawBlock));
+		FakeUtxoRepository utxoRepository = new FakeUtxoRepository();
+		IndexerTransactionCreator creator = new IndexerTransactionCreator(utxoRepository, Coin.BCH, new SlpOutpointFilter(utxoRepository, 1000, 0.01), 1000);
+		List<Long> committed = Collections.synchronizedList(new ArrayList<>());
+
+		BlockIngestionPipeline pipeline = new BlockIngestionPipeline(TestBitcoinJConverter.bitcoinJConverters, MainNetParams.get(), creator,
+				(newBlock, txs) -> committed.add(newBlock.getHeight()), 2);
+		IntStream.range(0, 20).forEach(height -> pipeline.submit(block, height));
+		pipeline.drain();
+
+		assertThat(committed, Matchers.is(IntStream.range(0, 20).mapToObj(Long::valueOf).collect(Collectors.toList())));
+	}
+
+	@Test
+	public void commit_failing_past_its_attempts_stops_later_blocks() {
+		String rawBlock = IOUtils.toString(BlockIngestionPipelineTest.class.getClassLoader().getResourceAsStream("rawblock.txt"), StandardCharsets.UTF_8);
+		Context.getOrCreate(MainNetParams.get());
+		Block block = new BitcoinSerializer(MainNetParams.get(), false).makeBlock(Hex.decode(rawBlock));
+		FakeUtxoRepository utxoRepository = new FakeUtxoRepository();
+		IndexerTransactionCreator creator = new IndexerTransactionCreator(utxoRepository, Coin.BCH, new SlpOutpointFilter(utxoRepository, 1000, 0.01), 1000);
+		List<Long> committed = Collections.synchronizedList(new ArrayList<>());
+		AtomicInteger attempts = new AtomicInteger();
+
+		BlockIngestionPipeline pipeline = new BlockIngestionPipeline(TestBitcoinJConverter.bitcoinJConverters, MainNetParams.get(), creator,
+				(newBlock, txs) -> {
+					if (newBlock.getHeight() == 1) {
+						attempts.incrementAndGet();
+						throw new IllegalStateException("Mongo down");
+					}
+					committed.add(newBlock.getHeight());
+				}, 2, 3, 1);
+		IntStream.range(0, 4).forEach(height -> pipeline.submit(block, height));
+
+		try {
+			pipeline.drain();
+			Assert.fail("Pipeline must report the failed commit");
+		} catch (RuntimeException e) {
+			// Expected
+		}
+		assertThat(attempts.get(), Matchers.is(3));
+		assertThat(committed, Matchers.contains(0L));
+		try {
+			pipeline.submit(block, 4);
+			Assert.fail("A stopped pipeline must not take blocks");
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.bitcoin.indexer.listener;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.time.Duration;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class FirstSeenTrackerTest {
+
+	@Test
+	public void first_source_wins_and_later_sources_record_lag() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		Metrics.addRegistry(registry);
+		try {
+			FirstSeenTracker tracker = new FirstSeenTracker("test", 100, Duration.ofMinutes(1));
+
+			assertThat(tracker.firstSeen("a", FirstSeenTracker.ZEROMQ), Matchers.is(true));
+			assertThat(tracker.firstSeen("a", FirstSeenTracker.PEER), Matchers.is(false));
+			assertThat(tracker.firstSeen("a", FirstSeenTracker.ZEROMQ), Matchers.is(false));
+			assertThat(tracker.firstSeen("b", FirstSeenTracker.PEER), Matchers.is(true));
+
+			Timer lag = registry.get("first_seen_lag").tags("kind", "test", "source", FirstSeenTracker.PEER, "winner", FirstSeenTracker.ZEROMQ).timer();
+			assertThat(lag.count(), Matchers.is(1L));
+			assertThat(registry.get("first_seen_wins").tags("kind", "test", "source", FirstSeenTracker.ZEROMQ).counter().count(), Matchers.is(1.0));
+		} finally {
+			Metrics.removeRegistry(registry);
+		}
+	}
+
+	@Test
+	public void forgotten_hashes_are_handled_again() {
+		FirstSeenTracker tracker = new FirstSeenTracker("test", 100, Duration.ofMinutes(1));
+		assertThat(tracker.firstSeen("a", FirstSeenTracker.PEER), Matchers.is(true));
+
+		tracker.forget("a");
+
+		assertThat(tracker.firstSeen("a", FirstSeenTracker.ZEROMQ), Matchers.is(true));
+	}
+}
@@ -0,0 +1,137 @@
+package com.bitcoin.indexer.listener;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.bitcoinj.core.BitcoinSerializer;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.params.MainNetParams;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.spongycastle.util.encoders.Hex;
+
+import com.bitcoin.indexer.FakeUtxoRepository;
+import com.bitcoin.indexer.TestBitcoinJConverter;
+import com.bitcoin.indexer.blockchain.domain.Block;
+import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenId;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
+import com.bitcoin.indexer.core.Coin;
+import com.bitcoin.indexer.filter.SlpOutpointFilter;
+
+import io.micrometer.core.instrument.util.IOUtils;
+
+public class IndexerTransactionCreatorTest {
+
+	private Block block;
+	private FakeUtxoRepository utxoRepository;
+
+	//000000000000079e848a95192f6fbf629555e518704f6441f049477ec55e545b
+	@Before
+	public void setUp() throws Exception {
+		String rawBlock = IOUtils.toString(IndexerTransactionCreatorTest.class.getClassLoader().getResourceAsStream("rawblock.txt"), StandardCharsets.UTF_8);
+		Context.getOrCreate(MainNetParams.get());
+		org.bitcoinj.core.Block bitcoinjBlock = new BitcoinSerializer(MainNetParams.get(), false).makeBlock(Hex.decode(rawBlock));
+		block = TestBitcoinJConverter.bitcoinJConverters.block(bitcoinjBlock, 142623, MainNetParams.get());
+		utxoRepository = new FakeUtxoRepository();
+	}
+
+	@Test
+	public void replays_block_with_one_query_per_chunk() {
+		List<Transaction> spending = block.getTransactions().stream()
+				.filter(t -> t.getInputs().stream().noneMatch(Input::isCoinbase))
+				.limit(3)
+				.collect(Collectors.toList());
+		spending.forEach(t -> storeSlpOutput(t.getInputs().get(0)));
+
+		long inputs = block.getTransactions().stream()
+				.flatMap(t -> t.getInputs().stream())
+				.filter(i -> !i.isCoinbase())
+				.count();
+		int chunkSize = 10;
+
+		List<IndexerTransaction> result = creator(chunkSize).createIndexerTransactions(block.getTransactions());
+
+		assertThat(txIds(result), Matchers.is(spending.stream().map(Transaction::getTxId).collect(Collectors.toSet())));
+		assertThat((long) utxoRepository.getNoCacheFetches(), Matchers.is((inputs + chunkSize - 1) / chunkSize));
+	}
+
+	@Test
+	public void nothing_stored_nothing_indexed() {
+		List<IndexerTransaction> result = creator(1000).createIndexerTransactions(block.getTransactions());
+
+		assertThat(result, Matchers.empty());
+		assertThat(utxoRepository.getNoCacheFetches(), Matchers.is(1));
+	}
+
+	@Test
+	public void same_block_slp_output_is_overlaid() {
+		Transaction parent = block.getTransactions().get(1);
+		Utxo parentOutput = parent.getOutputs().get(0);
+		Transaction slpParent = Transaction.create(parent.getTxId(),
+				List.of(slpUtxo(parentOutput.getTxId(), parentOutput.getIndex())),
+				parent.getInputs(),
+				true,
+				parent.getFees(),
+				parent.getTime(),
+				true,
+				null,
+				142623,
+				List.of(),
+				null,
+				parent.getRawHex(),
+				parent.getVersion(),
+				parent.getLocktime(),
+				parent.getSize(),
+				Instant.ofEpochMilli(20));
+		Transaction child = Transaction.create("child",
+				List.of(Utxo.confirmed("child", parentOutput.getAddress(), "", BigDecimal.ONE, Instant.ofEpochMilli(10), 0, false, 142623)),
+				List.of(Input.unknownValue(parentOutput.getAddress(), parentOutput.getIndex(), parentOutput.getTxId(), false, 1L)),
+				true,
+				BigDecimal.ZERO,
+				Instant.ofEpochMilli(10),
+				true,
+				null,
+				142623,
+				List.of(),
+				null,
+				"",
+				1,
+				1,
+				1,
+				Instant.ofEpochMilli(20));
+
+		List<IndexerTransaction> result = creator(1000).createIndexerTransactions(List.of(slpParent, child));
+
+		assertThat(txIds(result), Matchers.hasItem("child"));
+	}
+
+	private IndexerTransactionCreator creator(int chunkSize) {
+		return new IndexerTransactionCreator(utxoRepository, Coin.BCH, new SlpOutpointFilter(utxoRepository, 1000, 0.01), chunkSize);
+	}
+
+	private void storeSlpOutput(Input input) {
+		utxoRepository.saveUtxo(List.of(slpUtxo(input.getTxId(), input.getIndex())), Coin.BCH).blockingGet();
+	}
+
+	private static Utxo slpUtxo(String txId, int index) {
+		SlpUtxo slpUtxo = SlpUtxo.send(new SlpTokenId("22e0a1c63e534ee2f2cfa607318788bcde8e630c6b0511529d4a04c9ea389721"),
+				BigDecimal.ONE, "", "", "1", "01");
+		return Utxo.create(txId, com.bitcoin.indexer.blockchain.domain.Address.create("133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY"), "", BigDecimal.ONE, true, index, false,
+				Instant.ofEpochMilli(10), slpUtxo, false, 142000);
+	}
+
+	private static Set<String> txIds(List<IndexerTransaction> transactions) {
+		return transactions.stream().map(t -> t.getTransaction().getTxId()).collect(Collectors.toSet());
+	}
+}
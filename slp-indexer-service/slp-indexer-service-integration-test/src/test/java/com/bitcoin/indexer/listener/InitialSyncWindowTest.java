@@ -0,0 +1,79 @@
+package com.bitcoin.indexer.listener;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.bitcoinj.core.BitcoinSerializer;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.params.MainNetParams;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongycastle.util.encoders.Hex;
+
+import com.bitcoin.indexer.FakeUtxoRepository;
+import com.bitcoin.indexer.TestBitcoinJConverter;
+import com.bitcoin.indexer.core.Coin;
+import com.bitcoin.indexer.filter.SlpOutpointFilter;
+
+import io.micrometer.core.instrument.util.IOUtils;
+
+public class InitialSyncWindowTest {
+
+	@Test
+	public void commits_full_windows_until_height() {
+		String rawBlock = IOUtils.toString(InitialSyncWindowTest.class.getClassLoader().getResourceAsStream("rawblock.txt"), StandardCharsets.UTF_8);
+		Context.getOrCreate(MainNetParams.get());
+		Block block = new BitcoinSerializer(MainNetParams.get(), false).makeBlock(Hex.decode(rawBlock));
+		FakeUtxoRepository utxoRepository = new FakeUtxoRepository();
+		IndexerTransactionCreator creator = new IndexerTransactionCreator(utxoRepository, Coin.BCH, new SlpOutpointFilter(utxoRepository, 1000, 0.01), 1000);
+		List<List<Long>> windows = new ArrayList<>();
+
+		InitialSyncWindow window = new InitialSyncWindow(TestBitcoinJConverter.bitcoinJConverters, MainNetParams.get(), creator,
+				(blocks, txs) -> windows.add(blocks.stream().map(com.bitcoin.indexer.blockchain.domain.Block::getHeight).collect(Collectors.toList())), 5, 2);
+		for (int height = 0; height < 5; height++) {
+			assertThat(window.accepts(height), Matchers.is(true));
+			window.add(block, height);
+		}
+
+		assertThat(window.accepts(5), Matchers.is(false));
+		assertThat(windows, Matchers.contains(List.of(0L, 1L), List.of(2L, 3L), List.of(4L)));
+	}
+
+	@Test
+	public void window_failing_past_its_attempts_stops_the_sync() {
+		String rawBlock = IOUtils.toString(InitialSyncWindowTest.class.getClassLoader().getResourceAsStream("rawblock.txt"), StandardCharsets.UTF_8);
+		Context.getOrCreate(MainNetParams.get());
+		Block block = new BitcoinSerializer(MainNetParams.get(), false).makeBlock(Hex.decode(rawBlock));
+		FakeUtxoRepository utxoRepository = new FakeUtxoRepository();
+		IndexerTransactionCreator creator = new IndexerTransactionCreator(utxoRepository, Coin.BCH, new SlpOutpointFilter(utxoRepository, 1000, 0.01), 1000);
+		AtomicInteger attempts = new AtomicInteger();
+
+		InitialSyncWindow window = new InitialSyncWindow(TestBitcoinJConverter.bitcoinJConverters, MainNetParams.get(), creator,
+				(blocks, txs) -> {
+					attempts.incrementAndGet();
+					throw new IllegalStateException("Mongo down");
+				}, 5, 2, 3, 1);
+		window.add(block, 0);
+		try {
+			window.add(block, 1);
+			Assert.fail("The failed window must be reported");
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+		try {
+			window.add(block, 1);
+			Assert.fail("A stopped window must not take blocks");
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+
+		assertThat(attempts.get(), Matchers.is(3));
+	}
+}
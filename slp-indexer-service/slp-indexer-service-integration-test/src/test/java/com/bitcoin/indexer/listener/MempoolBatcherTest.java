@@ -0,0 +1,159 @@
+package com.bitcoin.indexer.listener;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+
+public class MempoolBatcherTest {
+
+	@Test
+	public void coalesces_bursts_up_to_max_batch_size_in_arrival_order() throws InterruptedException {
+		List<List<String>> batches = new CopyOnWriteArrayList<>();
+		CountDownLatch firstBatchStarted = new CountDownLatch(1);
+		CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(25);
+		MempoolBatcher batcher = new MempoolBatcher(txs -> {
+			batches.add(txs.stream().map(Transaction::getTxId).collect(Collectors.toList()));
+			firstBatchStarted.countDown();
+			await(releaseFirstBatch);
+			txs.forEach(t -> done.countDown());
+		}, 10, 1000);
+
+		batcher.submit(tx("0"));
+		// Hold the consumer while the burst queues up behind it
+		await(firstBatchStarted);
+		IntStream.range(1, 25).forEach(i -> batcher.submit(tx(String.valueOf(i))));
+		releaseFirstBatch.countDown();
+
+		assertThat(done.await(5, TimeUnit.SECONDS), Matchers.is(true));
+		assertThat(batches.get(0), Matchers.contains("0"));
+		assertThat(batches.stream().mapToInt(List::size).max().getAsInt(), Matchers.is(10));
+		List<String> all = new ArrayList<>();
+		batches.forEach(all::addAll);
+		assertThat(all, Matchers.is(IntStream.range(0, 25).mapToObj(String::valueOf).collect(Collectors.toList())));
+	}
+
+	@Test
+	public void flushes_partial_batch_after_max_delay() throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(1);
+		List<Integer> sizes = new CopyOnWriteArrayList<>();
+		MempoolBatcher batcher = new MempoolBatcher(txs -> {
+			sizes.add(txs.size());
+			done.countDown();
+		}, 100, 20);
+
+		batcher.submit(tx("a"));
+		batcher.submit(tx("b"));
+
+		assertThat(done.await(2, TimeUnit.SECONDS), Matchers.is(true));
+		assertThat(sizes.get(0), Matchers.is(2));
+	}
+
+	@Test
+	public void keeps_consuming_after_failed_batch() throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(1);
+		List<String> failed = new CopyOnWriteArrayList<>();
+		AtomicInteger attempts = new AtomicInteger();
+		MempoolBatcher batcher = new MempoolBatcher(txs -> {
+			if (txs.get(0).getTxId().equals("bad")) {
+				attempts.incrementAndGet();
+				throw new IllegalStateException("Mongo down");
+			}
+			done.countDown();
+		}, txs -> txs.forEach(tx -> failed.add(tx.getTxId())), 1, 0, 10, 3, 1);
+
+		batcher.submit(tx("bad"));
+		batcher.submit(tx("good"));
+
+		assertThat(done.await(2, TimeUnit.SECONDS), Matchers.is(true));
+		assertThat(attempts.get(), Matchers.is(3));
+		assertThat(failed, Matchers.contains("bad"));
+	}
+
+	@Test
+	public void retried_batches_are_not_lost() throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(1);
+		AtomicInteger attempts = new AtomicInteger();
+		MempoolBatcher batcher = new MempoolBatcher(txs -> {
+			if (attempts.incrementAndGet() < 2) {
+				throw new IllegalStateException("Mongo down");
+			}
+			done.countDown();
+		}, txs -> {
+		}, 1, 0, 10, 3, 1);
+
+		batcher.submit(tx("a"));
+
+		assertThat(done.await(2, TimeUnit.SECONDS), Matchers.is(true));
+	}
+
+	@Test
+	public void full_queue_holds_up_submit() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch submitted = new CountDownLatch(1);
+		MempoolBatcher batcher = new MempoolBatcher(txs -> {
+			started.countDown();
+			await(release);
+		}, txs -> {
+		}, 1, 0, 1, 1, 1);
+
+		batcher.submit(tx("running"));
+		await(started);
+		batcher.submit(tx("queued"));
+		Thread producer = new Thread(() -> {
+			batcher.submit(tx("waiting"));
+			submitted.countDown();
+		});
+		producer.start();
+
+		assertThat(submitted.await(200, TimeUnit.MILLISECONDS), Matchers.is(false));
+		release.countDown();
+		assertThat(submitted.await(5, TimeUnit.SECONDS), Matchers.is(true));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static Transaction tx(String txId) {
+		Address address = Address.create("133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY");
+		return Transaction.create(txId,
+				List.of(Utxo.create(txId, address, "", BigDecimal.ONE, false, 0, false, Instant.ofEpochMilli(10), null, false, null)),
+				List.of(Input.unknownValue(address, 0, "parent", false, 1L)),
+				false,
+				BigDecimal.ZERO,
+				Instant.ofEpochMilli(10),
+				false,
+				null,
+				null,
+				List.of(),
+				null,
+				"",
+				1,
+				1,
+				1,
+				null);
+	}
+}
@@ -0,0 +1,126 @@
+package com.bitcoin.indexer.listener;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.listener.TransactionEventBus.OverflowPolicy;
+import com.bitcoin.indexer.listener.TransactionEventBus.Subscription;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class TransactionEventBusTest {
+
+	@Test
+	public void slow_subscriber_drops_oldest_without_holding_back_others() throws InterruptedException {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		Metrics.addRegistry(registry);
+		try {
+			TransactionEventBus bus = new TransactionEventBus();
+			CountDownLatch release = new CountDownLatch(1);
+			CountDownLatch slowStarted = new CountDownLatch(1);
+			List<String> slow = new CopyOnWriteArrayList<>();
+			List<String> fast = new CopyOnWriteArrayList<>();
+			CountDownLatch fastDone = new CountDownLatch(10);
+			CountDownLatch slowDone = new CountDownLatch(3);
+			bus.subscribe("slow", 2, OverflowPolicy.DROP_OLDEST, tx -> {
+				slowStarted.countDown();
+				await(release);
+				slow.add(tx.getTxId());
+				slowDone.countDown();
+			});
+			bus.subscribe("fast", 1, OverflowPolicy.BLOCK, tx -> {
+				fast.add(tx.getTxId());
+				fastDone.countDown();
+			});
+
+			bus.publish(tx("0"));
+			await(slowStarted);
+			IntStream.range(1, 10).forEach(i -> bus.publish(tx(String.valueOf(i))));
+
+			assertThat(fastDone.await(5, TimeUnit.SECONDS), Matchers.is(true));
+			assertThat(fast, Matchers.is(ids(0, 10)));
+			release.countDown();
+			assertThat(slowDone.await(5, TimeUnit.SECONDS), Matchers.is(true));
+			assertThat(slow, Matchers.contains("0", "8", "9"));
+			assertThat(registry.get("event_bus_dropped").tag("subscriber", "slow").counter().count(), Matchers.is(7.0));
+			assertThat(registry.get("event_bus_dropped").tag("subscriber", "fast").counter().count(), Matchers.is(0.0));
+		} finally {
+			Metrics.removeRegistry(registry);
+		}
+	}
+
+	@Test
+	public void sample_keeps_latest_and_cancel_stops_delivery() throws InterruptedException {
+		TransactionEventBus bus = new TransactionEventBus();
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(2);
+		List<String> received = new CopyOnWriteArrayList<>();
+		Subscription subscription = bus.subscribe("sample", 1, OverflowPolicy.SAMPLE, tx -> {
+			started.countDown();
+			await(release);
+			received.add(tx.getTxId());
+			done.countDown();
+		});
+
+		bus.publish(tx("0"));
+		await(started);
+		IntStream.range(1, 5).forEach(i -> bus.publish(tx(String.valueOf(i))));
+		release.countDown();
+
+		assertThat(done.await(5, TimeUnit.SECONDS), Matchers.is(true));
+		assertThat(received, Matchers.contains("0", "4"));
+
+		subscription.cancel();
+		bus.publish(tx("5"));
+		assertThat(subscription.getQueued(), Matchers.is(0));
+	}
+
+	private static List<String> ids(int from, int to) {
+		return IntStream.range(from, to).mapToObj(String::valueOf).collect(Collectors.toList());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static Transaction tx(String txId) {
+		Address address = Address.create("133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY");
+		return Transaction.create(txId,
+				List.of(Utxo.create(txId, address, "", BigDecimal.ONE, false, 0, false, Instant.ofEpochMilli(10), null, false, null)),
+				List.of(Input.unknownValue(address, 0, "parent", false, 1L)),
+				false,
+				BigDecimal.ZERO,
+				Instant.ofEpochMilli(10),
+				false,
+				null,
+				null,
+				List.of(),
+				null,
+				"",
+				1,
+				1,
+				1,
+				null);
+	}
+}
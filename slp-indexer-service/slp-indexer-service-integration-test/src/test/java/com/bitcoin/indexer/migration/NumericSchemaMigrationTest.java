@@ -0,0 +1,189 @@
+package com.bitcoin.indexer.migration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.repository.db.AllOutputsDbObject;
+import com.bitcoin.indexer.repository.db.NumericSchema;
+import com.bitcoin.indexer.repository.db.TransactionDbObject;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteRequest;
+
+public class NumericSchemaMigrationTest {
+
+	private static final String SCRIPT = "76a914190ebe6dcb5d4ffa5d7d27d2e2db7e7ba26ec89c88ac";
+
+	private MappingMongoConverter converter;
+	private final TreeMap<String, Document> outputs = new TreeMap<>();
+	private Document state;
+	private int bulkWrites = 0;
+
+	@Before
+	public void setUp() {
+		MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+		MongoMappingContext mappingContext = new MongoMappingContext();
+		mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+		mappingContext.afterPropertiesSet();
+		converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+		converter.setCustomConversions(conversions);
+		converter.afterPropertiesSet();
+	}
+
+	@Test
+	public void legacy_and_migrated_output_read_the_same() {
+		Document legacy = legacyOutput("a");
+		Utxo before = converter.read(AllOutputsDbObject.class, legacy).toDomain();
+
+		apply(legacy, NumericSchemaMigration.rewriteOutput(legacy));
+		Utxo after = converter.read(AllOutputsDbObject.class, legacy).toDomain();
+
+		assertThat(legacy.get("value"), Matchers.is(546L));
+		assertThat(legacy.get("slpUtxoType", Document.class).get("amount"), Matchers.instanceOf(Decimal128.class));
+		assertThat(legacy.get(NumericSchema.VERSION_FIELD), Matchers.is(NumericSchema.CURRENT_VERSION));
+		assertThat(after.getAmount(), Matchers.is(before.getAmount()));
+		assertThat(after.getSlpUtxo().get().getAmount(), Matchers.is(new BigDecimal("12.50")));
+		assertThat(before.getSlpUtxo().get().getAmount(), Matchers.is(new BigDecimal("12.50")));
+	}
+
+	@Test
+	public void legacy_and_migrated_transaction_read_the_same() {
+		Document slp = legacySlp();
+		Document transaction = new Document("_id", "tx")
+				.append("coin", "BCH")
+				.append("fees", "220")
+				.append("time", new Date(10))
+				.append("rawHex", "")
+				.append("slpValid", new Document("reason", "").append("valid", "VALID"))
+				.append("outputs", new ArrayList<>(List.of(new Document("txId", "tx").append("address", "133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY")
+						.append("scriptPubkey", SCRIPT).append("amount", "546").append("utxoIndex", 1).append("slpUtxoType", slp))))
+				.append("inputs", new ArrayList<>(List.of(new Document("address", "133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY")
+						.append("amount", "1000").append("inputIndex", 0).append("txId", "parent").append("sequence", 1L))));
+
+		com.bitcoin.indexer.blockchain.domain.Transaction before = converter.read(TransactionDbObject.class, transaction).toDomain();
+		apply(transaction, NumericSchemaMigration.rewriteTransaction(transaction));
+		com.bitcoin.indexer.blockchain.domain.Transaction after = converter.read(TransactionDbObject.class, transaction).toDomain();
+
+		assertThat(transaction.get("fees"), Matchers.is(220L));
+		assertThat(after.getFees(), Matchers.is(before.getFees()));
+		assertThat(after.getOutputs().get(0).getAmount(), Matchers.is(new BigDecimal(546)));
+		assertThat(after.getOutputs().get(0).getSlpUtxo().get().getAmount(), Matchers.is(new BigDecimal("12.50")));
+		assertThat(after.getInputs().get(0).getAmount().get(), Matchers.is(new BigDecimal(1000)));
+	}
+
+	@Test
+	public void resumes_after_stored_id_and_skips_current_documents() {
+		outputs.put("a", legacyOutput("a"));
+		outputs.put("b", legacyOutput("b"));
+		outputs.put("c", legacyOutput("c"));
+		outputs.put("d", legacyOutput("d").append(NumericSchema.VERSION_FIELD, NumericSchema.CURRENT_VERSION));
+		outputs.put("e", legacyOutput("e"));
+		state = new Document("_id", "numeric-v2:allOutputs").append("lastId", "a").append("migrated", 1L).append("completed", false);
+
+		long migrated = new NumericSchemaMigration(mongoOperations(), 2, 0).migrate(NumericSchemaMigration.ALL_OUTPUTS, NumericSchemaMigration::rewriteOutput);
+
+		assertThat(migrated, Matchers.is(4L));
+		assertThat(outputs.get("a").get("value"), Matchers.is("546"));
+		assertThat(outputs.get("b").get("value"), Matchers.is(546L));
+		assertThat(outputs.get("d").get("value"), Matchers.is("546"));
+		assertThat(outputs.get("e").get("value"), Matchers.is(546L));
+		assertThat(bulkWrites, Matchers.is(2));
+		assertThat(state.get("completed"), Matchers.is(true));
+		assertThat(state.get("lastId"), Matchers.is("e"));
+	}
+
+	private MongoOperations mongoOperations() {
+		MongoOperations mongoOperations = Mockito.mock(MongoOperations.class);
+		Mockito.when(mongoOperations.findById(any(), eq(Document.class), eq(NumericSchemaMigration.STATE_COLLECTION))).thenAnswer(i -> state);
+		Mockito.when(mongoOperations.find(any(Query.class), eq(Document.class), eq(NumericSchemaMigration.ALL_OUTPUTS))).thenAnswer(i -> {
+			Query query = i.getArgument(0);
+			Document id = query.getQueryObject().get("_id", Document.class);
+			Map<String, Document> tail = id == null ? outputs : outputs.tailMap(id.getString("$gt"), false);
+			return new ArrayList<>(tail.values()).subList(0, Math.min(query.getLimit(), tail.size()));
+		});
+		Mockito.when(mongoOperations.upsert(any(Query.class), any(Update.class), eq(NumericSchemaMigration.STATE_COLLECTION))).thenAnswer(i -> {
+			apply(state, i.getArgument(1));
+			return null;
+		});
+		Mockito.when(mongoOperations.bulkOps(eq(BulkMode.UNORDERED), eq(NumericSchemaMigration.ALL_OUTPUTS))).thenAnswer(i -> updatingBulk());
+		return mongoOperations;
+	}
+
+	private BulkOperations updatingBulk() {
+		BulkOperations bulkOperations = Mockito.mock(BulkOperations.class);
+		List<Runnable> updates = new ArrayList<>();
+		Mockito.when(bulkOperations.updateOne(any(Query.class), any(Update.class))).thenAnswer(i -> {
+			Query query = i.getArgument(0);
+			Document output = outputs.get(query.getQueryObject().getString("_id"));
+			updates.add(() -> apply(output, i.getArgument(1)));
+			return bulkOperations;
+		});
+		Mockito.when(bulkOperations.execute()).thenAnswer(i -> {
+			bulkWrites++;
+			updates.forEach(Runnable::run);
+			return BulkWriteResult.acknowledged(WriteRequest.Type.UPDATE, updates.size(), updates.size(), List.of());
+		});
+		return bulkOperations;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void apply(Document document, Update update) {
+		Document set = update.getUpdateObject().get("$set", Document.class);
+		for (Map.Entry<String, Object> entry : set.entrySet()) {
+			String[] path = entry.getKey().split("\\.");
+			Object target = document;
+			for (int i = 0; i < path.length - 1; i++) {
+				target = target instanceof List ? ((List<Object>) target).get(Integer.parseInt(path[i])) : ((Document) target).get(path[i]);
+			}
+			((Document) target).put(path[path.length - 1], entry.getValue());
+		}
+	}
+
+	private static Document legacyOutput(String id) {
+		return new Document("_id", id)
+				.append("txId", id)
+				.append("index", 1)
+				.append("coin", "BCH")
+				.append("scriptPubKey", SCRIPT)
+				.append("address", "133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY")
+				.append("value", "546")
+				.append("timestamp", new Date(10))
+				.append("slpUtxoType", legacySlp());
+	}
+
+	private static Document legacySlp() {
+		return new Document("slpTokenId", "tokenId")
+				.append("tokenTransactionType", "SEND")
+				.append("tokenType", "PERMISSIONLESS")
+				.append("tokenTypeHex", "01")
+				.append("amount", "12.50")
+				.append("hasBaton", false)
+				.append("tokenTicker", "TT")
+				.append("tokenName", "Test")
+				.append("parentTransactionValid", new Document("reason", "").append("valid", "VALID"));
+	}
+}
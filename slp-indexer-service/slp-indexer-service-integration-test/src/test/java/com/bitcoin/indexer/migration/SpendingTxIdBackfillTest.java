@@ -0,0 +1,101 @@
+package com.bitcoin.indexer.migration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.bson.Document;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteRequest;
+
+public class SpendingTxIdBackfillTest {
+
+	private final TreeMap<String, Document> transactions = new TreeMap<>();
+	private final Map<String, Document> outputs = new HashMap<>();
+	private Document state;
+
+	@Test
+	public void links_slp_outputs_to_their_spender_and_resumes_after_stored_id() {
+		transactions.put("a", transaction("a", slpInput("parent", 1)));
+		transactions.put("b", transaction("b", bchInput("parent", 0), slpInput("parent", 2)));
+		transactions.put("c", transaction("c", slpInput("b", 1)));
+		outputs.put("parent:0", new Document("_id", "parent:0"));
+		outputs.put("parent:1", new Document("_id", "parent:1"));
+		outputs.put("parent:2", new Document("_id", "parent:2"));
+		outputs.put("b:1", new Document("_id", "b:1").append("spendingTxId", "c").append("spendingVin", 0));
+		state = new Document("_id", "spendingTxId").append("lastId", "a").append("linked", 1L).append("completed", false);
+
+		long linked = new SpendingTxIdBackfill(mongoOperations(), 1).backfill();
+
+		assertThat(linked, Matchers.is(2L));
+		assertThat(outputs.get("parent:0").containsKey("spendingTxId"), Matchers.is(false));
+		assertThat(outputs.get("parent:1").containsKey("spendingTxId"), Matchers.is(false));
+		assertThat(outputs.get("parent:2").get("spendingTxId"), Matchers.is("b"));
+		assertThat(outputs.get("parent:2").get("spendingVin"), Matchers.is(1));
+		assertThat(outputs.get("b:1").get("spendingTxId"), Matchers.is("c"));
+		assertThat(state.get("completed"), Matchers.is(true));
+		assertThat(state.get("lastId"), Matchers.is("c"));
+	}
+
+	private MongoOperations mongoOperations() {
+		MongoOperations mongoOperations = Mockito.mock(MongoOperations.class);
+		Mockito.when(mongoOperations.findById(any(), eq(Document.class), eq(NumericSchemaMigration.STATE_COLLECTION))).thenAnswer(i -> state);
+		Mockito.when(mongoOperations.find(any(Query.class), eq(Document.class), eq(NumericSchemaMigration.TRANSACTIONS))).thenAnswer(i -> {
+			Query query = i.getArgument(0);
+			Document id = query.getQueryObject().get("_id", Document.class);
+			Map<String, Document> tail = id == null ? transactions : transactions.tailMap(id.getString("$gt"), false);
+			return new ArrayList<>(tail.values()).subList(0, Math.min(query.getLimit(), tail.size()));
+		});
+		Mockito.when(mongoOperations.upsert(any(Query.class), any(Update.class), eq(NumericSchemaMigration.STATE_COLLECTION))).thenAnswer(i -> {
+			state.putAll(((Update) i.getArgument(1)).getUpdateObject().get("$set", Document.class));
+			return null;
+		});
+		Mockito.when(mongoOperations.bulkOps(eq(BulkMode.UNORDERED), eq(NumericSchemaMigration.ALL_OUTPUTS))).thenAnswer(i -> linkingBulk());
+		return mongoOperations;
+	}
+
+	private BulkOperations linkingBulk() {
+		BulkOperations bulkOperations = Mockito.mock(BulkOperations.class);
+		List<Runnable> updates = new ArrayList<>();
+		Mockito.when(bulkOperations.updateOne(any(Query.class), any(Update.class))).thenAnswer(i -> {
+			Query query = i.getArgument(0);
+			Document output = outputs.get(query.getQueryObject().getString("_id"));
+			if (output != null && !output.containsKey("spendingTxId")) {
+				updates.add(() -> output.putAll(((Update) i.getArgument(1)).getUpdateObject().get("$set", Document.class)));
+			}
+			return bulkOperations;
+		});
+		Mockito.when(bulkOperations.execute()).thenAnswer(i -> {
+			updates.forEach(Runnable::run);
+			return BulkWriteResult.acknowledged(WriteRequest.Type.UPDATE, updates.size(), updates.size(), List.of());
+		});
+		return bulkOperations;
+	}
+
+	private static Document transaction(String txId, Document... inputs) {
+		return new Document("_id", txId).append("inputs", List.of(inputs));
+	}
+
+	private static Document slpInput(String txId, int index) {
+		return bchInput(txId, index).append("slpTokenType", new Document("slpTokenId", "tokenId"));
+	}
+
+	private static Document bchInput(String txId, int index) {
+		return new Document("txId", txId).append("inputIndex", index).append("slpTokenType", null);
+	}
+}
@@ -0,0 +1,327 @@
+package com.bitcoin.indexer.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+import com.bitcoin.indexer.blockchain.domain.TokenStats;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
+import com.bitcoin.indexer.repository.db.AddressTokenBalanceDbObject;
+
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+
+public class AddressTokenBalanceRepositoryImplTest {
+
+	private static final String ADDRESS = "133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY";
+	private static final String TOKEN_ID = "token";
+
+	private final Map<String, Document> outputs = new HashMap<>();
+	private final Map<String, BigDecimal> balances = new HashMap<>();
+	private final Map<String, TokenStats> stats = new HashMap<>();
+	private final Set<String> pendingTokens = new HashSet<>();
+	private boolean failBalances = false;
+	private AddressTokenBalanceRepositoryImpl repository;
+
+	@Before
+	public void setUp() {
+		MongoOperations mongoOperations = Mockito.mock(MongoOperations.class);
+		Mockito.when(mongoOperations.find(any(Query.class), eq(Document.class), eq("allOutputs"))).thenAnswer(invocation -> {
+			Document criteria = ((Query) invocation.getArgument(0)).getQueryObject();
+			boolean seenOnly = criteria.containsKey("balanceApplied");
+			return outputs.values().stream()
+					.filter(o -> !seenOnly || o.containsKey("balanceApplied"))
+					.collect(Collectors.toList());
+		});
+		Mockito.when(mongoOperations.stream(any(Query.class), eq(Document.class), eq("allOutputs"))).thenAnswer(invocation -> stream(outputs.values()));
+		Mockito.when(mongoOperations.find(any(Query.class), eq(AddressTokenBalanceDbObject.class))).thenReturn(List.of());
+		Mockito.when(mongoOperations.bulkOps(eq(BulkMode.UNORDERED), eq("allOutputs"))).thenAnswer(invocation -> flagBulk());
+		Mockito.when(mongoOperations.bulkOps(eq(BulkMode.UNORDERED), eq(AddressTokenBalanceDbObject.class))).thenAnswer(invocation -> balanceBulk());
+		Mockito.when(mongoOperations.bulkOps(eq(BulkMode.UNORDERED), eq("balancePending"))).thenAnswer(invocation -> pendingBulk());
+		Mockito.when(mongoOperations.findAll(eq(Document.class), eq("balancePending")))
+				.thenAnswer(invocation -> pendingTokens.stream().map(tokenId -> new Document("_id", tokenId)).collect(Collectors.toList()));
+		Mockito.when(mongoOperations.remove(any(Query.class), eq("balancePending"))).thenAnswer(invocation -> {
+			Object id = ((Query) invocation.getArgument(0)).getQueryObject().get("_id");
+			if (id instanceof Document) {
+				pendingTokens.removeAll((Collection<?>) ((Document) id).get("$in"));
+			} else {
+				pendingTokens.remove(id);
+			}
+			return null;
+		});
+		TokenStatsRepository tokenStatsRepository = Mockito.mock(TokenStatsRepository.class);
+		Mockito.when(tokenStatsRepository.incrementStats(any())).thenAnswer(invocation -> {
+			Collection<TokenStats> deltas = invocation.getArgument(0);
+			deltas.forEach(d -> stats.merge(d.getTokenId(), d, TokenStats::plus));
+			return Completable.complete();
+		});
+		Mockito.when(tokenStatsRepository.computeStats(TOKEN_ID)).thenReturn(Single.just(new TokenStats(TOKEN_ID, BigDecimal.TEN, 1, 0, 1, BigDecimal.ZERO, 1)));
+		Mockito.when(tokenStatsRepository.fetchTokenStats(TOKEN_ID)).thenReturn(Maybe.empty());
+		Mockito.when(tokenStatsRepository.saveStats(any())).thenReturn(Completable.complete());
+		repository = new AddressTokenBalanceRepositoryImpl(mongoOperations, Mockito.mock(ReactiveMongoOperations.class), tokenStatsRepository);
+	}
+
+	@Test
+	public void applying_the_same_outputs_twice_counts_them_once() {
+		output("tx:0", "10", false, Valid.VALID);
+		output("tx:1", "5", false, Valid.VALID);
+
+		repository.applyOutputs(List.of("tx:0", "tx:1")).blockingAwait();
+		repository.applyOutputs(List.of("tx:0", "tx:1")).blockingAwait();
+
+		assertThat(balance(), Matchers.comparesEqualTo(new BigDecimal("15")));
+	}
+
+	@Test
+	public void spent_and_invalidated_outputs_are_subtracted() {
+		output("tx:0", "10", false, Valid.VALID);
+		output("tx:1", "5", false, Valid.VALID);
+		repository.applyOutputs(List.of("tx:0", "tx:1")).blockingAwait();
+
+		outputs.get("tx:0").put("isSpent", true);
+		slpUtxoType("tx:1").put("parentTransactionValid", new Document("valid", Valid.INVALID.name()));
+		repository.applyOutputs(List.of("tx:0", "tx:1")).blockingAwait();
+
+		assertThat(balance(), Matchers.comparesEqualTo(BigDecimal.ZERO));
+	}
+
+	@Test
+	public void unknown_outputs_are_not_counted_until_valid() {
+		output("tx:0", "10", false, Valid.UNKNOWN);
+		repository.applyOutputs(List.of("tx:0")).blockingAwait();
+		assertThat(balances.isEmpty(), Matchers.is(true));
+
+		slpUtxoType("tx:0").put("parentTransactionValid", new Document("valid", Valid.VALID.name()));
+		repository.applyOutputs(List.of("tx:0")).blockingAwait();
+		assertThat(balance(), Matchers.comparesEqualTo(BigDecimal.TEN));
+	}
+
+	@Test
+	public void removing_outputs_reverts_their_deltas() {
+		output("tx:0", "10", false, Valid.VALID);
+		output("tx:1", "5", false, Valid.VALID);
+		repository.applyOutputs(List.of("tx:0", "tx:1")).blockingAwait();
+
+		outputs.remove("tx:1");
+		repository.removeOutputs(List.of("tx:0")).blockingAwait();
+
+		assertThat(balance(), Matchers.comparesEqualTo(new BigDecimal("5")));
+		assertThat(outputs.get("tx:0").containsKey("balanceApplied"), Matchers.is(false));
+	}
+
+	@Test
+	public void token_stats_follow_the_counted_outputs() {
+		output("genesis:1", "100", false, Valid.VALID);
+		outputs.get("genesis:1").append("value", 546L);
+		slpUtxoType("genesis:1").append("hasBaton", true);
+		repository.applyOutputs(List.of("genesis:1")).blockingAwait();
+
+		outputs.get("genesis:1").put("isSpent", true);
+		output("send:1", "60", false, Valid.VALID);
+		output("send:2", "30", false, Valid.VALID);
+		repository.applyOutputs(List.of("genesis:1", "send:1", "send:2")).blockingAwait();
+		repository.applyOutputs(List.of("send:1", "send:2")).blockingAwait();
+
+		TokenStats tokenStats = stats.get(TOKEN_ID);
+		assertThat(tokenStats.getCirculatingSupply(), Matchers.comparesEqualTo(new BigDecimal("90")));
+		assertThat(tokenStats.getValidUtxos(), Matchers.is(2L));
+		assertThat(tokenStats.getBatonUtxos(), Matchers.is(0L));
+		assertThat(tokenStats.getTransactions(), Matchers.is(2L));
+	}
+
+	@Test
+	public void removed_transactions_are_taken_out_of_token_stats() {
+		output("tx:0", "10", false, Valid.VALID);
+		output("tx:1", "5", false, Valid.UNKNOWN);
+		repository.applyOutputs(List.of("tx:0", "tx:1")).blockingAwait();
+
+		repository.removeOutputs(List.of("tx:0", "tx:1")).blockingAwait();
+
+		TokenStats tokenStats = stats.get(TOKEN_ID);
+		assertThat(tokenStats.getCirculatingSupply(), Matchers.comparesEqualTo(BigDecimal.ZERO));
+		assertThat(tokenStats.getValidUtxos(), Matchers.is(0L));
+		assertThat(tokenStats.getTransactions(), Matchers.is(0L));
+	}
+
+	@Test
+	public void transactions_connected_again_after_a_reorg_are_counted_once() {
+		output("tx:0", "10", false, Valid.VALID);
+		repository.applyOutputs(List.of("tx:0")).blockingAwait();
+
+		repository.removeOutputs(List.of("tx:0")).blockingAwait();
+		repository.applyOutputs(List.of("tx:0")).blockingAwait();
+		repository.removeOutputs(List.of("tx:0")).blockingAwait();
+		repository.applyOutputs(List.of("tx:0")).blockingAwait();
+
+		TokenStats tokenStats = stats.get(TOKEN_ID);
+		assertThat(tokenStats.getTransactions(), Matchers.is(1L));
+		assertThat(tokenStats.getValidUtxos(), Matchers.is(1L));
+		assertThat(balance(), Matchers.comparesEqualTo(BigDecimal.TEN));
+	}
+
+	@Test
+	public void writes_run_when_subscribed() {
+		output("tx:0", "10", false, Valid.VALID);
+
+		Completable apply = repository.applyOutputs(List.of("tx:0"));
+		assertThat(balances.isEmpty(), Matchers.is(true));
+
+		apply.blockingAwait();
+		assertThat(balance(), Matchers.comparesEqualTo(BigDecimal.TEN));
+	}
+
+	@Test
+	public void reconcile_rebuilds_balances_and_markers_of_the_scanned_outputs() {
+		output("tx:0", "10", false, Valid.VALID);
+		output("tx:1", "5", true, Valid.VALID);
+		outputs.get("tx:1").put("balanceApplied", true);
+
+		int corrected = repository.reconcile(TOKEN_ID).blockingGet();
+
+		assertThat(corrected, Matchers.is(2));
+		assertThat(balance(), Matchers.comparesEqualTo(BigDecimal.TEN));
+		assertThat(outputs.get("tx:0").getBoolean("balanceApplied"), Matchers.is(true));
+		assertThat(outputs.get("tx:1").getBoolean("balanceApplied"), Matchers.is(false));
+	}
+
+	@Test
+	public void write_interrupted_between_markers_and_balances_is_rebuilt_on_retry() {
+		output("tx:0", "10", false, Valid.VALID);
+		failBalances = true;
+
+		repository.applyOutputs(List.of("tx:0")).test().assertError(IllegalStateException.class);
+		assertThat(outputs.get("tx:0").getBoolean("balanceApplied"), Matchers.is(true));
+		assertThat(balances.isEmpty(), Matchers.is(true));
+		assertThat(pendingTokens, Matchers.contains(TOKEN_ID));
+
+		failBalances = false;
+		repository.applyOutputs(List.of("tx:0")).blockingAwait();
+
+		assertThat(balance(), Matchers.comparesEqualTo(BigDecimal.TEN));
+		assertThat(pendingTokens, Matchers.empty());
+		repository.applyOutputs(List.of("tx:0")).blockingAwait();
+		assertThat(balance(), Matchers.comparesEqualTo(BigDecimal.TEN));
+	}
+
+	private BigDecimal balance() {
+		return balances.get(AddressTokenBalanceDbObject.keyParser(ADDRESS, TOKEN_ID));
+	}
+
+	private Document slpUtxoType(String key) {
+		return outputs.get(key).get("slpUtxoType", Document.class);
+	}
+
+	private void output(String key, String amount, boolean spent, Valid valid) {
+		Document slpUtxoType = new Document("slpTokenId", TOKEN_ID)
+				.append("amount", new Decimal128(new BigDecimal(amount)))
+				.append("parentTransactionValid", new Document("valid", valid.name()));
+		outputs.put(key, new Document("_id", key)
+				.append("address", ADDRESS)
+				.append("isSpent", spent)
+				.append("slpUtxoType", slpUtxoType));
+	}
+
+	private BulkOperations flagBulk() {
+		BulkOperations bulk = Mockito.mock(BulkOperations.class);
+		List<Runnable> pending = new ArrayList<>();
+		Mockito.when(bulk.updateOne(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+			String id = ((Query) invocation.getArgument(0)).getQueryObject().getString("_id");
+			Document update = ((Update) invocation.getArgument(1)).getUpdateObject();
+			if (update.containsKey("$unset")) {
+				pending.add(() -> outputs.get(id).remove("balanceApplied"));
+			} else {
+				pending.add(() -> outputs.get(id).put("balanceApplied", update.get("$set", Document.class).getBoolean("balanceApplied")));
+			}
+			return bulk;
+		});
+		Mockito.when(bulk.execute()).thenAnswer(invocation -> {
+			pending.forEach(Runnable::run);
+			return null;
+		});
+		return bulk;
+	}
+
+	private BulkOperations balanceBulk() {
+		BulkOperations bulk = Mockito.mock(BulkOperations.class);
+		List<Runnable> pending = new ArrayList<>();
+		Mockito.when(bulk.upsert(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+			String id = ((Query) invocation.getArgument(0)).getQueryObject().getString("_id");
+			Document update = ((Update) invocation.getArgument(1)).getUpdateObject();
+			if (update.containsKey("$inc")) {
+				BigDecimal delta = ((Decimal128) update.get("$inc", Document.class).get("balance")).bigDecimalValue();
+				pending.add(() -> balances.merge(id, delta, BigDecimal::add));
+			} else {
+				BigDecimal balance = ((Decimal128) update.get("$set", Document.class).get("balance")).bigDecimalValue();
+				pending.add(() -> balances.put(id, balance));
+			}
+			return bulk;
+		});
+		Mockito.when(bulk.execute()).thenAnswer(invocation -> {
+			if (failBalances) {
+				throw new IllegalStateException("Balance write failed");
+			}
+			pending.forEach(Runnable::run);
+			return null;
+		});
+		return bulk;
+	}
+
+	private BulkOperations pendingBulk() {
+		BulkOperations bulk = Mockito.mock(BulkOperations.class);
+		List<String> pending = new ArrayList<>();
+		Mockito.when(bulk.upsert(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+			pending.add(((Query) invocation.getArgument(0)).getQueryObject().getString("_id"));
+			return bulk;
+		});
+		Mockito.when(bulk.execute()).thenAnswer(invocation -> {
+			pendingTokens.addAll(pending);
+			return null;
+		});
+		return bulk;
+	}
+
+	private static CloseableIterator<Document> stream(Collection<Document> documents) {
+		Iterator<Document> iterator = new ArrayList<>(documents).iterator();
+		return new CloseableIterator<>() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public Document next() {
+				return iterator.next();
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+}
@@ -0,0 +1,138 @@
+package com.bitcoin.indexer.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.AddressTransaction;
+import com.bitcoin.indexer.blockchain.domain.AddressTransaction.Direction;
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpTokenId;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpUtxo;
+import com.bitcoin.indexer.repository.db.AddressTransactionDbObject;
+
+import io.reactivex.Completable;
+import reactor.core.publisher.Flux;
+
+public class AddressTransactionRepositoryImplTest {
+
+	private static final String SENDER = "133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY";
+	private static final String RECEIVER = "132aSc15WmoPwtMbqRVzouZKNnjWL1YTVb";
+	private static final String TOKEN_ID = "token";
+
+	@Test
+	public void every_address_gets_its_net_token_amount() {
+		Transaction transaction = Transaction.create("send",
+				List.of(output(RECEIVER, "7", 1), output(SENDER, "3", 2)),
+				List.of(Input.knownValue(Address.create(SENDER), BigDecimal.ONE, 0, "parent", slpUtxo("10"), false, 1L)),
+				true, BigDecimal.ZERO, Instant.ofEpochMilli(10), true, "block", 100, List.of(), null, "", 1, 1, 1, Instant.ofEpochMilli(10));
+
+		Map<String, AddressTransaction> byAddress = AddressTransaction.fromTransaction(transaction).stream()
+				.collect(Collectors.toMap(e -> e.getAddress().getAddress(), Function.identity()));
+
+		assertThat(byAddress.get(RECEIVER).getNetAmount(), Matchers.comparesEqualTo(new BigDecimal("7")));
+		assertThat(byAddress.get(RECEIVER).getDirection(), Matchers.is(Direction.RECEIVED));
+		assertThat(byAddress.get(SENDER).getNetAmount(), Matchers.comparesEqualTo(new BigDecimal("-7")));
+		assertThat(byAddress.get(SENDER).getDirection(), Matchers.is(Direction.SENT));
+		assertThat(byAddress.get(SENDER).getCursor(), Matchers.is("100:send"));
+	}
+
+	@Test
+	public void tokens_only_spent_are_listed_for_the_spender() {
+		Utxo change = Utxo.create("burn", Address.create(SENDER), "", new BigDecimal("0.00000546"), true, 0, false, Instant.ofEpochMilli(10),
+				null, false, 100);
+		Transaction transaction = Transaction.create("burn", List.of(change),
+				List.of(Input.knownValue(Address.create(SENDER), BigDecimal.ONE, 0, "parent", slpUtxo("10"), false, 1L)),
+				true, BigDecimal.ZERO, Instant.ofEpochMilli(10), true, "block", 100, List.of(), null, "", 1, 1, 1, Instant.ofEpochMilli(10));
+
+		List<AddressTransaction> addressTransactions = AddressTransaction.fromTransaction(transaction);
+
+		assertThat(addressTransactions.size(), Matchers.is(1));
+		assertThat(addressTransactions.get(0).getAddress().getAddress(), Matchers.is(SENDER));
+		assertThat(addressTransactions.get(0).getTokenId(), Matchers.is(TOKEN_ID));
+		assertThat(addressTransactions.get(0).getNetAmount(), Matchers.comparesEqualTo(new BigDecimal("-10")));
+	}
+
+	@Test
+	public void mempool_transactions_page_before_blocks() {
+		Transaction transaction = Transaction.create("mempool", List.of(output(RECEIVER, "1", 1)),
+				List.of(Input.knownValue(Address.create(SENDER), BigDecimal.ONE, 0, "parent", slpUtxo("1"), false, 1L)),
+				false, BigDecimal.ZERO, Instant.ofEpochMilli(10), false, null, null, List.of(), null, "", 1, 1, 1, null);
+
+		AddressTransaction addressTransaction = AddressTransaction.fromTransaction(transaction).get(0);
+
+		assertThat(addressTransaction.isConfirmed(), Matchers.is(false));
+		assertThat(addressTransaction.getHeight(), Matchers.is(AddressTransaction.MEMPOOL_HEIGHT));
+	}
+
+	@Test
+	public void cursor_continues_after_the_last_entry() {
+		ReactiveMongoOperations reactiveMongoOperations = Mockito.mock(ReactiveMongoOperations.class);
+		Mockito.when(reactiveMongoOperations.find(any(Query.class), eq(AddressTransactionDbObject.class))).thenReturn(Flux.empty());
+		AddressTransactionRepositoryImpl repository = new AddressTransactionRepositoryImpl(Mockito.mock(MongoOperations.class), reactiveMongoOperations);
+
+		repository.fetchTransactions(Address.create(RECEIVER), TOKEN_ID, "100:send", 50).blockingSubscribe();
+
+		ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+		Mockito.verify(reactiveMongoOperations).find(captor.capture(), eq(AddressTransactionDbObject.class));
+		Query query = captor.getValue();
+		List<?> or = query.getQueryObject().get("$or", List.class);
+		assertThat(or.get(0), Matchers.is(new Document("h", new Document("$lt", 100))));
+		assertThat(or.get(1), Matchers.is(new Document("h", 100).append("tx", new Document("$lt", "send"))));
+		assertThat(query.getSortObject(), Matchers.is(new Document("h", -1).append("tx", -1)));
+		assertThat(query.getLimit(), Matchers.is(50));
+	}
+
+	@Test
+	public void removals_run_when_subscribed() {
+		MongoOperations mongoOperations = Mockito.mock(MongoOperations.class);
+		AddressTransactionRepositoryImpl repository = new AddressTransactionRepositoryImpl(mongoOperations, Mockito.mock(ReactiveMongoOperations.class));
+		Transaction transaction = Transaction.create("mempool", List.of(output(RECEIVER, "1", 1)),
+				List.of(Input.knownValue(Address.create(SENDER), BigDecimal.ONE, 0, "parent", slpUtxo("1"), false, 1L)),
+				false, BigDecimal.ZERO, Instant.ofEpochMilli(10), false, null, null, List.of(), null, "", 1, 1, 1, null);
+
+		Completable remove = repository.removeTransactions(List.of(transaction));
+		Mockito.verifyZeroInteractions(mongoOperations);
+
+		remove.blockingAwait();
+		Mockito.verify(mongoOperations).remove(any(Query.class), eq(AddressTransactionDbObject.class));
+	}
+
+	@Test
+	public void invalid_cursor_is_an_error() {
+		AddressTransactionRepositoryImpl repository = new AddressTransactionRepositoryImpl(Mockito.mock(MongoOperations.class),
+				Mockito.mock(ReactiveMongoOperations.class));
+
+		repository.fetchTransactions(Address.create(RECEIVER), TOKEN_ID, "send", 50)
+				.test()
+				.assertError(IllegalArgumentException.class);
+	}
+
+	private static Utxo output(String address, String amount, int index) {
+		return Utxo.create("tx", Address.create(address), "", new BigDecimal("0.00000546"), true, index, false, Instant.ofEpochMilli(10),
+				slpUtxo(amount), false, 100);
+	}
+
+	private static SlpUtxo slpUtxo(String amount) {
+		return SlpUtxo.send(new SlpTokenId(TOKEN_ID), new BigDecimal(amount), "", "", "", "01");
+	}
+}
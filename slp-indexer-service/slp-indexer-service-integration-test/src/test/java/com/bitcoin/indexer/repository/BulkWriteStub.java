@@ -0,0 +1,50 @@
+package com.bitcoin.indexer.repository;
+
+import static org.mockito.ArgumentMatchers.any;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.bson.Document;
+import org.mockito.Mockito;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+
+/**
+ * Routes the bulk writes a repository sends through the reactive driver to a test function, as the mapped write
+ * models Mongo would receive.
+ */
+final class BulkWriteStub {
+
+	private BulkWriteStub() {
+	}
+
+	static MappingMongoConverter converter() {
+		MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+		MongoMappingContext mappingContext = new MongoMappingContext();
+		mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+		mappingContext.afterPropertiesSet();
+		MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+		converter.setCustomConversions(conversions);
+		converter.afterPropertiesSet();
+		return converter;
+	}
+
+	@SuppressWarnings("unchecked")
+	static void stub(ReactiveMongoOperations operations, Function<List<WriteModel<Document>>, Publisher<BulkWriteResult>> bulkWrite) {
+		MongoCollection<Document> collection = Mockito.mock(MongoCollection.class);
+		Mockito.when(collection.bulkWrite(any(List.class), any(BulkWriteOptions.class)))
+				.thenAnswer(invocation -> bulkWrite.apply(invocation.getArgument(0)));
+		Mockito.when(operations.getConverter()).thenReturn(converter());
+		Mockito.when(operations.getCollection(any())).thenReturn(collection);
+	}
+}
@@ -0,0 +1,99 @@
+package com.bitcoin.indexer.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.repository.db.RawTransactionDbObject;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteRequest;
+import com.mongodb.client.model.UpdateOneModel;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class RawTransactionRepositoryImplTest {
+
+	// Long runs of zero bytes, as in the unsigned inputs of a transaction, compress well
+	private static final String RAW_HEX = "0100000001" + "00".repeat(200) + "ffffffff";
+
+	private final MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+
+	@Test
+	public void compressed_bytes_read_back_unchanged() {
+		RawTransactionDbObject stored = stored("tx", RawTransactionDbObject.toInsert(RAW_HEX, true));
+
+		assertThat(stored.isCompressed(), Matchers.is(true));
+		assertThat(stored.toRawHex(), Matchers.is(RAW_HEX));
+	}
+
+	@Test
+	public void bytes_are_kept_as_they_are_when_compression_does_not_help() {
+		String incompressible = "a1b2c3d4";
+
+		RawTransactionDbObject stored = stored("tx", RawTransactionDbObject.toInsert(incompressible, true));
+
+		assertThat(stored.isCompressed(), Matchers.is(false));
+		assertThat(stored.toRawHex(), Matchers.is(incompressible));
+	}
+
+	@Test
+	public void transactions_read_back_without_bytes_are_not_saved() {
+		ReactiveMongoOperations reactiveMongoOperations = Mockito.mock(ReactiveMongoOperations.class);
+		List<Document> upserts = new ArrayList<>();
+		BulkWriteStub.stub(reactiveMongoOperations, models -> {
+			models.forEach(model -> upserts.add((Document) ((UpdateOneModel<Document>) model).getFilter()));
+			return Mono.just(BulkWriteResult.acknowledged(WriteRequest.Type.UPDATE, 0, 0, List.of()));
+		});
+		RawTransactionRepositoryImpl repository = new RawTransactionRepositoryImpl(Mockito.mock(MongoOperations.class), reactiveMongoOperations, false);
+
+		repository.saveRawTransactions(List.of(transaction("fresh", RAW_HEX), transaction("stored", ""))).blockingAwait();
+
+		assertThat(upserts.size(), Matchers.is(1));
+		assertThat(upserts.get(0).get("_id"), Matchers.is("fresh"));
+	}
+
+	@Test
+	public void transactions_not_yet_migrated_fall_back_to_the_inline_bytes() {
+		ReactiveMongoOperations reactiveMongoOperations = Mockito.mock(ReactiveMongoOperations.class);
+		Mockito.when(reactiveMongoOperations.find(any(Query.class), eq(RawTransactionDbObject.class)))
+				.thenReturn(Flux.just(stored("moved", RawTransactionDbObject.toInsert(RAW_HEX, false))));
+		Mockito.when(reactiveMongoOperations.find(any(Query.class), eq(Document.class), eq("transactions")))
+				.thenReturn(Flux.just(new Document("_id", "inline").append("rawHex", "abcd")));
+		RawTransactionRepositoryImpl repository = new RawTransactionRepositoryImpl(Mockito.mock(MongoOperations.class), reactiveMongoOperations, false);
+
+		Map<String, String> raw = repository.fetchRawHex(List.of("moved", "inline")).blockingGet();
+
+		assertThat(raw, Matchers.is(Map.of("moved", RAW_HEX, "inline", "abcd")));
+	}
+
+	private RawTransactionDbObject stored(String txId, Update insert) {
+		Document document = new Document("_id", txId);
+		document.putAll((Document) insert.getUpdateObject().get("$setOnInsert"));
+		return converter.read(RawTransactionDbObject.class, document);
+	}
+
+	private static Transaction transaction(String txId, String rawHex) {
+		Transaction transaction = Mockito.mock(Transaction.class);
+		Mockito.when(transaction.getTxId()).thenReturn(txId);
+		Mockito.when(transaction.getRawHex()).thenReturn(rawHex);
+		return transaction;
+	}
+}
@@ -0,0 +1,83 @@
+package com.bitcoin.indexer.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.core.Coin;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteRequest;
+
+import io.reactivex.Flowable;
+import reactor.core.publisher.Mono;
+
+public class ReactiveBulkWriteStressTest {
+
+	private static final Address ADDRESS = Address.create("133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY");
+	private static final Duration WRITE_LATENCY = Duration.ofMillis(50);
+	private static final int WRITES = 2000;
+	private static final int IN_FLIGHT = 128;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger peakInFlight = new AtomicInteger();
+	private UtxoRepositoryImpl utxoRepository;
+
+	@Before
+	public void setUp() {
+		ReactiveMongoOperations reactiveMongoOperations = Mockito.mock(ReactiveMongoOperations.class);
+		// Mongo answers every bulk write after a fixed delay, without a thread waiting on it
+		BulkWriteStub.stub(reactiveMongoOperations, models -> Mono.delay(WRITE_LATENCY)
+				.map(tick -> BulkWriteResult.acknowledged(WriteRequest.Type.UPDATE, models.size(), models.size(), List.of()))
+				.doOnSubscribe(s -> peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+				.doOnTerminate(inFlight::decrementAndGet));
+		utxoRepository = new UtxoRepositoryImpl(false, reactiveMongoOperations, Mockito.mock(MongoOperations.class), 1000);
+	}
+
+	@Test
+	public void latency_stays_flat_with_many_writes_in_flight() {
+		List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+
+		Flowable.range(0, WRITES)
+				.flatMapSingle(i -> {
+					long start = System.nanoTime();
+					return utxoRepository.saveUtxo(List.of(utxo(i)), Coin.BCH)
+							.doOnSuccess(saved -> latencies.add(Duration.ofNanos(System.nanoTime() - start).toMillis()));
+				}, false, IN_FLIGHT)
+				.ignoreElements()
+				.blockingAwait();
+
+		List<Long> sorted = new ArrayList<>(latencies);
+		Collections.sort(sorted);
+		assertThat(sorted.size(), Matchers.is(WRITES));
+		// Every slot is filled by a pending write, none waits for a thread to free up
+		assertThat(peakInFlight.get(), Matchers.is(IN_FLIGHT));
+		assertThat(sorted.get(WRITES * 99 / 100), Matchers.lessThan(WRITE_LATENCY.toMillis() * 10));
+	}
+
+	@Test
+	public void nothing_is_written_until_subscribed() {
+		utxoRepository.saveUtxo(List.of(utxo(0)), Coin.BCH);
+
+		assertThat(peakInFlight.get(), Matchers.is(0));
+	}
+
+	private static Utxo utxo(int index) {
+		return Utxo.create("tx", ADDRESS, "76a91411b366edfc0a8b66feebae5c2e25a7b6a5d1cf3188ac", BigDecimal.valueOf(546), true, index, false,
+				Instant.ofEpochSecond(1000), null, false, 100);
+	}
+}
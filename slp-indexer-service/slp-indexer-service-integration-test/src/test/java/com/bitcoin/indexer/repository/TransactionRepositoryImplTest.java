@@ -0,0 +1,119 @@
+package com.bitcoin.indexer.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.bson.Document;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.TransactionCursor;
+import com.bitcoin.indexer.core.Coin;
+import com.bitcoin.indexer.repository.db.TransactionDbObject;
+
+import reactor.core.publisher.Flux;
+
+public class TransactionRepositoryImplTest {
+
+	private static final String TOKEN_ID = "token";
+
+	private MongoOperations mongoOperations;
+	private ReactiveMongoTemplate reactiveMongoTemplate;
+	private TransactionRepositoryImpl repository;
+
+	@Before
+	public void setUp() {
+		mongoOperations = Mockito.mock(MongoOperations.class);
+		reactiveMongoTemplate = Mockito.mock(ReactiveMongoTemplate.class);
+		// 100 transactions, one second apart, newest first
+		Mockito.when(reactiveMongoTemplate.find(any(Query.class), eq(TransactionDbObject.class))).thenAnswer(invocation ->
+				Flux.fromIterable(positions(invocation.getArgument(0)).mapToObj(TransactionRepositoryImplTest::transaction).collect(Collectors.toList())));
+		Mockito.when(mongoOperations.find(any(Query.class), eq(Document.class), eq("transactions"))).thenAnswer(invocation ->
+				positions(invocation.getArgument(0))
+						.mapToObj(i -> new Document("_id", "tx" + i).append("time", Date.from(Instant.ofEpochSecond(100 - i))))
+						.collect(Collectors.toList()));
+		repository = new TransactionRepositoryImpl(mongoOperations, reactiveMongoTemplate, Coin.BCH, Mockito.mock(RawTransactionRepository.class));
+	}
+
+	@Test
+	public void cursor_round_trips_and_rejects_garbage() {
+		TransactionCursor cursor = TransactionCursor.of(Instant.ofEpochMilli(1234), "abc");
+
+		assertThat(TransactionCursor.decode(cursor.encode()), Matchers.is(Optional.of(cursor)));
+		assertThat(TransactionCursor.decode("not a cursor"), Matchers.is(Optional.empty()));
+		assertThat(TransactionCursor.decode("MTIz"), Matchers.is(Optional.empty()));
+	}
+
+	@Test
+	public void first_page_does_not_read_ahead() {
+		repository.fetchTransactionsInvolvingToken(TOKEN_ID, true, 1).blockingGet();
+
+		Mockito.verify(mongoOperations, Mockito.never()).find(any(Query.class), eq(Document.class), eq("transactions"));
+		Query query = lastPageQuery();
+		assertThat(query.getSkip(), Matchers.is(0L));
+		assertThat(query.getQueryObject().containsKey("$or"), Matchers.is(false));
+	}
+
+	@Test
+	public void next_page_continues_from_the_remembered_boundary() {
+		repository.fetchTransactionsInvolvingToken(TOKEN_ID, true, 5).blockingGet();
+		assertThat(timeOf(lastPageQuery()), Matchers.is(61));
+
+		repository.fetchTransactionsInvolvingToken(TOKEN_ID, true, 6).blockingGet();
+
+		// Pages 1-4 were walked once for page 5, page 6 starts from the boundary remembered while serving page 5
+		Mockito.verify(mongoOperations, Mockito.times(1)).find(any(Query.class), eq(Document.class), eq("transactions"));
+		Query query = lastPageQuery();
+		assertThat(timeOf(query), Matchers.is(51));
+		assertThat(query.getSkip(), Matchers.is(0L));
+		assertThat(query.getLimit(), Matchers.is(10));
+	}
+
+	@Test
+	public void pages_past_the_end_are_empty() {
+		repository.fetchTransactionsInvolvingToken(TOKEN_ID, true, 20).blockingGet();
+
+		assertThat(timeOf(lastPageQuery()), Matchers.is(1));
+	}
+
+	private Query lastPageQuery() {
+		ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+		Mockito.verify(reactiveMongoTemplate, Mockito.atLeastOnce()).find(captor.capture(), eq(TransactionDbObject.class));
+		return captor.getValue();
+	}
+
+	private static IntStream positions(Query query) {
+		int start = query.getQueryObject().containsKey("$or") ? 101 - timeOf(query) : 0;
+		return IntStream.range(start, Math.min(100, start + query.getLimit()));
+	}
+
+	private static TransactionDbObject transaction(int position) {
+		Transaction transaction = Mockito.mock(Transaction.class);
+		Mockito.when(transaction.getTxId()).thenReturn("tx" + position);
+		Mockito.when(transaction.getTime()).thenReturn(Instant.ofEpochSecond(100 - position));
+		TransactionDbObject dbObject = Mockito.mock(TransactionDbObject.class);
+		Mockito.when(dbObject.toDomain()).thenReturn(transaction);
+		return dbObject;
+	}
+
+	private static int timeOf(Query query) {
+		List<?> or = query.getQueryObject().get("$or", List.class);
+		Date time = (Date) ((Document) ((Document) or.get(0)).get("time")).get("$lt");
+		return (int) time.toInstant().getEpochSecond();
+	}
+}
@@ -0,0 +1,124 @@
+package com.bitcoin.indexer.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.TransactionSlpData;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
+import com.bitcoin.indexer.core.Coin;
+import com.bitcoin.indexer.repository.db.AllOutputsDbObject;
+import com.bitcoin.indexer.repository.db.SlpUtxoType;
+import com.bitcoin.indexer.repository.db.SlpValidDbType;
+import com.bitcoin.indexer.repository.db.TransactionDbObject;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class TransactionViewsTest {
+
+	private static final String ADDRESS = "133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY";
+
+	private MappingMongoConverter converter;
+	private ReactiveMongoTemplate reactiveMongoTemplate;
+	private TransactionRepositoryImpl repository;
+
+	@Before
+	public void setUp() {
+		MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+		MongoMappingContext mappingContext = new MongoMappingContext();
+		mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+		mappingContext.afterPropertiesSet();
+		converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+		converter.setCustomConversions(conversions);
+		converter.afterPropertiesSet();
+		reactiveMongoTemplate = Mockito.mock(ReactiveMongoTemplate.class);
+		repository = new TransactionRepositoryImpl(Mockito.mock(MongoOperations.class), reactiveMongoTemplate, Coin.BCH, Mockito.mock(RawTransactionRepository.class));
+	}
+
+	@Test
+	public void validity_reads_only_slp_valid() {
+		Mockito.when(reactiveMongoTemplate.find(any(Query.class), eq(TransactionDbObject.class)))
+				.thenReturn(Flux.just(read(new Document("_id", "tx").append("slpValid", new SlpValidDbType("ok", Valid.VALID).toDocument()))));
+
+		Map<String, SlpValid> validity = repository.fetchValidity(List.of("tx", "missing")).blockingGet();
+
+		assertThat(validity.keySet(), Matchers.contains("tx"));
+		assertThat(validity.get("tx").getValid(), Matchers.is(Valid.VALID));
+		Query query = lastQuery();
+		assertThat(query.getFieldsObject(), Matchers.is(new Document("slpValid", 1)));
+		assertThat(query.getMeta().getComment(), Matchers.is(TransactionRepositoryImpl.VALIDITY_VIEW));
+	}
+
+	@Test
+	public void slp_data_keeps_output_positions() {
+		Document stored = new Document("_id", "tx")
+				.append("slpValid", new SlpValidDbType("ok", Valid.VALID).toDocument())
+				.append("outputs", List.of(new Document("slpUtxoType", slpUtxoType("0")), new Document(), new Document("slpUtxoType", slpUtxoType("7"))))
+				.append("inputs", List.of(new Document("slpTokenType", slpUtxoType("10")), new Document()));
+		Mockito.when(reactiveMongoTemplate.findOne(any(Query.class), eq(TransactionDbObject.class))).thenReturn(Mono.just(read(stored)));
+
+		TransactionSlpData slpData = repository.fetchSlpData("tx").blockingGet();
+
+		assertThat(slpData.getSlpOutput(1).isPresent(), Matchers.is(false));
+		assertThat(slpData.getSlpOutput(2).get().getAmount(), Matchers.comparesEqualTo(new BigDecimal("7")));
+		assertThat(slpData.getSlpOutput(2).get().getParentTransactionValid().getValid(), Matchers.is(Valid.VALID));
+		assertThat(slpData.getSlpOutputs().size(), Matchers.is(2));
+		assertThat(slpData.getSlpInputs().size(), Matchers.is(1));
+		assertThat(slpData.getSlpInputs().get(0).getAmount(), Matchers.comparesEqualTo(new BigDecimal("10")));
+
+		ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+		Mockito.verify(reactiveMongoTemplate).findOne(captor.capture(), eq(TransactionDbObject.class));
+		assertThat(captor.getValue().getFieldsObject().keySet(), Matchers.containsInAnyOrder("slpValid", "outputs.slpUtxoType", "inputs.slpTokenType"));
+	}
+
+	@Test
+	public void op_return_is_read_from_the_script_prefix() {
+		assertThat(readOutput("6a04534c500001010453454e44").isOpReturn(), Matchers.is(true));
+		assertThat(readOutput("76a91400112233445566778899aabbccddeeff0011223388ac").isOpReturn(), Matchers.is(false));
+	}
+
+	private Utxo readOutput(String scriptPubKey) {
+		Utxo utxo = Utxo.create("tx", Address.create(ADDRESS), scriptPubKey, BigDecimal.valueOf(546), true, 0, false, Instant.ofEpochMilli(10),
+				null, false, 100);
+		Document document = new Document("_id", AllOutputsDbObject.keyParser("tx", 0));
+		document.putAll((Document) AllOutputsDbObject.fromDomain(utxo, null, false, Coin.BCH).toUpdate().getUpdateObject().get("$set"));
+		return converter.read(AllOutputsDbObject.class, document).toDomain();
+	}
+
+	private Query lastQuery() {
+		ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+		Mockito.verify(reactiveMongoTemplate).find(captor.capture(), eq(TransactionDbObject.class));
+		return captor.getValue();
+	}
+
+	private TransactionDbObject read(Document document) {
+		return converter.read(TransactionDbObject.class, document);
+	}
+
+	private static Document slpUtxoType(String amount) {
+		return new SlpUtxoType("token", "SEND", "01", new BigDecimal(amount), false, "", "", new SlpValidDbType("", Valid.VALID), "01").toDocument();
+	}
+}
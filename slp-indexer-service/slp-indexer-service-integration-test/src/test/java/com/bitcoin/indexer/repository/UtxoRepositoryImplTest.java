@@ -0,0 +1,174 @@
+package com.bitcoin.indexer.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.TokenBalance;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.blockchain.domain.UtxoSpend;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
+import com.bitcoin.indexer.core.Coin;
+import com.bitcoin.indexer.repository.db.AllOutputsDbObject;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.bulk.WriteRequest;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class UtxoRepositoryImplTest {
+
+	private static final Address ADDRESS = Address.create("133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY");
+	private static final Instant MEMPOOL_SEEN = Instant.ofEpochSecond(1000);
+	private static final Instant BLOCK_SEEN = Instant.ofEpochSecond(2000);
+
+	private final Map<String, Document> outputs = new HashMap<>();
+	private int bulkWrites = 0;
+	private UtxoRepositoryImpl utxoRepository;
+	private ReactiveMongoOperations reactiveMongoOperations;
+
+	@Before
+	public void setUp() {
+		// Any read goes through the reactive operations, a null mock makes reads fail the test
+		reactiveMongoOperations = Mockito.mock(ReactiveMongoOperations.class);
+		BulkWriteStub.stub(reactiveMongoOperations, models -> Mono.fromCallable(() -> upsert(models)));
+		utxoRepository = new UtxoRepositoryImpl(false, reactiveMongoOperations, Mockito.mock(MongoOperations.class), 1000);
+	}
+
+	@Test
+	public void block_confirmation_keeps_mempool_timestamp_without_reading() {
+		utxoRepository.saveUtxo(List.of(utxo(false, MEMPOOL_SEEN, null)), Coin.BCH).blockingGet();
+		utxoRepository.saveUtxo(List.of(utxo(true, BLOCK_SEEN, 100)), Coin.BCH).blockingGet();
+
+		Document stored = outputs.get(AllOutputsDbObject.keyParser("tx", 1));
+		assertThat(bulkWrites, Matchers.is(2));
+		assertThat(stored.get("timestamp"), Matchers.is(Date.from(MEMPOOL_SEEN)));
+		assertThat(stored.get("confirmed"), Matchers.is(true));
+		assertThat(stored.get("confirmedHeight"), Matchers.is(100));
+
+		Utxo cached = utxoRepository.fetchUtxo("tx", 1, Coin.BCH).blockingGet();
+		assertThat(cached.getTimestamp(), Matchers.is(MEMPOOL_SEEN));
+		assertThat(cached.isConfirmed(), Matchers.is(true));
+	}
+
+	@Test
+	public void confirmation_does_not_unspend_output_spent_in_mempool() {
+		utxoRepository.saveUtxo(List.of(utxo(false, MEMPOOL_SEEN, null)), Coin.BCH).blockingGet();
+		outputs.get(AllOutputsDbObject.keyParser("tx", 1)).put("isSpent", true);
+
+		utxoRepository.saveUtxo(List.of(utxo(true, BLOCK_SEEN, 100)), Coin.BCH).blockingGet();
+
+		assertThat(outputs.get(AllOutputsDbObject.keyParser("tx", 1)).get("isSpent"), Matchers.is(true));
+	}
+
+	@Test
+	public void output_created_after_its_pending_spend_gets_its_timestamp() {
+		utxoRepository.spendUtxos(List.of(UtxoSpend.create("tx", 1, "spender", 0, true)), Coin.BCH).blockingAwait();
+		assertThat(outputs.get(AllOutputsDbObject.keyParser("tx", 1)).get("timestamp"), Matchers.notNullValue());
+
+		utxoRepository.saveUtxo(List.of(utxo(false, MEMPOOL_SEEN, null)), Coin.BCH).blockingGet();
+
+		Document stored = outputs.get(AllOutputsDbObject.keyParser("tx", 1));
+		assertThat(stored.get("timestamp"), Matchers.is(Date.from(MEMPOOL_SEEN)));
+		assertThat(stored.get("isSpent"), Matchers.is(true));
+		assertThat(stored.get("spendingTxId"), Matchers.is("spender"));
+		Utxo output = BulkWriteStub.converter().read(AllOutputsDbObject.class, stored).toDomain();
+		assertThat(output.getTimestamp(), Matchers.is(MEMPOOL_SEEN));
+		assertThat(output.isSpent(), Matchers.is(true));
+	}
+
+	@Test
+	public void outputs_read_for_inputs_are_cached_by_outpoint() {
+		AllOutputsDbObject stored = AllOutputsDbObject.fromDomain(utxo(true, BLOCK_SEEN, 100), null, false, Coin.BCH);
+		Mockito.when(reactiveMongoOperations.find(any(Query.class), eq(AllOutputsDbObject.class))).thenAnswer(i -> {
+			Query query = i.getArgument(0);
+			return Flux.fromIterable(query.getQueryObject().get("_id", Document.class).getList("$in", String.class))
+					.filter(AllOutputsDbObject.keyParser("tx", 1)::equals)
+					.map(id -> stored);
+		});
+		List<Input> inputs = List.of(Input.unknownValue(ADDRESS, 1, "tx", false, 1L));
+
+		utxoRepository.fetchUtxo(inputs, Coin.BCH).blockingGet();
+		List<Utxo> cached = utxoRepository.fetchUtxo(inputs, Coin.BCH).blockingGet();
+
+		assertThat(cached.size(), Matchers.is(1));
+		assertThat(cached.get(0).getIndex(), Matchers.is(1));
+		ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+		Mockito.verify(reactiveMongoOperations, Mockito.times(2)).find(queries.capture(), eq(AllOutputsDbObject.class));
+		assertThat(queries.getAllValues().get(1).getQueryObject().get("_id", Document.class).getList("$in", String.class), Matchers.empty());
+	}
+
+	@Test
+	public void token_balances_are_summed_by_mongo() {
+		Mockito.when(reactiveMongoOperations.getCollectionName(AllOutputsDbObject.class)).thenReturn("allOutputs");
+		Mockito.when(reactiveMongoOperations.aggregate(any(Aggregation.class), eq("allOutputs"), eq(Document.class)))
+				.thenReturn(Flux.just(new Document("_id", ADDRESS.getAddress()).append("balance", new Decimal128(new BigDecimal("12.5")))));
+
+		List<TokenBalance> balances = utxoRepository.fetchTokenBalances("tokenId", Valid.VALID).toList().blockingGet();
+
+		assertThat(balances, Matchers.contains(new TokenBalance("tokenId", ADDRESS, new BigDecimal("12.5"))));
+		ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+		Mockito.verify(reactiveMongoOperations).aggregate(aggregation.capture(), eq("allOutputs"), eq(Document.class));
+		List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+		assertThat(pipeline.get(0).get("$match", Document.class).keySet(),
+				Matchers.contains("slpUtxoType.slpTokenId", "isSpent", "slpUtxoType.parentTransactionValid.valid"));
+		assertThat(pipeline.get(2).get("$group", Document.class).get("_id"), Matchers.is("$address"));
+	}
+
+	private static Utxo utxo(boolean confirmed, Instant timestamp, Integer height) {
+		return Utxo.create("tx", ADDRESS, "76a91411b366edfc0a8b66feebae5c2e25a7b6a5d1cf3188ac", BigDecimal.ONE, confirmed, 1, false, timestamp, null, false, height);
+	}
+
+	// Applies upserts the way Mongo does: $set always, $setOnInsert only when the document is created, $min when lower
+	private BulkWriteResult upsert(List<WriteModel<Document>> models) {
+		bulkWrites++;
+		List<BulkWriteUpsert> inserted = new ArrayList<>();
+		for (int i = 0; i < models.size(); i++) {
+			UpdateOneModel<Document> upsert = (UpdateOneModel<Document>) models.get(i);
+			assertThat(upsert.getOptions().isUpsert(), Matchers.is(true));
+			String id = ((Document) upsert.getFilter()).getString("_id");
+			Document update = (Document) upsert.getUpdate();
+			Document stored = outputs.get(id);
+			if (stored == null) {
+				stored = new Document("_id", id);
+				stored.putAll(update.get("$setOnInsert", new Document()));
+				outputs.put(id, stored);
+				inserted.add(new BulkWriteUpsert(i, new BsonString(id)));
+			}
+			stored.putAll(update.get("$set", new Document()));
+			for (Map.Entry<String, Object> min : update.get("$min", new Document()).entrySet()) {
+				Object current = stored.get(min.getKey());
+				if (current == null || ((Date) min.getValue()).before((Date) current)) {
+					stored.put(min.getKey(), min.getValue());
+				}
+			}
+		}
+		return BulkWriteResult.acknowledged(WriteRequest.Type.UPDATE, models.size() - inserted.size(), models.size() - inserted.size(), inserted);
+	}
+}
@@ -0,0 +1,250 @@
+package com.bitcoin.indexer.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.TransactionCursor;
+import com.bitcoin.indexer.blockchain.domain.TransactionSlpData;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpValid.Valid;
+import com.bitcoin.indexer.core.Coin;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+
+public class WriteBehindTransactionRepositoryTest {
+
+	@Test
+	public void batch_writes_each_document_once_with_final_state() {
+		RecordingRepository stored = new RecordingRepository();
+		WriteBehindTransactionRepository repository = new WriteBehindTransactionRepository(stored);
+		IndexerTransaction a = tx("a");
+		IndexerTransaction b = tx("b");
+
+		WriteBehindTransactionRepository.Batch batch = repository.begin(List.of(a, b));
+		batch.stage(a.withValid(SlpValid.valid("")));
+		// A validator saving a transaction of the open batch only updates the buffer
+		repository.saveTransaction(List.of(b.withValid(SlpValid.invalid("bad")))).blockingGet();
+
+		assertThat(stored.writes, Matchers.empty());
+		assertThat(repository.fetchTransaction("b", Coin.BCH, true).blockingGet().getTransaction().getSlpValid().get().getValid(), Matchers.is(Valid.INVALID));
+
+		batch.flush();
+
+		assertThat(stored.writes.size(), Matchers.is(1));
+		assertThat(stored.writes.get(0).stream().map(t -> t.getTransaction().getTxId()).sorted().collect(Collectors.toList()), Matchers.contains("a", "b"));
+		assertThat(stored.byId.get("a").getTransaction().getSlpValid().get().getValid(), Matchers.is(Valid.VALID));
+		assertThat(stored.byId.get("b").getTransaction().getSlpValid().get().getValid(), Matchers.is(Valid.INVALID));
+		assertThat(repository.getWriteAmplification(), Matchers.is(1.0));
+	}
+
+	@Test
+	public void saves_outside_a_batch_are_written_through() {
+		RecordingRepository stored = new RecordingRepository();
+		WriteBehindTransactionRepository repository = new WriteBehindTransactionRepository(stored);
+
+		repository.saveTransaction(List.of(tx("c"))).blockingGet();
+
+		assertThat(stored.writes.size(), Matchers.is(1));
+		assertThat(repository.fetchTransaction("c", Coin.BCH, true).blockingGet().getTransaction().getTxId(), Matchers.is("c"));
+	}
+
+	@Test
+	public void saves_run_when_subscribed() {
+		RecordingRepository stored = new RecordingRepository();
+		WriteBehindTransactionRepository repository = new WriteBehindTransactionRepository(stored);
+
+		Single<List<IndexerTransaction>> save = repository.saveTransaction(List.of(tx("c")));
+
+		assertThat(stored.writes, Matchers.empty());
+		save.blockingGet();
+		assertThat(stored.writes.size(), Matchers.is(1));
+	}
+
+	@Test
+	public void discarded_batch_writes_only_saves_from_outside() {
+		RecordingRepository stored = new RecordingRepository();
+		WriteBehindTransactionRepository repository = new WriteBehindTransactionRepository(stored);
+		IndexerTransaction a = tx("a");
+		IndexerTransaction b = tx("b");
+
+		WriteBehindTransactionRepository.Batch batch = repository.begin(List.of(a, b));
+		batch.stage(a.withValid(SlpValid.invalid("half done")));
+		repository.saveTransaction(List.of(b.withValid(SlpValid.valid("")))).blockingGet();
+		batch.discard();
+
+		assertThat(stored.byId.keySet(), Matchers.contains("b"));
+		assertThat(stored.byId.get("b").getTransaction().getSlpValid().get().getValid(), Matchers.is(Valid.VALID));
+		assertThat(repository.fetchTransaction("a", Coin.BCH, true).isEmpty().blockingGet(), Matchers.is(true));
+	}
+
+	@Test
+	public void reads_merge_buffered_and_stored_transactions() {
+		RecordingRepository stored = new RecordingRepository();
+		WriteBehindTransactionRepository repository = new WriteBehindTransactionRepository(stored);
+		repository.saveTransaction(List.of(tx("stored"))).blockingGet();
+		WriteBehindTransactionRepository.Batch batch = repository.begin(List.of(tx("buffered")));
+
+		List<String> found = repository.fetchTransactions(List.of("stored", "buffered", "missing"), Coin.BCH, true).blockingGet().stream()
+				.map(t -> t.getTransaction().getTxId())
+				.sorted()
+				.collect(Collectors.toList());
+
+		assertThat(found, Matchers.contains("buffered", "stored"));
+		batch.flush();
+		assertThat(stored.byId.keySet(), Matchers.containsInAnyOrder("stored", "buffered"));
+	}
+
+	@Test
+	public void queries_return_buffered_verdicts() {
+		RecordingRepository stored = new RecordingRepository();
+		WriteBehindTransactionRepository repository = new WriteBehindTransactionRepository(stored);
+		repository.saveTransaction(List.of(tx("a").withValid(SlpValid.valid("")))).blockingGet();
+		repository.begin(List.of(tx("a").withValid(SlpValid.invalid("bad")), tx("b").withValid(SlpValid.valid(""))));
+
+		List<String> valid = repository.fetchValidTransactions(List.of("a", "b"), Coin.BCH, true).blockingGet().stream()
+				.map(t -> t.getTransaction().getTxId())
+				.collect(Collectors.toList());
+		List<IndexerTransaction> involving = repository.fetchTransactionsInvolvingToken("token", TransactionCursor.after(tx("a").getTransaction())).blockingGet();
+
+		assertThat(valid, Matchers.contains("b"));
+		assertThat(involving.get(0).getTransaction().getSlpValid().get().getValid(), Matchers.is(Valid.INVALID));
+	}
+
+	private static IndexerTransaction tx(String txId) {
+		Address address = Address.create("133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY");
+		return IndexerTransaction.create(Transaction.create(txId,
+				List.of(Utxo.create(txId, address, "", BigDecimal.ONE, false, 0, false, Instant.ofEpochMilli(10), null, false, null)),
+				List.of(Input.unknownValue(address, 0, "parent", false, 1L)),
+				false,
+				BigDecimal.ZERO,
+				Instant.ofEpochMilli(10),
+				false,
+				null,
+				null,
+				List.of(),
+				SlpValid.unknown(),
+				"",
+				1,
+				1,
+				1,
+				null));
+	}
+
+	private static class RecordingRepository implements TransactionRepository {
+
+		private final List<List<IndexerTransaction>> writes = new ArrayList<>();
+		private final Map<String, IndexerTransaction> byId = new ConcurrentHashMap<>();
+
+		@Override
+		public Single<List<IndexerTransaction>> saveTransaction(List<IndexerTransaction> indexerTransaction) {
+			writes.add(indexerTransaction);
+			indexerTransaction.forEach(t -> byId.put(t.getTransaction().getTxId(), t));
+			return Single.just(indexerTransaction);
+		}
+
+		@Override
+		public Maybe<IndexerTransaction> fetchTransaction(String txId, Coin coin, boolean useCache) {
+			IndexerTransaction transaction = byId.get(txId);
+			return transaction == null ? Maybe.empty() : Maybe.just(transaction);
+		}
+
+		@Override
+		public Single<List<IndexerTransaction>> fetchTransactions(List<String> txIds, Coin coin, boolean useCache) {
+			return Single.just(txIds.stream().map(byId::get).filter(t -> t != null).collect(Collectors.toList()));
+		}
+
+		@Override
+		public Single<Map<String, SlpValid>> fetchValidity(List<String> txIds) {
+			Map<String, SlpValid> validity = new HashMap<>();
+			txIds.stream().filter(byId::containsKey)
+					.forEach(txId -> byId.get(txId).getTransaction().getSlpValid().ifPresent(valid -> validity.put(txId, valid)));
+			return Single.just(validity);
+		}
+
+		@Override
+		public Maybe<TransactionSlpData> fetchSlpData(String txId) {
+			return fetchTransaction(txId, Coin.BCH, true).map(e -> TransactionSlpData.fromTransaction(e.getTransaction()));
+		}
+
+		@Override
+		public Single<Map<String, TransactionSlpData>> fetchSlpData(List<String> txIds) {
+			Map<String, TransactionSlpData> slpData = new HashMap<>();
+			txIds.forEach(txId -> fetchSlpData(txId).subscribe(data -> slpData.put(txId, data)));
+			return Single.just(slpData);
+		}
+
+		@Override
+		public Single<List<IndexerTransaction>> fetchTransactionsInvolvingToken(String tokenId, boolean useCache, int page) {
+			return null;
+		}
+
+		@Override
+		public Single<List<IndexerTransaction>> fetchTransactionsInvolvingToken(String tokenId, TransactionCursor after) {
+			return Single.just(new ArrayList<>(byId.values()));
+		}
+
+		@Override
+		public Single<List<String>> fetchTransactionIdsByAddress(String address, Coin coin) {
+			return null;
+		}
+
+		@Override
+		public Single<List<IndexerTransaction>> fetchTransactions(Address address, Coin coin) {
+			return null;
+		}
+
+		@Override
+		public Single<List<IndexerTransaction>> fetchValidTransactions(List<String> txIds, Coin coin, boolean useCache) {
+			return Single.just(txIds.stream()
+					.map(byId::get)
+					.filter(Objects::nonNull)
+					.filter(t -> t.getTransaction().getSlpValid().map(v -> v.getValid() == Valid.VALID).orElse(false))
+					.collect(Collectors.toList()));
+		}
+
+		@Override
+		public Single<BigDecimal> transactionsForTokenId(String tokenId) {
+			return null;
+		}
+
+		@Override
+		public Single<Map<String, BigDecimal>> transactionsForTokenIds(List<String> tokenIds) {
+			return null;
+		}
+
+		@Override
+		public Flowable<IndexerTransaction> fetchTransactions(Integer height, String tokenId, int page, Coin coin) {
+			return null;
+		}
+
+		@Override
+		public Flowable<IndexerTransaction> fetchTransactions(Integer height, String tokenId, TransactionCursor after, Coin coin) {
+			return null;
+		}
+
+		@Override
+		public Completable handleReorg(List<IndexerTransaction> oldTxs) {
+			return null;
+		}
+	}
+}
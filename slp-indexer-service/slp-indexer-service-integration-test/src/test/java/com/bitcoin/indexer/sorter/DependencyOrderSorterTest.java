@@ -0,0 +1,63 @@
+package com.bitcoin.indexer.sorter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+
+public class DependencyOrderSorterTest {
+
+	@Test
+	public void parents_before_children() {
+		IndexerTransaction grandChild = tx("c", "b");
+		IndexerTransaction child = tx("b", "a");
+		IndexerTransaction unrelated = tx("x", "outside");
+		IndexerTransaction parent = tx("a", "outside");
+
+		List<IndexerTransaction> sorted = new DependencyOrderSorter(List.of(grandChild, unrelated, child, parent)).getSorted();
+
+		assertThat(txIds(sorted), Matchers.contains("x", "a", "b", "c"));
+	}
+
+	@Test
+	public void keeps_order_without_dependencies() {
+		List<IndexerTransaction> sorted = new DependencyOrderSorter(List.of(tx("b", "o1"), tx("a", "o2"), tx("c", "o3"))).getSorted();
+
+		assertThat(txIds(sorted), Matchers.contains("b", "a", "c"));
+	}
+
+	private static List<String> txIds(List<IndexerTransaction> transactions) {
+		return transactions.stream().map(t -> t.getTransaction().getTxId()).collect(Collectors.toList());
+	}
+
+	private static IndexerTransaction tx(String txId, String spends) {
+		Address address = Address.create("133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY");
+		return IndexerTransaction.create(Transaction.create(txId,
+				List.of(Utxo.confirmed(txId, address, "", BigDecimal.ONE, Instant.ofEpochMilli(10), 0, false, 1)),
+				List.of(Input.unknownValue(address, 0, spends, false, 1L)),
+				true,
+				BigDecimal.ZERO,
+				Instant.ofEpochMilli(10),
+				true,
+				null,
+				1,
+				List.of(),
+				null,
+				"",
+				1,
+				1,
+				1,
+				Instant.ofEpochMilli(20)));
+	}
+}
@@ -0,0 +1,87 @@
+package com.bitcoin.indexer.sorter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import com.bitcoin.indexer.blockchain.domain.Address;
+import com.bitcoin.indexer.blockchain.domain.IndexerTransaction;
+import com.bitcoin.indexer.blockchain.domain.Input;
+import com.bitcoin.indexer.blockchain.domain.Transaction;
+import com.bitcoin.indexer.blockchain.domain.Utxo;
+import com.bitcoin.indexer.blockchain.domain.slp.SlpOpReturn;
+
+public class TokenPartitionerTest {
+
+	private static final String FIRST_TOKEN = "1111111111111111111111111111111111111111111111111111111111111111";
+	private static final String SECOND_TOKEN = "2222222222222222222222222222222222222222222222222222222222222222";
+	private static final String GROUP_TOKEN = "8181818181818181818181818181818181818181818181818181818181818181";
+	private static final String CHILD_GENESIS = "4141414141414141414141414141414141414141414141414141414141414141";
+
+	@Test
+	public void tokens_are_partitioned_in_dependency_order() {
+		IndexerTransaction firstChild = tx("a2", "a1", send("01", FIRST_TOKEN));
+		IndexerTransaction first = tx("a1", "outside", send("01", FIRST_TOKEN));
+		IndexerTransaction second = tx("b1", "outside", send("01", SECOND_TOKEN));
+		IndexerTransaction plain = tx("p1", "outside", null);
+
+		List<List<IndexerTransaction>> partitions = new TokenPartitioner(List.of(firstChild, second, plain, first)).getPartitions();
+
+		assertThat(partitions.size(), Matchers.is(2));
+		assertThat(txIds(partitions.get(0)), Matchers.contains("a1", "a2"));
+		assertThat(txIds(partitions.get(1)), Matchers.contains("b1"));
+	}
+
+	@Test
+	public void nft_children_created_in_the_batch_share_the_group_partition() {
+		IndexerTransaction groupSend = tx("g1", "outside", send("81", GROUP_TOKEN));
+		IndexerTransaction childGenesis = tx(CHILD_GENESIS, "g1", childGenesis());
+		IndexerTransaction childSend = tx("c1", CHILD_GENESIS, send("41", CHILD_GENESIS));
+		IndexerTransaction unrelated = tx("b1", "outside", send("01", SECOND_TOKEN));
+
+		List<List<IndexerTransaction>> partitions = new TokenPartitioner(List.of(childSend, unrelated, childGenesis, groupSend)).getPartitions();
+
+		assertThat(partitions.size(), Matchers.is(2));
+		assertThat(txIds(partitions.get(0)), Matchers.contains("g1", CHILD_GENESIS, "c1"));
+		assertThat(txIds(partitions.get(1)), Matchers.contains("b1"));
+	}
+
+	private static List<String> txIds(List<IndexerTransaction> transactions) {
+		return transactions.stream().map(t -> t.getTransaction().getTxId()).collect(Collectors.toList());
+	}
+
+	private static String send(String tokenType, String tokenId) {
+		return "6a04534c500001" + tokenType + "0453454e4420" + tokenId + "080000000000000001";
+	}
+
+	private static String childGenesis() {
+		return "6a04534c500001410747454e455349534c004c004c004c000100" + "4c00" + "080000000000000001";
+	}
+
+	private static IndexerTransaction tx(String txId, String spends, String script) {
+		Address address = Address.create("133fZZzNNbHL5VSuCWrUkLW2oL9ZPJELbY");
+		List<SlpOpReturn> slpOpReturn = script == null ? List.of() : List.of(SlpOpReturn.Companion.tryParse(txId, script));
+		return IndexerTransaction.create(Transaction.create(txId,
+				List.of(Utxo.confirmed(txId, address, "", BigDecimal.ONE, Instant.ofEpochMilli(10), 0, false, 1)),
+				List.of(Input.unknownValue(address, 1, spends, false, 1L)),
+				true,
+				BigDecimal.ZERO,
+				Instant.ofEpochMilli(10),
+				true,
+				null,
+				1,
+				slpOpReturn,
+				null,
+				"",
+				1,
+				1,
+				1,
+				Instant.ofEpochMilli(20)));
+	}
+}
@@ -0,0 +1,83 @@
+package com.bitcoin.indexer.zeromq;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.bitcoinj.core.BitcoinSerializer;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.params.MainNetParams;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.spongycastle.util.encoders.Hex;
+import org.zeromq.SocketType;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ.Socket;
+
+import com.bitcoin.indexer.zeromq.ZeroMqClientImpl.ZeroMqSubscription;
+
+import io.micrometer.core.instrument.util.IOUtils;
+
+public class ZeroMqClientImplTest {
+
+	@Test
+	public void receives_rawtx_and_rawblock_topics() throws Exception {
+		String rawBlock = IOUtils.toString(ZeroMqClientImplTest.class.getClassLoader().getResourceAsStream("rawblock.txt"), StandardCharsets.UTF_8);
+		Context.getOrCreate(MainNetParams.get());
+		Block block = new BitcoinSerializer(MainNetParams.get(), false).makeBlock(Hex.decode(rawBlock));
+		Transaction tx = block.getTransactions().get(1);
+
+		List<Block> blocks = new CopyOnWriteArrayList<>();
+		List<Transaction> txs = new CopyOnWriteArrayList<>();
+		ZeroMqSubscription subscription = new ZeroMqSubscription() {
+			@Override
+			public void block(Block b) {
+				blocks.add(b);
+			}
+
+			@Override
+			public void transaction(Transaction t) {
+				txs.add(t);
+			}
+		};
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try (ZContext context = new ZContext()) {
+			Socket publisher = context.createSocket(SocketType.PUB);
+			int port = publisher.bindToRandomPort("tcp://127.0.0.1");
+			ZeroMqClientImpl client = new ZeroMqClientImpl("127.0.0.1", port, MainNetParams.get(), subscription, 100);
+			executor.execute(client);
+
+			// Subscriptions propagate asynchronously, keep publishing like a node would until the client has caught up
+			long deadline = System.currentTimeMillis() + 10000;
+			int sequence = 0;
+			while ((blocks.isEmpty() || txs.isEmpty()) && System.currentTimeMillis() < deadline) {
+				publish(publisher, "rawtx", tx.bitcoinSerialize(), sequence);
+				publish(publisher, "hashtx", tx.getHash().getBytes(), sequence);
+				publish(publisher, "rawblock", block.bitcoinSerialize(), sequence++);
+				Thread.sleep(50);
+			}
+			client.destroy();
+		}
+		executor.shutdown();
+
+		assertThat(executor.awaitTermination(5, TimeUnit.SECONDS), Matchers.is(true));
+		assertThat(txs, Matchers.not(Matchers.empty()));
+		assertThat(txs.get(0).getHash(), Matchers.is(tx.getHash()));
+		assertThat(blocks, Matchers.not(Matchers.empty()));
+		assertThat(blocks.get(0).getHash(), Matchers.is(block.getHash()));
+	}
+
+	private static void publish(Socket publisher, String topic, byte[] body, int sequence) {
+		publisher.sendMore(topic);
+		publisher.sendMore(body);
+		publisher.send(new byte[] { (byte) sequence, 0, 0, 0 });
+	}
+}